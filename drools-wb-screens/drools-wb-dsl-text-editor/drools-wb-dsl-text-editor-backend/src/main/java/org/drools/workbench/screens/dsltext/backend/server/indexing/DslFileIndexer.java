@@ -28,15 +28,14 @@ import org.drools.compiler.lang.dsl.DSLMappingEntry;
 import org.drools.compiler.lang.dsl.DSLTokenizedMappingFile;
 import org.drools.workbench.models.datamodel.oracle.ProjectDataModelOracle;
 import org.drools.workbench.screens.dsltext.type.DSLResourceTypeDefinition;
+import org.drools.workbench.screens.indexing.backend.server.IndexingContext;
 import org.guvnor.common.services.project.model.Package;
 import org.guvnor.common.services.project.model.Project;
-import org.kie.workbench.common.services.datamodel.backend.server.service.DataModelService;
 import org.kie.workbench.common.services.refactoring.backend.server.indexing.DefaultIndexBuilder;
 import org.kie.workbench.common.services.refactoring.backend.server.indexing.PackageDescrIndexVisitor;
 import org.kie.workbench.common.services.refactoring.backend.server.util.KObjectUtil;
 import org.kie.workbench.common.services.refactoring.model.index.IndexElementsGenerator;
 import org.kie.workbench.common.services.refactoring.model.index.Rule;
-import org.kie.workbench.common.services.shared.project.KieProjectService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uberfire.backend.server.util.Paths;
@@ -56,10 +55,7 @@ public class DslFileIndexer implements Indexer {
     protected IOService ioService;
 
     @Inject
-    private DataModelService dataModelService;
-
-    @Inject
-    protected KieProjectService projectService;
+    protected IndexingContext indexingContext;
 
     @Inject
     protected DSLResourceTypeDefinition dslType;
@@ -103,8 +99,8 @@ public class DslFileIndexer implements Indexer {
                     return index;
                 }
 
-                final Project project = projectService.resolveProject( Paths.convert( path ) );
-                final Package pkg = projectService.resolvePackage( Paths.convert( path ) );
+                final Project project = indexingContext.resolveProject( path );
+                final Package pkg = indexingContext.resolvePackage( path );
 
                 //Don't include rules created to parse DSL
                 final DefaultIndexBuilder builder = new DefaultIndexBuilder( project,
@@ -140,12 +136,12 @@ public class DslFileIndexer implements Indexer {
 
     //Delegate resolution of package name to method to assist testing
     protected String getPackageName( final Path path ) {
-        return projectService.resolvePackage( Paths.convert( path ) ).getPackageName();
+        return indexingContext.resolvePackage( path ).getPackageName();
     }
 
     //Delegate resolution of DMO to method to assist testing
     protected ProjectDataModelOracle getProjectDataModelOracle( final Path path ) {
-        return dataModelService.getProjectDataModel( Paths.convert( path ) );
+        return indexingContext.getProjectDataModel( path );
     }
 
     private String makeDrl( final Path path,
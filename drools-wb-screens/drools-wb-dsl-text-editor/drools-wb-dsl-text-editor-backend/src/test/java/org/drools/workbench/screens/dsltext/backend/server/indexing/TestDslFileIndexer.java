@@ -24,6 +24,7 @@ import org.drools.workbench.models.datamodel.oracle.FieldAccessorsAndMutators;
 import org.drools.workbench.models.datamodel.oracle.ModelField;
 import org.drools.workbench.models.datamodel.oracle.ProjectDataModelOracle;
 import org.drools.workbench.screens.dsltext.type.DSLResourceTypeDefinition;
+import org.drools.workbench.screens.indexing.backend.server.IndexingContext;
 import org.kie.workbench.common.services.refactoring.backend.server.TestIndexer;
 import org.kie.workbench.common.services.shared.project.KieProjectService;
 import org.uberfire.io.IOService;
@@ -42,7 +43,8 @@ public class TestDslFileIndexer extends DslFileIndexer implements TestIndexer<DS
 
     @Override
     public void setProjectService( final KieProjectService projectService ) {
-        this.projectService = projectService;
+        this.indexingContext = new IndexingContext( projectService,
+                                                    null );
     }
 
     @Override
@@ -16,6 +16,8 @@
 
 package org.drools.workbench.screens.dtablexls.service;
 
+import java.util.List;
+
 import org.drools.workbench.models.guided.dtable.shared.conversion.ConversionResult;
 import org.uberfire.backend.vfs.Path;
 
@@ -23,4 +25,13 @@ public interface DecisionTableXLSConversionService {
 
     ConversionResult convert( final Path path );
 
+    /**
+     * Convert multiple XLS Decision Tables. Spreadsheets are parsed concurrently and the resulting assets are
+     * written, in a single batch, once parsing is complete. A failure to convert one spreadsheet does not prevent
+     * the others being converted.
+     * @param paths
+     * @return Combined result of all conversions
+     */
+    ConversionResult convert( final List<Path> paths );
+
 }
@@ -30,12 +30,7 @@ import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.ss.usermodel.WorkbookFactory;
-import org.drools.decisiontable.InputType;
-import org.drools.decisiontable.SpreadsheetCompiler;
-import org.drools.template.parser.DecisionTableParseException;
+import org.apache.commons.io.input.TeeInputStream;
 import org.drools.workbench.models.guided.dtable.shared.conversion.ConversionResult;
 import org.drools.workbench.screens.dtablexls.service.DecisionTableXLSContent;
 import org.drools.workbench.screens.dtablexls.service.DecisionTableXLSConversionService;
@@ -103,6 +98,9 @@ public class DecisionTableXLSServiceImpl
     @Inject
     private GenericValidator genericValidator;
 
+    @Inject
+    private DecisionTableXLSSourceCache sourceCache;
+
     @Override
     public DecisionTableXLSContent loadContent( final Path path ) {
         return super.loadContent(path);
@@ -152,37 +150,33 @@ public class DecisionTableXLSServiceImpl
                         final String comment ) {
         log.info( "USER:" + identity.getIdentifier() + " CREATING asset [" + resource.getFileName() + "]" );
 
+        File tempFile = null;
         try {
-
-            File tempFile = File.createTempFile( "testxls", null );
-            FileOutputStream tempFOS = new FileOutputStream( tempFile );
-            IOUtils.copy( content, tempFOS );
-            tempFOS.flush();
-            tempFOS.close();
-
-            //Validate the xls
+            //Validate the xls whilst spooling it to a temporary file, so the upload is only read once
+            tempFile = File.createTempFile( "testxls", null );
+            final OutputStream tempFOS = new FileOutputStream( tempFile );
             try {
-                Workbook workbook = WorkbookFactory.create( new FileInputStream( tempFile ) );
-            } catch ( InvalidFormatException e ) {
-                throw new DecisionTableParseException( "DecisionTableParseException: An error occurred opening the workbook. It is possible that the encoding of the document did not match the encoding of the reader.",
-                                                       e );
-            } catch ( IOException e ) {
-                throw new DecisionTableParseException( "DecisionTableParseException: Failed to open Excel stream, " + "please check that the content is xls97 format.",
-                                                       e );
-            } catch ( Throwable e ) {
-                throw new DecisionTableParseException( "DecisionTableParseException: " + e.getMessage(),
-                                                       e );
+                DecisionTableXLSStreamValidator.validate( new TeeInputStream( content,
+                                                                              tempFOS ) );
+            } finally {
+                tempFOS.close();
             }
 
+            //Only valid content is written, as the VFS commits the file when the OutputStream is closed
             final org.uberfire.java.nio.file.Path nioPath = Paths.convert( resource );
             ioService.createFile( nioPath );
-            final OutputStream outputStream = ioService.newOutputStream( nioPath,
-                                                                         makeCommentedOption( sessionId,
-                                                                                              comment ) );
-            IOUtils.copy( new FileInputStream( tempFile ),
-                          outputStream );
-            outputStream.flush();
-            outputStream.close();
+            final InputStream tempFIS = new FileInputStream( tempFile );
+            try {
+                final OutputStream outputStream = ioService.newOutputStream( nioPath,
+                                                                             makeCommentedOption( sessionId,
+                                                                                                  comment ) );
+                IOUtils.copy( tempFIS,
+                              outputStream );
+                outputStream.flush();
+                outputStream.close();
+            } finally {
+                tempFIS.close();
+            }
 
             //Read Path to ensure attributes have been set
             final Path newPath = Paths.convert( nioPath );
@@ -195,6 +189,9 @@ public class DecisionTableXLSServiceImpl
             throw ExceptionUtilities.handleException( e );
 
         } finally {
+            if ( tempFile != null ) {
+                tempFile.delete();
+            }
             try {
                 content.close();
             } catch ( IOException e ) {
@@ -241,25 +238,11 @@ public class DecisionTableXLSServiceImpl
 
     @Override
     public String getSource( final Path path ) {
-        InputStream inputStream = null;
         try {
-            final SpreadsheetCompiler compiler = new SpreadsheetCompiler();
-            inputStream = ioService.newInputStream( Paths.convert( path ),
-                                                    StandardOpenOption.READ );
-            final String drl = compiler.compile( inputStream,
-                                                 InputType.XLS );
-            return drl;
+            return sourceCache.getSource( Paths.convert( path ) );
 
         } catch (Exception e) {
             throw new SourceGenerationFailedException(e.getMessage());
-        } finally {
-            if ( inputStream != null ) {
-                try {
-                    inputStream.close();
-                } catch ( IOException ioe ) {
-                    //Swallow
-                }
-            }
         }
     }
 
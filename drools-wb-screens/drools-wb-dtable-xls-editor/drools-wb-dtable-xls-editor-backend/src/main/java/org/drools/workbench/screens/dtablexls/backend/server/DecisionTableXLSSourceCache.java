@@ -0,0 +1,182 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.dtablexls.backend.server;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.apache.commons.io.IOUtils;
+import org.drools.decisiontable.parser.DefaultRuleSheetListener;
+import org.drools.template.model.DRLOutput;
+import org.drools.template.parser.DataListener;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.StandardOpenOption;
+
+/**
+ * Cache of the DRL generated from XLS Decision Tables, keyed on a hash of the spreadsheet's content. The spreadsheet
+ * is read once, being hashed as it is read, and the DRL is only generated if no asset has had the same content; so
+ * copies, renames and restores of a spreadsheet also share the DRL. The size and last modified time are not used to
+ * detect changes since an edited XLS Workbook is commonly the same size, being padded to whole sectors, and can be
+ * written within the resolution of the last modified time. The least recently used DRL is evicted once the cached
+ * DRL exceeds a total size.
+ */
+@ApplicationScoped
+public class DecisionTableXLSSourceCache {
+
+    //Maximum total length of the cached DRL, in characters
+    static final int MAX_CACHED_CHARACTERS = 16 * 1024 * 1024;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    //DRL keyed on the content hash
+    private final LinkedHashMap<String, String> sources = new LinkedHashMap<String, String>( 16,
+                                                                                             0.75f,
+                                                                                             true );
+
+    private IOService ioService;
+
+    private int maxCachedCharacters;
+
+    private long cachedCharacters = 0;
+
+    public DecisionTableXLSSourceCache() {
+        //CDI proxy
+    }
+
+    @Inject
+    public DecisionTableXLSSourceCache( @Named("ioStrategy") final IOService ioService ) {
+        this( ioService,
+              MAX_CACHED_CHARACTERS );
+    }
+
+    DecisionTableXLSSourceCache( final IOService ioService,
+                                 final int maxCachedCharacters ) {
+        this.ioService = ioService;
+        this.maxCachedCharacters = maxCachedCharacters;
+    }
+
+    /**
+     * Get the DRL for an XLS Decision Table, generating it only if the content has not been seen before
+     * @param path
+     * @return
+     * @throws IOException
+     */
+    public String getSource( final Path path ) throws IOException {
+        //Spool the content to a temporary file, hashing it as it is read, so the VFS is read only once
+        final MessageDigest digest = digest();
+        final File file = File.createTempFile( "drools-wb-dtable-xls",
+                                               null );
+        try {
+            final InputStream inputStream = new DigestInputStream( ioService.newInputStream( path,
+                                                                                             StandardOpenOption.READ ),
+                                                                   digest );
+            try {
+                final OutputStream outputStream = new FileOutputStream( file );
+                try {
+                    IOUtils.copy( inputStream,
+                                  outputStream );
+                } finally {
+                    outputStream.close();
+                }
+            } finally {
+                inputStream.close();
+            }
+
+            final String hash = toHex( digest.digest() );
+            synchronized ( this ) {
+                final String drl = sources.get( hash );
+                if ( drl != null ) {
+                    return drl;
+                }
+            }
+
+            final String drl = generateSource( file );
+            putSource( hash,
+                       drl );
+            return drl;
+
+        } finally {
+            file.delete();
+        }
+    }
+
+    //Equivalent to SpreadsheetCompiler.compile(), however XLSX Workbooks are parsed as a stream
+    private String generateSource( final File file ) {
+        final DefaultRuleSheetListener listener = new DefaultRuleSheetListener();
+        final List<DataListener> listeners = new ArrayList<DataListener>();
+        listeners.add( listener );
+        new StreamingExcelParser( listeners ).parseFile( file );
+
+        final DRLOutput out = new DRLOutput();
+        listener.getRuleSet().renderDRL( out );
+        return out.getDRL();
+    }
+
+    //DRL larger than the cache is not kept
+    private synchronized void putSource( final String hash,
+                                         final String drl ) {
+        if ( drl == null || drl.length() > maxCachedCharacters ) {
+            return;
+        }
+        final String previous = sources.put( hash,
+                                             drl );
+        if ( previous != null ) {
+            cachedCharacters = cachedCharacters - previous.length();
+        }
+        cachedCharacters = cachedCharacters + drl.length();
+
+        final Iterator<Map.Entry<String, String>> itr = sources.entrySet().iterator();
+        while ( cachedCharacters > maxCachedCharacters && itr.hasNext() ) {
+            cachedCharacters = cachedCharacters - itr.next().getValue().length();
+            itr.remove();
+        }
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance( "SHA-1" );
+        } catch ( NoSuchAlgorithmException e ) {
+            //Every Java platform is required to support SHA-1
+            throw new IllegalStateException( e );
+        }
+    }
+
+    private static String toHex( final byte[] bytes ) {
+        final char[] chars = new char[ bytes.length * 2 ];
+        for ( int i = 0; i < bytes.length; i++ ) {
+            chars[ i * 2 ] = HEX[ ( bytes[ i ] >> 4 ) & 0xf ];
+            chars[ i * 2 + 1 ] = HEX[ bytes[ i ] & 0xf ];
+        }
+        return new String( chars );
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.dtablexls.backend.server;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.drools.workbench.screens.dtablexls.service.DecisionTableXLSContent;
+import org.drools.workbench.screens.dtablexls.type.DecisionTableXLSResourceTypeDefinition;
+import org.kie.workbench.common.services.backend.source.BaseSourceService;
+import org.kie.workbench.common.services.shared.source.SourceGenerationFailedException;
+import org.uberfire.java.nio.file.Path;
+
+/**
+ * Provides the DRL of XLS Decision Tables to SourceServices, so that building a project uses the cached DRL
+ */
+@ApplicationScoped
+public class DecisionTableXLSSourceService
+        extends BaseSourceService<DecisionTableXLSContent> {
+
+    @Inject
+    private DecisionTableXLSResourceTypeDefinition resourceType;
+
+    @Inject
+    private DecisionTableXLSSourceCache sourceCache;
+
+    @Override
+    public String getPattern() {
+        return resourceType.getSuffix();
+    }
+
+    @Override
+    public String getSource( final Path path,
+                             final DecisionTableXLSContent model ) throws SourceGenerationFailedException {
+        //The DRL depends only upon the spreadsheet, which the content does not hold
+        return getSource( path );
+    }
+
+    @Override
+    public String getSource( final Path path ) throws SourceGenerationFailedException {
+        try {
+            return sourceCache.getSource( path );
+
+        } catch ( Exception e ) {
+            throw new SourceGenerationFailedException( e.getMessage() );
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.dtablexls.backend.server;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.poi.POIXMLDocument;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.drools.template.parser.DecisionTableParseException;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Validates XLS and XLSX Decision Tables from a stream, without building POI's object model of the Workbook.
+ * XLSX content is checked with a SAX parse of the Workbook, Worksheet and Shared String parts as they are read
+ * from the stream, so memory use is constant. XLS content is checked by reading its records with HSSF's event
+ * model; the OLE2 container is buffered, however XLS Workbooks are limited in size by the format itself.
+ * The stream is always read to its end, so it can be teed elsewhere whilst being validated.
+ */
+public class DecisionTableXLSStreamValidator {
+
+    private static final String WORKBOOK_PART = "xl/workbook.xml";
+    private static final String WORKSHEETS_FOLDER = "xl/worksheets/";
+    private static final String SHARED_STRINGS_PART = "xl/sharedStrings.xml";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private DecisionTableXLSStreamValidator() {
+    }
+
+    /**
+     * Validate the content of a stream as an XLS or XLSX Workbook. The stream is not closed.
+     * @param inputStream
+     * @throws DecisionTableParseException if the content is not a valid Workbook
+     */
+    public static void validate( final InputStream inputStream ) {
+        try {
+            //Detecting the format requires mark() and reset()
+            final InputStream is = new BufferedInputStream( new CloseShieldInputStream( inputStream ) );
+            if ( POIFSFileSystem.hasPOIFSHeader( is ) ) {
+                validateXLS( is );
+            } else if ( POIXMLDocument.hasOOXMLHeader( is ) ) {
+                validateXLSX( is );
+            } else {
+                throw new IOException( "Content is neither an OLE2 nor an OOXML document." );
+            }
+            drain( is );
+
+        } catch ( InvalidFormatException e ) {
+            throw new DecisionTableParseException( "DecisionTableParseException: An error occurred opening the workbook. It is possible that the encoding of the document did not match the encoding of the reader.",
+                                                   e );
+        } catch ( SAXException e ) {
+            throw new DecisionTableParseException( "DecisionTableParseException: An error occurred opening the workbook. It is possible that the encoding of the document did not match the encoding of the reader.",
+                                                   e );
+        } catch ( IOException e ) {
+            throw new DecisionTableParseException( "DecisionTableParseException: Failed to open Excel stream, " + "please check that the content is xls97 format.",
+                                                   e );
+        } catch ( Throwable e ) {
+            throw new DecisionTableParseException( "DecisionTableParseException: " + e.getMessage(),
+                                                   e );
+        }
+    }
+
+    private static void validateXLS( final InputStream is ) throws IOException {
+        final POIFSFileSystem fs = new POIFSFileSystem( is );
+        final HSSFRequest request = new HSSFRequest();
+        request.addListenerForAllRecords( new HSSFListener() {
+            @Override
+            public void processRecord( final Record record ) {
+                //Records are only read to check they can be parsed
+            }
+        } );
+        new HSSFEventFactory().processWorkbookEvents( request,
+                                                      fs );
+    }
+
+    private static void validateXLSX( final InputStream is ) throws Exception {
+        final SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware( true );
+        factory.setFeature( "http://apache.org/xml/features/disallow-doctype-decl",
+                            true );
+        final SAXParser parser = factory.newSAXParser();
+        final DefaultHandler handler = new DefaultHandler();
+
+        boolean hasWorkbook = false;
+        final ZipInputStream zis = new ZipInputStream( is );
+        ZipEntry entry;
+        while ( ( entry = zis.getNextEntry() ) != null ) {
+            final String name = entry.getName();
+            if ( name.equals( WORKBOOK_PART ) || name.equals( SHARED_STRINGS_PART ) || name.startsWith( WORKSHEETS_FOLDER ) ) {
+                //SAXParser closes the stream it has parsed, however further entries need to be read
+                parser.parse( new CloseShieldInputStream( zis ),
+                              handler );
+                hasWorkbook = hasWorkbook || name.equals( WORKBOOK_PART );
+            }
+            zis.closeEntry();
+        }
+        if ( !hasWorkbook ) {
+            throw new InvalidFormatException( "Package does not contain a Workbook." );
+        }
+    }
+
+    private static void drain( final InputStream is ) throws IOException {
+        final byte[] buffer = new byte[ BUFFER_SIZE ];
+        while ( is.read( buffer ) != -1 ) {
+            //Swallow
+        }
+    }
+
+}
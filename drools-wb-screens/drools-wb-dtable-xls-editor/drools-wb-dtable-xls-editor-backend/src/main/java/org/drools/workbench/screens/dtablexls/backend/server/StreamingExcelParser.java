@@ -0,0 +1,530 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.dtablexls.backend.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.poi.POIXMLDocument;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.drools.decisiontable.parser.xls.ExcelParser;
+import org.drools.template.parser.DataListener;
+import org.drools.template.parser.DecisionTableParseException;
+import org.drools.template.parser.DecisionTableParser;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * A DecisionTableParser that reads XLSX Workbooks with a SAX parse of each Worksheet, rather than building POI's
+ * object model of the whole Workbook. Cells are passed to the DataListeners with the same values, row and column
+ * numbers and merged cell handling as ExcelParser; formulae are not evaluated and their cached values are used
+ * instead. Workbooks read from a stream are copied to a temporary file, as POI opens a file a part at a time but
+ * reads every part of a stream into memory. Each Worksheet is parsed once; as merged regions follow the cells,
+ * the cells are spooled to a temporary file and passed to the DataListeners once the merged regions are known.
+ * Only one row of cells is held in memory at a time. XLS Workbooks are passed to ExcelParser.
+ */
+public class StreamingExcelParser implements DecisionTableParser {
+
+    private static final String SPREADSHEETML_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+
+    private final List<DataListener> listeners;
+    private final Map<String, List<DataListener>> sheetListeners;
+
+    /**
+     * Parse the first Worksheet of a Workbook
+     * @param listeners
+     */
+    public StreamingExcelParser( final List<DataListener> listeners ) {
+        this.listeners = listeners;
+        this.sheetListeners = null;
+    }
+
+    /**
+     * Parse the named Worksheets of a Workbook
+     * @param sheetListeners DataListeners keyed on Worksheet name
+     */
+    public StreamingExcelParser( final Map<String, List<DataListener>> sheetListeners ) {
+        this.listeners = null;
+        this.sheetListeners = sheetListeners;
+    }
+
+    @Override
+    public void parseFile( final InputStream inStream ) {
+        //Detecting the format requires mark() and reset()
+        final InputStream is = new BufferedInputStream( inStream );
+        try {
+            if ( !POIXMLDocument.hasOOXMLHeader( is ) ) {
+                makeExcelParser().parseFile( is );
+                return;
+            }
+            final File file = copyToTempFile( is );
+            try {
+                parseXLSX( file );
+            } finally {
+                file.delete();
+            }
+
+        } catch ( DecisionTableParseException e ) {
+            throw e;
+        } catch ( IOException e ) {
+            throw new DecisionTableParseException( "Failed to open Excel stream, " + "please check that the content is xls97 format.",
+                                                   e );
+        } catch ( Exception e ) {
+            throw new DecisionTableParseException( "An error occurred opening the workbook. It is possible that the encoding of the document did not match the encoding of the reader.",
+                                                   e );
+        }
+    }
+
+    @Override
+    public void parseFile( final File file ) {
+        try {
+            final InputStream is = new BufferedInputStream( new FileInputStream( file ) );
+            final boolean isXLSX;
+            try {
+                isXLSX = POIXMLDocument.hasOOXMLHeader( is );
+            } finally {
+                is.close();
+            }
+            if ( !isXLSX ) {
+                makeExcelParser().parseFile( file );
+                return;
+            }
+            parseXLSX( file );
+
+        } catch ( DecisionTableParseException e ) {
+            throw e;
+        } catch ( IOException e ) {
+            throw new DecisionTableParseException( "An error occurred opening the file: " + file.getName(),
+                                                   e );
+        } catch ( Exception e ) {
+            throw new DecisionTableParseException( "An error occurred opening the workbook. It is possible that the encoding of the document did not match the encoding of the reader.",
+                                                   e );
+        }
+    }
+
+    private ExcelParser makeExcelParser() {
+        if ( listeners != null ) {
+            return new ExcelParser( listeners );
+        }
+        return new ExcelParser( sheetListeners );
+    }
+
+    private File copyToTempFile( final InputStream is ) throws IOException {
+        final File file = File.createTempFile( "drools-wb-dtable-xls",
+                                               ".xlsx" );
+        try {
+            final OutputStream os = new FileOutputStream( file );
+            try {
+                final byte[] buffer = new byte[ 8192 ];
+                int length;
+                while ( ( length = is.read( buffer ) ) != -1 ) {
+                    os.write( buffer,
+                              0,
+                              length );
+                }
+            } finally {
+                os.close();
+            }
+        } catch ( IOException e ) {
+            file.delete();
+            throw e;
+        }
+        return file;
+    }
+
+    private void parseXLSX( final File file ) throws Exception {
+        final OPCPackage pkg = OPCPackage.open( file.getPath(),
+                                                PackageAccess.READ );
+        try {
+            final XSSFReader reader = new XSSFReader( pkg );
+            final ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable( pkg );
+            final StylesTable styles = reader.getStylesTable();
+
+            final SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware( true );
+            final SAXParser parser = factory.newSAXParser();
+
+            final Set<String> sheetsFound = new HashSet<String>();
+            final XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while ( sheets.hasNext() ) {
+                final InputStream sheet = sheets.next();
+                try {
+                    final String sheetName = sheets.getSheetName();
+                    final List<DataListener> listenersForSheet = getListeners( sheetName,
+                                                                               sheetsFound.isEmpty() );
+                    if ( listenersForSheet == null ) {
+                        continue;
+                    }
+                    sheetsFound.add( sheetName );
+                    parseSheet( parser,
+                                sheet,
+                                sheetName,
+                                listenersForSheet,
+                                strings,
+                                styles );
+                } finally {
+                    sheet.close();
+                }
+            }
+
+            if ( sheetListeners != null ) {
+                for ( String sheetName : sheetListeners.keySet() ) {
+                    if ( !sheetsFound.contains( sheetName ) ) {
+                        throw new IllegalStateException( "Could not find the sheetName (" + sheetName + ") in the workbook sheetNames." );
+                    }
+                }
+            }
+        } finally {
+            pkg.revert();
+        }
+    }
+
+    private void parseSheet( final SAXParser parser,
+                             final InputStream sheet,
+                             final String sheetName,
+                             final List<DataListener> listeners,
+                             final ReadOnlySharedStringsTable strings,
+                             final StylesTable styles ) throws Exception {
+        final CellSpool spool = new CellSpool();
+        try {
+            final SheetHandler handler = new SheetHandler( spool,
+                                                           strings,
+                                                           styles );
+            parser.parse( sheet,
+                          handler );
+            new RowEmitter( sheetName,
+                            listeners,
+                            handler.mergedRanges ).emit( spool );
+        } finally {
+            spool.delete();
+        }
+    }
+
+    private List<DataListener> getListeners( final String sheetName,
+                                             final boolean isFirstSheet ) {
+        if ( listeners != null ) {
+            return ( isFirstSheet ? listeners : null );
+        }
+        return sheetListeners.get( sheetName );
+    }
+
+    //Cells of a Worksheet, and the ends of its rows, in the order they were read
+    private static class CellSpool {
+
+        private static final int CELL = 0;
+        private static final int ROW_END = 1;
+
+        private final File file;
+        private final DataOutputStream out;
+
+        private CellSpool() throws IOException {
+            this.file = File.createTempFile( "drools-wb-dtable-xls",
+                                             ".cells" );
+            this.out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( file ) ) );
+        }
+
+        private void writeCell( final int row,
+                                final int column,
+                                final String value ) throws IOException {
+            //Cells may hold more text than DataOutputStream.writeUTF() allows
+            final byte[] bytes = value.getBytes( "UTF-8" );
+            out.writeByte( CELL );
+            out.writeInt( row );
+            out.writeInt( column );
+            out.writeInt( bytes.length );
+            out.write( bytes );
+        }
+
+        private void writeRowEnd( final int row ) throws IOException {
+            out.writeByte( ROW_END );
+            out.writeInt( row );
+        }
+
+        private DataInputStream read() throws IOException {
+            out.close();
+            return new DataInputStream( new BufferedInputStream( new FileInputStream( file ) ) );
+        }
+
+        private void delete() {
+            try {
+                out.close();
+            } catch ( IOException e ) {
+                //The spool is discarded
+            }
+            file.delete();
+        }
+
+    }
+
+    //Passes the spooled cells of a Worksheet to the DataListeners, a row at a time
+    private static class RowEmitter {
+
+        private final String sheetName;
+        private final List<DataListener> listeners;
+        private final List<CellRangeAddress> mergedRanges;
+        private final String[] mergedValues;
+
+        //Next row to be passed to the listeners
+        private int nextRow = 0;
+
+        //Current row
+        private int row = -1;
+        private final List<Integer> cellColumns = new ArrayList<Integer>();
+        private final List<String> cellValues = new ArrayList<String>();
+        private final List<Integer> cellMergedColStarts = new ArrayList<Integer>();
+
+        private RowEmitter( final String sheetName,
+                            final List<DataListener> listeners,
+                            final List<CellRangeAddress> mergedRanges ) {
+            this.sheetName = sheetName;
+            this.listeners = listeners;
+            this.mergedRanges = mergedRanges;
+            this.mergedValues = new String[ mergedRanges.size() ];
+        }
+
+        private void emit( final CellSpool spool ) throws IOException {
+            for ( DataListener listener : listeners ) {
+                listener.startSheet( sheetName );
+            }
+            final DataInputStream in = spool.read();
+            try {
+                int type;
+                while ( ( type = in.read() ) != -1 ) {
+                    row = in.readInt();
+                    if ( type == CellSpool.CELL ) {
+                        final int column = in.readInt();
+                        final byte[] bytes = new byte[ in.readInt() ];
+                        in.readFully( bytes );
+                        addCell( column,
+                                 new String( bytes,
+                                             "UTF-8" ) );
+                    } else if ( type == CellSpool.ROW_END ) {
+                        flushRow();
+                    } else {
+                        throw new IOException( "Corrupt cell spool." );
+                    }
+                }
+            } finally {
+                in.close();
+            }
+            for ( DataListener listener : listeners ) {
+                listener.finishSheet();
+            }
+        }
+
+        private void addCell( final int column,
+                              final String value ) {
+            int mergedColStart = DataListener.NON_MERGED;
+            String cellValue = value;
+            for ( int i = 0; i < mergedRanges.size(); i++ ) {
+                final CellRangeAddress range = mergedRanges.get( i );
+                if ( range.isInRange( row,
+                                      column ) ) {
+                    //Cells within a merged region all have the value of the region's top-left cell
+                    if ( row == range.getFirstRow() && column == range.getFirstColumn() ) {
+                        mergedValues[ i ] = value;
+                    }
+                    cellValue = ( mergedValues[ i ] == null ? "" : mergedValues[ i ] );
+                    mergedColStart = range.getFirstColumn();
+                    break;
+                }
+            }
+            cellColumns.add( column );
+            cellValues.add( cellValue );
+            cellMergedColStarts.add( mergedColStart );
+        }
+
+        private void flushRow() {
+            //Rows without cells are omitted from Worksheets but ExcelParser reports them as empty rows
+            for ( ; nextRow < row; nextRow++ ) {
+                for ( DataListener listener : listeners ) {
+                    listener.newRow( nextRow,
+                                     0 );
+                }
+            }
+            final int columns = ( cellColumns.isEmpty() ? 0 : cellColumns.get( cellColumns.size() - 1 ) + 1 );
+            for ( DataListener listener : listeners ) {
+                listener.newRow( row,
+                                 columns );
+            }
+            for ( int i = 0; i < cellColumns.size(); i++ ) {
+                for ( DataListener listener : listeners ) {
+                    listener.newCell( row,
+                                      cellColumns.get( i ),
+                                      cellValues.get( i ),
+                                      cellMergedColStarts.get( i ) );
+                }
+            }
+            cellColumns.clear();
+            cellValues.clear();
+            cellMergedColStarts.clear();
+            nextRow = row + 1;
+        }
+
+    }
+
+    //Spools the cells of a Worksheet and collects its merged regions
+    private static class SheetHandler extends DefaultHandler {
+
+        private final CellSpool spool;
+        private final ReadOnlySharedStringsTable strings;
+        private final StylesTable styles;
+        private final DataFormatter formatter = new DataFormatter( Locale.ENGLISH );
+        private final List<CellRangeAddress> mergedRanges = new ArrayList<CellRangeAddress>();
+
+        //Current row
+        private int row = -1;
+
+        //Current cell
+        private int column = -1;
+        private String cellType;
+        private String cellStyle;
+        private final StringBuilder cellContent = new StringBuilder();
+        private boolean isCellContent = false;
+
+        private SheetHandler( final CellSpool spool,
+                              final ReadOnlySharedStringsTable strings,
+                              final StylesTable styles ) {
+            this.spool = spool;
+            this.strings = strings;
+            this.styles = styles;
+        }
+
+        @Override
+        public void startElement( final String uri,
+                                  final String localName,
+                                  final String qName,
+                                  final Attributes attributes ) {
+            if ( !SPREADSHEETML_NS.equals( uri ) ) {
+                return;
+            }
+            if ( "row".equals( localName ) ) {
+                final String r = attributes.getValue( "r" );
+                row = ( r == null ? row + 1 : Integer.parseInt( r ) - 1 );
+                column = -1;
+
+            } else if ( "c".equals( localName ) ) {
+                final String r = attributes.getValue( "r" );
+                column = ( r == null ? column + 1 : new CellReference( r ).getCol() );
+                cellType = attributes.getValue( "t" );
+                cellStyle = attributes.getValue( "s" );
+                cellContent.setLength( 0 );
+
+            } else if ( "v".equals( localName ) || "t".equals( localName ) ) {
+                isCellContent = true;
+
+            } else if ( "mergeCell".equals( localName ) ) {
+                mergedRanges.add( CellRangeAddress.valueOf( attributes.getValue( "ref" ) ) );
+            }
+        }
+
+        @Override
+        public void characters( final char[] ch,
+                                final int start,
+                                final int length ) {
+            if ( isCellContent ) {
+                cellContent.append( ch,
+                                    start,
+                                    length );
+            }
+        }
+
+        @Override
+        public void endElement( final String uri,
+                                final String localName,
+                                final String qName ) throws SAXException {
+            if ( !SPREADSHEETML_NS.equals( uri ) ) {
+                return;
+            }
+            try {
+                if ( "v".equals( localName ) || "t".equals( localName ) ) {
+                    isCellContent = false;
+
+                } else if ( "c".equals( localName ) ) {
+                    spool.writeCell( row,
+                                     column,
+                                     getCellValue() );
+
+                } else if ( "row".equals( localName ) ) {
+                    spool.writeRowEnd( row );
+                }
+            } catch ( IOException e ) {
+                throw new SAXException( e );
+            }
+        }
+
+        private String getCellValue() {
+            final String content = cellContent.toString();
+            if ( "s".equals( cellType ) ) {
+                return strings.getEntryAt( Integer.parseInt( content ) );
+            } else if ( "inlineStr".equals( cellType ) || "str".equals( cellType ) || "e".equals( cellType ) ) {
+                return content;
+            } else if ( "b".equals( cellType ) ) {
+                return ( "1".equals( content ) ? "true" : "false" );
+            } else if ( content.length() == 0 ) {
+                return "";
+            }
+
+            //Numeric cells are formatted as ExcelParser does
+            final double num = Double.parseDouble( content );
+            if ( num - Math.round( num ) != 0 ) {
+                return String.valueOf( num );
+            }
+            int formatIndex = 0;
+            String formatString = null;
+            if ( cellStyle != null && styles != null ) {
+                final XSSFCellStyle style = styles.getStyleAt( Integer.parseInt( cellStyle ) );
+                formatIndex = style.getDataFormat();
+                formatString = style.getDataFormatString();
+            }
+            if ( formatString == null ) {
+                formatString = BuiltinFormats.getBuiltinFormat( formatIndex );
+            }
+            return formatter.formatRawCellContents( num,
+                                                    formatIndex,
+                                                    formatString );
+        }
+
+    }
+
+}
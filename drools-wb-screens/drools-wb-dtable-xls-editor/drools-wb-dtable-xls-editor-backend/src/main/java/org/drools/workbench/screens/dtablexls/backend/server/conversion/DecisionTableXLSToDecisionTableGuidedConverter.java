@@ -22,21 +22,27 @@ import java.util.Calendar;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.drools.core.util.DateUtils;
-import org.drools.decisiontable.parser.xls.ExcelParser;
 import org.drools.template.model.Global;
 import org.drools.template.model.Import;
 import org.drools.template.parser.DataListener;
+import org.drools.workbench.models.guided.dtable.shared.conversion.ConversionMessage;
 import org.drools.workbench.models.guided.dtable.shared.conversion.ConversionMessageType;
 import org.drools.workbench.models.guided.dtable.shared.conversion.ConversionResult;
 import org.drools.workbench.models.guided.dtable.shared.model.GuidedDecisionTable52;
 import org.drools.workbench.screens.drltext.service.DRLTextEditorService;
 import org.drools.workbench.screens.drltext.type.DRLResourceTypeDefinition;
+import org.drools.workbench.screens.dtablexls.backend.server.StreamingExcelParser;
 import org.drools.workbench.screens.dtablexls.service.DecisionTableXLSConversionService;
 import org.drools.workbench.screens.dtablexls.type.DecisionTableXLSResourceTypeDefinition;
 import org.drools.workbench.screens.factmodel.backend.server.util.FactModelPersistence;
@@ -65,6 +71,8 @@ import org.kie.workbench.common.services.shared.project.ProjectImportsService;
 import org.uberfire.backend.server.util.Paths;
 import org.uberfire.backend.vfs.Path;
 import org.uberfire.io.IOService;
+import org.uberfire.java.nio.base.options.CommentedOption;
+import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.java.nio.file.Files;
 import org.uberfire.workbench.type.ResourceTypeDefinition;
 
@@ -74,53 +82,77 @@ import org.uberfire.workbench.type.ResourceTypeDefinition;
 @ApplicationScoped
 public class DecisionTableXLSToDecisionTableGuidedConverter implements DecisionTableXLSConversionService {
 
-    @Inject
+    //Maximum number of spreadsheets parsed concurrently by convert(List<Path>)
+    static final String PARALLELISM_PROPERTY = "org.drools.workbench.dtablexls.conversion.parallelism";
+
     private User identity;
 
-    @Inject
-    @Named("ioStrategy")
     private IOService ioService;
 
-    @Inject
     private DRLTextEditorService drlService;
 
-    @Inject
     private GuidedDecisionTableEditorService guidedDecisionTableService;
 
-    @Inject
     private GlobalsEditorService globalsService;
 
-    @Inject
     private KieProjectService projectService;
 
-    @Inject
     private ProjectImportsService importsService;
 
-    @Inject
     private MetadataService metadataService;
 
-    @Inject
     //Type Definition to ensure new files have correct extension
     private DecisionTableXLSResourceTypeDefinition xlsDTableType;
 
-    @Inject
     //Type Definition to ensure new files have correct extension
     private GuidedDTableResourceTypeDefinition guidedDTableType;
 
-    @Inject
     //Type Definition to ensure new files have correct extension
     private DRLResourceTypeDefinition drlType;
 
-    @Inject
     private DataModelerService modellerService;
 
-    @Inject
     //Type Definition to ensure new files have correct extension
     private GlobalResourceTypeDefinition globalsType;
 
+    private int parallelism = getParallelism();
+
     private Map<String, String> orderedBaseTypes = new TreeMap<String, String>();
     private Map<String, AnnotationDefinitionTO> annotationDefinitions;
 
+    public DecisionTableXLSToDecisionTableGuidedConverter() {
+        //CDI proxy
+    }
+
+    @Inject
+    public DecisionTableXLSToDecisionTableGuidedConverter( final User identity,
+                                                           final @Named("ioStrategy") IOService ioService,
+                                                           final DRLTextEditorService drlService,
+                                                           final GuidedDecisionTableEditorService guidedDecisionTableService,
+                                                           final GlobalsEditorService globalsService,
+                                                           final KieProjectService projectService,
+                                                           final ProjectImportsService importsService,
+                                                           final MetadataService metadataService,
+                                                           final DecisionTableXLSResourceTypeDefinition xlsDTableType,
+                                                           final GuidedDTableResourceTypeDefinition guidedDTableType,
+                                                           final DRLResourceTypeDefinition drlType,
+                                                           final DataModelerService modellerService,
+                                                           final GlobalResourceTypeDefinition globalsType ) {
+        this.identity = identity;
+        this.ioService = ioService;
+        this.drlService = drlService;
+        this.guidedDecisionTableService = guidedDecisionTableService;
+        this.globalsService = globalsService;
+        this.projectService = projectService;
+        this.importsService = importsService;
+        this.metadataService = metadataService;
+        this.xlsDTableType = xlsDTableType;
+        this.guidedDTableType = guidedDTableType;
+        this.drlType = drlType;
+        this.modellerService = modellerService;
+        this.globalsType = globalsType;
+    }
+
     @PostConstruct
     public void initialiseTypeConversionMetaData() {
         final List<PropertyTypeTO> baseTypes = modellerService.getBasePropertyTypes();
@@ -149,35 +181,155 @@ public class DecisionTableXLSToDecisionTableGuidedConverter implements DecisionT
         final GuidedDecisionTableGeneratorListener listener = parseAssets( path,
                                                                            result );
 
+        createAssets( path,
+                      listener,
+                      result );
+
+        return result;
+    }
+
+    @Override
+    public ConversionResult convert( final List<Path> paths ) {
+
+        final ConversionResult result = new ConversionResult();
+        if ( paths.isEmpty() ) {
+            return result;
+        }
+
+        //Spreadsheets are independent so can be parsed in parallel, each with its own listener and result
+        final List<Future<Conversion>> conversions = new ArrayList<Future<Conversion>>();
+        final ExecutorService executor = Executors.newFixedThreadPool( Math.max( 1,
+                                                                                 Math.min( parallelism,
+                                                                                           paths.size() ) ) );
+        try {
+            for ( final Path path : paths ) {
+                conversions.add( executor.submit( new Callable<Conversion>() {
+                    @Override
+                    public Conversion call() throws Exception {
+                        final ConversionResult pathResult = new ConversionResult();
+                        if ( !xlsDTableType.accept( path ) ) {
+                            pathResult.addMessage( "Source Asset '" + path.getFileName() + "' is not an XLS Decision Table.",
+                                                   ConversionMessageType.ERROR );
+                            return new Conversion( pathResult,
+                                                   null );
+                        }
+                        return new Conversion( pathResult,
+                                               parseAssets( path,
+                                                            pathResult ) );
+                    }
+                } ) );
+            }
+
+            //Assets are created serially as they are written to the same repository
+            for ( int i = 0; i < paths.size(); i++ ) {
+                final Path path = paths.get( i );
+                try {
+                    final Conversion conversion = conversions.get( i ).get();
+                    addMessages( conversion.result,
+                                 result );
+                    if ( conversion.listener != null ) {
+                        createAssets( path,
+                                      conversion.listener,
+                                      result );
+                    }
+                } catch ( Exception e ) {
+                    final Throwable cause = ( e instanceof ExecutionException ? e.getCause() : e );
+                    result.addMessage( "Unable to convert '" + path.getFileName() + "': " + cause.getMessage(),
+                                       ConversionMessageType.ERROR );
+                }
+            }
+
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return result;
+    }
+
+    void setParallelism( final int parallelism ) {
+        this.parallelism = parallelism;
+    }
+
+    private static int getParallelism() {
+        try {
+            return Integer.parseInt( System.getProperty( PARALLELISM_PROPERTY,
+                                                         String.valueOf( Runtime.getRuntime().availableProcessors() ) ) );
+        } catch ( NumberFormatException nfe ) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+    }
+
+    //Assets of a conversion are written in a single batch, so each conversion is committed and indexed once
+    private void startBatch( final Path path ) {
+        ioService.startBatch( new FileSystem[]{ Paths.convert( path ).getFileSystem() },
+                              new CommentedOption( identity.getIdentifier(),
+                                                   "Converted from XLS Decision Table" ) );
+    }
+
+    private void addMessages( final ConversionResult source,
+                              final ConversionResult target ) {
+        for ( ConversionMessage message : source.getMessages() ) {
+            target.addMessage( message.getMessage(),
+                               message.getMessageType() );
+        }
+    }
+
+    private void createAssets( final Path path,
+                               final GuidedDecisionTableGeneratorListener listener,
+                               final ConversionResult result ) {
+
         //Root path for new resources is the same folder as the XLS file
         final Path context = Paths.convert( Paths.convert( path ).getParent() );
 
-        //Add Ancillary resources
-        createNewImports( context,
-                          listener.getImports(),
-                          result );
-        createNewFunctions( context,
-                            listener.getImports(),
-                            listener.getFunctions(),
-                            result );
-        createNewQueries( context,
-                          listener.getImports(),
-                          listener.getQueries(),
-                          result );
+        //DataModelerService saves Java types in a batch of its own, which cannot be nested within the conversion's
+        //batch, so they are committed first and are not removed should the remaining assets fail to be created
         makeNewJavaTypes( context,
                           listener.getTypeDeclarations(),
                           result );
-        createNewGlobals( context,
-                          listener.getGlobals(),
-                          result );
 
-        //Add Web Guided Decision Tables
-        createNewDecisionTables( context,
-                                 listener.getImports(),
-                                 listener.getGuidedDecisionTables(),
-                                 result );
+        //A conversion either creates all of its assets or, if any cannot be created, none
+        final ConversionResult assetsResult = new ConversionResult();
+        final CreatedAssets createdAssets = new CreatedAssets();
+        startBatch( path );
+        try {
+            //Add Ancillary resources
+            createNewImports( context,
+                              listener.getImports(),
+                              assetsResult,
+                              createdAssets );
+            createNewFunctions( context,
+                                listener.getImports(),
+                                listener.getFunctions(),
+                                assetsResult,
+                                createdAssets );
+            createNewQueries( context,
+                              listener.getImports(),
+                              listener.getQueries(),
+                              assetsResult,
+                              createdAssets );
+            createNewGlobals( context,
+                              listener.getGlobals(),
+                              assetsResult,
+                              createdAssets );
+
+            //Add Web Guided Decision Tables
+            createNewDecisionTables( context,
+                                     listener.getImports(),
+                                     listener.getGuidedDecisionTables(),
+                                     assetsResult,
+                                     createdAssets );
+
+            addMessages( assetsResult,
+                         result );
+
+        } catch ( RuntimeException e ) {
+            createdAssets.rollback();
+            result.addMessage( "Unable to convert '" + path.getFileName() + "': " + e.getMessage(),
+                               ConversionMessageType.ERROR );
 
-        return result;
+        } finally {
+            ioService.endBatch();
+        }
     }
 
     private GuidedDecisionTableGeneratorListener parseAssets( final Path path,
@@ -187,7 +339,7 @@ public class DecisionTableXLSToDecisionTableGuidedConverter implements DecisionT
         final GuidedDecisionTableGeneratorListener listener = new GuidedDecisionTableGeneratorListener( result );
         listeners.add( listener );
 
-        final ExcelParser parser = new ExcelParser( listeners );
+        final StreamingExcelParser parser = new StreamingExcelParser( listeners );
         final InputStream stream = ioService.newInputStream( Paths.convert( path ) );
 
         try {
@@ -206,7 +358,8 @@ public class DecisionTableXLSToDecisionTableGuidedConverter implements DecisionT
     private void createNewFunctions( final Path context,
                                      final List<Import> imports,
                                      final List<String> functions,
-                                     final ConversionResult result ) {
+                                     final ConversionResult result,
+                                     final CreatedAssets createdAssets ) {
         if ( functions == null || functions.isEmpty() ) {
             return;
         }
@@ -218,10 +371,10 @@ public class DecisionTableXLSToDecisionTableGuidedConverter implements DecisionT
                                                        drlType );
             final String drl = makeDRL( imports,
                                         functions.get( iCounter ) );
-            drlService.create( context,
-                               assetName,
-                               drl,
-                               "Converted from XLS Decision Table" );
+            createdAssets.add( drlService.create( context,
+                                                  assetName,
+                                                  drl,
+                                                  "Converted from XLS Decision Table" ) );
 
             result.addMessage( "Created Function '" + assetName + "'",
                                ConversionMessageType.INFO );
@@ -231,7 +384,8 @@ public class DecisionTableXLSToDecisionTableGuidedConverter implements DecisionT
     private void createNewQueries( final Path context,
                                    final List<Import> imports,
                                    final List<String> queries,
-                                   final ConversionResult result ) {
+                                   final ConversionResult result,
+                                   final CreatedAssets createdAssets ) {
         if ( queries == null || queries.isEmpty() ) {
             return;
         }
@@ -243,10 +397,10 @@ public class DecisionTableXLSToDecisionTableGuidedConverter implements DecisionT
                                                        drlType );
             final String drl = makeDRL( imports,
                                         queries.get( iCounter ) );
-            drlService.create( context,
-                               assetName,
-                               drl,
-                               "Converted from XLS Decision Table" );
+            createdAssets.add( drlService.create( context,
+                                                  assetName,
+                                                  drl,
+                                                  "Converted from XLS Decision Table" ) );
 
             result.addMessage( "Created Query '" + assetName + "'",
                                ConversionMessageType.INFO );
@@ -356,7 +510,8 @@ public class DecisionTableXLSToDecisionTableGuidedConverter implements DecisionT
 
     private void createNewGlobals( final Path context,
                                    final List<Global> globals,
-                                   final ConversionResult result ) {
+                                   final ConversionResult result,
+                                   final CreatedAssets createdAssets ) {
         if ( globals == null || globals.isEmpty() ) {
             return;
         }
@@ -365,10 +520,10 @@ public class DecisionTableXLSToDecisionTableGuidedConverter implements DecisionT
         final String assetName = makeNewAssetName( "Global",
                                                    globalsType );
         final GlobalsModel model = makeGlobalsModel( globals );
-        globalsService.create( context,
-                               assetName,
-                               model,
-                               "Converted from XLS Decision Table" );
+        createdAssets.add( globalsService.create( context,
+                                                  assetName,
+                                                  model,
+                                                  "Converted from XLS Decision Table" ) );
 
         result.addMessage( "Created Globals '" + assetName + "'",
                            ConversionMessageType.INFO );
@@ -385,7 +540,8 @@ public class DecisionTableXLSToDecisionTableGuidedConverter implements DecisionT
 
     private void createNewImports( final Path context,
                                    final List<Import> imports,
-                                   final ConversionResult result ) {
+                                   final ConversionResult result,
+                                   final CreatedAssets createdAssets ) {
 
         if ( imports == null || imports.isEmpty() ) {
             return;
@@ -418,6 +574,7 @@ public class DecisionTableXLSToDecisionTableGuidedConverter implements DecisionT
 
         //Save update
         if ( isModified ) {
+            createdAssets.addImports( nioExternalImportsPath );
             final Metadata metadata = metadataService.getMetadata( context );
             importsService.save( externalImportsPath,
                                  projectImports,
@@ -429,7 +586,8 @@ public class DecisionTableXLSToDecisionTableGuidedConverter implements DecisionT
     private void createNewDecisionTables( final Path context,
                                           final List<Import> imports,
                                           final List<GuidedDecisionTable52> dtables,
-                                          final ConversionResult result ) {
+                                          final ConversionResult result,
+                                          final CreatedAssets createdAssets ) {
         if ( dtables == null || dtables.isEmpty() ) {
             return;
         }
@@ -446,10 +604,10 @@ public class DecisionTableXLSToDecisionTableGuidedConverter implements DecisionT
             //Make new resource
             final String assetName = makeNewAssetName( dtable.getTableName(),
                                                        guidedDTableType );
-            guidedDecisionTableService.create( context,
-                                               assetName,
-                                               dtable,
-                                               "Converted from XLS Decision Table" );
+            createdAssets.add( guidedDecisionTableService.create( context,
+                                                                  assetName,
+                                                                  dtable,
+                                                                  "Converted from XLS Decision Table" ) );
 
             result.addMessage( "Created Guided Decision Table '" + assetName + "'",
                                ConversionMessageType.INFO );
@@ -473,4 +631,51 @@ public class DecisionTableXLSToDecisionTableGuidedConverter implements DecisionT
         return sb.toString();
     }
 
+    //The assets written by a conversion, so they can be removed should the conversion fail part way through
+    private class CreatedAssets {
+
+        private final List<Path> paths = new ArrayList<Path>();
+        private org.uberfire.java.nio.file.Path importsPath;
+        private String originalImports;
+
+        private void add( final Path path ) {
+            paths.add( path );
+        }
+
+        private void addImports( final org.uberfire.java.nio.file.Path path ) {
+            importsPath = path;
+            originalImports = ( Files.exists( path ) ? ioService.readAllString( path ) : null );
+        }
+
+        private void rollback() {
+            for ( Path path : paths ) {
+                ioService.deleteIfExists( Paths.convert( path ) );
+            }
+            if ( importsPath == null ) {
+                return;
+            }
+            if ( originalImports == null ) {
+                ioService.deleteIfExists( importsPath );
+            } else {
+                ioService.write( importsPath,
+                                 originalImports );
+            }
+        }
+
+    }
+
+    //The outcome of parsing a spreadsheet
+    private static class Conversion {
+
+        private final ConversionResult result;
+        private final GuidedDecisionTableGeneratorListener listener;
+
+        private Conversion( final ConversionResult result,
+                            final GuidedDecisionTableGeneratorListener listener ) {
+            this.result = result;
+            this.listener = listener;
+        }
+
+    }
+
 }
@@ -71,9 +71,6 @@ public class GuidedDecisionTableGeneratorListener
     //Description column must always be at position 1
     private static final int DESCRIPTION_COLUMN_INDEX = 1;
 
-    private static GuidedDecisionTableSourceBuilder ROW_NUMBER_BUILDER = new RowNumberBuilder();
-    private static GuidedDecisionTableSourceBuilder DEFAULT_DESCRIPTION_BUILDER = new DefaultDescriptionBuilder();
-
     //State machine variables for this parser
     private boolean _isInRuleTable = false;
     private boolean _haveColumnsBeenIdentified = false;
@@ -90,6 +87,8 @@ public class GuidedDecisionTableGeneratorListener
     private Map<Integer, ActionType> _actions;
     private final List<GuidedDecisionTable52> _dtables = new ArrayList<GuidedDecisionTable52>();
     private List<GuidedDecisionTableSourceBuilder> _sourceBuilders;
+    private GuidedDecisionTableSourceBuilder _rowNumberBuilder;
+    private GuidedDecisionTableSourceBuilder _defaultDescriptionBuilder;
 
     //RuleSet wide configuration
     private final PropertiesSheetListener _propertiesListener = new PropertiesSheetListener();
@@ -204,12 +203,12 @@ public class GuidedDecisionTableGeneratorListener
         this._dtable.setTableFormat( GuidedDecisionTable52.TableFormat.EXTENDED_ENTRY );
         this._dtable.setTableName( RuleSheetParserUtil.getRuleName( value ) );
         this._sourceBuilders = new ArrayList<GuidedDecisionTableSourceBuilder>();
-        ROW_NUMBER_BUILDER.clearValues();
-        DEFAULT_DESCRIPTION_BUILDER.clearValues();
+        this._rowNumberBuilder = new RowNumberBuilder();
+        this._defaultDescriptionBuilder = new DefaultDescriptionBuilder();
         this._sourceBuilders.add( ROW_NUMBER_COLUMN_INDEX,
-                                  ROW_NUMBER_BUILDER );
+                                  this._rowNumberBuilder );
         this._sourceBuilders.add( DESCRIPTION_COLUMN_INDEX,
-                                  DEFAULT_DESCRIPTION_BUILDER );
+                                  this._defaultDescriptionBuilder );
 
         postInitRuleTable( row,
                            column,
@@ -338,12 +337,12 @@ public class GuidedDecisionTableGeneratorListener
             default:
                 if ( this._isNewDataRow ) {
                     this._isNewDataRow = false;
-                    ROW_NUMBER_BUILDER.addCellValue( row,
-                                                     0,
-                                                     "" );
-                    DEFAULT_DESCRIPTION_BUILDER.addCellValue( row,
-                                                              1,
-                                                              "" );
+                    this._rowNumberBuilder.addCellValue( row,
+                                                         0,
+                                                         "" );
+                    this._defaultDescriptionBuilder.addCellValue( row,
+                                                                  1,
+                                                                  "" );
                 }
                 doDataCell( row,
                             column,
@@ -380,7 +379,7 @@ public class GuidedDecisionTableGeneratorListener
 
             case DESCRIPTION:
                 //Remove default Description Column builder and add that provided
-                this._sourceBuilders.remove( DEFAULT_DESCRIPTION_BUILDER );
+                this._sourceBuilders.remove( this._defaultDescriptionBuilder );
                 sb = new GuidedDecisionTableDescriptionBuilder( row - 1,
                                                                 column,
                                                                 this._conversionResult );
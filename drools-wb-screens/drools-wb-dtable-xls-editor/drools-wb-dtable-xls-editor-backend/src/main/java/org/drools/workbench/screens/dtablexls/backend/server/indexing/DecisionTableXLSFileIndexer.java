@@ -17,22 +17,21 @@ package org.drools.workbench.screens.dtablexls.backend.server.indexing;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
 
-import org.drools.compiler.compiler.DecisionTableFactory;
-import org.drools.compiler.compiler.DrlParser;
-import org.drools.compiler.lang.descr.PackageDescr;
+import org.drools.template.parser.DataListener;
 import org.drools.workbench.models.datamodel.oracle.ProjectDataModelOracle;
+import org.drools.workbench.screens.dtablexls.backend.server.StreamingExcelParser;
 import org.drools.workbench.screens.dtablexls.type.DecisionTableXLSResourceTypeDefinition;
+import org.drools.workbench.screens.indexing.backend.server.IndexingContext;
 import org.guvnor.common.services.project.model.Package;
 import org.guvnor.common.services.project.model.Project;
-import org.kie.workbench.common.services.datamodel.backend.server.service.DataModelService;
 import org.kie.workbench.common.services.refactoring.backend.server.indexing.DefaultIndexBuilder;
-import org.kie.workbench.common.services.refactoring.backend.server.indexing.PackageDescrIndexVisitor;
 import org.kie.workbench.common.services.refactoring.backend.server.util.KObjectUtil;
-import org.kie.workbench.common.services.shared.project.KieProjectService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uberfire.backend.server.util.Paths;
@@ -53,10 +52,7 @@ public class DecisionTableXLSFileIndexer implements Indexer {
     protected IOService ioService;
 
     @Inject
-    private DataModelService dataModelService;
-
-    @Inject
-    protected KieProjectService projectService;
+    protected IndexingContext indexingContext;
 
     @Inject
     protected DecisionTableXLSResourceTypeDefinition type;
@@ -74,26 +70,20 @@ public class DecisionTableXLSFileIndexer implements Indexer {
         try {
             inputStream = ioService.newInputStream( path,
                                                     StandardOpenOption.READ );
-            final String drl = DecisionTableFactory.loadFromInputStream( inputStream,
-                                                                         null );
-            final DrlParser drlParser = new DrlParser();
-            final PackageDescr packageDescr = drlParser.parse( true,
-                                                               drl );
-            if ( packageDescr == null ) {
-                logger.error( "Unable to parse DRL for '" + path.toUri().toString() + "'." );
-                return index;
-            }
-
             final ProjectDataModelOracle dmo = getProjectDataModelOracle( path );
-            final Project project = projectService.resolveProject( Paths.convert( path ) );
-            final Package pkg = projectService.resolvePackage( Paths.convert( path ) );
+            final Project project = indexingContext.resolveProject( path );
+            final Package pkg = indexingContext.resolvePackage( path );
 
+            //Extract index information whilst the spreadsheet is parsed, rather than converting to DRL and parsing the DRL
             final DefaultIndexBuilder builder = new DefaultIndexBuilder( project,
                                                                          pkg );
-            final PackageDescrIndexVisitor visitor = new PackageDescrIndexVisitor( dmo,
-                                                                                   builder,
-                                                                                   packageDescr );
-            visitor.visit();
+            final DecisionTableXLSIndexListener listener = new DecisionTableXLSIndexListener( builder,
+                                                                                              dmo );
+            final List<DataListener> listeners = new ArrayList<DataListener>();
+            listeners.add( listener );
+            final StreamingExcelParser parser = new StreamingExcelParser( listeners );
+            parser.parseFile( inputStream );
+            listener.complete();
 
             index = KObjectUtil.toKObject( path,
                                            builder.build() );
@@ -120,7 +110,7 @@ public class DecisionTableXLSFileIndexer implements Indexer {
 
     //Delegate resolution of DMO to method to assist testing
     protected ProjectDataModelOracle getProjectDataModelOracle( final Path path ) {
-        return dataModelService.getProjectDataModel( Paths.convert( path ) );
+        return indexingContext.getProjectDataModel( path );
     }
 
 }
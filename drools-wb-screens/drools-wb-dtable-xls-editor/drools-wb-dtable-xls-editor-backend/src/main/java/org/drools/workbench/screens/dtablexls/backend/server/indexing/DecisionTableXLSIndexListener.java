@@ -0,0 +1,537 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.drools.workbench.screens.dtablexls.backend.server.indexing;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.drools.decisiontable.parser.ActionType;
+import org.drools.decisiontable.parser.ActionType.Code;
+import org.drools.decisiontable.parser.DefaultRuleSheetListener;
+import org.drools.decisiontable.parser.RuleSheetListener;
+import org.drools.decisiontable.parser.RuleSheetParserUtil;
+import org.drools.decisiontable.parser.xls.PropertiesSheetListener;
+import org.drools.decisiontable.parser.xls.PropertiesSheetListener.CaseInsensitiveMap;
+import org.drools.template.model.Import;
+import org.drools.template.parser.DataListener;
+import org.drools.workbench.models.datamodel.oracle.ModelField;
+import org.drools.workbench.models.datamodel.oracle.ProjectDataModelOracle;
+import org.kie.workbench.common.services.refactoring.backend.server.indexing.DefaultIndexBuilder;
+import org.kie.workbench.common.services.refactoring.model.index.Rule;
+import org.kie.workbench.common.services.refactoring.model.index.RuleAttribute;
+import org.kie.workbench.common.services.refactoring.model.index.Type;
+import org.kie.workbench.common.services.refactoring.model.index.TypeField;
+import org.kie.workbench.common.services.refactoring.model.index.terms.valueterms.ValueFieldIndexTerm;
+import org.kie.workbench.common.services.refactoring.model.index.terms.valueterms.ValueRuleAttributeIndexTerm;
+import org.kie.workbench.common.services.refactoring.model.index.terms.valueterms.ValueRuleAttributeValueIndexTerm;
+import org.kie.workbench.common.services.refactoring.model.index.terms.valueterms.ValueRuleIndexTerm;
+import org.kie.workbench.common.services.refactoring.model.index.terms.valueterms.ValueTypeIndexTerm;
+import org.uberfire.commons.data.Pair;
+import org.uberfire.commons.validation.PortablePreconditions;
+
+/**
+ * Listener to extract index information from an XLS Decision Table as the spreadsheet is parsed. Unlike
+ * converting the XLS to DRL (and then parsing the DRL) only the column definitions, distinct attribute
+ * values and rule names are retained; cell values are discarded as soon as they have been read.
+ * Call complete() once parsing has finished to add Types and Fields, as these can only be resolved
+ * once all RuleSet properties (e.g. Imports) are known.
+ */
+public class DecisionTableXLSIndexListener
+        implements
+        DataListener {
+
+    //keywords
+    private static final int ACTION_ROW = 1;
+    private static final int OBJECT_TYPE_ROW = 2;
+    private static final int CODE_ROW = 3;
+    private static final int LABEL_ROW = 4;
+
+    //DRL keywords for the attribute columns that can be indexed
+    private static final Map<Code, String> ATTRIBUTES = new HashMap<Code, String>();
+
+    static {
+        ATTRIBUTES.put( Code.SALIENCE,
+                        "salience" );
+        ATTRIBUTES.put( Code.DURATION,
+                        "duration" );
+        ATTRIBUTES.put( Code.TIMER,
+                        "timer" );
+        ATTRIBUTES.put( Code.CALENDARS,
+                        "calendars" );
+        ATTRIBUTES.put( Code.NOLOOP,
+                        "no-loop" );
+        ATTRIBUTES.put( Code.LOCKONACTIVE,
+                        "lock-on-active" );
+        ATTRIBUTES.put( Code.AUTOFOCUS,
+                        "auto-focus" );
+        ATTRIBUTES.put( Code.ACTIVATIONGROUP,
+                        "activation-group" );
+        ATTRIBUTES.put( Code.AGENDAGROUP,
+                        "agenda-group" );
+        ATTRIBUTES.put( Code.RULEFLOWGROUP,
+                        "ruleflow-group" );
+    }
+
+    private final DefaultIndexBuilder builder;
+    private final ProjectDataModelOracle dmo;
+
+    //State machine variables for this parser
+    private boolean _isInRuleTable = false;
+    private boolean _haveColumnsBeenIdentified = false;
+    private int _ruleRow;
+    private int _ruleStartColumn;
+    private int _ruleEndColumn;
+    private int _ruleStartRow;
+    private String _ruleTableName;
+    private Map<Integer, ActionType> _actions;
+    private final Map<Integer, String> _columnFactTypes = new HashMap<Integer, String>();
+    private final Map<String, String> _boundFactTypes = new HashMap<String, String>();
+
+    //Rule for the current data row; added to the index when the row has been read
+    private int _currentDataRow = -1;
+    private String _currentRuleName;
+
+    //Accumulated output, resolved when parsing is complete
+    private final Set<String> factTypes = new HashSet<String>();
+    private final Set<Pair<String, String>> factFields = new HashSet<Pair<String, String>>();
+    private final Set<Pair<String, String>> attributes = new HashSet<Pair<String, String>>();
+
+    //RuleSet wide configuration
+    private final PropertiesSheetListener _propertiesListener = new PropertiesSheetListener();
+
+    public DecisionTableXLSIndexListener( final DefaultIndexBuilder builder,
+                                          final ProjectDataModelOracle dmo ) {
+        this.builder = PortablePreconditions.checkNotNull( "builder",
+                                                           builder );
+        this.dmo = PortablePreconditions.checkNotNull( "dmo",
+                                                       dmo );
+    }
+
+    public CaseInsensitiveMap getProperties() {
+        return this._propertiesListener.getProperties();
+    }
+
+    public void startSheet( final String name ) {
+    }
+
+    public void finishSheet() {
+        this._propertiesListener.finishSheet();
+        finishRuleTable();
+    }
+
+    public void newRow( final int rowNumber,
+                        final int columns ) {
+    }
+
+    public void newCell( final int row,
+                         final int column,
+                         final String value,
+                         int mergedColStart ) {
+        //Ignore empty cells unless we've identified all columns
+        if ( isCellValueEmpty( value ) && !this._haveColumnsBeenIdentified ) {
+            return;
+        }
+        //Ignore cells beyond the extent of the defined columns
+        if ( column > this._ruleEndColumn && this._haveColumnsBeenIdentified ) {
+            return;
+        }
+        if ( _isInRuleTable && row == this._ruleStartRow ) {
+            return;
+        }
+        if ( this._isInRuleTable ) {
+            processRuleCell( row,
+                             column,
+                             value,
+                             mergedColStart );
+        } else {
+            processNonRuleCell( row,
+                                column,
+                                value );
+        }
+    }
+
+    /**
+     * Add Types and Fields discovered whilst parsing to the index. This should be called after the spreadsheet has been parsed.
+     */
+    public void complete() {
+        final Map<String, ModelField[]> modelFields = dmo.getProjectModelFields();
+        final String packageName = getProperties().getSingleProperty( DefaultRuleSheetListener.RULESET_TAG,
+                                                                      null );
+        final List<Import> imports = RuleSheetParserUtil.getImportList( getProperties().getProperty( DefaultRuleSheetListener.IMPORT_TAG ) );
+
+        for ( String factType : factTypes ) {
+            builder.addGenerator( new Type( new ValueTypeIndexTerm( getFullyQualifiedClassName( factType,
+                                                                                                packageName,
+                                                                                                imports ) ) ) );
+        }
+        for ( Pair<String, String> factField : factFields ) {
+            final String fullyQualifiedClassName = getFullyQualifiedClassName( factField.getK1(),
+                                                                               packageName,
+                                                                               imports );
+            final String fieldName = factField.getK2();
+            final ModelField[] mfs = modelFields.get( fullyQualifiedClassName );
+            if ( mfs == null ) {
+                continue;
+            }
+            for ( ModelField mf : mfs ) {
+                if ( mf.getName().equals( fieldName ) ) {
+                    builder.addGenerator( new TypeField( new ValueFieldIndexTerm( fieldName ),
+                                                         new ValueTypeIndexTerm( mf.getClassName() ),
+                                                         new ValueTypeIndexTerm( fullyQualifiedClassName ) ) );
+                    break;
+                }
+            }
+        }
+        for ( Pair<String, String> attribute : attributes ) {
+            builder.addGenerator( new RuleAttribute( new ValueRuleAttributeIndexTerm( attribute.getK1() ),
+                                                     new ValueRuleAttributeValueIndexTerm( attribute.getK2() ) ) );
+        }
+    }
+
+    /**
+     * This gets called each time a "new" rule table is found.
+     */
+    private void initRuleTable( final int row,
+                                final int column,
+                                final String value ) {
+        this._isInRuleTable = true;
+        this._actions = new HashMap<Integer, ActionType>();
+        this._columnFactTypes.clear();
+        this._boundFactTypes.clear();
+        this._ruleStartColumn = column;
+        this._ruleEndColumn = column;
+        this._ruleStartRow = row;
+        this._ruleRow = row + LABEL_ROW + 1;
+        this._ruleTableName = RuleSheetParserUtil.getRuleName( value );
+        this._currentDataRow = -1;
+        this._currentRuleName = null;
+    }
+
+    private void finishRuleTable() {
+        if ( this._isInRuleTable ) {
+            finishDataRow();
+            this._isInRuleTable = false;
+            this._haveColumnsBeenIdentified = false;
+        }
+    }
+
+    private void processNonRuleCell( final int row,
+                                     final int column,
+                                     final String value ) {
+        String testVal = value.trim().toLowerCase();
+        if ( testVal.startsWith( DefaultRuleSheetListener.RULE_TABLE_TAG ) ) {
+            initRuleTable( row,
+                           column,
+                           value.trim() );
+        } else {
+            this._propertiesListener.newCell( row,
+                                              column,
+                                              value,
+                                              RuleSheetListener.NON_MERGED );
+        }
+    }
+
+    private void processRuleCell( final int row,
+                                  final int column,
+                                  final String value,
+                                  final int mergedColStart ) {
+        String trimVal = value.trim();
+        String testVal = trimVal.toLowerCase();
+        if ( testVal.startsWith( DefaultRuleSheetListener.RULE_TABLE_TAG ) ) {
+            finishRuleTable();
+            initRuleTable( row,
+                           column,
+                           trimVal );
+            return;
+        }
+
+        // Ignore any comments cells preceding the first rule table column
+        if ( column < this._ruleStartColumn ) {
+            return;
+        }
+
+        switch ( row - this._ruleStartRow ) {
+            case ACTION_ROW:
+                //CONDITION, ACTION, ATTRIBUTE etc...
+                this._ruleEndColumn = column;
+                ActionType.addNewActionType( this._actions,
+                                             trimVal,
+                                             column,
+                                             row );
+                break;
+
+            case OBJECT_TYPE_ROW:
+                //Pattern definition ("Driver", "Smurf" etc...)
+                this._haveColumnsBeenIdentified = true;
+                doObjectTypeCell( column,
+                                  trimVal,
+                                  mergedColStart );
+                break;
+
+            case CODE_ROW:
+                //Column definition ("age > $1" etc...)
+                doCodeCell( column,
+                            trimVal );
+                break;
+
+            case LABEL_ROW:
+                //Column headers are not indexed
+                break;
+
+            default:
+                doDataCell( row,
+                            column,
+                            trimVal );
+                break;
+        }
+    }
+
+    private void doObjectTypeCell( final int column,
+                                   final String value,
+                                   final int mergedColStart ) {
+        final ActionType actionType = this._actions.get( column );
+        if ( actionType == null ) {
+            return;
+        }
+        if ( !( actionType.getCode() == Code.CONDITION || actionType.getCode() == Code.ACTION ) ) {
+            return;
+        }
+
+        //Cells merged across columns share the Pattern defined in the first column
+        String factType;
+        if ( mergedColStart == RuleSheetListener.NON_MERGED || column == mergedColStart ) {
+            factType = getFactType( value );
+        } else {
+            factType = this._columnFactTypes.get( mergedColStart );
+        }
+        if ( factType == null ) {
+            return;
+        }
+        this._columnFactTypes.put( column,
+                                   factType );
+        this.factTypes.add( factType );
+    }
+
+    private void doCodeCell( final int column,
+                             final String value ) {
+        final ActionType actionType = this._actions.get( column );
+        if ( actionType == null ) {
+            return;
+        }
+        if ( !( actionType.getCode() == Code.CONDITION || actionType.getCode() == Code.ACTION ) ) {
+            return;
+        }
+
+        //Fields of the column's Pattern (or bound Fact) e.g. "age > $1", "setAge( $param )"
+        final String factType = this._columnFactTypes.get( column );
+        if ( factType != null ) {
+            for ( String fieldName : getFieldNames( value ) ) {
+                this.factFields.add( new Pair<String, String>( factType,
+                                                               fieldName ) );
+            }
+        }
+
+        //Fields of bound Facts referenced directly e.g. "$a.setAge( $param )"
+        for ( Map.Entry<String, String> e : this._boundFactTypes.entrySet() ) {
+            final String prefix = e.getKey() + ".";
+            int index = value.indexOf( prefix );
+            while ( index > -1 ) {
+                final String fieldName = getFieldName( value.substring( index + prefix.length() ) );
+                if ( fieldName != null ) {
+                    this.factFields.add( new Pair<String, String>( e.getValue(),
+                                                                   fieldName ) );
+                }
+                index = value.indexOf( prefix,
+                                       index + prefix.length() );
+            }
+        }
+    }
+
+    private void doDataCell( final int row,
+                             final int column,
+                             final String value ) {
+        if ( row - this._ruleRow > 1 ) {
+            // Encountered a row gap from the last rule. This is not part of the ruleset.
+            finishRuleTable();
+            processNonRuleCell( row,
+                                column,
+                                value );
+            return;
+        }
+
+        if ( row > this._ruleRow ) {
+            // In a new row/rule
+            this._ruleRow++;
+        }
+        if ( row != this._currentDataRow ) {
+            finishDataRow();
+            this._currentDataRow = row;
+        }
+
+        final ActionType actionType = this._actions.get( column );
+        if ( actionType == null || isCellValueEmpty( value ) ) {
+            return;
+        }
+        if ( actionType.getCode() == Code.NAME ) {
+            this._currentRuleName = value;
+            return;
+        }
+        final String attribute = ATTRIBUTES.get( actionType.getCode() );
+        if ( attribute != null ) {
+            this.attributes.add( new Pair<String, String>( attribute,
+                                                           value ) );
+        }
+    }
+
+    private void finishDataRow() {
+        if ( this._currentDataRow < 0 ) {
+            return;
+        }
+        //Rules are named in the same manner as DefaultRuleSheetListener, unless a NAME column provides the name
+        final String ruleName = ( this._currentRuleName == null ? this._ruleTableName + "_" + this._currentDataRow : this._currentRuleName );
+        builder.addGenerator( new Rule( new ValueRuleIndexTerm( ruleName ),
+                                        null ) );
+        this._currentDataRow = -1;
+        this._currentRuleName = null;
+    }
+
+    //Extract the Fact Type from Pattern definitions like "Driver", "$d : Driver" or "Driver( age > 18 )". Actions
+    //can instead refer to a Fact bound in a Condition, e.g. "$d"
+    private String getFactType( final String value ) {
+        String factType = value;
+        String binding = null;
+        final int bindingIndex = factType.indexOf( ':' );
+        if ( bindingIndex > -1 ) {
+            binding = factType.substring( 0,
+                                          bindingIndex ).trim();
+            factType = factType.substring( bindingIndex + 1 );
+        }
+        final int constraintIndex = factType.indexOf( '(' );
+        if ( constraintIndex > -1 ) {
+            factType = factType.substring( 0,
+                                           constraintIndex );
+        }
+        factType = factType.trim();
+        if ( this._boundFactTypes.containsKey( factType ) ) {
+            return this._boundFactTypes.get( factType );
+        }
+        if ( factType.startsWith( "$" ) || !isJavaIdentifier( factType ) ) {
+            return null;
+        }
+        if ( binding != null && !binding.isEmpty() ) {
+            this._boundFactTypes.put( binding,
+                                      factType );
+        }
+        return factType;
+    }
+
+    //Extract candidate Field names from snippets like "age > $1 && name == "$2"" or "setAge( $param )". Candidates
+    //that are not Fields of the Fact Type are discarded by complete()
+    private Set<String> getFieldNames( final String value ) {
+        final Set<String> fieldNames = new HashSet<String>();
+        int i = 0;
+        while ( i < value.length() ) {
+            final char c = value.charAt( i );
+            if ( c == '"' || c == '\'' ) {
+                //Skip literals
+                final int end = value.indexOf( c,
+                                               i + 1 );
+                i = ( end < 0 ? value.length() : end + 1 );
+            } else if ( c == '$' ) {
+                //Skip variables and template parameters
+                i++;
+                while ( i < value.length() && Character.isJavaIdentifierPart( value.charAt( i ) ) ) {
+                    i++;
+                }
+            } else if ( Character.isJavaIdentifierStart( c ) ) {
+                final String fieldName = getFieldName( value.substring( i ) );
+                if ( fieldName != null ) {
+                    fieldNames.add( fieldName );
+                }
+                while ( i < value.length() && Character.isJavaIdentifierPart( value.charAt( i ) ) ) {
+                    i++;
+                }
+            } else {
+                i++;
+            }
+        }
+        return fieldNames;
+    }
+
+    //Extract the Field name from the start of a snippet like "age > $1", "setAge( $1 )" or "getAge() > $1"
+    private String getFieldName( final String value ) {
+        int i = 0;
+        while ( i < value.length() && Character.isJavaIdentifierPart( value.charAt( i ) ) ) {
+            i++;
+        }
+        String fieldName = value.substring( 0,
+                                            i );
+        if ( !isJavaIdentifier( fieldName ) ) {
+            return null;
+        }
+        final boolean isInvocation = value.substring( i ).trim().startsWith( "(" );
+        if ( isInvocation ) {
+            fieldName = getPropertyName( fieldName );
+        }
+        return fieldName;
+    }
+
+    //Convert accessors and mutators to the name of the property, e.g. "setAge" to "age"
+    private String getPropertyName( final String methodName ) {
+        for ( String prefix : new String[]{ "set", "get", "is" } ) {
+            if ( methodName.length() > prefix.length() && methodName.startsWith( prefix ) && Character.isUpperCase( methodName.charAt( prefix.length() ) ) ) {
+                return Character.toLowerCase( methodName.charAt( prefix.length() ) ) + methodName.substring( prefix.length() + 1 );
+            }
+        }
+        return null;
+    }
+
+    private boolean isJavaIdentifier( final String value ) {
+        if ( value.isEmpty() || !Character.isJavaIdentifierStart( value.charAt( 0 ) ) ) {
+            return false;
+        }
+        for ( int i = 1; i < value.length(); i++ ) {
+            final char c = value.charAt( i );
+            if ( !( c == '.' || Character.isJavaIdentifierPart( c ) ) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String getFullyQualifiedClassName( final String typeName,
+                                               final String packageName,
+                                               final List<Import> imports ) {
+        if ( typeName.contains( "." ) ) {
+            return typeName;
+        }
+
+        for ( Import i : imports ) {
+            if ( i.getClassName().endsWith( "." + typeName ) ) {
+                return i.getClassName();
+            }
+        }
+        return ( !( packageName == null || packageName.isEmpty() ) ? packageName + "." + typeName : typeName );
+    }
+
+    private boolean isCellValueEmpty( final String value ) {
+        return value == null || "".equals( value.trim() );
+    }
+
+}
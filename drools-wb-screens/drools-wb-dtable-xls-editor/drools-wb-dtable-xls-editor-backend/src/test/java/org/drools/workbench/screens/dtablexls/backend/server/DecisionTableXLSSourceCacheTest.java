@@ -0,0 +1,126 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.dtablexls.backend.server;
+
+import java.io.InputStream;
+import java.net.URI;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.OpenOption;
+import org.uberfire.java.nio.file.Path;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class DecisionTableXLSSourceCacheTest {
+
+    private IOService ioService;
+
+    @Before
+    public void setup() {
+        ioService = mock( IOService.class );
+    }
+
+    @Test
+    public void testUnchangedAssetNotRegenerated() throws Exception {
+        final DecisionTableXLSSourceCache cache = new DecisionTableXLSSourceCache( ioService,
+                                                                                  DecisionTableXLSSourceCache.MAX_CACHED_CHARACTERS );
+        final Path path = makePath( "file:///project/rules.xls",
+                                    "conversion/MultipleRuleTables.xls" );
+
+        final String drl = cache.getSource( path );
+        assertTrue( drl.contains( "rule" ) );
+        assertSame( drl,
+                    cache.getSource( path ) );
+    }
+
+    @Test
+    public void testChangedAssetRegenerated() throws Exception {
+        final DecisionTableXLSSourceCache cache = new DecisionTableXLSSourceCache( ioService,
+                                                                                  DecisionTableXLSSourceCache.MAX_CACHED_CHARACTERS );
+        final Path path = makePath( "file:///project/rules.xls",
+                                    "conversion/MultipleRuleTables.xls" );
+        final String drl1 = cache.getSource( path );
+
+        //The content changes whether or not the size or last modified time do
+        mockContent( path,
+                     "conversion/Attributes.xls" );
+        final String drl2 = cache.getSource( path );
+
+        assertFalse( drl1.equals( drl2 ) );
+        assertEquals( drl2,
+                      new DecisionTableXLSSourceCache( ioService,
+                                                       DecisionTableXLSSourceCache.MAX_CACHED_CHARACTERS ).getSource( path ) );
+    }
+
+    @Test
+    public void testSourceSharedByAssetsWithSameContent() throws Exception {
+        final DecisionTableXLSSourceCache cache = new DecisionTableXLSSourceCache( ioService,
+                                                                                  DecisionTableXLSSourceCache.MAX_CACHED_CHARACTERS );
+        final Path path1 = makePath( "file:///project/rules.xls",
+                                     "conversion/MultipleRuleTables.xls" );
+        final Path path2 = makePath( "file:///project/copy.xls",
+                                     "conversion/MultipleRuleTables.xls" );
+        final Path path3 = makePath( "file:///project/other.xls",
+                                     "conversion/Attributes.xls" );
+
+        final String drl1 = cache.getSource( path1 );
+        assertSame( drl1,
+                    cache.getSource( path2 ) );
+        assertNotSame( drl1,
+                       cache.getSource( path3 ) );
+    }
+
+    @Test
+    public void testOversizedSourceNotCached() throws Exception {
+        final DecisionTableXLSSourceCache cache = new DecisionTableXLSSourceCache( ioService,
+                                                                                  3 );
+        final Path path = makePath( "file:///project/rules.xls",
+                                    "conversion/MultipleRuleTables.xls" );
+
+        final String drl = cache.getSource( path );
+        assertEquals( drl,
+                      cache.getSource( path ) );
+        assertNotSame( drl,
+                       cache.getSource( path ) );
+    }
+
+    private Path makePath( final String uri,
+                           final String resource ) {
+        final Path path = mock( Path.class );
+        when( path.toUri() ).thenReturn( URI.create( uri ) );
+        mockContent( path,
+                     resource );
+        return path;
+    }
+
+    private void mockContent( final Path path,
+                              final String resource ) {
+        when( ioService.newInputStream( eq( path ),
+                                        any( OpenOption.class ) ) ).thenAnswer( new Answer<InputStream>() {
+            @Override
+            public InputStream answer( final InvocationOnMock invocation ) throws Throwable {
+                return DecisionTableXLSSourceCacheTest.class.getResourceAsStream( resource );
+            }
+        } );
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.dtablexls.backend.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.TeeInputStream;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.drools.template.parser.DecisionTableParseException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DecisionTableXLSStreamValidatorTest {
+
+    @Test
+    public void testValidXLSIsReadToEnd() throws Exception {
+        final InputStream is = this.getClass().getResourceAsStream( "conversion/Attributes.xls" );
+        final byte[] content;
+        try {
+            content = IOUtils.toByteArray( is );
+        } finally {
+            is.close();
+        }
+
+        final ByteArrayOutputStream tee = new ByteArrayOutputStream();
+        DecisionTableXLSStreamValidator.validate( new TeeInputStream( new ByteArrayInputStream( content ),
+                                                                      tee ) );
+
+        assertArrayEquals( content,
+                           tee.toByteArray() );
+    }
+
+    @Test
+    public void testValidXLSX() throws Exception {
+        final XSSFWorkbook workbook = new XSSFWorkbook();
+        workbook.createSheet( "Tables" ).createRow( 0 ).createCell( 0 ).setCellValue( "RuleSet" );
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        workbook.write( content );
+
+        final ByteArrayOutputStream tee = new ByteArrayOutputStream();
+        DecisionTableXLSStreamValidator.validate( new TeeInputStream( new ByteArrayInputStream( content.toByteArray() ),
+                                                                      tee ) );
+
+        assertArrayEquals( content.toByteArray(),
+                           tee.toByteArray() );
+    }
+
+    @Test(expected = DecisionTableParseException.class)
+    public void testMalformedXLSX() throws Exception {
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        final ZipOutputStream zos = new ZipOutputStream( content );
+        zos.putNextEntry( new ZipEntry( "xl/workbook.xml" ) );
+        zos.write( "<workbook><sheets>".getBytes( "UTF-8" ) );
+        zos.closeEntry();
+        zos.close();
+
+        DecisionTableXLSStreamValidator.validate( new ByteArrayInputStream( content.toByteArray() ) );
+    }
+
+    @Test(expected = DecisionTableParseException.class)
+    public void testNotAWorkbook() throws Exception {
+        DecisionTableXLSStreamValidator.validate( new ByteArrayInputStream( "rule \"test\" when then end".getBytes( "UTF-8" ) ) );
+    }
+
+}
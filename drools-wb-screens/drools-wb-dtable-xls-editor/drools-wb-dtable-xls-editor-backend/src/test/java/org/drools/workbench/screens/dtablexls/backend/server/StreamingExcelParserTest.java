@@ -0,0 +1,161 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.dtablexls.backend.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.drools.decisiontable.parser.xls.ExcelParser;
+import org.drools.template.parser.DataListener;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StreamingExcelParserTest {
+
+    private byte[] content;
+
+    @Before
+    public void setup() throws Exception {
+        final XSSFWorkbook workbook = new XSSFWorkbook();
+        final Sheet sheet = workbook.createSheet( "Tables" );
+        final Row row0 = sheet.createRow( 0 );
+        row0.createCell( 0 ).setCellValue( "RuleSet" );
+        row0.createCell( 1 ).setCellValue( "org.test" );
+
+        //Row 1 is intentionally empty
+        final Row row2 = sheet.createRow( 2 );
+        row2.createCell( 0 ).setCellValue( "Merged" );
+        row2.createCell( 1 );
+        row2.createCell( 2 );
+        sheet.addMergedRegion( new CellRangeAddress( 2,
+                                                     2,
+                                                     0,
+                                                     2 ) );
+        final Row row3 = sheet.createRow( 3 );
+        row3.createCell( 0 ).setCellValue( 10 );
+        row3.createCell( 1 ).setCellValue( 2.5 );
+        row3.createCell( 3 ).setCellValue( true );
+
+        workbook.createSheet( "Other" ).createRow( 0 ).createCell( 0 ).setCellValue( "Ignored" );
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        workbook.write( baos );
+        content = baos.toByteArray();
+    }
+
+    @Test
+    public void testFirstSheetMatchesExcelParser() throws Exception {
+        final RecordingListener expected = new RecordingListener();
+        new ExcelParser( listeners( expected ) ).parseFile( new ByteArrayInputStream( content ) );
+
+        final RecordingListener actual = new RecordingListener();
+        new StreamingExcelParser( listeners( actual ) ).parseFile( new ByteArrayInputStream( content ) );
+
+        assertEquals( expected.events,
+                      actual.events );
+        assertTrue( actual.events.contains( "cell 2,1=Merged (0)" ) );
+        assertFalse( actual.events.contains( "sheet Other" ) );
+    }
+
+    @Test
+    public void testNamedSheet() throws Exception {
+        final RecordingListener actual = new RecordingListener();
+        final Map<String, List<DataListener>> sheetListeners = new HashMap<String, List<DataListener>>();
+        sheetListeners.put( "Other",
+                            listeners( actual ) );
+        new StreamingExcelParser( sheetListeners ).parseFile( new ByteArrayInputStream( content ) );
+
+        assertTrue( actual.events.contains( "cell 0,0=Ignored (-1)" ) );
+        assertFalse( actual.events.contains( "cell 0,0=RuleSet (-1)" ) );
+    }
+
+    @Test
+    public void testFileMatchesStream() throws Exception {
+        final File file = File.createTempFile( "streaming-excel-parser",
+                                               ".xlsx" );
+        try {
+            final OutputStream os = new FileOutputStream( file );
+            try {
+                os.write( content );
+            } finally {
+                os.close();
+            }
+
+            final RecordingListener expected = new RecordingListener();
+            new StreamingExcelParser( listeners( expected ) ).parseFile( new ByteArrayInputStream( content ) );
+
+            final RecordingListener actual = new RecordingListener();
+            new StreamingExcelParser( listeners( actual ) ).parseFile( file );
+
+            assertEquals( expected.events,
+                          actual.events );
+            assertTrue( file.exists() );
+        } finally {
+            file.delete();
+        }
+    }
+
+    private List<DataListener> listeners( final DataListener listener ) {
+        final List<DataListener> listeners = new ArrayList<DataListener>();
+        listeners.add( listener );
+        return listeners;
+    }
+
+    private static class RecordingListener implements DataListener {
+
+        private final List<String> events = new ArrayList<String>();
+
+        @Override
+        public void startSheet( final String name ) {
+            events.add( "sheet " + name );
+        }
+
+        @Override
+        public void finishSheet() {
+            events.add( "finish" );
+        }
+
+        @Override
+        public void newRow( final int rowNumber,
+                            final int columns ) {
+            events.add( "row " + rowNumber + "," + columns );
+        }
+
+        @Override
+        public void newCell( final int row,
+                             final int column,
+                             final String value,
+                             final int mergedColStart ) {
+            events.add( "cell " + row + "," + column + "=" + value + " (" + mergedColStart + ")" );
+        }
+
+    }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.dtablexls.backend.server.conversion;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.drools.workbench.models.guided.dtable.shared.conversion.ConversionMessage;
+import org.drools.workbench.models.guided.dtable.shared.conversion.ConversionMessageType;
+import org.drools.workbench.models.guided.dtable.shared.conversion.ConversionResult;
+import org.drools.workbench.models.guided.dtable.shared.model.GuidedDecisionTable52;
+import org.drools.workbench.screens.drltext.service.DRLTextEditorService;
+import org.drools.workbench.screens.drltext.type.DRLResourceTypeDefinition;
+import org.drools.workbench.screens.dtablexls.type.DecisionTableXLSResourceTypeDefinition;
+import org.drools.workbench.screens.globals.service.GlobalsEditorService;
+import org.drools.workbench.screens.globals.type.GlobalResourceTypeDefinition;
+import org.drools.workbench.screens.guided.dtable.service.GuidedDecisionTableEditorService;
+import org.drools.workbench.screens.guided.dtable.type.GuidedDTableResourceTypeDefinition;
+import org.guvnor.common.services.shared.metadata.MetadataService;
+import org.jboss.errai.security.shared.api.identity.User;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kie.workbench.common.screens.datamodeller.service.DataModelerService;
+import org.kie.workbench.common.services.shared.project.KieProjectService;
+import org.kie.workbench.common.services.shared.project.ProjectImportsService;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.uberfire.backend.server.util.Paths;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.backend.vfs.PathFactory;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.base.options.CommentedOption;
+import org.uberfire.java.nio.file.FileSystem;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the commits made when converting XLS Decision Tables
+ */
+public class DecisionTableXLSToDecisionTableGuidedConverterBatchTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private IOService ioService;
+    private GuidedDecisionTableEditorService guidedDecisionTableService;
+    private DecisionTableXLSToDecisionTableGuidedConverter converter;
+
+    private Path xls1;
+    private Path xls2;
+
+    @Before
+    public void setup() throws Exception {
+        ioService = mock( IOService.class );
+        guidedDecisionTableService = mock( GuidedDecisionTableEditorService.class );
+
+        final User identity = mock( User.class );
+        when( identity.getIdentifier() ).thenReturn( "user" );
+        when( ioService.newInputStream( any( org.uberfire.java.nio.file.Path.class ) ) ).thenAnswer( new Answer<InputStream>() {
+            @Override
+            public InputStream answer( final InvocationOnMock invocation ) throws Throwable {
+                return DecisionTableXLSToDecisionTableGuidedConverterBatchTest.class.getResourceAsStream( "MultipleRuleTables.xls" );
+            }
+        } );
+
+        converter = new DecisionTableXLSToDecisionTableGuidedConverter( identity,
+                                                                        ioService,
+                                                                        mock( DRLTextEditorService.class ),
+                                                                        guidedDecisionTableService,
+                                                                        mock( GlobalsEditorService.class ),
+                                                                        mock( KieProjectService.class ),
+                                                                        mock( ProjectImportsService.class ),
+                                                                        mock( MetadataService.class ),
+                                                                        new DecisionTableXLSResourceTypeDefinition(),
+                                                                        new GuidedDTableResourceTypeDefinition(),
+                                                                        new DRLResourceTypeDefinition(),
+                                                                        mock( DataModelerService.class ),
+                                                                        new GlobalResourceTypeDefinition() );
+        converter.initialiseTypeConversionMetaData();
+
+        xls1 = makePath( "one.xls" );
+        xls2 = makePath( "two.xls" );
+    }
+
+    private Path makePath( final String fileName ) {
+        final File file = new File( folder.getRoot(),
+                                    fileName );
+        return PathFactory.newPath( fileName,
+                                    "file://" + file.getAbsolutePath() );
+    }
+
+    @Test
+    public void testOneCommitPerConversion() {
+        when( guidedDecisionTableService.create( any( Path.class ),
+                                                 anyString(),
+                                                 any( GuidedDecisionTable52.class ),
+                                                 anyString() ) ).thenReturn( makePath( "table.gdst" ) );
+
+        final ConversionResult result = converter.convert( Arrays.asList( xls1,
+                                                                          xls2 ) );
+
+        assertFalse( hasErrors( result ) );
+        verify( guidedDecisionTableService,
+                times( 4 ) ).create( any( Path.class ),
+                                     anyString(),
+                                     any( GuidedDecisionTable52.class ),
+                                     anyString() );
+        verify( ioService,
+                times( 2 ) ).startBatch( any( FileSystem[].class ),
+                                         any( CommentedOption.class ) );
+        verify( ioService,
+                times( 2 ) ).endBatch();
+        verify( ioService,
+                never() ).deleteIfExists( any( org.uberfire.java.nio.file.Path.class ) );
+    }
+
+    @Test
+    public void testFailedConversionIsRolledBack() {
+        final Path table = makePath( "table.gdst" );
+        when( guidedDecisionTableService.create( any( Path.class ),
+                                                 anyString(),
+                                                 any( GuidedDecisionTable52.class ),
+                                                 anyString() ) ).thenReturn( table ).thenThrow( new RuntimeException( "failed" ) ).thenReturn( table );
+
+        final ConversionResult result = converter.convert( Arrays.asList( xls1,
+                                                                          xls2 ) );
+
+        //The first conversion's table is removed, within its own commit, and the second conversion is unaffected
+        assertTrue( hasErrors( result ) );
+        verify( ioService,
+                times( 1 ) ).deleteIfExists( Paths.convert( table ) );
+        verify( ioService,
+                times( 2 ) ).startBatch( any( FileSystem[].class ),
+                                         any( CommentedOption.class ) );
+        verify( ioService,
+                times( 2 ) ).endBatch();
+
+        int created = 0;
+        for ( ConversionMessage message : result.getMessages() ) {
+            if ( message.getMessage().startsWith( "Created Guided Decision Table" ) ) {
+                created++;
+            }
+        }
+        assertEquals( 2,
+                      created );
+    }
+
+    private boolean hasErrors( final ConversionResult result ) {
+        for ( ConversionMessage message : result.getMessages() ) {
+            if ( message.getMessageType() == ConversionMessageType.ERROR ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -21,6 +21,10 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.drools.decisiontable.parser.xls.ExcelParser;
 import org.drools.template.model.Global;
@@ -1291,6 +1295,49 @@ public class DecisionTableXLSToDecisionTableGuidedConverterTest {
 
     }
 
+    @Test
+    public void testConcurrentConversions() throws Exception {
+        //Listeners must not share state, so concurrent conversions give the same results as a single conversion
+        final int conversions = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool( conversions );
+        try {
+            final List<Future<GuidedDecisionTableGeneratorListener>> futures = new ArrayList<Future<GuidedDecisionTableGeneratorListener>>();
+            for ( int i = 0; i < conversions; i++ ) {
+                futures.add( executor.submit( new Callable<GuidedDecisionTableGeneratorListener>() {
+                    @Override
+                    public GuidedDecisionTableGeneratorListener call() throws Exception {
+                        final GuidedDecisionTableGeneratorListener listener = new GuidedDecisionTableGeneratorListener( new ConversionResult() );
+                        final List<DataListener> listeners = new ArrayList<DataListener>();
+                        listeners.add( listener );
+                        final InputStream is = DecisionTableXLSToDecisionTableGuidedConverterTest.class.getResourceAsStream( "MultipleRuleTables.xls" );
+                        try {
+                            new ExcelParser( listeners ).parseFile( is );
+                        } finally {
+                            is.close();
+                        }
+                        return listener;
+                    }
+                } ) );
+            }
+
+            for ( Future<GuidedDecisionTableGeneratorListener> future : futures ) {
+                final List<GuidedDecisionTable52> dtables = future.get().getGuidedDecisionTables();
+                assertEquals( 2,
+                              dtables.size() );
+                assertTrue( isRowEquivalent( new String[]{ "1", "Created from row 7", "AG1", "John", "Hello Sir" },
+                                             dtables.get( 0 ).getData().get( 0 ) ) );
+                assertTrue( isRowEquivalent( new String[]{ "2", "Created from row 8", "AG2", "Jane", "Hello Madam" },
+                                             dtables.get( 0 ).getData().get( 1 ) ) );
+                assertTrue( isRowEquivalent( new String[]{ "1", "Created from row 15", "John", "25" },
+                                             dtables.get( 1 ).getData().get( 0 ) ) );
+                assertTrue( isRowEquivalent( new String[]{ "2", "Created from row 16", "Jane", "29" },
+                                             dtables.get( 1 ).getData().get( 1 ) ) );
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     private boolean isRowEquivalent( String[] expected,
                                      List<DTCellValue52> actual ) {
         //Sizes should match
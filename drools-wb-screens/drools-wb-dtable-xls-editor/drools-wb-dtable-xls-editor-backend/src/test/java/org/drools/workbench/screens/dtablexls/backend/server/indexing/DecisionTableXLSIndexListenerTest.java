@@ -0,0 +1,123 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.drools.workbench.screens.dtablexls.backend.server.indexing;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.drools.compiler.compiler.DecisionTableFactory;
+import org.drools.compiler.compiler.DrlParser;
+import org.drools.compiler.lang.descr.PackageDescr;
+import org.drools.template.parser.DataListener;
+import org.drools.workbench.models.datamodel.oracle.ProjectDataModelOracle;
+import org.drools.workbench.screens.dtablexls.backend.server.StreamingExcelParser;
+import org.guvnor.common.services.project.model.Package;
+import org.guvnor.common.services.project.model.Project;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.workbench.common.services.refactoring.backend.server.indexing.DefaultIndexBuilder;
+import org.kie.workbench.common.services.refactoring.backend.server.indexing.PackageDescrIndexVisitor;
+import org.uberfire.backend.vfs.PathFactory;
+import org.uberfire.commons.data.Pair;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Compares the index terms extracted whilst parsing a spreadsheet with those extracted from the DRL generated for it
+ */
+public class DecisionTableXLSIndexListenerTest {
+
+    private ProjectDataModelOracle dmo;
+    private Project project;
+    private Package pkg;
+
+    @Before
+    public void setup() {
+        dmo = new TestDecisionTableXLSFileIndexer().getProjectDataModelOracle( null );
+        project = mock( Project.class );
+        when( project.getRootPath() ).thenReturn( PathFactory.newPath( "project",
+                                                                       "default://project" ) );
+        when( project.getProjectName() ).thenReturn( "project" );
+        pkg = mock( Package.class );
+        when( pkg.getPackageName() ).thenReturn( "org.drools.workbench.screens.dtablexls.backend.server.indexing" );
+    }
+
+    @Test
+    public void testDecisionTable1() throws Exception {
+        assertStreamedTermsMatchDrlTerms( "dtable1.xls" );
+    }
+
+    @Test
+    public void testDecisionTable2() throws Exception {
+        assertStreamedTermsMatchDrlTerms( "dtable2.xls" );
+    }
+
+    @Test
+    public void testDecisionTable3() throws Exception {
+        assertStreamedTermsMatchDrlTerms( "dtable3.xls" );
+    }
+
+    //Actions are only indexed from the spreadsheet, as PackageDescrIndexVisitor does not visit consequences
+    private void assertStreamedTermsMatchDrlTerms( final String fileName ) throws Exception {
+        final Set<Pair<String, String>> drlTerms = getDrlTerms( fileName );
+        final Set<Pair<String, String>> streamedTerms = getStreamedTerms( fileName );
+
+        assertFalse( drlTerms.isEmpty() );
+        for ( Pair<String, String> term : drlTerms ) {
+            assertTrue( fileName + " is missing " + term.getK1() + "=" + term.getK2(),
+                        streamedTerms.contains( term ) );
+        }
+    }
+
+    private Set<Pair<String, String>> getDrlTerms( final String fileName ) throws Exception {
+        final InputStream is = getClass().getResourceAsStream( fileName );
+        try {
+            final String drl = DecisionTableFactory.loadFromInputStream( is,
+                                                                         null );
+            final PackageDescr packageDescr = new DrlParser().parse( true,
+                                                                     drl );
+            final DefaultIndexBuilder builder = new DefaultIndexBuilder( project,
+                                                                         pkg );
+            new PackageDescrIndexVisitor( dmo,
+                                          builder,
+                                          packageDescr ).visit();
+            return builder.build();
+        } finally {
+            is.close();
+        }
+    }
+
+    private Set<Pair<String, String>> getStreamedTerms( final String fileName ) throws Exception {
+        final InputStream is = getClass().getResourceAsStream( fileName );
+        try {
+            final DefaultIndexBuilder builder = new DefaultIndexBuilder( project,
+                                                                         pkg );
+            final DecisionTableXLSIndexListener listener = new DecisionTableXLSIndexListener( builder,
+                                                                                              dmo );
+            final List<DataListener> listeners = new ArrayList<DataListener>();
+            listeners.add( listener );
+            new StreamingExcelParser( listeners ).parseFile( is );
+            listener.complete();
+            return builder.build();
+        } finally {
+            is.close();
+        }
+    }
+
+}
@@ -25,6 +25,7 @@ import org.drools.workbench.models.datamodel.oracle.ModelField;
 import org.drools.workbench.models.datamodel.oracle.ProjectDataModelOracle;
 import org.drools.workbench.screens.globals.backend.server.indexing.GlobalsFileIndexer;
 import org.drools.workbench.screens.globals.type.GlobalResourceTypeDefinition;
+import org.drools.workbench.screens.indexing.backend.server.IndexingContext;
 import org.kie.workbench.common.services.refactoring.backend.server.TestIndexer;
 import org.kie.workbench.common.services.shared.project.KieProjectService;
 import org.uberfire.io.IOService;
@@ -43,7 +44,8 @@ public class TestGlobalsFileIndexer extends GlobalsFileIndexer implements TestIn
 
     @Override
     public void setProjectService( final KieProjectService projectService ) {
-        this.projectService = projectService;
+        this.indexingContext = new IndexingContext( projectService,
+                                                    null );
     }
 
     @Override
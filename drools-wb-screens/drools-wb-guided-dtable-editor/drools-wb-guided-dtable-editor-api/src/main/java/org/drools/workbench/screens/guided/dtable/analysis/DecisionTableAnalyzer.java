@@ -0,0 +1,514 @@
+/*
+ * Copyright 2011 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.guided.dtable.analysis;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.drools.workbench.models.datamodel.oracle.DataType;
+import org.drools.workbench.models.datamodel.oracle.OperatorsOracle;
+import org.drools.workbench.models.datamodel.rule.BaseSingleFieldConstraint;
+import org.drools.workbench.models.guided.dtable.shared.model.ActionCol52;
+import org.drools.workbench.models.guided.dtable.shared.model.ActionInsertFactCol52;
+import org.drools.workbench.models.guided.dtable.shared.model.ActionSetFieldCol52;
+import org.drools.workbench.models.guided.dtable.shared.model.Analysis;
+import org.drools.workbench.models.guided.dtable.shared.model.BRLActionColumn;
+import org.drools.workbench.models.guided.dtable.shared.model.BaseColumn;
+import org.drools.workbench.models.guided.dtable.shared.model.ConditionCol52;
+import org.drools.workbench.models.guided.dtable.shared.model.DTCellValue52;
+import org.drools.workbench.models.guided.dtable.shared.model.GuidedDecisionTable52;
+import org.drools.workbench.models.guided.dtable.shared.model.LimitedEntryCol;
+import org.drools.workbench.models.guided.dtable.shared.model.Pattern52;
+import org.drools.workbench.screens.guided.dtable.analysis.action.ActionDetector;
+import org.drools.workbench.screens.guided.dtable.analysis.action.ActionDetectorKey;
+import org.drools.workbench.screens.guided.dtable.analysis.action.InsertFactActionDetectorKey;
+import org.drools.workbench.screens.guided.dtable.analysis.action.SetFieldColActionDetectorKey;
+import org.drools.workbench.screens.guided.dtable.analysis.action.UnrecognizedActionDetectorKey;
+import org.drools.workbench.screens.guided.dtable.analysis.condition.BooleanConditionDetector;
+import org.drools.workbench.screens.guided.dtable.analysis.condition.ConditionDetector;
+import org.drools.workbench.screens.guided.dtable.analysis.condition.DateConditionDetector;
+import org.drools.workbench.screens.guided.dtable.analysis.condition.EnumConditionDetector;
+import org.drools.workbench.screens.guided.dtable.analysis.condition.NumericBigDecimalConditionDetector;
+import org.drools.workbench.screens.guided.dtable.analysis.condition.NumericBigIntegerConditionDetector;
+import org.drools.workbench.screens.guided.dtable.analysis.condition.NumericByteConditionDetector;
+import org.drools.workbench.screens.guided.dtable.analysis.condition.NumericConditionDetector;
+import org.drools.workbench.screens.guided.dtable.analysis.condition.NumericDoubleConditionDetector;
+import org.drools.workbench.screens.guided.dtable.analysis.condition.NumericFloatConditionDetector;
+import org.drools.workbench.screens.guided.dtable.analysis.condition.NumericIntegerConditionDetector;
+import org.drools.workbench.screens.guided.dtable.analysis.condition.NumericLongConditionDetector;
+import org.drools.workbench.screens.guided.dtable.analysis.condition.NumericShortConditionDetector;
+import org.drools.workbench.screens.guided.dtable.analysis.condition.StringConditionDetector;
+import org.drools.workbench.screens.guided.dtable.analysis.condition.UnrecognizedConditionDetector;
+
+/**
+ * Analyses a Decision Table for impossible matches, conflicting and duplicated rows. Rows are indexed by the
+ * values they require of each field so only rows that can overlap are compared. Following a full analysis
+ * the results can be maintained incrementally as rows are updated, inserted or deleted.
+ */
+public class DecisionTableAnalyzer {
+
+    private final GuidedDecisionTable52 model;
+    private final FieldTypeResolver fieldTypeResolver;
+    private final List<AnalyzedColumn> conditionColumns = new ArrayList<AnalyzedColumn>();
+    private final List<AnalyzedColumn> actionColumns = new ArrayList<AnalyzedColumn>();
+
+    private final List<RowDetector> rowDetectors = new ArrayList<RowDetector>();
+    private final List<Analysis> analysisData = new ArrayList<Analysis>();
+    private RowDetectorIndex index = new RowDetectorIndex();
+
+    /**
+     * Constructor. The column structure of the model is captured so subsequent changes to rows can be analysed
+     * incrementally; if the columns change a new DecisionTableAnalyzer must be used.
+     * @param model
+     * @param fieldTypeResolver
+     */
+    public DecisionTableAnalyzer( final GuidedDecisionTable52 model,
+                                  final FieldTypeResolver fieldTypeResolver ) {
+        this.model = model;
+        this.fieldTypeResolver = fieldTypeResolver;
+        initialiseColumns();
+    }
+
+    /**
+     * Analyse the whole table.
+     * @return Analysis for each row
+     */
+    public List<Analysis> analyze() {
+        this.index = new RowDetectorIndex();
+        this.rowDetectors.clear();
+        this.analysisData.clear();
+
+        for ( int iRow = 0; iRow < model.getData().size(); iRow++ ) {
+            final RowDetector rowDetector = buildRowDetector( iRow );
+            rowDetectors.add( rowDetector );
+            index.add( rowDetector );
+        }
+        for ( RowDetector rowDetector : rowDetectors ) {
+            analysisData.add( buildAnalysis( rowDetector,
+                                             index ) );
+        }
+        return getAnalysisData();
+    }
+
+    /**
+     * Re-analyse rows whose values have changed, together with rows whose Analysis referenced them before or after.
+     * @param firstRowIndex Index of the first changed row
+     * @param lastRowIndex Index of the last changed row (inclusive)
+     * @return Analysis for each row
+     */
+    public List<Analysis> updateRows( final int firstRowIndex,
+                                      final int lastRowIndex ) {
+        final Set<RowDetector> affected = new LinkedHashSet<RowDetector>();
+        for ( int iRow = firstRowIndex; iRow <= lastRowIndex; iRow++ ) {
+            final RowDetector oldRowDetector = rowDetectors.get( iRow );
+            final RowDetector newRowDetector = buildRowDetector( iRow );
+            index.remove( oldRowDetector );
+            index.add( newRowDetector );
+            rowDetectors.set( iRow,
+                              newRowDetector );
+            affected.addAll( oldRowDetector.getRelatedRowDetectors() );
+        }
+        for ( int iRow = firstRowIndex; iRow <= lastRowIndex; iRow++ ) {
+            final RowDetector rowDetector = rowDetectors.get( iRow );
+            analysisData.set( iRow,
+                              buildAnalysis( rowDetector,
+                                             index ) );
+            affected.addAll( rowDetector.getRelatedRowDetectors() );
+        }
+        for ( int iRow = firstRowIndex; iRow <= lastRowIndex; iRow++ ) {
+            affected.remove( rowDetectors.get( iRow ) );
+        }
+        reanalyse( affected );
+        return getAnalysisData();
+    }
+
+    /**
+     * Analyse a row inserted into the table; rows that follow are renumbered.
+     * @param rowIndex Index of the new row
+     * @return Analysis for each row
+     */
+    public List<Analysis> insertRow( final int rowIndex ) {
+        return insertRows( rowIndex,
+                           1 );
+    }
+
+    /**
+     * Analyse consecutive rows inserted into the table; rows that follow are renumbered once for all of them.
+     * @param firstRowIndex Index of the first new row
+     * @param numberOfRows Number of new rows
+     * @return Analysis for each row
+     */
+    public List<Analysis> insertRows( final int firstRowIndex,
+                                      final int numberOfRows ) {
+        final List<RowDetector> inserted = new ArrayList<RowDetector>( numberOfRows );
+        for ( int iRow = firstRowIndex; iRow < firstRowIndex + numberOfRows; iRow++ ) {
+            final RowDetector rowDetector = buildRowDetector( iRow );
+            rowDetectors.add( iRow,
+                              rowDetector );
+            analysisData.add( iRow,
+                              new Analysis() );
+            inserted.add( rowDetector );
+        }
+        final Set<RowDetector> renumbered = renumberRows( firstRowIndex + numberOfRows );
+        for ( RowDetector rowDetector : inserted ) {
+            index.add( rowDetector );
+        }
+
+        final Set<RowDetector> affected = new LinkedHashSet<RowDetector>();
+        for ( RowDetector rowDetector : inserted ) {
+            analysisData.set( (int) rowDetector.getRowIndex(),
+                              buildAnalysis( rowDetector,
+                                             index ) );
+            affected.addAll( rowDetector.getRelatedRowDetectors() );
+        }
+        affected.addAll( getRowsReferencing( renumbered ) );
+        affected.removeAll( inserted );
+        reanalyse( affected );
+        return getAnalysisData();
+    }
+
+    /**
+     * Remove a deleted row from the analysis; rows that follow are renumbered.
+     * @param rowIndex Index of the deleted row
+     * @return Analysis for each row
+     */
+    public List<Analysis> deleteRow( final int rowIndex ) {
+        final RowDetector rowDetector = rowDetectors.remove( rowIndex );
+        analysisData.remove( rowIndex );
+        index.remove( rowDetector );
+        final Set<RowDetector> renumbered = renumberRows( rowIndex );
+
+        final Set<RowDetector> affected = new LinkedHashSet<RowDetector>( rowDetector.getRelatedRowDetectors() );
+        affected.addAll( getRowsReferencing( renumbered ) );
+        reanalyse( affected );
+        return getAnalysisData();
+    }
+
+    public List<Analysis> getAnalysisData() {
+        return Collections.unmodifiableList( analysisData );
+    }
+
+    private void initialiseColumns() {
+        final List<BaseColumn> expandedColumns = model.getExpandedColumns();
+
+        for ( Pattern52 pattern : model.getPatterns() ) {
+            for ( ConditionCol52 conditionCol : pattern.getChildColumns() ) {
+                int columnIndex = expandedColumns.indexOf( conditionCol );
+                if ( columnIndex < 0 ) {
+                    continue;
+                }
+                conditionColumns.add( new AnalyzedColumn( pattern,
+                                                          conditionCol,
+                                                          columnIndex,
+                                                          getType( pattern,
+                                                                   conditionCol ),
+                                                          getValueList( conditionCol ) ) );
+            }
+        }
+        for ( ActionCol52 actionCol : model.getActionCols() ) {
+            //BRLActionColumns cannot be analysed
+            if ( actionCol instanceof BRLActionColumn ) {
+                continue;
+            }
+            int columnIndex = expandedColumns.indexOf( actionCol );
+            if ( columnIndex < 0 ) {
+                continue;
+            }
+            actionColumns.add( new AnalyzedColumn( null,
+                                                   actionCol,
+                                                   columnIndex,
+                                                   null,
+                                                   null ) );
+        }
+    }
+
+    //Mirrors GuidedDecisionTableUtils.getType() for Condition columns
+    private String getType( final Pattern52 pattern,
+                            final ConditionCol52 col ) {
+
+        // Columns with "Value Lists" etc are always Text (for now)
+        if ( col.getValueList() != null && !"".equals( col.getValueList() ) ) {
+            return DataType.TYPE_STRING;
+        }
+
+        // Operator "in" and "not in" requires a List as the value. These are always Text (for now)
+        if ( OperatorsOracle.operatorRequiresList( col.getOperator() ) ) {
+            return DataType.TYPE_STRING;
+        }
+
+        //Literals without operators are always Text (as the user can specify the operator "in cell")
+        if ( col.getConstraintValueType() == BaseSingleFieldConstraint.TYPE_LITERAL ) {
+            if ( col.getOperator() == null || "".equals( col.getOperator() ) ) {
+                return DataType.TYPE_STRING;
+            }
+        }
+
+        //Formula and Predicates are always Text (as the user can specify anything "in cell")
+        if ( col.getConstraintValueType() == BaseSingleFieldConstraint.TYPE_PREDICATE
+                || col.getConstraintValueType() == BaseSingleFieldConstraint.TYPE_RET_VALUE ) {
+            return DataType.TYPE_STRING;
+        }
+
+        return fieldTypeResolver.getFieldType( pattern.getFactType(),
+                                               col.getFactField() );
+    }
+
+    private List<String> getValueList( final ConditionCol52 col ) {
+        if ( col.getValueList() != null && !"".equals( col.getValueList() ) ) {
+            return Arrays.asList( col.getValueList().split( "," ) );
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Build the RowDetector for a row of the model. RowDetectors of different rows can be built concurrently.
+     * @param rowIndex
+     * @return
+     */
+    @SuppressWarnings("rawtypes")
+    public RowDetector buildRowDetector( final int rowIndex ) {
+        final List<DTCellValue52> row = model.getData().get( rowIndex );
+        final RowDetector rowDetector = new RowDetector( rowIndex );
+        for ( AnalyzedColumn column : conditionColumns ) {
+            final ConditionCol52 conditionCol = (ConditionCol52) column.column;
+            DTCellValue52 visibleCellValue = row.get( column.index );
+            DTCellValue52 realCellValue;
+            boolean cellIsNotBlank;
+            if ( conditionCol instanceof LimitedEntryCol ) {
+                realCellValue = ( (LimitedEntryCol) conditionCol ).getValue();
+                cellIsNotBlank = visibleCellValue.getBooleanValue();
+            } else {
+                realCellValue = visibleCellValue;
+                cellIsNotBlank = visibleCellValue.hasValue();
+            }
+            // Blank cells are ignored
+            if ( cellIsNotBlank ) {
+                ConditionDetector conditionDetector = buildConditionDetector( column,
+                                                                              realCellValue );
+                rowDetector.putOrMergeConditionDetector( conditionDetector );
+            }
+        }
+        for ( AnalyzedColumn column : actionColumns ) {
+            final ActionCol52 actionCol = (ActionCol52) column.column;
+            DTCellValue52 visibleCellValue = row.get( column.index );
+            DTCellValue52 realCellValue;
+            boolean cellIsNotBlank;
+            if ( actionCol instanceof LimitedEntryCol ) {
+                realCellValue = ( (LimitedEntryCol) actionCol ).getValue();
+                cellIsNotBlank = visibleCellValue.getBooleanValue();
+            } else {
+                realCellValue = visibleCellValue;
+                cellIsNotBlank = visibleCellValue.hasValue();
+            }
+            // Blank cells are ignored
+            if ( cellIsNotBlank ) {
+                ActionDetector actionDetector = buildActionDetector( actionCol,
+                                                                     realCellValue );
+                rowDetector.putOrMergeActionDetector( actionDetector );
+            }
+        }
+        return rowDetector;
+    }
+
+    /**
+     * Build the Analysis of a row against the rows held in an index. Analyses of different rows can be built
+     * concurrently providing the index is not modified.
+     * @param rowDetector
+     * @param index
+     * @return
+     */
+    public static Analysis buildAnalysis( final RowDetector rowDetector,
+                                          final RowDetectorIndex index ) {
+        return rowDetector.buildAnalysis( index.getCandidates( rowDetector ) );
+    }
+
+    private void reanalyse( final Set<RowDetector> rowDetectorsToAnalyse ) {
+        for ( RowDetector rowDetector : rowDetectorsToAnalyse ) {
+            final int iRow = (int) rowDetector.getRowIndex();
+            //Skip rows that have since been replaced or deleted
+            if ( iRow >= rowDetectors.size() || rowDetectors.get( iRow ) != rowDetector ) {
+                continue;
+            }
+            analysisData.set( iRow,
+                              buildAnalysis( rowDetector,
+                                             index ) );
+        }
+    }
+
+    private Set<RowDetector> renumberRows( final int fromRowIndex ) {
+        final Set<RowDetector> renumbered = new HashSet<RowDetector>();
+        for ( int iRow = fromRowIndex; iRow < rowDetectors.size(); iRow++ ) {
+            final RowDetector rowDetector = rowDetectors.get( iRow );
+            rowDetector.setRowIndex( iRow );
+            renumbered.add( rowDetector );
+        }
+        return renumbered;
+    }
+
+    //Analysis messages contain row numbers so rows referencing renumbered rows need their Analysis rebuilt
+    private Set<RowDetector> getRowsReferencing( final Set<RowDetector> renumbered ) {
+        final Set<RowDetector> referencing = new LinkedHashSet<RowDetector>();
+        if ( renumbered.isEmpty() ) {
+            return referencing;
+        }
+        for ( RowDetector rowDetector : rowDetectors ) {
+            for ( RowDetector related : rowDetector.getRelatedRowDetectors() ) {
+                if ( renumbered.contains( related ) ) {
+                    referencing.add( rowDetector );
+                    break;
+                }
+            }
+        }
+        return referencing;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private ConditionDetector buildConditionDetector( AnalyzedColumn column,
+                                                      DTCellValue52 realCellValue ) {
+        Pattern52 pattern = column.pattern;
+        ConditionCol52 conditionCol = (ConditionCol52) column.column;
+        String factField = conditionCol.getFactField();
+        String operator = conditionCol.getOperator();
+        String type = column.type;
+        // "Guvnor" enums
+        List<String> allValueList = column.valueList;
+        ConditionDetector newDetector;
+        if ( !allValueList.isEmpty() ) {
+            // Guvnor enum
+            newDetector = new EnumConditionDetector( pattern,
+                                                     factField,
+                                                     allValueList,
+                                                     realCellValue.getStringValue(),
+                                                     operator );
+        } else if ( type == null ) {
+            // type null means the field is free-format
+            newDetector = new UnrecognizedConditionDetector( pattern,
+                                                             factField,
+                                                             operator );
+        } else if ( type.equals( DataType.TYPE_STRING ) ) {
+            newDetector = new StringConditionDetector( pattern,
+                                                       factField,
+                                                       realCellValue.getStringValue(),
+                                                       operator );
+        } else if ( type.equals( DataType.TYPE_NUMERIC ) ) {
+            newDetector = new NumericConditionDetector( pattern,
+                                                        factField,
+                                                        (BigDecimal) realCellValue.getNumericValue(),
+                                                        operator );
+        } else if ( type.equals( DataType.TYPE_NUMERIC_BIGDECIMAL ) ) {
+            newDetector = new NumericBigDecimalConditionDetector( pattern,
+                                                                  factField,
+                                                                  (BigDecimal) realCellValue.getNumericValue(),
+                                                                  operator );
+        } else if ( type.equals( DataType.TYPE_NUMERIC_BIGINTEGER ) ) {
+            newDetector = new NumericBigIntegerConditionDetector( pattern,
+                                                                  factField,
+                                                                  (BigInteger) realCellValue.getNumericValue(),
+                                                                  operator );
+        } else if ( type.equals( DataType.TYPE_NUMERIC_BYTE ) ) {
+            newDetector = new NumericByteConditionDetector( pattern,
+                                                            factField,
+                                                            (Byte) realCellValue.getNumericValue(),
+                                                            operator );
+        } else if ( type.equals( DataType.TYPE_NUMERIC_DOUBLE ) ) {
+            newDetector = new NumericDoubleConditionDetector( pattern,
+                                                              factField,
+                                                              (Double) realCellValue.getNumericValue(),
+                                                              operator );
+        } else if ( type.equals( DataType.TYPE_NUMERIC_FLOAT ) ) {
+            newDetector = new NumericFloatConditionDetector( pattern,
+                                                             factField,
+                                                             (Float) realCellValue.getNumericValue(),
+                                                             operator );
+        } else if ( type.equals( DataType.TYPE_NUMERIC_INTEGER ) ) {
+            newDetector = new NumericIntegerConditionDetector( pattern,
+                                                               factField,
+                                                               (Integer) realCellValue.getNumericValue(),
+                                                               operator );
+        } else if ( type.equals( DataType.TYPE_NUMERIC_LONG ) ) {
+            newDetector = new NumericLongConditionDetector( pattern,
+                                                            factField,
+                                                            (Long) realCellValue.getNumericValue(),
+                                                            operator );
+        } else if ( type.equals( DataType.TYPE_NUMERIC_SHORT ) ) {
+            newDetector = new NumericShortConditionDetector( pattern,
+                                                             factField,
+                                                             (Short) realCellValue.getNumericValue(),
+                                                             operator );
+        } else if ( type.equals( DataType.TYPE_BOOLEAN ) ) {
+            newDetector = new BooleanConditionDetector( pattern,
+                                                        factField,
+                                                        realCellValue.getBooleanValue(),
+                                                        operator );
+        } else if ( type.equals( DataType.TYPE_DATE ) ) {
+            newDetector = new DateConditionDetector( pattern,
+                                                     factField,
+                                                     realCellValue.getDateValue(),
+                                                     operator );
+        } else {
+            newDetector = new UnrecognizedConditionDetector( pattern,
+                                                             factField,
+                                                             operator );
+        }
+        return newDetector;
+    }
+
+    private ActionDetector buildActionDetector( ActionCol52 actionCol,
+                                                DTCellValue52 realCellValue ) {
+        ActionDetectorKey key;
+        if ( actionCol instanceof ActionSetFieldCol52 ) {
+            key = new SetFieldColActionDetectorKey( (ActionSetFieldCol52) actionCol );
+        } else if ( actionCol instanceof ActionInsertFactCol52 ) {
+            key = new InsertFactActionDetectorKey( (ActionInsertFactCol52) actionCol );
+        } else {
+            key = new UnrecognizedActionDetectorKey( actionCol );
+        }
+        return new ActionDetector( key,
+                                   realCellValue );
+    }
+
+    //Column details resolved once per analysis rather than for every cell
+    private static class AnalyzedColumn {
+
+        private final Pattern52 pattern;
+        private final BaseColumn column;
+        private final int index;
+        private final String type;
+        private final List<String> valueList;
+
+        private AnalyzedColumn( final Pattern52 pattern,
+                                final BaseColumn column,
+                                final int index,
+                                final String type,
+                                final List<String> valueList ) {
+            this.pattern = pattern;
+            this.column = column;
+            this.index = index;
+            this.type = type;
+            this.valueList = valueList;
+        }
+
+    }
+
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.guided.dtable.analysis;
+
+/**
+ * Resolves the data-type of a Fact's field for DecisionTableAnalyzer. Implementations exist for
+ * the client-side AsyncPackageDataModelOracle and the server-side PackageDataModelOracle.
+ */
+public interface FieldTypeResolver {
+
+    /**
+     * Get the data-type of a field
+     * @param factType Fact Type as used in the Decision Table
+     * @param fieldName Field name
+     * @return A DataType constant or null if the field is not known
+     */
+    String getFieldType( String factType,
+                         String fieldName );
+
+}
@@ -14,17 +14,19 @@
  * limitations under the License.
  */
 
-package org.drools.workbench.screens.guided.dtable.client.widget.analysis;
+package org.drools.workbench.screens.guided.dtable.analysis;
 
-import org.drools.workbench.screens.guided.dtable.client.widget.analysis.action.ActionDetector;
-import org.drools.workbench.screens.guided.dtable.client.widget.analysis.action.ActionDetectorKey;
-import org.drools.workbench.screens.guided.dtable.client.widget.analysis.condition.ConditionDetector;
-import org.drools.workbench.screens.guided.dtable.client.widget.analysis.condition.ConditionDetectorKey;
+import org.drools.workbench.screens.guided.dtable.analysis.action.ActionDetector;
+import org.drools.workbench.screens.guided.dtable.analysis.action.ActionDetectorKey;
+import org.drools.workbench.screens.guided.dtable.analysis.condition.ConditionDetector;
+import org.drools.workbench.screens.guided.dtable.analysis.condition.ConditionDetectorKey;
 import org.drools.workbench.models.guided.dtable.shared.model.Analysis;
 
+import java.util.Collection;
 import java.util.LinkedHashMap;
-import java.util.List;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 public class RowDetector {
 
@@ -34,6 +36,9 @@ public class RowDetector {
 
     private Map<ActionDetectorKey, ActionDetector> actionDetectorMap = new LinkedHashMap<ActionDetectorKey, ActionDetector>();
 
+    // Rows referenced by the messages of the last Analysis built
+    private Set<RowDetector> relatedRowDetectors = new LinkedHashSet<RowDetector>();
+
     public RowDetector( long rowIndex ) {
         this.rowIndex = rowIndex;
     }
@@ -42,6 +47,14 @@ public class RowDetector {
         return rowIndex;
     }
 
+    public void setRowIndex( long rowIndex ) {
+        this.rowIndex = rowIndex;
+    }
+
+    public Set<RowDetector> getRelatedRowDetectors() {
+        return relatedRowDetectors;
+    }
+
     public ConditionDetector getConditionDetector( ConditionDetectorKey key ) {
         return conditionDetectorMap.get( key );
     }
@@ -58,6 +71,14 @@ public class RowDetector {
         conditionDetectorMap.put( key, mergedConditionDetector );
     }
 
+    public Collection<ConditionDetector> getConditionDetectors() {
+        return conditionDetectorMap.values();
+    }
+
+    public boolean hasActionDetectors() {
+        return !actionDetectorMap.isEmpty();
+    }
+
     public ActionDetector getActionDetector( ActionDetectorKey key ) {
         return actionDetectorMap.get( key );
     }
@@ -74,13 +95,22 @@ public class RowDetector {
         actionDetectorMap.put( key, mergedActionDetector );
     }
 
-    public Analysis buildAnalysis( List<RowDetector> rowDetectorList ) {
+    /**
+     * Builds the Analysis of this row against the given rows. Conflicts are symmetrical; if this row reports
+     * a conflict with another row then the other row reports a conflict with this row.
+     * @param rowDetectors Rows that may overlap this row, in row order
+     * @return
+     */
+    public Analysis buildAnalysis( Collection<RowDetector> rowDetectors ) {
         Analysis analysis = new Analysis();
+        relatedRowDetectors.clear();
         detectImpossibleMatch( analysis );
         detectMultipleValuesForOneAction( analysis );
-        for ( RowDetector otherRowDetector : rowDetectorList ) {
+        for ( RowDetector otherRowDetector : rowDetectors ) {
             if ( this != otherRowDetector ) {
-                detectConflict( analysis, otherRowDetector );
+                if ( detectConflict( analysis, otherRowDetector ) ) {
+                    relatedRowDetectors.add( otherRowDetector );
+                }
             }
         }
         return analysis;
@@ -106,8 +136,8 @@ public class RowDetector {
         }
     }
 
-    private void detectConflict( Analysis analysis,
-                                 RowDetector otherRowDetector ) {
+    private boolean detectConflict( Analysis analysis,
+                                    RowDetector otherRowDetector ) {
         boolean overlappingCondition = true;
         boolean hasUnrecognizedCondition = false;
         for ( Map.Entry<ConditionDetectorKey, ConditionDetector> entry : conditionDetectorMap.entrySet() ) {
@@ -149,18 +179,21 @@ public class RowDetector {
             if ( multipleValuesForOneAction ) {
                 if ( !hasUnrecognizedCondition ) {
                     analysis.addConflictingMatch( "Conflicting match with row " + ( otherRowDetector.getRowIndex() + 1 ) );
+                    return true;
                 } else {
                     System.out.println( "Possible conflicting match with row " + ( otherRowDetector.getRowIndex() + 1 ) );
                 }
             } else if ( duplicatedAction ) {
                 if ( !hasUnrecognizedCondition ) {
                     analysis.addDuplicatedMatch( "Duplicated match with row " + ( otherRowDetector.getRowIndex() + 1 ) );
+                    return true;
                 } else {
                     System.out.println( "Possible duplicated match with row " + ( otherRowDetector.getRowIndex() + 1 ) );
                 }
             }
             // else they do different actions
         }
+        return false;
     }
 
 }
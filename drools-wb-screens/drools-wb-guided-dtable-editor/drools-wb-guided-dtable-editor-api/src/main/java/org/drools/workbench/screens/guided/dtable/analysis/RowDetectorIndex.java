@@ -0,0 +1,188 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.guided.dtable.analysis;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.drools.workbench.screens.guided.dtable.analysis.condition.ConditionDetector;
+import org.drools.workbench.screens.guided.dtable.analysis.condition.ConditionDetectorKey;
+
+/**
+ * Index of RowDetectors by the single value each row requires of a field. Rows requiring different single values
+ * for the same field can never overlap so only rows sharing a bucket, or not bucketed for that field, need be compared.
+ */
+public class RowDetectorIndex {
+
+    private static final Comparator<RowDetector> ROW_ORDER = new Comparator<RowDetector>() {
+        @Override
+        public int compare( final RowDetector o1,
+                            final RowDetector o2 ) {
+            final long diff = o1.getRowIndex() - o2.getRowIndex();
+            return diff < 0 ? -1 : ( diff > 0 ? 1 : 0 );
+        }
+    };
+
+    private final Set<RowDetector> rowDetectors = new LinkedHashSet<RowDetector>();
+
+    private final Map<ConditionDetectorKey, KeyIndex> keyIndexes = new HashMap<ConditionDetectorKey, KeyIndex>();
+
+    public void add( final RowDetector rowDetector ) {
+        //Fields first seen on this row are not constrained by any of the existing rows
+        for ( ConditionDetector conditionDetector : rowDetector.getConditionDetectors() ) {
+            final ConditionDetectorKey key = conditionDetector.getKey();
+            if ( !keyIndexes.containsKey( key ) ) {
+                final KeyIndex keyIndex = new KeyIndex();
+                keyIndex.unbucketed.addAll( rowDetectors );
+                keyIndexes.put( key,
+                                keyIndex );
+            }
+        }
+        for ( Map.Entry<ConditionDetectorKey, KeyIndex> e : keyIndexes.entrySet() ) {
+            final Object value = getSingleValue( rowDetector,
+                                                 e.getKey() );
+            e.getValue().add( rowDetector,
+                              value );
+        }
+        rowDetectors.add( rowDetector );
+    }
+
+    public void remove( final RowDetector rowDetector ) {
+        if ( !rowDetectors.remove( rowDetector ) ) {
+            return;
+        }
+        for ( Map.Entry<ConditionDetectorKey, KeyIndex> e : keyIndexes.entrySet() ) {
+            final Object value = getSingleValue( rowDetector,
+                                                 e.getKey() );
+            e.getValue().remove( rowDetector,
+                                 value );
+        }
+    }
+
+    /**
+     * Returns the rows that may overlap the given row, in row order. The field with the most selective bucket
+     * is used; other fields are checked when the rows are compared.
+     * @param rowDetector
+     * @return
+     */
+    public List<RowDetector> getCandidates( final RowDetector rowDetector ) {
+        //Conflicts and duplicates require an action common to both rows
+        if ( !rowDetector.hasActionDetectors() ) {
+            return Collections.emptyList();
+        }
+
+        Set<RowDetector> bucket = null;
+        Set<RowDetector> unbucketed = null;
+        int bestSize = rowDetectors.size();
+        for ( ConditionDetector conditionDetector : rowDetector.getConditionDetectors() ) {
+            final Object value = conditionDetector.getSingleValue();
+            final KeyIndex keyIndex = keyIndexes.get( conditionDetector.getKey() );
+            if ( value == null || keyIndex == null ) {
+                continue;
+            }
+            final Set<RowDetector> b = keyIndex.getBucket( value );
+            final int size = b.size() + keyIndex.unbucketed.size();
+            if ( size < bestSize ) {
+                bestSize = size;
+                bucket = b;
+                unbucketed = keyIndex.unbucketed;
+            }
+        }
+
+        final List<RowDetector> candidates = new ArrayList<RowDetector>( bestSize );
+        if ( bucket == null ) {
+            candidates.addAll( rowDetectors );
+            candidates.remove( rowDetector );
+            return candidates;
+        }
+        for ( RowDetector candidate : bucket ) {
+            if ( candidate != rowDetector ) {
+                candidates.add( candidate );
+            }
+        }
+        for ( RowDetector candidate : unbucketed ) {
+            if ( candidate != rowDetector ) {
+                candidates.add( candidate );
+            }
+        }
+        Collections.sort( candidates,
+                          ROW_ORDER );
+        return candidates;
+    }
+
+    private Object getSingleValue( final RowDetector rowDetector,
+                                   final ConditionDetectorKey key ) {
+        final ConditionDetector conditionDetector = rowDetector.getConditionDetector( key );
+        return conditionDetector == null ? null : conditionDetector.getSingleValue();
+    }
+
+    private static class KeyIndex {
+
+        private final Map<Object, Set<RowDetector>> buckets = new HashMap<Object, Set<RowDetector>>();
+
+        //Rows not holding the field or not restricting it to a single value
+        private final Set<RowDetector> unbucketed = new HashSet<RowDetector>();
+
+        private void add( final RowDetector rowDetector,
+                          final Object value ) {
+            if ( value == null ) {
+                unbucketed.add( rowDetector );
+                return;
+            }
+            Set<RowDetector> bucket = buckets.get( value );
+            if ( bucket == null ) {
+                bucket = new HashSet<RowDetector>();
+                buckets.put( value,
+                             bucket );
+            }
+            bucket.add( rowDetector );
+        }
+
+        private void remove( final RowDetector rowDetector,
+                             final Object value ) {
+            if ( value == null ) {
+                unbucketed.remove( rowDetector );
+                return;
+            }
+            final Set<RowDetector> bucket = buckets.get( value );
+            if ( bucket != null ) {
+                bucket.remove( rowDetector );
+                if ( bucket.isEmpty() ) {
+                    buckets.remove( value );
+                }
+            }
+        }
+
+        private Set<RowDetector> getBucket( final Object value ) {
+            final Set<RowDetector> bucket = buckets.get( value );
+            if ( bucket == null ) {
+                return Collections.emptySet();
+            }
+            return bucket;
+        }
+
+    }
+
+}
@@ -14,7 +14,7 @@
  * limitations under the License.
  */
 
-package org.drools.workbench.screens.guided.dtable.client.widget.analysis.condition;
+package org.drools.workbench.screens.guided.dtable.analysis.condition;
 
 import org.drools.workbench.models.guided.dtable.shared.model.Pattern52;
 
@@ -51,6 +51,14 @@ public class BooleanConditionDetector extends ConditionDetector<BooleanCondition
         }
     }
 
+    @Override
+    public Object getSingleValue() {
+        if ( impossibleMatch || hasUnrecognizedConstraint ) {
+            return null;
+        }
+        return value;
+    }
+
     public BooleanConditionDetector merge( BooleanConditionDetector other ) {
         return new BooleanConditionDetector( this, other );
     }
@@ -14,7 +14,7 @@
  * limitations under the License.
  */
 
-package org.drools.workbench.screens.guided.dtable.client.widget.analysis.condition;
+package org.drools.workbench.screens.guided.dtable.analysis.condition;
 
 import org.drools.workbench.models.guided.dtable.shared.model.Pattern52;
 
@@ -59,6 +59,33 @@ public abstract class ConditionDetector<T extends ConditionDetector> {
         return impossibleMatch;
     }
 
+    /**
+     * Returns the only value the field can hold to satisfy this detector or null if the constraint admits none
+     * or several values. Two detectors with the same key but different single values can never both match,
+     * which allows rows to be bucketed by value and only rows in the same bucket to be compared.
+     * @return
+     */
+    public Object getSingleValue() {
+        return null;
+    }
+
+    /**
+     * Returns the single value of a numeric range or null if the range admits none or several values.
+     * Values comparing as equal must share a bucket (e.g. 1.0 and 1.00) so they are normalised to a Double.
+     */
+    protected <N extends Number & Comparable<N>> Object getSingleNumericValue( final N from,
+                                                                             final boolean fromInclusive,
+                                                                             final N to,
+                                                                             final boolean toInclusive ) {
+        if ( impossibleMatch || hasUnrecognizedConstraint || from == null || to == null ) {
+            return null;
+        }
+        if ( !( fromInclusive && toInclusive ) || from.compareTo( to ) != 0 ) {
+            return null;
+        }
+        return from.doubleValue();
+    }
+
     public abstract T merge( T other );
 
 }
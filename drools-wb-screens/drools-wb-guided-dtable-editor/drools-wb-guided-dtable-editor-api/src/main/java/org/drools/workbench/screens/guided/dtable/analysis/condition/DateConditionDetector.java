@@ -14,7 +14,7 @@
  * limitations under the License.
  */
 
-package org.drools.workbench.screens.guided.dtable.client.widget.analysis.condition;
+package org.drools.workbench.screens.guided.dtable.analysis.condition;
 
 import org.drools.workbench.models.guided.dtable.shared.model.Pattern52;
 
@@ -143,6 +143,17 @@ public class DateConditionDetector extends ConditionDetector<DateConditionDetect
         }
     }
 
+    @Override
+    public Object getSingleValue() {
+        if ( impossibleMatch || hasUnrecognizedConstraint || from == null || to == null ) {
+            return null;
+        }
+        if ( !( fromInclusive && toInclusive ) || from.compareTo( to ) != 0 ) {
+            return null;
+        }
+        return from.getTime();
+    }
+
     public DateConditionDetector merge( DateConditionDetector other ) {
         return new DateConditionDetector( this, other );
     }
@@ -14,7 +14,7 @@
  * limitations under the License.
  */
 
-package org.drools.workbench.screens.guided.dtable.client.widget.analysis.condition;
+package org.drools.workbench.screens.guided.dtable.analysis.condition;
 
 import org.drools.workbench.models.guided.dtable.shared.model.Pattern52;
 
@@ -70,6 +70,14 @@ public class EnumConditionDetector extends ConditionDetector<EnumConditionDetect
         }
     }
 
+    @Override
+    public Object getSingleValue() {
+        if ( impossibleMatch || hasUnrecognizedConstraint || allowedValueList.size() != 1 ) {
+            return null;
+        }
+        return allowedValueList.get( 0 );
+    }
+
     public EnumConditionDetector merge( EnumConditionDetector other ) {
         return new EnumConditionDetector( this, other );
     }
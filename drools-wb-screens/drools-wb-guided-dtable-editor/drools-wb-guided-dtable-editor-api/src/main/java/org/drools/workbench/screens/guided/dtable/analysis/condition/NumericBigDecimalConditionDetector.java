@@ -14,7 +14,7 @@
  * limitations under the License.
  */
 
-package org.drools.workbench.screens.guided.dtable.client.widget.analysis.condition;
+package org.drools.workbench.screens.guided.dtable.analysis.condition;
 
 import org.drools.workbench.models.guided.dtable.shared.model.Pattern52;
 
@@ -144,6 +144,14 @@ public class NumericBigDecimalConditionDetector extends ConditionDetector<Numeri
         }
     }
 
+    @Override
+    public Object getSingleValue() {
+        return getSingleNumericValue( from,
+                                      fromInclusive,
+                                      to,
+                                      toInclusive );
+    }
+
     public NumericBigDecimalConditionDetector merge( NumericBigDecimalConditionDetector other ) {
         return new NumericBigDecimalConditionDetector( this,
                                                        other );
@@ -14,7 +14,7 @@
  * limitations under the License.
  */
 
-package org.drools.workbench.screens.guided.dtable.client.widget.analysis.condition;
+package org.drools.workbench.screens.guided.dtable.analysis.condition;
 
 import org.drools.workbench.models.guided.dtable.shared.model.Pattern52;
 
@@ -143,6 +143,14 @@ public class NumericByteConditionDetector extends ConditionDetector<NumericByteC
         }
     }
 
+    @Override
+    public Object getSingleValue() {
+        return getSingleNumericValue( from,
+                                      fromInclusive,
+                                      to,
+                                      toInclusive );
+    }
+
     public NumericByteConditionDetector merge( NumericByteConditionDetector other ) {
         return new NumericByteConditionDetector( this,
                                                  other );
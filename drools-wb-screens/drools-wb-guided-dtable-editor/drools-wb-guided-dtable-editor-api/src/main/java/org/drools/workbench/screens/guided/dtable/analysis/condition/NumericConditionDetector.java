@@ -14,7 +14,7 @@
  * limitations under the License.
  */
 
-package org.drools.workbench.screens.guided.dtable.client.widget.analysis.condition;
+package org.drools.workbench.screens.guided.dtable.analysis.condition;
 
 import org.drools.workbench.models.guided.dtable.shared.model.Pattern52;
 
@@ -142,6 +142,14 @@ public class NumericConditionDetector extends ConditionDetector<NumericCondition
         }
     }
 
+    @Override
+    public Object getSingleValue() {
+        return getSingleNumericValue( from,
+                                      fromInclusive,
+                                      to,
+                                      toInclusive );
+    }
+
     public NumericConditionDetector merge( NumericConditionDetector other ) {
         return new NumericConditionDetector( this, other );
     }
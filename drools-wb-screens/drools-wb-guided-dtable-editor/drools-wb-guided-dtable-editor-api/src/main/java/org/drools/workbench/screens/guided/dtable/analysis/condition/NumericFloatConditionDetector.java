@@ -14,7 +14,7 @@
  * limitations under the License.
  */
 
-package org.drools.workbench.screens.guided.dtable.client.widget.analysis.condition;
+package org.drools.workbench.screens.guided.dtable.analysis.condition;
 
 import org.drools.workbench.models.guided.dtable.shared.model.Pattern52;
 
@@ -143,6 +143,14 @@ public class NumericFloatConditionDetector extends ConditionDetector<NumericFloa
         }
     }
 
+    @Override
+    public Object getSingleValue() {
+        return getSingleNumericValue( from,
+                                      fromInclusive,
+                                      to,
+                                      toInclusive );
+    }
+
     public NumericFloatConditionDetector merge( NumericFloatConditionDetector other ) {
         return new NumericFloatConditionDetector( this,
                                                   other );
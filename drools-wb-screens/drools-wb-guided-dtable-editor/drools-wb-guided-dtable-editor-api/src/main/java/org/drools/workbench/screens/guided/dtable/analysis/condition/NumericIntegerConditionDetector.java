@@ -14,7 +14,7 @@
  * limitations under the License.
  */
 
-package org.drools.workbench.screens.guided.dtable.client.widget.analysis.condition;
+package org.drools.workbench.screens.guided.dtable.analysis.condition;
 
 import org.drools.workbench.models.guided.dtable.shared.model.Pattern52;
 
@@ -143,6 +143,14 @@ public class NumericIntegerConditionDetector extends ConditionDetector<NumericIn
         }
     }
 
+    @Override
+    public Object getSingleValue() {
+        return getSingleNumericValue( from,
+                                      fromInclusive,
+                                      to,
+                                      toInclusive );
+    }
+
     public NumericIntegerConditionDetector merge( NumericIntegerConditionDetector other ) {
         return new NumericIntegerConditionDetector( this,
                                                     other );
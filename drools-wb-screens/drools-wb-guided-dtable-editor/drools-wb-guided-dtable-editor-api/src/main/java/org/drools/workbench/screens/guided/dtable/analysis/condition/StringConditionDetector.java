@@ -14,7 +14,7 @@
  * limitations under the License.
  */
 
-package org.drools.workbench.screens.guided.dtable.client.widget.analysis.condition;
+package org.drools.workbench.screens.guided.dtable.analysis.condition;
 
 import org.drools.workbench.models.guided.dtable.shared.model.Pattern52;
 
@@ -76,6 +76,14 @@ public class StringConditionDetector extends ConditionDetector<StringConditionDe
         }
     }
 
+    @Override
+    public Object getSingleValue() {
+        if ( impossibleMatch || hasUnrecognizedConstraint || allowedValueList == null || allowedValueList.size() != 1 ) {
+            return null;
+        }
+        return allowedValueList.get( 0 );
+    }
+
     public StringConditionDetector merge( StringConditionDetector other ) {
         return new StringConditionDetector( this, other );
     }
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.guided.dtable.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.drools.workbench.models.datamodel.oracle.DataType;
+import org.drools.workbench.models.guided.dtable.shared.model.ActionSetFieldCol52;
+import org.drools.workbench.models.guided.dtable.shared.model.Analysis;
+import org.drools.workbench.models.guided.dtable.shared.model.ConditionCol52;
+import org.drools.workbench.models.guided.dtable.shared.model.DTCellValue52;
+import org.drools.workbench.models.guided.dtable.shared.model.GuidedDecisionTable52;
+import org.drools.workbench.models.guided.dtable.shared.model.Pattern52;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that incremental analysis gives the same results as analysing the whole table
+ */
+public class DecisionTableAnalyzerTest {
+
+    private static final FieldTypeResolver RESOLVER = new FieldTypeResolver() {
+        @Override
+        public String getFieldType( final String factType,
+                                    final String fieldName ) {
+            if ( "age".equals( fieldName ) ) {
+                return DataType.TYPE_NUMERIC_INTEGER;
+            }
+            return DataType.TYPE_BOOLEAN;
+        }
+    };
+
+    private GuidedDecisionTable52 model;
+    private DecisionTableAnalyzer analyzer;
+
+    @Before
+    public void setup() {
+        model = new GuidedDecisionTable52();
+
+        final Pattern52 pattern = new Pattern52();
+        pattern.setFactType( "Applicant" );
+        pattern.setBoundName( "a" );
+        final ConditionCol52 condition = new ConditionCol52();
+        condition.setFactField( "age" );
+        condition.setFieldType( DataType.TYPE_NUMERIC_INTEGER );
+        condition.setOperator( "==" );
+        pattern.getChildColumns().add( condition );
+        model.getConditions().add( pattern );
+
+        final ActionSetFieldCol52 action = new ActionSetFieldCol52();
+        action.setBoundName( "a" );
+        action.setFactField( "approved" );
+        action.setType( DataType.TYPE_BOOLEAN );
+        model.getActionCols().add( action );
+
+        model.getData().add( makeRow( 10,
+                                      true ) );
+        model.getData().add( makeRow( 20,
+                                      true ) );
+        model.getData().add( makeRow( 30,
+                                      false ) );
+
+        analyzer = new DecisionTableAnalyzer( model,
+                                              RESOLVER );
+        analyzer.analyze();
+    }
+
+    @Test
+    public void testUpdateRowsAddsConflict() {
+        model.getData().set( 1,
+                             makeRow( 10,
+                                      false ) );
+
+        final List<Analysis> analysisData = analyzer.updateRows( 1,
+                                                                 1 );
+
+        assertMatchesFullAnalysis( analysisData );
+        assertTrue( analysisData.get( 0 ).toHtmlString().contains( "Conflicting match with row 2" ) );
+        assertTrue( analysisData.get( 1 ).toHtmlString().contains( "Conflicting match with row 1" ) );
+    }
+
+    @Test
+    public void testUpdateRowsRemovesConflict() {
+        model.getData().set( 1,
+                             makeRow( 10,
+                                      false ) );
+        analyzer.updateRows( 1,
+                             1 );
+
+        model.getData().set( 1,
+                             makeRow( 20,
+                                      false ) );
+        final List<Analysis> analysisData = analyzer.updateRows( 1,
+                                                                 1 );
+
+        assertMatchesFullAnalysis( analysisData );
+        assertFalse( analysisData.get( 0 ).toHtmlString().contains( "Conflicting" ) );
+    }
+
+    @Test
+    public void testInsertRowRenumbersMessages() {
+        model.getData().set( 2,
+                             makeRow( 20,
+                                      true ) );
+        analyzer.updateRows( 2,
+                             2 );
+
+        model.getData().add( 0,
+                             makeRow( 30,
+                                      false ) );
+        final List<Analysis> analysisData = analyzer.insertRow( 0 );
+
+        assertMatchesFullAnalysis( analysisData );
+        assertTrue( analysisData.get( 2 ).toHtmlString().contains( "Duplicated match with row 4" ) );
+    }
+
+    @Test
+    public void testInsertRows() {
+        model.getData().add( 1,
+                             makeRow( 10,
+                                      false ) );
+        model.getData().add( 2,
+                             makeRow( 30,
+                                      false ) );
+        final List<Analysis> analysisData = analyzer.insertRows( 1,
+                                                                 2 );
+
+        assertEquals( 5,
+                      analysisData.size() );
+        assertMatchesFullAnalysis( analysisData );
+        assertTrue( analysisData.get( 0 ).toHtmlString().contains( "Conflicting match with row 2" ) );
+        assertTrue( analysisData.get( 2 ).toHtmlString().contains( "Duplicated match with row 5" ) );
+    }
+
+    @Test
+    public void testDeleteRowRenumbersMessages() {
+        model.getData().set( 2,
+                             makeRow( 20,
+                                      false ) );
+        analyzer.updateRows( 2,
+                             2 );
+
+        model.getData().remove( 0 );
+        final List<Analysis> analysisData = analyzer.deleteRow( 0 );
+
+        assertEquals( 2,
+                      analysisData.size() );
+        assertMatchesFullAnalysis( analysisData );
+        assertTrue( analysisData.get( 0 ).toHtmlString().contains( "Conflicting match with row 2" ) );
+    }
+
+    @Test
+    public void testDeleteRowRemovesConflict() {
+        model.getData().set( 1,
+                             makeRow( 10,
+                                      false ) );
+        analyzer.updateRows( 1,
+                             1 );
+
+        model.getData().remove( 1 );
+        final List<Analysis> analysisData = analyzer.deleteRow( 1 );
+
+        assertMatchesFullAnalysis( analysisData );
+        assertFalse( analysisData.get( 0 ).toHtmlString().contains( "Conflicting" ) );
+    }
+
+    private void assertMatchesFullAnalysis( final List<Analysis> analysisData ) {
+        final List<Analysis> expected = new DecisionTableAnalyzer( model,
+                                                                   RESOLVER ).analyze();
+        assertEquals( expected.size(),
+                      analysisData.size() );
+        for ( int iRow = 0; iRow < expected.size(); iRow++ ) {
+            assertEquals( "Row " + ( iRow + 1 ),
+                          expected.get( iRow ).toHtmlString(),
+                          analysisData.get( iRow ).toHtmlString() );
+        }
+    }
+
+    private List<DTCellValue52> makeRow( final int age,
+                                         final boolean approved ) {
+        final List<DTCellValue52> row = new ArrayList<DTCellValue52>();
+        row.add( new DTCellValue52( 1 ) );
+        row.add( new DTCellValue52( "" ) );
+        row.add( new DTCellValue52( age ) );
+        row.add( new DTCellValue52( approved ) );
+        return row;
+    }
+
+}
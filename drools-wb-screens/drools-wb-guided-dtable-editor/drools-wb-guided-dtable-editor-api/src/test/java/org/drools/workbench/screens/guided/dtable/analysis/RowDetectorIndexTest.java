@@ -0,0 +1,173 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.guided.dtable.analysis;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.drools.workbench.models.guided.dtable.shared.model.ActionSetFieldCol52;
+import org.drools.workbench.models.guided.dtable.shared.model.DTCellValue52;
+import org.drools.workbench.models.guided.dtable.shared.model.Pattern52;
+import org.drools.workbench.screens.guided.dtable.analysis.action.ActionDetector;
+import org.drools.workbench.screens.guided.dtable.analysis.action.SetFieldColActionDetectorKey;
+import org.drools.workbench.screens.guided.dtable.analysis.condition.NumericIntegerConditionDetector;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RowDetectorIndexTest {
+
+    private Pattern52 pattern;
+    private ActionSetFieldCol52 action;
+
+    @Before
+    public void setup() {
+        pattern = new Pattern52();
+        pattern.setFactType( "Applicant" );
+        pattern.setBoundName( "a" );
+
+        action = new ActionSetFieldCol52();
+        action.setBoundName( "a" );
+        action.setFactField( "approved" );
+    }
+
+    @Test
+    public void testCandidatesShareBucketOrAreUnbucketed() {
+        final RowDetectorIndex index = new RowDetectorIndex();
+        final RowDetector row0 = makeRow( 0,
+                                          "==",
+                                          10 );
+        final RowDetector row1 = makeRow( 1,
+                                          "==",
+                                          20 );
+        final RowDetector row2 = makeRow( 2,
+                                          ">",
+                                          15 );
+        final RowDetector row3 = makeRow( 3,
+                                          "==",
+                                          10 );
+        index.add( row0 );
+        index.add( row1 );
+        index.add( row2 );
+        index.add( row3 );
+
+        assertEquals( Arrays.asList( row2,
+                                     row3 ),
+                      index.getCandidates( row0 ) );
+        assertEquals( Arrays.asList( row0,
+                                     row1,
+                                     row3 ),
+                      index.getCandidates( row2 ) );
+    }
+
+    @Test
+    public void testFieldFirstSeenOnLaterRow() {
+        final RowDetectorIndex index = new RowDetectorIndex();
+        final RowDetector row0 = new RowDetector( 0 );
+        row0.putOrMergeActionDetector( makeAction() );
+        final RowDetector row1 = makeRow( 1,
+                                          "==",
+                                          10 );
+        index.add( row0 );
+        index.add( row1 );
+
+        //Rows without the field can overlap any value of it
+        assertEquals( Collections.singletonList( row0 ),
+                      index.getCandidates( row1 ) );
+    }
+
+    @Test
+    public void testRemovedRowIsNotCandidate() {
+        final RowDetectorIndex index = new RowDetectorIndex();
+        final RowDetector row0 = makeRow( 0,
+                                          "==",
+                                          10 );
+        final RowDetector row1 = makeRow( 1,
+                                          "==",
+                                          10 );
+        final RowDetector row2 = makeRow( 2,
+                                          ">",
+                                          5 );
+        index.add( row0 );
+        index.add( row1 );
+        index.add( row2 );
+
+        index.remove( row1 );
+        index.remove( row2 );
+
+        assertTrue( index.getCandidates( row0 ).isEmpty() );
+    }
+
+    @Test
+    public void testReplacedRowMovesBucket() {
+        final RowDetectorIndex index = new RowDetectorIndex();
+        final RowDetector row0 = makeRow( 0,
+                                          "==",
+                                          10 );
+        final RowDetector row1 = makeRow( 1,
+                                          "==",
+                                          20 );
+        index.add( row0 );
+        index.add( row1 );
+        assertTrue( index.getCandidates( row0 ).isEmpty() );
+
+        final RowDetector updatedRow1 = makeRow( 1,
+                                                 "==",
+                                                 10 );
+        index.remove( row1 );
+        index.add( updatedRow1 );
+
+        assertEquals( Collections.singletonList( updatedRow1 ),
+                      index.getCandidates( row0 ) );
+    }
+
+    @Test
+    public void testRowWithoutActionsHasNoCandidates() {
+        final RowDetectorIndex index = new RowDetectorIndex();
+        final RowDetector row0 = makeRow( 0,
+                                          "==",
+                                          10 );
+        final RowDetector row1 = new RowDetector( 1 );
+        row1.putOrMergeConditionDetector( new NumericIntegerConditionDetector( pattern,
+                                                                               "age",
+                                                                               10,
+                                                                               "==" ) );
+        index.add( row0 );
+        index.add( row1 );
+
+        assertTrue( index.getCandidates( row1 ).isEmpty() );
+    }
+
+    private RowDetector makeRow( final long rowIndex,
+                                 final String operator,
+                                 final int age ) {
+        final RowDetector rowDetector = new RowDetector( rowIndex );
+        rowDetector.putOrMergeConditionDetector( new NumericIntegerConditionDetector( pattern,
+                                                                                      "age",
+                                                                                      age,
+                                                                                      operator ) );
+        rowDetector.putOrMergeActionDetector( makeAction() );
+        return rowDetector;
+    }
+
+    private ActionDetector makeAction() {
+        return new ActionDetector( new SetFieldColActionDetectorKey( action ),
+                                   new DTCellValue52( true ) );
+    }
+
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.drools.workbench.screens.guided.dtable.backend.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Charsets;
+import org.drools.workbench.models.datamodel.oracle.DataType;
+import org.drools.workbench.models.guided.dtable.backend.GuidedDTXMLPersistence;
+import org.drools.workbench.models.guided.dtable.shared.model.DTCellValue52;
+import org.drools.workbench.models.guided.dtable.shared.model.GuidedDecisionTable52;
+
+/**
+ * Compact binary representation of a Guided Decision Table. The table definition is held as XML (it is small)
+ * whereas the row data is stored by column: each column has a type tag and string values (including the names
+ * of types) are held once in a dictionary and referenced by index. Each representation records a key identifying
+ * the XML content from which it was created, so that callers can check it is still current.
+ */
+public class GuidedDTBinaryPersistence {
+
+    private static final int MAGIC = 0x47445354;
+    private static final int VERSION = 1;
+
+    //Per-cell flags
+    private static final int FLAG_NULL_VALUE = 1;
+    private static final int FLAG_OTHERWISE = 2;
+    private static final int FLAG_TYPE = 4;
+
+    private static final GuidedDTBinaryPersistence INSTANCE = new GuidedDTBinaryPersistence();
+
+    private GuidedDTBinaryPersistence() {
+    }
+
+    public static GuidedDTBinaryPersistence getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Write the binary representation of a Guided Decision Table. Returns false, writing nothing, if the table
+     * cannot be represented (i.e. rows have differing numbers of columns). The OutputStream is not closed.
+     * @param contentKey Identifies the XML content from which the model was loaded
+     * @param model
+     * @param outputStream
+     * @return
+     * @throws IOException
+     */
+    public boolean marshal( final String contentKey,
+                            final GuidedDecisionTable52 model,
+                            final OutputStream outputStream ) throws IOException {
+        final List<List<DTCellValue52>> data = model.getData();
+        final int rowCount = data.size();
+        final int columnCount = ( rowCount == 0 ? 0 : data.get( 0 ).size() );
+        for ( List<DTCellValue52> row : data ) {
+            if ( row.size() != columnCount ) {
+                return false;
+            }
+        }
+
+        //Table definition, without any rows
+        final String header = GuidedDTXMLPersistence.getInstance().marshal( GuidedDTXMLStreamPersistence.copyWithoutData( model ) );
+
+        //Columns are written after the dictionary they reference
+        final Dictionary dictionary = new Dictionary();
+        final ByteArrayOutputStream columns = new ByteArrayOutputStream();
+        final DataOutputStream columnsOut = new DataOutputStream( columns );
+        for ( int iCol = 0; iCol < columnCount; iCol++ ) {
+            final DataType.DataTypes columnType = data.get( 0 ).get( iCol ).getDataType();
+            columnsOut.writeInt( dictionary.indexOf( columnType.name() ) );
+            for ( int iRow = 0; iRow < rowCount; iRow++ ) {
+                writeCell( columnType,
+                           data.get( iRow ).get( iCol ),
+                           dictionary,
+                           columnsOut );
+            }
+        }
+        columnsOut.flush();
+
+        final DataOutputStream out = new DataOutputStream( outputStream );
+        out.writeInt( MAGIC );
+        out.writeInt( VERSION );
+        writeString( contentKey,
+                     out );
+        writeString( header,
+                     out );
+        out.writeInt( dictionary.values.size() );
+        for ( String value : dictionary.values ) {
+            writeString( value,
+                         out );
+        }
+        out.writeInt( rowCount );
+        out.writeInt( columnCount );
+        columns.writeTo( out );
+        out.flush();
+        return true;
+    }
+
+    /**
+     * Read the binary representation of a Guided Decision Table, if it was created from the content with the given key.
+     * Returns null if the representation is for different content. The InputStream is not closed.
+     * @param contentKey Identifies the current XML content
+     * @param inputStream
+     * @return
+     * @throws IOException
+     */
+    public GuidedDecisionTable52 unmarshal( final String contentKey,
+                                           final InputStream inputStream ) throws IOException {
+        final DataInputStream in = new DataInputStream( inputStream );
+        if ( in.readInt() != MAGIC || in.readInt() != VERSION ) {
+            return null;
+        }
+        if ( !contentKey.equals( readString( in ) ) ) {
+            return null;
+        }
+
+        final GuidedDecisionTable52 model = GuidedDTXMLPersistence.getInstance().unmarshal( readString( in ) );
+        final String[] dictionary = new String[ in.readInt() ];
+        for ( int i = 0; i < dictionary.length; i++ ) {
+            dictionary[ i ] = readString( in );
+        }
+
+        final int rowCount = in.readInt();
+        final int columnCount = in.readInt();
+        final List<List<DTCellValue52>> data = new ArrayList<List<DTCellValue52>>( rowCount );
+        for ( int iRow = 0; iRow < rowCount; iRow++ ) {
+            data.add( new ArrayList<DTCellValue52>( columnCount ) );
+        }
+        for ( int iCol = 0; iCol < columnCount; iCol++ ) {
+            final DataType.DataTypes columnType = DataType.DataTypes.valueOf( dictionary[ in.readInt() ] );
+            for ( int iRow = 0; iRow < rowCount; iRow++ ) {
+                data.get( iRow ).add( readCell( columnType,
+                                                dictionary,
+                                                in ) );
+            }
+        }
+        model.setData( data );
+        return model;
+    }
+
+    private void writeCell( final DataType.DataTypes columnType,
+                            final DTCellValue52 cell,
+                            final Dictionary dictionary,
+                            final DataOutputStream out ) throws IOException {
+        final DataType.DataTypes type = cell.getDataType();
+        final Object value = getValue( cell );
+        int flags = 0;
+        if ( value == null ) {
+            flags = flags | FLAG_NULL_VALUE;
+        }
+        if ( cell.isOtherwise() ) {
+            flags = flags | FLAG_OTHERWISE;
+        }
+        if ( type != columnType ) {
+            flags = flags | FLAG_TYPE;
+        }
+        out.writeByte( flags );
+        if ( type != columnType ) {
+            out.writeInt( dictionary.indexOf( type.name() ) );
+        }
+        if ( value == null ) {
+            return;
+        }
+
+        switch ( type ) {
+            case BOOLEAN:
+                out.writeBoolean( (Boolean) value );
+                break;
+            case DATE:
+                out.writeLong( ( (Date) value ).getTime() );
+                break;
+            case NUMERIC_BYTE:
+                out.writeByte( ( (Number) value ).byteValue() );
+                break;
+            case NUMERIC_SHORT:
+                out.writeShort( ( (Number) value ).shortValue() );
+                break;
+            case NUMERIC_INTEGER:
+                out.writeInt( ( (Number) value ).intValue() );
+                break;
+            case NUMERIC_LONG:
+                out.writeLong( ( (Number) value ).longValue() );
+                break;
+            case NUMERIC_FLOAT:
+                out.writeFloat( ( (Number) value ).floatValue() );
+                break;
+            case NUMERIC_DOUBLE:
+                out.writeDouble( ( (Number) value ).doubleValue() );
+                break;
+            default:
+                //STRING, NUMERIC, NUMERIC_BIGDECIMAL and NUMERIC_BIGINTEGER
+                out.writeInt( dictionary.indexOf( value.toString() ) );
+        }
+    }
+
+    private DTCellValue52 readCell( final DataType.DataTypes columnType,
+                                    final String[] dictionary,
+                                    final DataInputStream in ) throws IOException {
+        final int flags = in.readByte();
+        final DataType.DataTypes type = ( ( flags & FLAG_TYPE ) == 0 ? columnType : DataType.DataTypes.valueOf( dictionary[ in.readInt() ] ) );
+        DTCellValue52 cell;
+        if ( ( flags & FLAG_NULL_VALUE ) != 0 ) {
+            cell = new DTCellValue52( type,
+                                      true );
+        } else {
+            switch ( type ) {
+                case BOOLEAN:
+                    cell = new DTCellValue52( (Boolean) in.readBoolean() );
+                    break;
+                case DATE:
+                    cell = new DTCellValue52( new Date( in.readLong() ) );
+                    break;
+                case NUMERIC:
+                    //The Number overload keeps the type as NUMERIC, as when read from XML
+                    cell = new DTCellValue52( type,
+                                              true );
+                    cell.setNumericValue( (Number) new BigDecimal( dictionary[ in.readInt() ] ) );
+                    break;
+                case NUMERIC_BIGDECIMAL:
+                    cell = new DTCellValue52( new BigDecimal( dictionary[ in.readInt() ] ) );
+                    break;
+                case NUMERIC_BIGINTEGER:
+                    cell = new DTCellValue52( new BigInteger( dictionary[ in.readInt() ] ) );
+                    break;
+                case NUMERIC_BYTE:
+                    cell = new DTCellValue52( (Byte) in.readByte() );
+                    break;
+                case NUMERIC_SHORT:
+                    cell = new DTCellValue52( (Short) in.readShort() );
+                    break;
+                case NUMERIC_INTEGER:
+                    cell = new DTCellValue52( (Integer) in.readInt() );
+                    break;
+                case NUMERIC_LONG:
+                    cell = new DTCellValue52( (Long) in.readLong() );
+                    break;
+                case NUMERIC_FLOAT:
+                    cell = new DTCellValue52( (Float) in.readFloat() );
+                    break;
+                case NUMERIC_DOUBLE:
+                    cell = new DTCellValue52( (Double) in.readDouble() );
+                    break;
+                default:
+                    cell = new DTCellValue52( dictionary[ in.readInt() ] );
+            }
+        }
+        if ( ( flags & FLAG_OTHERWISE ) != 0 ) {
+            cell.setOtherwise( true );
+        }
+        return cell;
+    }
+
+    private Object getValue( final DTCellValue52 cell ) {
+        switch ( cell.getDataType() ) {
+            case BOOLEAN:
+                return cell.getBooleanValue();
+            case DATE:
+                return cell.getDateValue();
+            case STRING:
+                return cell.getStringValue();
+            default:
+                return cell.getNumericValue();
+        }
+    }
+
+    //Strings can exceed the 64K limit of DataOutputStream.writeUTF()
+    private void writeString( final String value,
+                              final DataOutputStream out ) throws IOException {
+        final byte[] bytes = value.getBytes( Charsets.UTF_8 );
+        out.writeInt( bytes.length );
+        out.write( bytes );
+    }
+
+    private String readString( final DataInputStream in ) throws IOException {
+        final byte[] bytes = new byte[ in.readInt() ];
+        in.readFully( bytes );
+        return new String( bytes,
+                           Charsets.UTF_8 );
+    }
+
+    private static class Dictionary {
+
+        private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+        private final List<String> values = new ArrayList<String>();
+
+        private int indexOf( final String value ) {
+            Integer index = indexes.get( value );
+            if ( index == null ) {
+                index = values.size();
+                indexes.put( value,
+                             index );
+                values.add( value );
+            }
+            return index;
+        }
+
+    }
+
+}
@@ -0,0 +1,577 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.drools.workbench.screens.guided.dtable.backend.server;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.converters.Converter;
+import com.thoughtworks.xstream.converters.SingleValueConverter;
+import com.thoughtworks.xstream.mapper.Mapper;
+import org.drools.workbench.models.guided.dtable.backend.GuidedDTXMLPersistence;
+import org.drools.workbench.models.guided.dtable.backend.util.GuidedDecisionTableUpgradeHelper2;
+import org.drools.workbench.models.guided.dtable.shared.model.DTCellValue52;
+import org.drools.workbench.models.guided.dtable.shared.model.GuidedDecisionTable52;
+
+/**
+ * Reads and writes Guided Decision Tables from and to streams without holding the whole XML document in memory.
+ * The table definition (everything other than the row data) is small and is delegated to GuidedDTXMLPersistence
+ * as a whole. Rows are mapped directly between the stream and DTCellValue52's, with a StAX cursor when reading,
+ * in the format written by GuidedDTXMLPersistence. XStream references between cells are resolved when reading,
+ * but never written, so each row can be written as soon as it is reached.
+ */
+public class GuidedDTXMLStreamPersistence {
+
+    private static final String ROOT_ELEMENT = "decision-table52";
+    private static final String DATA_ELEMENT = "data";
+
+    //Element and attribute names used by GuidedDTXMLPersistence's XStream
+    private static final String CELL_ELEMENT = "value";
+    private static final String NULL_ELEMENT = "null";
+    private static final String CLASS_ATTRIBUTE = "class";
+    private static final String REFERENCE_ATTRIBUTE = "reference";
+
+    //GuidedDTXMLPersistence pretty-prints with two space indentation; data is a direct child of the root element
+    private static final String EMPTY_DATA = "\n  <" + DATA_ELEMENT + "/>";
+    private static final String DATA_START = "\n  <" + DATA_ELEMENT + ">";
+    private static final String DATA_END = "\n  </" + DATA_ELEMENT + ">";
+    private static final String ROW_INDENT = "\n    ";
+    private static final String CELL_INDENT = "\n      ";
+    private static final String FIELD_INDENT = "\n        ";
+
+    //Fields of DTCellValue52 in the order XStream writes them
+    private static final Map<String, Field> CELL_FIELDS = new LinkedHashMap<String, Field>();
+
+    static {
+        for ( Field field : DTCellValue52.class.getDeclaredFields() ) {
+            final int modifiers = field.getModifiers();
+            if ( Modifier.isStatic( modifiers ) || Modifier.isTransient( modifiers ) ) {
+                continue;
+            }
+            field.setAccessible( true );
+            CELL_FIELDS.put( field.getName(),
+                             field );
+        }
+    }
+
+    private static final GuidedDTXMLStreamPersistence INSTANCE = new GuidedDTXMLStreamPersistence();
+
+    private final GuidedDTXMLPersistence persistence = GuidedDTXMLPersistence.getInstance();
+    private final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+    private final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+
+    //Only used for its class names and converters of single values; never to read or write documents
+    private final XStream xstream = new XStream();
+
+    private GuidedDTXMLStreamPersistence() {
+    }
+
+    public static GuidedDTXMLStreamPersistence getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Write a Guided Decision Table to the OutputStream, as UTF-8 encoded XML. The OutputStream is flushed but not
+     * closed and the model is not modified.
+     * @param model
+     * @param outputStream
+     * @throws IOException
+     */
+    public void marshal( final GuidedDecisionTable52 model,
+                         final OutputStream outputStream ) throws IOException {
+        final Writer writer = new OutputStreamWriter( outputStream,
+                                                      Charsets.UTF_8 );
+
+        //Marshal the table definition without any rows
+        final List<List<DTCellValue52>> rows = model.getData();
+        final String header = persistence.marshal( copyWithoutData( model ) );
+
+        final int dataIndex = header.indexOf( EMPTY_DATA );
+        if ( dataIndex < 0 || rows.isEmpty() ) {
+            writer.write( dataIndex < 0 ? persistence.marshal( model ) : header );
+            writer.flush();
+            return;
+        }
+
+        //Splice the rows into the table definition
+        writer.write( header,
+                      0,
+                      dataIndex );
+        writer.write( DATA_START );
+        for ( List<DTCellValue52> row : rows ) {
+            writeRow( writer,
+                      row );
+        }
+        writer.write( DATA_END );
+        writer.write( header.substring( dataIndex + EMPTY_DATA.length() ) );
+        writer.flush();
+    }
+
+    //A shallow copy of the model without rows, so that the caller's model is never modified
+    static GuidedDecisionTable52 copyWithoutData( final GuidedDecisionTable52 model ) throws IOException {
+        final GuidedDecisionTable52 copy = new GuidedDecisionTable52();
+        try {
+            Class<?> type = model.getClass();
+            while ( type != null && !type.equals( Object.class ) ) {
+                for ( Field field : type.getDeclaredFields() ) {
+                    final int modifiers = field.getModifiers();
+                    if ( Modifier.isStatic( modifiers ) || Modifier.isFinal( modifiers ) ) {
+                        continue;
+                    }
+                    field.setAccessible( true );
+                    field.set( copy,
+                               field.get( model ) );
+                }
+                type = type.getSuperclass();
+            }
+        } catch ( IllegalAccessException iae ) {
+            throw new IOException( iae.getMessage(),
+                                   iae );
+        }
+        copy.setData( new ArrayList<List<DTCellValue52>>() );
+        return copy;
+    }
+
+    private void writeRow( final Writer writer,
+                           final List<DTCellValue52> row ) throws IOException {
+        if ( row == null ) {
+            writer.write( ROW_INDENT + "<" + NULL_ELEMENT + "/>" );
+            return;
+        }
+        final String rowElement = xstream.getMapper().serializedClass( row.getClass() );
+        if ( row.isEmpty() ) {
+            writer.write( ROW_INDENT + "<" + rowElement + "/>" );
+            return;
+        }
+        writer.write( ROW_INDENT + "<" + rowElement + ">" );
+        for ( DTCellValue52 cell : row ) {
+            writeCell( writer,
+                       cell );
+        }
+        writer.write( ROW_INDENT + "</" + rowElement + ">" );
+    }
+
+    private void writeCell( final Writer writer,
+                            final DTCellValue52 cell ) throws IOException {
+        if ( cell == null ) {
+            writer.write( CELL_INDENT + "<" + NULL_ELEMENT + "/>" );
+            return;
+        }
+
+        //XStream omits null fields and adds the class of values that differ from the field's type
+        final Mapper mapper = xstream.getMapper();
+        final StringBuilder fields = new StringBuilder();
+        for ( Field field : CELL_FIELDS.values() ) {
+            final Object value = getField( field,
+                                           cell );
+            if ( value == null ) {
+                continue;
+            }
+            fields.append( FIELD_INDENT ).append( '<' ).append( field.getName() );
+            final Class<?> defaultType = mapper.defaultImplementationOf( field.getType() );
+            if ( !value.getClass().equals( defaultType ) ) {
+                final String className = mapper.serializedClass( value.getClass() );
+                if ( !className.equals( mapper.serializedClass( defaultType ) ) ) {
+                    fields.append( ' ' ).append( CLASS_ATTRIBUTE ).append( "=\"" ).append( escape( className ) ).append( '"' );
+                }
+            }
+            fields.append( '>' ).append( escape( toString( value ) ) );
+            fields.append( "</" ).append( field.getName() ).append( '>' );
+        }
+
+        if ( fields.length() == 0 ) {
+            writer.write( CELL_INDENT + "<" + CELL_ELEMENT + "/>" );
+            return;
+        }
+        writer.write( CELL_INDENT + "<" + CELL_ELEMENT + ">" );
+        writer.write( fields.toString() );
+        writer.write( CELL_INDENT + "</" + CELL_ELEMENT + ">" );
+    }
+
+    /**
+     * Read a Guided Decision Table from the InputStream. The InputStream is not closed.
+     * @param inputStream
+     * @return
+     * @throws IOException
+     */
+    public GuidedDecisionTable52 unmarshal( final InputStream inputStream ) throws IOException {
+        final InputStream is = new BufferedInputStream( inputStream );
+        is.mark( 1 );
+        if ( is.read() == -1 ) {
+            return persistence.unmarshal( "" );
+        }
+        is.reset();
+
+        try {
+            final XMLStreamReader reader = inputFactory.createXMLStreamReader( is );
+            try {
+                return unmarshal( reader );
+            } finally {
+                reader.close();
+            }
+        } catch ( XMLStreamException xse ) {
+            throw new IOException( xse.getMessage(),
+                                   xse );
+        }
+    }
+
+    private GuidedDecisionTable52 unmarshal( final XMLStreamReader reader ) throws XMLStreamException, IOException {
+        final StringWriter header = new StringWriter();
+        final XMLStreamWriter headerWriter = outputFactory.createXMLStreamWriter( header );
+        List<List<DTCellValue52>> rows = null;
+
+        String rootElement = null;
+        int depth = 0;
+        while ( reader.hasNext() ) {
+            final int event = reader.next();
+            if ( event == XMLStreamConstants.START_ELEMENT ) {
+                depth++;
+                if ( depth == 1 ) {
+                    rootElement = reader.getLocalName();
+                }
+
+                //Rows are only read separately for the current model; older models are upgraded as a whole
+                if ( depth == 2 && ROOT_ELEMENT.equals( rootElement ) && DATA_ELEMENT.equals( reader.getLocalName() ) ) {
+                    headerWriter.writeEmptyElement( DATA_ELEMENT );
+                    rows = readRows( reader,
+                                     rootElement + "/" + DATA_ELEMENT );
+                    depth--;
+                    continue;
+                }
+            } else if ( event == XMLStreamConstants.END_ELEMENT ) {
+                depth--;
+            }
+            copyEvent( reader,
+                       headerWriter );
+        }
+        headerWriter.flush();
+        headerWriter.close();
+
+        final GuidedDecisionTable52 model = persistence.unmarshal( header.toString() );
+        if ( rows == null || rows.isEmpty() ) {
+            return model;
+        }
+
+        //GuidedDTXMLPersistence upgrades row data together with the table definition; repeat it now rows are present
+        model.setData( rows );
+        return new GuidedDecisionTableUpgradeHelper2().upgrade( model );
+    }
+
+    //Map the children of the data element to rows. The reader is left on the data element's end tag.
+    private List<List<DTCellValue52>> readRows( final XMLStreamReader reader,
+                                                final String dataPath ) throws XMLStreamException, IOException {
+        final Map<String, Object> objects = new HashMap<String, Object>();
+        final List<List<DTCellValue52>> rows = new ArrayList<List<DTCellValue52>>();
+        final Siblings siblings = new Siblings();
+        while ( reader.nextTag() == XMLStreamConstants.START_ELEMENT ) {
+            rows.add( readRow( reader,
+                               dataPath + "/" + siblings.next( reader.getLocalName() ),
+                               objects ) );
+        }
+        return rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<DTCellValue52> readRow( final XMLStreamReader reader,
+                                         final String path,
+                                         final Map<String, Object> objects ) throws XMLStreamException, IOException {
+        if ( NULL_ELEMENT.equals( reader.getLocalName() ) ) {
+            reader.nextTag();
+            return null;
+        }
+        final String reference = reader.getAttributeValue( null,
+                                                           REFERENCE_ATTRIBUTE );
+        if ( reference != null ) {
+            final Object row = resolve( objects,
+                                        path,
+                                        reference );
+            reader.nextTag();
+            if ( !( row instanceof List ) ) {
+                throw new IOException( "Reference '" + reference + "' at " + path + " is not a row." );
+            }
+            return (List<DTCellValue52>) row;
+        }
+
+        final List<DTCellValue52> row = new ArrayList<DTCellValue52>();
+        objects.put( path,
+                     row );
+        final Siblings siblings = new Siblings();
+        while ( reader.nextTag() == XMLStreamConstants.START_ELEMENT ) {
+            row.add( readCell( reader,
+                               path + "/" + siblings.next( reader.getLocalName() ),
+                               objects ) );
+        }
+        return row;
+    }
+
+    private DTCellValue52 readCell( final XMLStreamReader reader,
+                                    final String path,
+                                    final Map<String, Object> objects ) throws XMLStreamException, IOException {
+        if ( NULL_ELEMENT.equals( reader.getLocalName() ) ) {
+            reader.nextTag();
+            return null;
+        }
+        final String reference = reader.getAttributeValue( null,
+                                                           REFERENCE_ATTRIBUTE );
+        if ( reference != null ) {
+            final Object cell = resolve( objects,
+                                         path,
+                                         reference );
+            reader.nextTag();
+            if ( !( cell instanceof DTCellValue52 ) ) {
+                throw new IOException( "Reference '" + reference + "' at " + path + " is not a cell." );
+            }
+            return (DTCellValue52) cell;
+        }
+
+        //XStream does not run constructors or field initializers, so fields missing from the XML are null or false
+        final DTCellValue52 cell = new DTCellValue52();
+        for ( Field field : CELL_FIELDS.values() ) {
+            setField( field,
+                      cell,
+                      field.getType().equals( boolean.class ) ? Boolean.FALSE : null );
+        }
+        objects.put( path,
+                     cell );
+
+        while ( reader.nextTag() == XMLStreamConstants.START_ELEMENT ) {
+            final String fieldName = reader.getLocalName();
+            final Field field = CELL_FIELDS.get( fieldName );
+            if ( field == null ) {
+                throw new IOException( "Unknown field '" + fieldName + "' at " + path + "." );
+            }
+            final String fieldPath = path + "/" + fieldName;
+            final Object value = readValue( reader,
+                                            fieldPath,
+                                            field,
+                                            objects );
+            objects.put( fieldPath,
+                         value );
+            setField( field,
+                      cell,
+                      value );
+        }
+        return cell;
+    }
+
+    //Read the value of a field. The reader is left on the field's end tag.
+    private Object readValue( final XMLStreamReader reader,
+                              final String path,
+                              final Field field,
+                              final Map<String, Object> objects ) throws XMLStreamException, IOException {
+        final String reference = reader.getAttributeValue( null,
+                                                           REFERENCE_ATTRIBUTE );
+        if ( reference != null ) {
+            final Object value = resolve( objects,
+                                          path,
+                                          reference );
+            reader.nextTag();
+            return value;
+        }
+
+        final String className = reader.getAttributeValue( null,
+                                                           CLASS_ATTRIBUTE );
+        try {
+            final Class<?> type = className == null ? field.getType() : xstream.getMapper().realClass( className );
+            return fromString( type,
+                               reader.getElementText() );
+        } catch ( RuntimeException re ) {
+            throw new IOException( "Unable to read " + path + ": " + re.getMessage(),
+                                   re );
+        }
+    }
+
+    //Resolve an XStream XPath reference, relative to the element holding it, to an object already read
+    private Object resolve( final Map<String, Object> objects,
+                            final String path,
+                            final String reference ) throws IOException {
+        final LinkedList<String> segments = new LinkedList<String>();
+        if ( !reference.startsWith( "/" ) ) {
+            Collections.addAll( segments,
+                                path.split( "/" ) );
+        }
+        for ( String segment : reference.split( "/" ) ) {
+            if ( segment.isEmpty() || ".".equals( segment ) ) {
+                continue;
+            }
+            if ( "..".equals( segment ) ) {
+                if ( !segments.isEmpty() ) {
+                    segments.removeLast();
+                }
+                continue;
+            }
+            segments.add( segment.endsWith( "[1]" ) ? segment.substring( 0,
+                                                                         segment.length() - 3 ) : segment );
+        }
+
+        final Object object = objects.get( Joiner.on( '/' ).join( segments ) );
+        if ( object == null ) {
+            throw new IOException( "Unable to resolve reference '" + reference + "' at " + path + ". Only references between rows are supported." );
+        }
+        return object;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object fromString( final Class<?> type,
+                               final String text ) throws IOException {
+        if ( type.isEnum() ) {
+            return Enum.valueOf( type.asSubclass( Enum.class ),
+                                 text.trim() );
+        }
+        return getSingleValueConverter( type ).fromString( text );
+    }
+
+    private String toString( final Object value ) throws IOException {
+        if ( value instanceof Enum ) {
+            return ( (Enum<?>) value ).name();
+        }
+        return getSingleValueConverter( value.getClass() ).toString( value );
+    }
+
+    private SingleValueConverter getSingleValueConverter( final Class<?> type ) throws IOException {
+        final Converter converter = xstream.getConverterLookup().lookupConverterForType( type );
+        if ( !( converter instanceof SingleValueConverter ) ) {
+            throw new IOException( "Unsupported cell value type " + type.getName() + "." );
+        }
+        return (SingleValueConverter) converter;
+    }
+
+    private Object getField( final Field field,
+                             final DTCellValue52 cell ) throws IOException {
+        try {
+            return field.get( cell );
+        } catch ( IllegalAccessException iae ) {
+            throw new IOException( iae.getMessage(),
+                                   iae );
+        }
+    }
+
+    private void setField( final Field field,
+                           final DTCellValue52 cell,
+                           final Object value ) throws IOException {
+        try {
+            field.set( cell,
+                       value );
+        } catch ( IllegalAccessException iae ) {
+            throw new IOException( iae.getMessage(),
+                                   iae );
+        } catch ( IllegalArgumentException iae ) {
+            throw new IOException( "Invalid value for field '" + field.getName() + "': " + iae.getMessage(),
+                                   iae );
+        }
+    }
+
+    //Escape text as XStream's PrettyPrintWriter does
+    private String escape( final String text ) {
+        final StringBuilder sb = new StringBuilder( text.length() );
+        for ( int i = 0; i < text.length(); i++ ) {
+            final char c = text.charAt( i );
+            switch ( c ) {
+                case '&':
+                    sb.append( "&amp;" );
+                    break;
+                case '<':
+                    sb.append( "&lt;" );
+                    break;
+                case '>':
+                    sb.append( "&gt;" );
+                    break;
+                case '"':
+                    sb.append( "&quot;" );
+                    break;
+                case '\'':
+                    sb.append( "&apos;" );
+                    break;
+                case '\r':
+                    sb.append( "&#xd;" );
+                    break;
+                case '\t':
+                case '\n':
+                    sb.append( c );
+                    break;
+                default:
+                    if ( Character.isDefined( c ) && !Character.isISOControl( c ) ) {
+                        sb.append( c );
+                    } else {
+                        sb.append( "&#x" ).append( Integer.toHexString( c ) ).append( ';' );
+                    }
+            }
+        }
+        return sb.toString();
+    }
+
+    private void copyEvent( final XMLStreamReader reader,
+                            final XMLStreamWriter writer ) throws XMLStreamException {
+        switch ( reader.getEventType() ) {
+            case XMLStreamConstants.START_ELEMENT:
+                writer.writeStartElement( reader.getLocalName() );
+                for ( int i = 0; i < reader.getAttributeCount(); i++ ) {
+                    writer.writeAttribute( reader.getAttributeLocalName( i ),
+                                           reader.getAttributeValue( i ) );
+                }
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                writer.writeEndElement();
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.SPACE:
+                writer.writeCharacters( reader.getText() );
+                break;
+            case XMLStreamConstants.CDATA:
+                writer.writeCData( reader.getText() );
+                break;
+        }
+    }
+
+    //Names elements as XStream's XPath references do: siblings with the same name after the first are indexed
+    private static class Siblings {
+
+        private final Map<String, Integer> counts = new HashMap<String, Integer>();
+
+        private String next( final String name ) {
+            final Integer count = counts.get( name );
+            final int index = count == null ? 1 : count + 1;
+            counts.put( name,
+                        index );
+            return index == 1 ? name : name + "[" + index + "]";
+        }
+
+    }
+
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.drools.workbench.screens.guided.dtable.backend.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import com.google.common.base.Charsets;
+import org.drools.workbench.models.guided.dtable.shared.model.GuidedDecisionTable52;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.StandardOpenOption;
+
+/**
+ * Loads Guided Decision Tables, optionally keeping a binary sidecar (see GuidedDTBinaryPersistence) of each table on
+ * local disk. Each sidecar records the SHA-1 hash of the content from which it was created and is used in preference
+ * to the XML whilst the asset's content has that hash; the XML is only parsed when the sidecar is missing or stale.
+ * Sidecars are held outside of the VFS, so that they do not add to the repository's history, in the directory named
+ * by the system property "org.drools.workbench.guided.dtable.binaryCacheDir". The cache is disabled unless the
+ * property is set. At most "org.drools.workbench.guided.dtable.binaryCacheSize" sidecars are kept, the least recently
+ * used being removed first; a size of zero disables the cache.
+ */
+@ApplicationScoped
+public class GuidedDecisionTableBinaryCache {
+
+    static final String CACHE_DIR_PROPERTY = "org.drools.workbench.guided.dtable.binaryCacheDir";
+    static final String CACHE_SIZE_PROPERTY = "org.drools.workbench.guided.dtable.binaryCacheSize";
+
+    private static final int DEFAULT_CACHE_SIZE = 500;
+
+    private static final Logger logger = LoggerFactory.getLogger( GuidedDecisionTableBinaryCache.class );
+
+    private static final String SIDECAR_SUFFIX = ".gdstb";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private IOService ioService;
+
+    private File cacheDir;
+
+    private int cacheSize;
+
+    public GuidedDecisionTableBinaryCache() {
+        //CDI proxy
+    }
+
+    @Inject
+    public GuidedDecisionTableBinaryCache( @Named("ioStrategy") final IOService ioService ) {
+        this( ioService,
+              getCacheDir(),
+              Integer.getInteger( CACHE_SIZE_PROPERTY,
+                                  DEFAULT_CACHE_SIZE ) );
+    }
+
+    GuidedDecisionTableBinaryCache( final IOService ioService,
+                                    final File cacheDir,
+                                    final int cacheSize ) {
+        this.ioService = ioService;
+        this.cacheDir = ( cacheSize > 0 ? cacheDir : null );
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Load a Guided Decision Table, from its sidecar if one exists for the asset's current content.
+     * @param path
+     * @return
+     * @throws IOException
+     */
+    public GuidedDecisionTable52 load( final Path path ) throws IOException {
+        if ( cacheDir == null ) {
+            return loadXML( path,
+                            null );
+        }
+
+        final File sidecar = getSidecar( path );
+        if ( !sidecar.exists() ) {
+            //Hash the content whilst it is parsed
+            final MessageDigest digest = digest();
+            final GuidedDecisionTable52 model = loadXML( path,
+                                                         digest );
+            writeSidecar( sidecar,
+                          toHex( digest.digest() ),
+                          model );
+            return model;
+        }
+
+        //The content is read twice when the sidecar is stale; once to hash it and again to parse it
+        final String contentKey = getContentKey( path );
+        try {
+            final InputStream inputStream = new BufferedInputStream( new FileInputStream( sidecar ) );
+            try {
+                final GuidedDecisionTable52 model = GuidedDTBinaryPersistence.getInstance().unmarshal( contentKey,
+                                                                                                       inputStream );
+                if ( model != null ) {
+                    //Record the use for eviction
+                    sidecar.setLastModified( System.currentTimeMillis() );
+                    return model;
+                }
+            } finally {
+                inputStream.close();
+            }
+        } catch ( Exception e ) {
+            logger.warn( "Unable to read binary representation of '" + path.toUri().toString() + "'. Loading from XML.",
+                         e );
+        }
+
+        final GuidedDecisionTable52 model = loadXML( path,
+                                                     null );
+        writeSidecar( sidecar,
+                      contentKey,
+                      model );
+        return model;
+    }
+
+    /**
+     * Record the binary representation of a Guided Decision Table that has just been written to the asset.
+     * @param path
+     * @param content The XML written to the asset
+     * @param model
+     */
+    public void put( final Path path,
+                     final byte[] content,
+                     final GuidedDecisionTable52 model ) {
+        if ( cacheDir == null ) {
+            return;
+        }
+        writeSidecar( getSidecar( path ),
+                      toHex( digest().digest( content ) ),
+                      model );
+    }
+
+    //Parse the XML, passing all of the content through the digest (if any) whether or not the parser reads it all
+    private GuidedDecisionTable52 loadXML( final Path path,
+                                           final MessageDigest digest ) throws IOException {
+        InputStream inputStream = ioService.newInputStream( path,
+                                                            StandardOpenOption.READ );
+        try {
+            if ( digest == null ) {
+                return GuidedDTXMLStreamPersistence.getInstance().unmarshal( inputStream );
+            }
+            inputStream = new DigestInputStream( inputStream,
+                                                 digest );
+            final GuidedDecisionTable52 model = GuidedDTXMLStreamPersistence.getInstance().unmarshal( inputStream );
+            drain( inputStream );
+            return model;
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private void writeSidecar( final File sidecar,
+                               final String contentKey,
+                               final GuidedDecisionTable52 model ) {
+        //Write to a temporary file first so that concurrent readers never see a partial sidecar
+        File temp = null;
+        try {
+            temp = File.createTempFile( sidecar.getName(),
+                                        ".tmp",
+                                        cacheDir );
+            final OutputStream outputStream = new BufferedOutputStream( new FileOutputStream( temp ) );
+            final boolean written;
+            try {
+                written = GuidedDTBinaryPersistence.getInstance().marshal( contentKey,
+                                                                          model,
+                                                                          outputStream );
+            } finally {
+                outputStream.close();
+            }
+            if ( written ) {
+                move( temp,
+                      sidecar );
+                temp = null;
+                evict();
+            }
+        } catch ( Exception e ) {
+            logger.warn( "Unable to write binary representation to '" + sidecar.getAbsolutePath() + "'.",
+                         e );
+        } finally {
+            if ( temp != null ) {
+                temp.delete();
+            }
+        }
+    }
+
+    private void move( final File source,
+                       final File target ) throws IOException {
+        try {
+            Files.move( source.toPath(),
+                        target.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING );
+        } catch ( AtomicMoveNotSupportedException amnse ) {
+            Files.move( source.toPath(),
+                        target.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING );
+        }
+    }
+
+    //Remove the least recently used sidecars when there are more than the cache size
+    private synchronized void evict() {
+        final File[] sidecars = cacheDir.listFiles( new FileFilter() {
+            @Override
+            public boolean accept( final File file ) {
+                return file.getName().endsWith( SIDECAR_SUFFIX );
+            }
+        } );
+        if ( sidecars == null || sidecars.length <= cacheSize ) {
+            return;
+        }
+        final long[] lastUsed = new long[ sidecars.length ];
+        for ( int i = 0; i < sidecars.length; i++ ) {
+            lastUsed[ i ] = sidecars[ i ].lastModified();
+        }
+        final Integer[] order = new Integer[ sidecars.length ];
+        for ( int i = 0; i < order.length; i++ ) {
+            order[ i ] = i;
+        }
+        Arrays.sort( order,
+                     new Comparator<Integer>() {
+                         @Override
+                         public int compare( final Integer o1,
+                                             final Integer o2 ) {
+                             return Long.compare( lastUsed[ o1 ],
+                                                  lastUsed[ o2 ] );
+                         }
+                     } );
+        for ( int i = 0; i < sidecars.length - cacheSize; i++ ) {
+            sidecars[ order[ i ] ].delete();
+        }
+    }
+
+    //Each asset has a single sidecar, which is replaced when the asset's content changes
+    private File getSidecar( final Path path ) {
+        return new File( cacheDir,
+                         toHex( digest().digest( path.toUri().toString().getBytes( Charsets.UTF_8 ) ) ) + SIDECAR_SUFFIX );
+    }
+
+    //Identifies the asset's content by its hash. File attributes are not used as the VFS's last modified time has a
+    //resolution of one second, so edits that do not change the size could otherwise go unnoticed.
+    private String getContentKey( final Path path ) throws IOException {
+        final MessageDigest digest = digest();
+        final InputStream inputStream = new DigestInputStream( ioService.newInputStream( path,
+                                                                                         StandardOpenOption.READ ),
+                                                               digest );
+        try {
+            drain( inputStream );
+        } finally {
+            inputStream.close();
+        }
+        return toHex( digest.digest() );
+    }
+
+    private static void drain( final InputStream inputStream ) throws IOException {
+        final byte[] buffer = new byte[ 8192 ];
+        while ( inputStream.read( buffer ) != -1 ) {
+            //Read only for the digest
+        }
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance( "SHA-1" );
+        } catch ( NoSuchAlgorithmException e ) {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    private static String toHex( final byte[] bytes ) {
+        final char[] chars = new char[ bytes.length * 2 ];
+        for ( int i = 0; i < bytes.length; i++ ) {
+            chars[ i * 2 ] = HEX[ ( bytes[ i ] >> 4 ) & 0xf ];
+            chars[ i * 2 + 1 ] = HEX[ bytes[ i ] & 0xf ];
+        }
+        return new String( chars );
+    }
+
+    //The cache is only enabled when a directory has been configured
+    private static File getCacheDir() {
+        final String dir = System.getProperty( CACHE_DIR_PROPERTY );
+        if ( dir == null || dir.trim().isEmpty() ) {
+            return null;
+        }
+        final File cacheDir = new File( dir );
+        if ( !( cacheDir.isDirectory() || cacheDir.mkdirs() ) ) {
+            logger.warn( "Unable to create '" + cacheDir.getAbsolutePath() + "'. Guided Decision Tables will be loaded from XML." );
+            return null;
+        }
+        return cacheDir;
+    }
+
+}
@@ -15,18 +15,21 @@
 */
 package org.drools.workbench.screens.guided.dtable.backend.server;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
 
-import org.drools.workbench.models.guided.dtable.backend.GuidedDTXMLPersistence;
 import org.drools.workbench.models.guided.dtable.shared.model.GuidedDecisionTable52;
 import org.drools.workbench.screens.guided.dtable.type.GuidedDTableResourceTypeDefinition;
 import org.drools.workbench.screens.guided.rule.backend.server.GuidedRuleEditorServiceUtilities;
+import org.guvnor.common.services.backend.exceptions.ExceptionUtilities;
 import org.uberfire.backend.server.util.Paths;
 import org.uberfire.backend.vfs.Path;
 import org.uberfire.ext.editor.commons.backend.service.helper.CopyHelper;
 import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.StandardOpenOption;
 import org.uberfire.workbench.type.FileNameUtil;
 
 /**
@@ -53,20 +56,36 @@ public class GuidedDecisionTableEditorCopyHelper implements CopyHelper {
     @Override
     public void postProcess( final Path source,
                              final Path destination ) {
-        //Load existing file
-        final org.uberfire.java.nio.file.Path _destination = Paths.convert( destination );
-        final String content = ioService.readAllString( Paths.convert( destination ) );
-        final GuidedDecisionTable52 model = GuidedDTXMLPersistence.getInstance().unmarshal( content );
+        try {
+            //Load existing file
+            final org.uberfire.java.nio.file.Path _destination = Paths.convert( destination );
+            final GuidedDecisionTable52 model;
+            final InputStream inputStream = ioService.newInputStream( _destination,
+                                                                      StandardOpenOption.READ );
+            try {
+                model = GuidedDTXMLStreamPersistence.getInstance().unmarshal( inputStream );
+            } finally {
+                inputStream.close();
+            }
 
-        //Update table name
-        final String tableName = FileNameUtil.removeExtension( destination,
-                                                               resourceType );
-        model.setTableName( tableName );
+            //Update table name
+            final String tableName = FileNameUtil.removeExtension( destination,
+                                                                   resourceType );
+            model.setTableName( tableName );
 
-        //Save file
-        ioService.write( _destination,
-                         GuidedDTXMLPersistence.getInstance().marshal( model ),
-                         utilities.makeCommentedOption( "File [" + source.toURI() + "] copied to [" + destination.toURI() + "]." ) );
+            //Save file
+            final OutputStream outputStream = ioService.newOutputStream( _destination,
+                                                                         utilities.makeCommentedOption( "File [" + source.toURI() + "] copied to [" + destination.toURI() + "]." ) );
+            try {
+                GuidedDTXMLStreamPersistence.getInstance().marshal( model,
+                                                                    outputStream );
+            } finally {
+                outputStream.close();
+            }
+
+        } catch ( Exception e ) {
+            throw ExceptionUtilities.handleException( e );
+        }
     }
 
 }
@@ -17,6 +17,10 @@
 package org.drools.workbench.screens.guided.dtable.backend.server;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -25,10 +29,8 @@ import javax.enterprise.event.Event;
 import javax.inject.Inject;
 import javax.inject.Named;
 
-import com.google.common.base.Charsets;
 import org.drools.workbench.models.datamodel.oracle.PackageDataModelOracle;
 import org.drools.workbench.models.datamodel.workitems.PortableWorkDefinition;
-import org.drools.workbench.models.guided.dtable.backend.GuidedDTXMLPersistence;
 import org.drools.workbench.models.guided.dtable.shared.model.GuidedDecisionTable52;
 import org.drools.workbench.screens.guided.dtable.model.GuidedDecisionTableEditorContent;
 import org.drools.workbench.screens.guided.dtable.service.GuidedDecisionTableEditorService;
@@ -103,6 +105,12 @@ public class GuidedDecisionTableEditorServiceImpl
     @Inject
     private GenericValidator genericValidator;
 
+    @Inject
+    private GuidedDecisionTableBinaryCache binaryCache;
+
+    @Inject
+    private GuidedDecisionTableVerificationService verificationService;
+
     @Override
     public Path create( final Path context,
                         final String fileName,
@@ -120,9 +128,14 @@ public class GuidedDecisionTableEditorServiceImpl
                 throw new FileAlreadyExistsException( nioPath.toString() );
             }
 
-            ioService.write( nioPath,
-                             GuidedDTXMLPersistence.getInstance().marshal( content ),
-                             makeCommentedOption( comment ) );
+            final OutputStream outputStream = ioService.newOutputStream( nioPath,
+                                                                         makeCommentedOption( comment ) );
+            try {
+                GuidedDTXMLStreamPersistence.getInstance().marshal( content,
+                                                                    outputStream );
+            } finally {
+                outputStream.close();
+            }
 
             return newPath;
 
@@ -134,9 +147,7 @@ public class GuidedDecisionTableEditorServiceImpl
     @Override
     public GuidedDecisionTable52 load( final Path path ) {
         try {
-            final String content = ioService.readAllString( Paths.convert( path ) );
-
-            return GuidedDTXMLPersistence.getInstance().unmarshal( content );
+            return binaryCache.load( Paths.convert( path ) );
 
         } catch ( Exception e ) {
             throw ExceptionUtilities.handleException( e );
@@ -204,12 +215,17 @@ public class GuidedDecisionTableEditorServiceImpl
             final String packageName = ( pkg == null ? null : pkg.getPackageName() );
             model.setPackageName( packageName );
 
+            //Content and attributes are written in a single commit, so the encoded content is buffered rather than streamed
             Metadata currentMetadata = metadataService.getMetadata( resource );
+            final byte[] content = toBytes( model );
             ioService.write( Paths.convert( resource ),
-                             GuidedDTXMLPersistence.getInstance().marshal( model ),
+                             content,
                              metadataService.setUpAttributes( resource,
                                                               metadata ),
                              makeCommentedOption( comment ) );
+            binaryCache.put( Paths.convert( resource ),
+                             content,
+                             model );
 
             fireMetadataSocialEvents( resource, currentMetadata, metadata );
             return resource;
@@ -269,21 +285,32 @@ public class GuidedDecisionTableEditorServiceImpl
     public List<ValidationMessage> validate( final Path path,
                                              final GuidedDecisionTable52 content ) {
         try {
-            return genericValidator.validate( path,
-                                              new ByteArrayInputStream(
-                                                      GuidedDTXMLPersistence.getInstance().marshal( content ).getBytes( Charsets.UTF_8 )
-                                              ),
-                                              FILTER_JAVA,
-                                              FILTER_DRL,
-                                              FILTER_DSLR,
-                                              FILTER_DSL,
-                                              FILTER_RDRL,
-                                              FILTER_RDSLR,
-                                              FILTER_GLOBAL );
+            final List<ValidationMessage> messages = new ArrayList<ValidationMessage>();
+            messages.addAll( genericValidator.validate( path,
+                                                        new ByteArrayInputStream( toBytes( content ) ),
+                                                        FILTER_JAVA,
+                                                        FILTER_DRL,
+                                                        FILTER_DSLR,
+                                                        FILTER_DSL,
+                                                        FILTER_RDRL,
+                                                        FILTER_RDSLR,
+                                                        FILTER_GLOBAL ) );
+
+            //Impossible matches, conflicts and duplicates are reported as warnings
+            messages.addAll( verificationService.validate( path,
+                                                           content ) );
+            return messages;
 
         } catch ( Exception e ) {
             throw ExceptionUtilities.handleException( e );
         }
     }
 
+    private byte[] toBytes( final GuidedDecisionTable52 model ) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        GuidedDTXMLStreamPersistence.getInstance().marshal( model,
+                                                            outputStream );
+        return outputStream.toByteArray();
+    }
+
 }
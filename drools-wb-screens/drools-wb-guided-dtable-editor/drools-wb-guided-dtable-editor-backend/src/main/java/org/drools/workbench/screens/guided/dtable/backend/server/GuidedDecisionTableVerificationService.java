@@ -0,0 +1,300 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.guided.dtable.backend.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.drools.workbench.models.datamodel.oracle.PackageDataModelOracle;
+import org.drools.workbench.models.guided.dtable.shared.model.Analysis;
+import org.drools.workbench.models.guided.dtable.shared.model.GuidedDecisionTable52;
+import org.drools.workbench.screens.guided.dtable.analysis.DecisionTableAnalyzer;
+import org.drools.workbench.screens.guided.dtable.analysis.FieldTypeResolver;
+import org.drools.workbench.screens.guided.dtable.analysis.RowDetector;
+import org.drools.workbench.screens.guided.dtable.analysis.RowDetectorIndex;
+import org.guvnor.common.services.backend.exceptions.ExceptionUtilities;
+import org.guvnor.common.services.shared.validation.model.ValidationMessage;
+import org.kie.workbench.common.services.datamodel.backend.server.service.DataModelService;
+import org.uberfire.backend.vfs.Path;
+
+/**
+ * Verifies Guided Decision Tables on the server for impossible matches, conflicting and duplicated rows. This
+ * uses the same detectors as the editor's DecisionTableAnalyzer but splits the table into blocks of rows that
+ * are analysed in parallel on a ForkJoinPool; so that large tables need not be analysed in the browser.
+ */
+@ApplicationScoped
+public class GuidedDecisionTableVerificationService {
+
+    /**
+     * Callback to receive the Analysis of each row as soon as it is available. Rows are not reported in order
+     * and the callback may be invoked concurrently from different threads.
+     */
+    public interface RowAnalysisCallback {
+
+        void onRowAnalysed( final int rowIndex,
+                            final Analysis analysis );
+
+    }
+
+    //Number of rows below which a block is processed by a single task
+    static final int ROW_BLOCK_SIZE = 256;
+
+    @Inject
+    private DataModelService dataModelService;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void setup() {
+        pool = new ForkJoinPool( Runtime.getRuntime().availableProcessors() );
+    }
+
+    @PreDestroy
+    public void destroy() {
+        pool.shutdown();
+    }
+
+    /**
+     * Verify a Decision Table
+     * @param path Path of the Decision Table, used to resolve the Package's DataModelOracle
+     * @param model The Decision Table
+     * @return Analysis for each row
+     */
+    public List<Analysis> verify( final Path path,
+                                  final GuidedDecisionTable52 model ) {
+        final Analysis[] analysisData = new Analysis[ model.getData().size() ];
+        verify( path,
+                model,
+                new RowAnalysisCallback() {
+                    @Override
+                    public void onRowAnalysed( final int rowIndex,
+                                               final Analysis analysis ) {
+                        analysisData[ rowIndex ] = analysis;
+                    }
+                } );
+        return new ArrayList<Analysis>( Arrays.asList( analysisData ) );
+    }
+
+    /**
+     * Verify a Decision Table, streaming the Analysis of each row to the callback
+     * @param path Path of the Decision Table, used to resolve the Package's DataModelOracle
+     * @param model The Decision Table
+     * @param callback Receives the Analysis of each row
+     */
+    public void verify( final Path path,
+                        final GuidedDecisionTable52 model,
+                        final RowAnalysisCallback callback ) {
+        try {
+            final PackageDataModelOracle oracle = dataModelService.getDataModel( path );
+            verify( model,
+                    new PackageDataModelOracleFieldTypeResolver( oracle,
+                                                                 model ),
+                    callback );
+        } catch ( Exception e ) {
+            throw ExceptionUtilities.handleException( e );
+        }
+    }
+
+    /**
+     * Verify a Decision Table, reporting each row with issues as a warning
+     * @param path Path of the Decision Table, used to resolve the Package's DataModelOracle
+     * @param model The Decision Table
+     * @return Warnings for rows with impossible matches, conflicts or duplicates
+     */
+    public List<ValidationMessage> validate( final Path path,
+                                             final GuidedDecisionTable52 model ) {
+        try {
+            final PackageDataModelOracle oracle = dataModelService.getDataModel( path );
+            return validate( path,
+                             model,
+                             new PackageDataModelOracleFieldTypeResolver( oracle,
+                                                                          model ) );
+        } catch ( Exception e ) {
+            throw ExceptionUtilities.handleException( e );
+        }
+    }
+
+    List<ValidationMessage> validate( final Path path,
+                                      final GuidedDecisionTable52 model,
+                                      final FieldTypeResolver fieldTypeResolver ) {
+        final String[] rowMessages = new String[ model.getData().size() ];
+        verify( model,
+                fieldTypeResolver,
+                new RowAnalysisCallback() {
+                    @Override
+                    public void onRowAnalysed( final int rowIndex,
+                                               final Analysis analysis ) {
+                        rowMessages[ rowIndex ] = toText( analysis.toHtmlString() );
+                    }
+                } );
+
+        final List<ValidationMessage> messages = new ArrayList<ValidationMessage>();
+        for ( int iRow = 0; iRow < rowMessages.length; iRow++ ) {
+            if ( rowMessages[ iRow ] != null && !rowMessages[ iRow ].isEmpty() ) {
+                messages.add( makeValidationMessage( path,
+                                                     "Row " + ( iRow + 1 ) + ": " + rowMessages[ iRow ] ) );
+            }
+        }
+        return messages;
+    }
+
+    //Analysis only renders itself as HTML, with one issue per line
+    static String toText( final String html ) {
+        if ( html == null ) {
+            return "";
+        }
+        final StringBuilder sb = new StringBuilder();
+        for ( String line : html.split( "(?i)<br\\s*/?>" ) ) {
+            final String text = line.replaceAll( "<[^>]*>",
+                                                 "" ).trim();
+            if ( !text.isEmpty() ) {
+                if ( sb.length() > 0 ) {
+                    sb.append( ", " );
+                }
+                sb.append( text );
+            }
+        }
+        return sb.toString();
+    }
+
+    private ValidationMessage makeValidationMessage( final Path path,
+                                                     final String message ) {
+        final ValidationMessage msg = new ValidationMessage();
+        msg.setPath( path );
+        msg.setLevel( ValidationMessage.Level.WARNING );
+        msg.setText( message );
+        return msg;
+    }
+
+    void verify( final GuidedDecisionTable52 model,
+                 final FieldTypeResolver fieldTypeResolver,
+                 final RowAnalysisCallback callback ) {
+        final DecisionTableAnalyzer analyzer = new DecisionTableAnalyzer( model,
+                                                                          fieldTypeResolver );
+        final RowDetector[] rowDetectors = new RowDetector[ model.getData().size() ];
+
+        //Build RowDetectors in parallel, as each depends only upon its own row
+        pool.invoke( new BuildRowDetectorsTask( analyzer,
+                                                rowDetectors,
+                                                0,
+                                                rowDetectors.length ) );
+
+        //Index is built once and thereafter only read
+        final RowDetectorIndex index = new RowDetectorIndex();
+        for ( RowDetector rowDetector : rowDetectors ) {
+            index.add( rowDetector );
+        }
+
+        //Analyse rows in parallel against the (read-only) index
+        pool.invoke( new AnalyseRowsTask( rowDetectors,
+                                          index,
+                                          callback,
+                                          0,
+                                          rowDetectors.length ) );
+    }
+
+    private static class BuildRowDetectorsTask extends RecursiveAction {
+
+        private final DecisionTableAnalyzer analyzer;
+        private final RowDetector[] rowDetectors;
+        private final int fromRowIndex;
+        private final int toRowIndex;
+
+        private BuildRowDetectorsTask( final DecisionTableAnalyzer analyzer,
+                                       final RowDetector[] rowDetectors,
+                                       final int fromRowIndex,
+                                       final int toRowIndex ) {
+            this.analyzer = analyzer;
+            this.rowDetectors = rowDetectors;
+            this.fromRowIndex = fromRowIndex;
+            this.toRowIndex = toRowIndex;
+        }
+
+        @Override
+        protected void compute() {
+            if ( toRowIndex - fromRowIndex <= ROW_BLOCK_SIZE ) {
+                for ( int iRow = fromRowIndex; iRow < toRowIndex; iRow++ ) {
+                    rowDetectors[ iRow ] = analyzer.buildRowDetector( iRow );
+                }
+                return;
+            }
+            final int midRowIndex = ( fromRowIndex + toRowIndex ) >>> 1;
+            invokeAll( new BuildRowDetectorsTask( analyzer,
+                                                  rowDetectors,
+                                                  fromRowIndex,
+                                                  midRowIndex ),
+                       new BuildRowDetectorsTask( analyzer,
+                                                  rowDetectors,
+                                                  midRowIndex,
+                                                  toRowIndex ) );
+        }
+
+    }
+
+    private static class AnalyseRowsTask extends RecursiveAction {
+
+        private final RowDetector[] rowDetectors;
+        private final RowDetectorIndex index;
+        private final RowAnalysisCallback callback;
+        private final int fromRowIndex;
+        private final int toRowIndex;
+
+        private AnalyseRowsTask( final RowDetector[] rowDetectors,
+                                 final RowDetectorIndex index,
+                                 final RowAnalysisCallback callback,
+                                 final int fromRowIndex,
+                                 final int toRowIndex ) {
+            this.rowDetectors = rowDetectors;
+            this.index = index;
+            this.callback = callback;
+            this.fromRowIndex = fromRowIndex;
+            this.toRowIndex = toRowIndex;
+        }
+
+        @Override
+        protected void compute() {
+            if ( toRowIndex - fromRowIndex <= ROW_BLOCK_SIZE ) {
+                for ( int iRow = fromRowIndex; iRow < toRowIndex; iRow++ ) {
+                    callback.onRowAnalysed( iRow,
+                                            DecisionTableAnalyzer.buildAnalysis( rowDetectors[ iRow ],
+                                                                                 index ) );
+                }
+                return;
+            }
+            final int midRowIndex = ( fromRowIndex + toRowIndex ) >>> 1;
+            invokeAll( new AnalyseRowsTask( rowDetectors,
+                                            index,
+                                            callback,
+                                            fromRowIndex,
+                                            midRowIndex ),
+                       new AnalyseRowsTask( rowDetectors,
+                                            index,
+                                            callback,
+                                            midRowIndex,
+                                            toRowIndex ) );
+        }
+
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.guided.dtable.backend.server;
+
+import java.util.Map;
+
+import org.drools.workbench.models.datamodel.imports.Import;
+import org.drools.workbench.models.datamodel.oracle.ModelField;
+import org.drools.workbench.models.datamodel.oracle.PackageDataModelOracle;
+import org.drools.workbench.models.guided.dtable.shared.model.GuidedDecisionTable52;
+import org.drools.workbench.screens.guided.dtable.analysis.FieldTypeResolver;
+
+/**
+ * Server-side FieldTypeResolver backed by a PackageDataModelOracle. The oracle holds Fact Types by their
+ * fully qualified name whereas the Decision Table refers to them by their simple name, so Fact Types are
+ * resolved with the Decision Table's imports and package.
+ */
+public class PackageDataModelOracleFieldTypeResolver implements FieldTypeResolver {
+
+    private final PackageDataModelOracle oracle;
+    private final GuidedDecisionTable52 model;
+
+    public PackageDataModelOracleFieldTypeResolver( final PackageDataModelOracle oracle,
+                                                    final GuidedDecisionTable52 model ) {
+        this.oracle = oracle;
+        this.model = model;
+    }
+
+    @Override
+    public String getFieldType( final String factType,
+                                final String fieldName ) {
+        final ModelField[] fields = getModelFields( factType );
+        if ( fields == null ) {
+            return null;
+        }
+        for ( ModelField field : fields ) {
+            if ( field.getName().equals( fieldName ) ) {
+                return field.getType();
+            }
+        }
+        return null;
+    }
+
+    private ModelField[] getModelFields( final String factType ) {
+        final Map<String, ModelField[]> modelFields = oracle.getProjectModelFields();
+        if ( modelFields.containsKey( factType ) ) {
+            return modelFields.get( factType );
+        }
+        for ( Import item : model.getImports().getImports() ) {
+            final String type = item.getType();
+            if ( type.endsWith( "." + factType ) && modelFields.containsKey( type ) ) {
+                return modelFields.get( type );
+            }
+        }
+        final String packageName = model.getPackageName();
+        if ( packageName != null && !packageName.isEmpty() ) {
+            return modelFields.get( packageName + "." + factType );
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.drools.workbench.screens.guided.dtable.backend.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.drools.workbench.models.datamodel.oracle.DataType;
+import org.drools.workbench.models.guided.dtable.shared.model.AttributeCol52;
+import org.drools.workbench.models.guided.dtable.shared.model.DTCellValue52;
+import org.drools.workbench.models.guided.dtable.shared.model.GuidedDecisionTable52;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GuidedDTBinaryPersistenceTest {
+
+    private static final Date DATE = new Date( 1420070400000L );
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final GuidedDecisionTable52 model = GuidedDTBinaryPersistence.getInstance().unmarshal( "key",
+                                                                                               new ByteArrayInputStream( marshal( "key" ) ) );
+
+        assertNotNull( model );
+        assertEquals( "table",
+                      model.getTableName() );
+        assertEquals( 1,
+                      model.getAttributeCols().size() );
+        assertEquals( 3,
+                      model.getData().size() );
+
+        final List<DTCellValue52> row0 = model.getData().get( 0 );
+        assertEquals( 1,
+                      row0.get( 0 ).getNumericValue() );
+        assertEquals( "desc",
+                      row0.get( 1 ).getStringValue() );
+        assertEquals( new BigDecimal( "10.5" ),
+                      row0.get( 2 ).getNumericValue() );
+        assertEquals( Boolean.TRUE,
+                      row0.get( 3 ).getBooleanValue() );
+        assertEquals( DATE,
+                      row0.get( 4 ).getDateValue() );
+        assertEquals( DataType.DataTypes.NUMERIC,
+                      row0.get( 5 ).getDataType() );
+        assertEquals( new BigDecimal( "42" ),
+                      row0.get( 5 ).getNumericValue() );
+
+        final List<DTCellValue52> row1 = model.getData().get( 1 );
+        assertEquals( "desc",
+                      row1.get( 1 ).getStringValue() );
+        assertNull( row1.get( 2 ).getNumericValue() );
+        assertEquals( DataType.DataTypes.NUMERIC_BIGDECIMAL,
+                      row1.get( 2 ).getDataType() );
+        assertTrue( row1.get( 3 ).isOtherwise() );
+
+        //Cell with a different type to the rest of its column
+        final List<DTCellValue52> row2 = model.getData().get( 2 );
+        assertEquals( DataType.DataTypes.STRING,
+                      row2.get( 2 ).getDataType() );
+        assertEquals( "text",
+                      row2.get( 2 ).getStringValue() );
+    }
+
+    @Test
+    public void testDifferentContentKey() throws Exception {
+        assertNull( GuidedDTBinaryPersistence.getInstance().unmarshal( "other-key",
+                                                                       new ByteArrayInputStream( marshal( "key" ) ) ) );
+    }
+
+    private byte[] marshal( final String contentKey ) throws Exception {
+        final GuidedDecisionTable52 model = new GuidedDecisionTable52();
+        model.setTableName( "table" );
+        final AttributeCol52 attr = new AttributeCol52();
+        attr.setAttribute( "salience" );
+        model.getAttributeCols().add( attr );
+
+        model.getData().add( makeRow( new DTCellValue52( 1 ),
+                                      new DTCellValue52( new BigDecimal( "10.5" ) ),
+                                      new DTCellValue52( Boolean.TRUE ) ) );
+        final DTCellValue52 otherwise = new DTCellValue52( Boolean.FALSE );
+        otherwise.setOtherwise( true );
+        model.getData().add( makeRow( new DTCellValue52( 2 ),
+                                      new DTCellValue52( (BigDecimal) null ),
+                                      otherwise ) );
+        model.getData().add( makeRow( new DTCellValue52( 3 ),
+                                      new DTCellValue52( "text" ),
+                                      new DTCellValue52( Boolean.FALSE ) ) );
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        assertTrue( GuidedDTBinaryPersistence.getInstance().marshal( contentKey,
+                                                                     model,
+                                                                     outputStream ) );
+        assertEquals( 3,
+                      model.getData().size() );
+        return outputStream.toByteArray();
+    }
+
+    private List<DTCellValue52> makeRow( final DTCellValue52 rowNumber,
+                                         final DTCellValue52 numeric,
+                                         final DTCellValue52 bool ) {
+        final List<DTCellValue52> row = new ArrayList<DTCellValue52>();
+        row.add( rowNumber );
+        row.add( new DTCellValue52( "desc" ) );
+        row.add( numeric );
+        row.add( bool );
+        row.add( new DTCellValue52( DATE ) );
+        final DTCellValue52 untypedNumeric = new DTCellValue52( DataType.DataTypes.NUMERIC,
+                                                                true );
+        untypedNumeric.setNumericValue( (Number) new BigDecimal( "42" ) );
+        row.add( untypedNumeric );
+        return row;
+    }
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.drools.workbench.screens.guided.dtable.backend.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.google.common.base.Charsets;
+import org.drools.workbench.models.datamodel.oracle.DataType;
+import org.drools.workbench.models.datamodel.rule.BaseSingleFieldConstraint;
+import org.drools.workbench.models.guided.dtable.backend.GuidedDTXMLPersistence;
+import org.drools.workbench.models.guided.dtable.shared.model.ConditionCol52;
+import org.drools.workbench.models.guided.dtable.shared.model.DTCellValue52;
+import org.drools.workbench.models.guided.dtable.shared.model.GuidedDecisionTable52;
+import org.drools.workbench.models.guided.dtable.shared.model.Pattern52;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GuidedDTXMLStreamPersistenceTest {
+
+    private static final int ROW_COUNT = 500;
+
+    @Test
+    public void testMarshalMatchesGuidedDTXMLPersistence() throws Exception {
+        final GuidedDecisionTable52 model = makeModel();
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        GuidedDTXMLStreamPersistence.getInstance().marshal( model,
+                                                            outputStream );
+
+        assertEquals( GuidedDTXMLPersistence.getInstance().marshal( model ),
+                      new String( outputStream.toByteArray(),
+                                  Charsets.UTF_8 ) );
+        assertEquals( ROW_COUNT,
+                      model.getData().size() );
+    }
+
+    @Test
+    public void testMarshalDoesNotModifyModel() throws Exception {
+        final GuidedDecisionTable52 model = makeModel();
+        final List<List<DTCellValue52>> data = model.getData();
+        final List<DTCellValue52> firstRow = data.get( 0 );
+        GuidedDTXMLStreamPersistence.getInstance().marshal( model,
+                                                            new ByteArrayOutputStream() );
+
+        assertSame( data,
+                    model.getData() );
+        assertSame( firstRow,
+                    model.getData().get( 0 ) );
+        assertEquals( ROW_COUNT,
+                      model.getData().size() );
+    }
+
+    @Test
+    public void testUnmarshal() throws Exception {
+        final String xml = GuidedDTXMLPersistence.getInstance().marshal( makeModel() );
+        final GuidedDecisionTable52 model = GuidedDTXMLStreamPersistence.getInstance().unmarshal( new ByteArrayInputStream( xml.getBytes( Charsets.UTF_8 ) ) );
+
+        assertEquals( "table",
+                      model.getTableName() );
+        assertEquals( 1,
+                      model.getConditions().size() );
+        assertEquals( ROW_COUNT,
+                      model.getData().size() );
+        for ( int iRow = 0; iRow < ROW_COUNT; iRow++ ) {
+            final List<DTCellValue52> row = model.getData().get( iRow );
+            assertEquals( iRow + 1,
+                          row.get( 0 ).getNumericValue().intValue() );
+            assertEquals( "Row <" + iRow + ">",
+                          row.get( 1 ).getStringValue() );
+            assertEquals( iRow,
+                          row.get( 2 ).getNumericValue().intValue() );
+            assertEquals( DataType.DataTypes.NUMERIC_INTEGER,
+                          row.get( 2 ).getDataType() );
+            assertEquals( iRow % 2 == 0,
+                          row.get( 3 ).getBooleanValue() );
+            assertEquals( new BigDecimal( iRow + ".5" ),
+                          row.get( 4 ).getNumericValue() );
+            assertEquals( new Date( iRow * 1000L ),
+                          row.get( 5 ).getDateValue() );
+        }
+    }
+
+    @Test
+    public void testUnmarshalMatchesGuidedDTXMLPersistence() throws Exception {
+        //Tables written as a whole by GuidedDTXMLPersistence can contain references between rows
+        final GuidedDecisionTable52 legacy = makeModel();
+        final DTCellValue52 shared = new DTCellValue52( "shared" );
+        final Date sharedDate = new Date( 0 );
+        for ( List<DTCellValue52> row : legacy.getData() ) {
+            row.set( 1,
+                     shared );
+            row.get( 5 ).setDateValue( sharedDate );
+        }
+        final String xml = GuidedDTXMLPersistence.getInstance().marshal( legacy );
+
+        final GuidedDecisionTable52 expected = GuidedDTXMLPersistence.getInstance().unmarshal( xml );
+        final GuidedDecisionTable52 model = GuidedDTXMLStreamPersistence.getInstance().unmarshal( new ByteArrayInputStream( xml.getBytes( Charsets.UTF_8 ) ) );
+
+        assertEquals( GuidedDTXMLPersistence.getInstance().marshal( expected ),
+                      GuidedDTXMLPersistence.getInstance().marshal( model ) );
+        assertEquals( ROW_COUNT,
+                      model.getData().size() );
+        for ( int iRow = 0; iRow < ROW_COUNT; iRow++ ) {
+            assertEquals( "shared",
+                          model.getData().get( iRow ).get( 1 ).getStringValue() );
+            assertEquals( sharedDate,
+                          model.getData().get( iRow ).get( 5 ).getDateValue() );
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final GuidedDecisionTable52 model = makeModel();
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        GuidedDTXMLStreamPersistence.getInstance().marshal( model,
+                                                            outputStream );
+        final GuidedDecisionTable52 result = GuidedDTXMLStreamPersistence.getInstance().unmarshal( new ByteArrayInputStream( outputStream.toByteArray() ) );
+
+        assertEquals( GuidedDTXMLPersistence.getInstance().marshal( model ),
+                      GuidedDTXMLPersistence.getInstance().marshal( result ) );
+        assertEquals( 1,
+                      result.getConditions().get( 0 ).getChildColumns().size() );
+    }
+
+    @Test
+    public void testRoundTripEscapedText() throws Exception {
+        final GuidedDecisionTable52 model = makeModel();
+        model.getData().get( 0 ).set( 1,
+                                      new DTCellValue52( "" ) );
+        model.getData().get( 1 ).set( 1,
+                                      new DTCellValue52( "Line 1\r\nLine 2 & 'quoted'" ) );
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        GuidedDTXMLStreamPersistence.getInstance().marshal( model,
+                                                            outputStream );
+
+        assertEquals( GuidedDTXMLPersistence.getInstance().marshal( model ),
+                      new String( outputStream.toByteArray(),
+                                  Charsets.UTF_8 ) );
+
+        final GuidedDecisionTable52 result = GuidedDTXMLStreamPersistence.getInstance().unmarshal( new ByteArrayInputStream( outputStream.toByteArray() ) );
+        assertEquals( ROW_COUNT,
+                      result.getData().size() );
+        assertEquals( "",
+                      result.getData().get( 0 ).get( 1 ).getStringValue() );
+        assertEquals( "Line 1\r\nLine 2 & 'quoted'",
+                      result.getData().get( 1 ).get( 1 ).getStringValue() );
+    }
+
+    @Test
+    public void testUnmarshalEmptyContent() throws Exception {
+        final GuidedDecisionTable52 model = GuidedDTXMLStreamPersistence.getInstance().unmarshal( new ByteArrayInputStream( new byte[ 0 ] ) );
+
+        assertNotNull( model );
+        assertEquals( 0,
+                      model.getData().size() );
+    }
+
+    private GuidedDecisionTable52 makeModel() {
+        final GuidedDecisionTable52 model = new GuidedDecisionTable52();
+        model.setTableName( "table" );
+
+        final Pattern52 p1 = new Pattern52();
+        p1.setBoundName( "$a" );
+        p1.setFactType( "Applicant" );
+
+        final ConditionCol52 c1 = new ConditionCol52();
+        c1.setConstraintValueType( BaseSingleFieldConstraint.TYPE_LITERAL );
+        c1.setFieldType( DataType.TYPE_NUMERIC_INTEGER );
+        c1.setFactField( "age" );
+        c1.setHeader( "Applicant age" );
+        c1.setOperator( "==" );
+        p1.getChildColumns().add( c1 );
+        model.getConditions().add( p1 );
+
+        for ( int iRow = 0; iRow < ROW_COUNT; iRow++ ) {
+            final List<DTCellValue52> row = new ArrayList<DTCellValue52>();
+            row.add( new DTCellValue52( iRow + 1 ) );
+            row.add( new DTCellValue52( "Row <" + iRow + ">" ) );
+            row.add( new DTCellValue52( iRow ) );
+            row.add( new DTCellValue52( iRow % 2 == 0 ) );
+            row.add( new DTCellValue52( new BigDecimal( iRow + ".5" ) ) );
+            row.add( new DTCellValue52( new Date( iRow * 1000L ) ) );
+            model.getData().add( row );
+        }
+
+        return model;
+    }
+
+}
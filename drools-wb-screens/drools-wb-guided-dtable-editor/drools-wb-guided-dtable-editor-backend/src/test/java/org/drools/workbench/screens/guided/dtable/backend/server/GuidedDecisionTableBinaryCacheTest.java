@@ -0,0 +1,203 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.drools.workbench.screens.guided.dtable.backend.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.InputStream;
+import java.net.URI;
+
+import com.google.common.base.Charsets;
+import org.drools.workbench.models.guided.dtable.backend.GuidedDTXMLPersistence;
+import org.drools.workbench.models.guided.dtable.shared.model.GuidedDecisionTable52;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.OpenOption;
+import org.uberfire.java.nio.file.Path;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class GuidedDecisionTableBinaryCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File cacheDir;
+
+    private IOService ioService;
+
+    @Before
+    public void setup() throws Exception {
+        cacheDir = temporaryFolder.newFolder();
+        ioService = mock( IOService.class );
+    }
+
+    @Test
+    public void testLoadUsesSidecar() throws Exception {
+        final Path path = mockPath( "file:///table1.gdst",
+                                    "table1" );
+        final GuidedDecisionTableBinaryCache cache = new GuidedDecisionTableBinaryCache( ioService,
+                                                                                         cacheDir,
+                                                                                         10 );
+
+        assertEquals( "table1",
+                      cache.load( path ).getTableName() );
+        assertEquals( "table1",
+                      cache.load( path ).getTableName() );
+
+        //The XML is parsed (and hashed) to create the sidecar and then only hashed
+        verify( ioService,
+                times( 2 ) ).newInputStream( eq( path ),
+                                             any( OpenOption.class ) );
+    }
+
+    @Test
+    public void testLoadModifiedContent() throws Exception {
+        final Path path = mockPath( "file:///table1.gdst",
+                                    "table1" );
+        final GuidedDecisionTableBinaryCache cache = new GuidedDecisionTableBinaryCache( ioService,
+                                                                                         cacheDir,
+                                                                                         10 );
+        cache.load( path );
+
+        //Content of the same size, as could be written within the resolution of the last modified time
+        mockContent( path,
+                     "table2" );
+        assertEquals( "table2",
+                      cache.load( path ).getTableName() );
+        assertEquals( "table2",
+                      cache.load( path ).getTableName() );
+    }
+
+    @Test
+    public void testPut() throws Exception {
+        final Path path = mockPath( "file:///table1.gdst",
+                                    "table1" );
+        final GuidedDecisionTableBinaryCache cache = new GuidedDecisionTableBinaryCache( ioService,
+                                                                                         cacheDir,
+                                                                                         10 );
+        final GuidedDecisionTable52 model = makeModel( "table1" );
+        cache.put( path,
+                   toXML( "table1" ),
+                   model );
+
+        assertEquals( 1,
+                      getSidecars().length );
+        assertEquals( "table1",
+                      cache.load( path ).getTableName() );
+
+        //The XML is only hashed
+        verify( ioService,
+                times( 1 ) ).newInputStream( eq( path ),
+                                             any( OpenOption.class ) );
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        final GuidedDecisionTableBinaryCache cache = new GuidedDecisionTableBinaryCache( ioService,
+                                                                                         cacheDir,
+                                                                                         2 );
+        for ( int i = 0; i < 5; i++ ) {
+            cache.load( mockPath( "file:///table" + i + ".gdst",
+                                  "table" + i ) );
+        }
+
+        assertEquals( 2,
+                      getSidecars().length );
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        final Path path = mockPath( "file:///table1.gdst",
+                                    "table1" );
+        final GuidedDecisionTableBinaryCache cache = new GuidedDecisionTableBinaryCache( ioService,
+                                                                                         cacheDir,
+                                                                                         0 );
+        cache.load( path );
+
+        assertEquals( 0,
+                      getSidecars().length );
+    }
+
+    @Test
+    public void testEnabledByCacheDirProperty() throws Exception {
+        final Path path = mockPath( "file:///table1.gdst",
+                                    "table1" );
+
+        //Disabled by default
+        new GuidedDecisionTableBinaryCache( ioService ).load( path );
+        assertEquals( 0,
+                      getSidecars().length );
+
+        System.setProperty( GuidedDecisionTableBinaryCache.CACHE_DIR_PROPERTY,
+                            cacheDir.getAbsolutePath() );
+        try {
+            new GuidedDecisionTableBinaryCache( ioService ).load( path );
+        } finally {
+            System.clearProperty( GuidedDecisionTableBinaryCache.CACHE_DIR_PROPERTY );
+        }
+        assertEquals( 1,
+                      getSidecars().length );
+    }
+
+    private File[] getSidecars() {
+        return cacheDir.listFiles( new FileFilter() {
+            @Override
+            public boolean accept( final File file ) {
+                return file.getName().endsWith( ".gdstb" );
+            }
+        } );
+    }
+
+    private Path mockPath( final String uri,
+                           final String tableName ) {
+        final Path path = mock( Path.class );
+        when( path.toUri() ).thenReturn( URI.create( uri ) );
+        mockContent( path,
+                     tableName );
+        return path;
+    }
+
+    private void mockContent( final Path path,
+                              final String tableName ) {
+        final byte[] content = toXML( tableName );
+        when( ioService.newInputStream( eq( path ),
+                                        any( OpenOption.class ) ) ).thenAnswer( new Answer<InputStream>() {
+            @Override
+            public InputStream answer( final InvocationOnMock invocation ) throws Throwable {
+                return new ByteArrayInputStream( content );
+            }
+        } );
+    }
+
+    private byte[] toXML( final String tableName ) {
+        return GuidedDTXMLPersistence.getInstance().marshal( makeModel( tableName ) ).getBytes( Charsets.UTF_8 );
+    }
+
+    private GuidedDecisionTable52 makeModel( final String tableName ) {
+        final GuidedDecisionTable52 model = new GuidedDecisionTable52();
+        model.setTableName( tableName );
+        return model;
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.guided.dtable.backend.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.drools.workbench.models.datamodel.oracle.DataType;
+import org.drools.workbench.models.datamodel.rule.BaseSingleFieldConstraint;
+import org.drools.workbench.models.guided.dtable.shared.model.ActionSetFieldCol52;
+import org.drools.workbench.models.guided.dtable.shared.model.Analysis;
+import org.drools.workbench.models.guided.dtable.shared.model.ConditionCol52;
+import org.drools.workbench.models.guided.dtable.shared.model.DTCellValue52;
+import org.drools.workbench.models.guided.dtable.shared.model.GuidedDecisionTable52;
+import org.drools.workbench.models.guided.dtable.shared.model.Pattern52;
+import org.drools.workbench.screens.guided.dtable.analysis.FieldTypeResolver;
+import org.guvnor.common.services.shared.validation.model.ValidationMessage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GuidedDecisionTableVerificationServiceTest {
+
+    //Enough rows for the table to be split into several blocks
+    private static final int ROW_COUNT = GuidedDecisionTableVerificationService.ROW_BLOCK_SIZE * 3;
+
+    private GuidedDecisionTableVerificationService service;
+
+    private FieldTypeResolver fieldTypeResolver = new FieldTypeResolver() {
+        @Override
+        public String getFieldType( final String factType,
+                                    final String fieldName ) {
+            return DataType.TYPE_NUMERIC_INTEGER;
+        }
+    };
+
+    @Before
+    public void setup() {
+        service = new GuidedDecisionTableVerificationService();
+        service.setup();
+    }
+
+    @After
+    public void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    public void testConflictsBetweenBlocks() {
+        final GuidedDecisionTable52 model = makeModel();
+        final Analysis[] analysisData = new Analysis[ ROW_COUNT ];
+        final AtomicInteger callbackCount = new AtomicInteger();
+
+        service.verify( model,
+                        fieldTypeResolver,
+                        new GuidedDecisionTableVerificationService.RowAnalysisCallback() {
+                            @Override
+                            public void onRowAnalysed( final int rowIndex,
+                                                       final Analysis analysis ) {
+                                analysisData[ rowIndex ] = analysis;
+                                callbackCount.incrementAndGet();
+                            }
+                        } );
+
+        assertEquals( ROW_COUNT,
+                      callbackCount.get() );
+
+        //First and last rows match the same age but set different amounts
+        assertTrue( analysisData[ 0 ].toHtmlString().contains( "Conflicting match with row " + ROW_COUNT ) );
+        assertTrue( analysisData[ ROW_COUNT - 1 ].toHtmlString().contains( "Conflicting match with row 1" ) );
+        for ( int iRow = 1; iRow < ROW_COUNT - 1; iRow++ ) {
+            assertFalse( analysisData[ iRow ].toHtmlString().contains( "Conflicting match" ) );
+        }
+    }
+
+    @Test
+    public void testValidationMessages() {
+        final GuidedDecisionTable52 model = makeModel();
+
+        final List<ValidationMessage> messages = service.validate( null,
+                                                                   model,
+                                                                   fieldTypeResolver );
+
+        //Only the first and last rows conflict
+        assertEquals( 2,
+                      messages.size() );
+        assertEquals( ValidationMessage.Level.WARNING,
+                      messages.get( 0 ).getLevel() );
+        assertTrue( messages.get( 0 ).getText().startsWith( "Row 1: " ) );
+        assertTrue( messages.get( 0 ).getText().contains( "Conflicting match with row " + ROW_COUNT ) );
+        assertFalse( messages.get( 0 ).getText().contains( "<" ) );
+        assertTrue( messages.get( 1 ).getText().startsWith( "Row " + ROW_COUNT + ": " ) );
+    }
+
+    @Test
+    public void testToText() {
+        assertEquals( "",
+                      GuidedDecisionTableVerificationService.toText( null ) );
+        assertEquals( "a, b",
+                      GuidedDecisionTableVerificationService.toText( "<span class=\"x\">a</span><br/><span>b</span><br/>" ) );
+    }
+
+    private GuidedDecisionTable52 makeModel() {
+        final GuidedDecisionTable52 model = new GuidedDecisionTable52();
+
+        final Pattern52 p1 = new Pattern52();
+        p1.setBoundName( "$a" );
+        p1.setFactType( "Applicant" );
+
+        final ConditionCol52 con1 = new ConditionCol52();
+        con1.setConstraintValueType( BaseSingleFieldConstraint.TYPE_LITERAL );
+        con1.setFieldType( DataType.TYPE_NUMERIC_INTEGER );
+        con1.setFactField( "age" );
+        con1.setOperator( "==" );
+        p1.getChildColumns().add( con1 );
+        model.getConditions().add( p1 );
+
+        final ActionSetFieldCol52 act1 = new ActionSetFieldCol52();
+        act1.setBoundName( "$a" );
+        act1.setFactField( "amount" );
+        act1.setType( DataType.TYPE_NUMERIC_INTEGER );
+        model.getActionCols().add( act1 );
+
+        final List<List<DTCellValue52>> data = new ArrayList<List<DTCellValue52>>();
+        for ( int iRow = 0; iRow < ROW_COUNT; iRow++ ) {
+            final int age = ( iRow == ROW_COUNT - 1 ? 0 : iRow );
+            final List<DTCellValue52> row = new ArrayList<DTCellValue52>();
+            row.add( new DTCellValue52( iRow + 1 ) );
+            row.add( new DTCellValue52( "" ) );
+            row.add( new DTCellValue52( age ) );
+            row.add( new DTCellValue52( iRow ) );
+            data.add( row );
+        }
+        model.setData( data );
+
+        return model;
+    }
+
+}
@@ -17,7 +17,9 @@ package org.drools.workbench.screens.guided.dtable.backend.server.indexing;
 
 import javax.enterprise.context.ApplicationScoped;
 
+import org.drools.workbench.screens.guided.dtable.backend.server.GuidedDecisionTableBinaryCache;
 import org.drools.workbench.screens.guided.dtable.type.GuidedDTableResourceTypeDefinition;
+import org.drools.workbench.screens.indexing.backend.server.IndexingContext;
 import org.kie.workbench.common.services.refactoring.backend.server.TestIndexer;
 import org.kie.workbench.common.services.shared.project.KieProjectService;
 import org.uberfire.io.IOService;
@@ -31,11 +33,13 @@ public class TestGuidedDecisionTableFileIndexer extends GuidedDecisionTableFileI
     @Override
     public void setIOService( final IOService ioService ) {
         this.ioService = ioService;
+        this.binaryCache = new GuidedDecisionTableBinaryCache( ioService );
     }
 
     @Override
     public void setProjectService( final KieProjectService projectService ) {
-        this.projectService = projectService;
+        this.indexingContext = new IndexingContext( projectService,
+                                                    null );
     }
 
     @Override
@@ -65,11 +65,13 @@ import org.drools.workbench.models.guided.dtable.shared.model.LimitedEntryCol;
 import org.drools.workbench.models.guided.dtable.shared.model.MetadataCol52;
 import org.drools.workbench.models.guided.dtable.shared.model.Pattern52;
 import org.drools.workbench.models.guided.dtable.shared.model.RowNumberCol52;
+import org.drools.workbench.screens.guided.dtable.analysis.DecisionTableAnalyzer;
+import org.drools.workbench.screens.guided.dtable.analysis.FieldTypeResolver;
 import org.drools.workbench.screens.guided.dtable.client.utils.DTCellValueUtilities;
 import org.drools.workbench.screens.guided.dtable.client.utils.GuidedDecisionTableUtils;
-import org.drools.workbench.screens.guided.dtable.client.widget.analysis.DecisionTableAnalyzer;
 import org.drools.workbench.screens.guided.dtable.client.widget.table.events.BoundFactsChangedEvent;
 import org.drools.workbench.screens.guided.dtable.client.widget.table.events.InsertDecisionTableColumnEvent;
+import org.drools.workbench.screens.guided.dtable.client.widget.table.events.UpdateAnalysisColumnDataEvent;
 import org.drools.workbench.screens.guided.rule.client.editor.RuleAttributeWidget;
 import org.drools.workbench.screens.guided.rule.client.util.GWTDateConverter;
 import org.jboss.errai.security.shared.api.identity.User;
@@ -131,6 +133,9 @@ public abstract class AbstractDecisionTableWidget extends Composite
     //Rows that have been copied in a copy-paste operation
     private List<List<DTCellValue52>> copiedRows = new ArrayList<List<DTCellValue52>>();
 
+    //Analyzer of the last full analysis, kept up to date as rows change. Null if the table has not been analysed
+    private DecisionTableAnalyzer analyzer;
+
     protected static final DecisionTableResourcesProvider resources = new DecisionTableResourcesProvider();
 
     /**
@@ -635,6 +640,8 @@ public abstract class AbstractDecisionTableWidget extends Composite
             throw new IllegalArgumentException( "editColumn cannot be null" );
         }
 
+        discardAnalyzer();
+
         boolean bUpdateColumnData = false;
         boolean bUpdateColumnDefinition = false;
         boolean isHideUpdated = false;
@@ -725,6 +732,8 @@ public abstract class AbstractDecisionTableWidget extends Composite
             throw new IllegalArgumentException( "editColumn cannot be null" );
         }
 
+        discardAnalyzer();
+
         boolean bUpdateColumnData = false;
         boolean bUpdateColumnDefinition = false;
         int iCol = model.getExpandedColumns().indexOf( origColumn );
@@ -815,6 +824,8 @@ public abstract class AbstractDecisionTableWidget extends Composite
             throw new IllegalArgumentException( "editColumn cannot be null" );
         }
 
+        discardAnalyzer();
+
         boolean bUpdateColumnDefinition = false;
         int iCol = model.getExpandedColumns().indexOf( origColumn );
 
@@ -867,6 +878,8 @@ public abstract class AbstractDecisionTableWidget extends Composite
             throw new IllegalArgumentException( "editColumn cannot be null" );
         }
 
+        discardAnalyzer();
+
         boolean bUpdateColumnDefinition = false;
         int iCol = model.getExpandedColumns().indexOf( origColumn );
 
@@ -919,6 +932,8 @@ public abstract class AbstractDecisionTableWidget extends Composite
             throw new IllegalArgumentException( "editColumn cannot be null" );
         }
 
+        discardAnalyzer();
+
         boolean bUpdateColumnDefinition = false;
         int iCol = model.getExpandedColumns().indexOf( origColumn );
 
@@ -971,6 +986,8 @@ public abstract class AbstractDecisionTableWidget extends Composite
             throw new IllegalArgumentException( "editColumn cannot be null" );
         }
 
+        discardAnalyzer();
+
         boolean bUpdateColumnDefinition = false;
 
         List<BaseColumnFieldDiff> diffs = origColumn.diff( editColumn );
@@ -1050,6 +1067,8 @@ public abstract class AbstractDecisionTableWidget extends Composite
             throw new IllegalArgumentException( "editColumn cannot be null" );
         }
 
+        discardAnalyzer();
+
         boolean bUpdateColumnDefinition = false;
 
         List<BaseColumnFieldDiff> diffs = origColumn.diff( editColumn );
@@ -1132,6 +1151,8 @@ public abstract class AbstractDecisionTableWidget extends Composite
             throw new IllegalArgumentException( "editColumn cannot be null" );
         }
 
+        discardAnalyzer();
+
         boolean bUpdateColumnDefinition = false;
         int iCol = model.getExpandedColumns().indexOf( origColumn );
 
@@ -1184,6 +1205,8 @@ public abstract class AbstractDecisionTableWidget extends Composite
             throw new IllegalArgumentException( "editColumn cannot be null" );
         }
 
+        discardAnalyzer();
+
         boolean bUpdateColumnDefinition = false;
         int iCol = model.getExpandedColumns().indexOf( origColumn );
 
@@ -1246,6 +1269,8 @@ public abstract class AbstractDecisionTableWidget extends Composite
             throw new IllegalArgumentException( "editColumn cannot be null" );
         }
 
+        discardAnalyzer();
+
         List<BaseColumnFieldDiff> patternDiff = null;
 
         boolean existPattern = false;
@@ -1877,12 +1902,38 @@ public abstract class AbstractDecisionTableWidget extends Composite
 
     public void analyze() {
         model.getAnalysisData().clear();
-        DecisionTableAnalyzer analyzer = new DecisionTableAnalyzer( oracle );
-        List<Analysis> analysisData = analyzer.analyze( model );
+        analyzer = new DecisionTableAnalyzer( model,
+                                              new FieldTypeResolver() {
+                                                  @Override
+                                                  public String getFieldType( final String factType,
+                                                                              final String fieldName ) {
+                                                      return oracle.getFieldType( factType,
+                                                                                  fieldName );
+                                                  }
+                                              } );
+        List<Analysis> analysisData = analyzer.analyze();
         model.getAnalysisData().addAll( analysisData );
         showAnalysis();
     }
 
+    //Incremental analysis relies upon the columns of the last full analysis, so changes to columns discard it
+    private void discardAnalyzer() {
+        analyzer = null;
+    }
+
+    //Copy the results of an incremental analysis into the model and redisplay them
+    private void refreshAnalysis( final List<Analysis> analysisData ) {
+        model.getAnalysisData().clear();
+        model.getAnalysisData().addAll( analysisData );
+
+        //Only rows whose Analysis has changed are redrawn by the grid
+        AnalysisCol52 analysisCol = model.getAnalysisCol();
+        int analysisColumnIndex = model.getExpandedColumns().indexOf( analysisCol );
+        UpdateAnalysisColumnDataEvent updateAnalysisColumnData = new UpdateAnalysisColumnDataEvent( analysisColumnIndex,
+                                                                                                    getAnalysisColumnData() );
+        eventBus.fireEvent( updateAnalysisColumnData );
+    }
+
     private void showAnalysis() {
         AnalysisCol52 analysisCol = model.getAnalysisCol();
         int analysisColumnIndex = model.getExpandedColumns().indexOf( analysisCol );
@@ -2091,6 +2142,9 @@ public abstract class AbstractDecisionTableWidget extends Composite
     public void onDeleteRow( DeleteRowEvent event ) {
         model.getData().remove( event.getIndex() );
         model.getAnalysisData().remove( event.getIndex() );
+        if ( analyzer != null ) {
+            refreshAnalysis( analyzer.deleteRow( event.getIndex() ) );
+        }
         Scheduler.get().scheduleFinally( new Command() {
 
             public void execute() {
@@ -2110,6 +2164,9 @@ public abstract class AbstractDecisionTableWidget extends Composite
                              data );
         model.getAnalysisData().add( event.getIndex(),
                                      new Analysis() );
+        if ( analyzer != null ) {
+            refreshAnalysis( analyzer.insertRow( event.getIndex() ) );
+        }
         Scheduler.get().scheduleFinally( new Command() {
 
             public void execute() {
@@ -2134,7 +2191,8 @@ public abstract class AbstractDecisionTableWidget extends Composite
         if ( copiedRows == null || copiedRows.size() == 0 ) {
             return;
         }
-        int iRow = event.getTargetRowIndex();
+        final int firstRowIndex = event.getTargetRowIndex();
+        int iRow = firstRowIndex;
         for ( List<DTCellValue52> sourceRowData : copiedRows ) {
             List<DTCellValue52> rowData = cellValueFactory.makeRowData();
 
@@ -2192,6 +2250,12 @@ public abstract class AbstractDecisionTableWidget extends Composite
 
             iRow++;
         }
+
+        //Pasted rows are analysed, and the analysis redrawn, together
+        if ( analyzer != null ) {
+            refreshAnalysis( analyzer.insertRows( firstRowIndex,
+                                                  copiedRows.size() ) );
+        }
         Scheduler.get().scheduleFinally( new Command() {
 
             public void execute() {
@@ -2206,6 +2270,9 @@ public abstract class AbstractDecisionTableWidget extends Composite
         List<DTCellValue52> data = cellValueFactory.makeRowData();
         model.getData().add( data );
         model.getAnalysisData().add( new Analysis() );
+        if ( analyzer != null ) {
+            refreshAnalysis( analyzer.insertRow( model.getData().size() - 1 ) );
+        }
         Scheduler.get().scheduleFinally( new Command() {
 
             public void execute() {
@@ -2220,6 +2287,7 @@ public abstract class AbstractDecisionTableWidget extends Composite
     }
 
     public void onDeleteColumn( DeleteColumnEvent event ) {
+        discardAnalyzer();
         int firstColumnIndex = event.getFirstColumnIndex();
         for ( int iCol = 0; iCol < event.getNumberOfColumns(); iCol++ ) {
             for ( List<DTCellValue52> row : model.getData() ) {
@@ -2229,6 +2297,7 @@ public abstract class AbstractDecisionTableWidget extends Composite
     }
 
     public void onInsertColumn( InsertColumnEvent<BaseColumn, DTCellValue52> event ) {
+        discardAnalyzer();
         int index = event.getIndex();
         List<List<DTCellValue52>> columnsData = event.getColumnsData();
         for ( int iCol = 0; iCol < columnsData.size(); iCol++ ) {
@@ -2256,6 +2325,7 @@ public abstract class AbstractDecisionTableWidget extends Composite
     protected abstract void setEnableOtherwiseButton( final boolean isEnabled );
 
     public void onMoveColumns( MoveColumnsEvent event ) {
+        discardAnalyzer();
         int sourceColumnIndex = event.getSourceColumnIndex();
         int targetColumnIndex = event.getTargetColumnIndex();
         int numberOfColumns = event.getNumberOfColumns();
@@ -2286,6 +2356,8 @@ public abstract class AbstractDecisionTableWidget extends Composite
     public void onUpdateModel( UpdateModelEvent event ) {
 
         //Copy data into the underlying model
+        int firstUpdatedRowIndex = Integer.MAX_VALUE;
+        int lastUpdatedRowIndex = -1;
         Map<Coordinate, List<List<CellValue<? extends Comparable<?>>>>> updates = event.getUpdates();
         for ( Map.Entry<Coordinate, List<List<CellValue<? extends Comparable<?>>>>> e : updates.entrySet() ) {
 
@@ -2309,9 +2381,19 @@ public abstract class AbstractDecisionTableWidget extends Composite
                     model.getData().get( targetRowIndex ).set( targetColumnIndex,
                                                                dcv );
                 }
+                firstUpdatedRowIndex = Math.min( firstUpdatedRowIndex,
+                                                 targetRowIndex );
+                lastUpdatedRowIndex = Math.max( lastUpdatedRowIndex,
+                                                targetRowIndex );
             }
         }
 
+        //Re-analyse only the changed rows and those related to them
+        if ( analyzer != null && lastUpdatedRowIndex >= 0 ) {
+            refreshAnalysis( analyzer.updateRows( firstUpdatedRowIndex,
+                                                  lastUpdatedRowIndex ) );
+        }
+
         //Update system controlled columns
         Scheduler.get().scheduleFinally( new Command() {
 
@@ -28,35 +28,53 @@ import org.kie.workbench.common.widgets.decoratedgrid.client.widget.ResourcesPro
  */
 public class VerticalDecoratedDecisionTableGridWidget extends AbstractDecoratedDecisionTableGridWidget {
 
+    private final VerticalMergableDecisionTableGridWidget mergableGridWidget;
+
     public VerticalDecoratedDecisionTableGridWidget( ResourcesProvider<BaseColumn> resources,
                                                      DecisionTableCellFactory cellFactory,
                                                      DecisionTableCellValueFactory cellValueFactory,
                                                      DecisionTableDropDownManager dropDownManager,
                                                      boolean isReadOnly,
                                                      EventBus eventBus ) {
+        this( resources,
+              cellFactory,
+              cellValueFactory,
+              eventBus,
+              new VerticalMergableDecisionTableGridWidget( resources,
+                                                           cellFactory,
+                                                           cellValueFactory,
+                                                           dropDownManager,
+                                                           isReadOnly,
+                                                           eventBus ),
+              isReadOnly );
+    }
+
+    private VerticalDecoratedDecisionTableGridWidget( ResourcesProvider<BaseColumn> resources,
+                                                      DecisionTableCellFactory cellFactory,
+                                                      DecisionTableCellValueFactory cellValueFactory,
+                                                      EventBus eventBus,
+                                                      VerticalMergableDecisionTableGridWidget mergableGridWidget,
+                                                      boolean isReadOnly ) {
         super( resources,
                cellFactory,
                cellValueFactory,
                eventBus,
                new HorizontalPanel(),
                new VerticalPanel(),
-               new VerticalMergableDecisionTableGridWidget( resources,
-                                                            cellFactory,
-                                                            cellValueFactory,
-                                                            dropDownManager,
-                                                            isReadOnly,
-                                                            eventBus ),
+               mergableGridWidget,
                new VerticalDecisionTableHeaderWidget( resources,
                                                       isReadOnly,
                                                       eventBus ),
                new VerticalDecisionTableSidebarWidget( resources,
                                                        isReadOnly,
                                                        eventBus ) );
+        this.mergableGridWidget = mergableGridWidget;
     }
 
     /**
      * Return a ScrollHandler to ensure the Header and Sidebar are repositioned
-     * according to the position of the scroll bars surrounding the GridWidget
+     * according to the position of the scroll bars surrounding the GridWidget,
+     * and that the rows now visible in the GridWidget are rendered
      */
     @Override
     protected ScrollHandler getScrollHandler() {
@@ -65,6 +83,8 @@ public class VerticalDecoratedDecisionTableGridWidget extends AbstractDecoratedD
             public void onScroll( ScrollEvent event ) {
                 headerWidget.setScrollPosition( scrollPanel.getHorizontalScrollPosition() );
                 sidebarWidget.setScrollPosition( scrollPanel.getVerticalScrollPosition() );
+                mergableGridWidget.setViewport( scrollPanel.getVerticalScrollPosition(),
+                                                scrollPanel.getOffsetHeight() );
             }
 
         };
@@ -15,19 +15,50 @@
  */
 package org.drools.workbench.screens.guided.dtable.client.widget.table;
 
+import java.util.List;
+
+import com.google.gwt.dom.client.Document;
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.dom.client.Style;
+import com.google.gwt.dom.client.TableRowElement;
 import com.google.gwt.event.shared.EventBus;
+import org.drools.workbench.models.guided.dtable.shared.model.Analysis;
 import org.drools.workbench.models.guided.dtable.shared.model.BaseColumn;
 import org.drools.workbench.models.guided.dtable.shared.model.GuidedDecisionTable52;
 import org.kie.workbench.common.widgets.decoratedgrid.client.widget.AbstractVerticalMergableGridWidget;
+import org.kie.workbench.common.widgets.decoratedgrid.client.widget.CellValue;
 import org.kie.workbench.common.widgets.decoratedgrid.client.widget.ResourcesProvider;
+import org.kie.workbench.common.widgets.decoratedgrid.client.widget.data.DynamicDataRow;
+import org.kie.workbench.common.widgets.decoratedgrid.client.widget.events.UpdateColumnDataEvent;
 import org.drools.workbench.screens.guided.dtable.client.widget.table.events.InsertInternalDecisionTableColumnEvent;
 import org.drools.workbench.screens.guided.dtable.client.widget.table.events.SetInternalDecisionTableModelEvent;
+import org.drools.workbench.screens.guided.dtable.client.widget.table.events.UpdateAnalysisColumnDataEvent;
 
 /**
  * A Vertical implementation of MergableGridWidget, that renders columns as erm,
  * columns and rows as rows. Supports merging of cells between rows.
+ * <p/>
+ * Large tables are rendered "virtually": every row has a table row element, so that HTML and data coordinates
+ * remain the same, however only those rows within the viewport (plus a buffer) have their cells rendered. Rows
+ * outside of the viewport are empty placeholders of the same height. The rendered rows are always extended to
+ * include whole blocks of merged cells. Row insertions, deletions and column redraws only render rows within the
+ * viewport (see VirtualRowWindow).
  */
-public class VerticalMergableDecisionTableGridWidget extends AbstractVerticalMergableGridWidget<GuidedDecisionTable52, BaseColumn> {
+public class VerticalMergableDecisionTableGridWidget extends AbstractVerticalMergableGridWidget<GuidedDecisionTable52, BaseColumn>
+        implements
+        UpdateAnalysisColumnDataEvent.Handler {
+
+    private static final String PLACEHOLDER_ATTRIBUTE = "data-placeholder";
+
+    private final ResourcesProvider<BaseColumn> resources;
+
+    private final VirtualRowWindow window = new VirtualRowWindow();
+
+    //Whether the rows currently in the DOM were rendered virtually
+    private boolean virtualised = false;
+
+    private int viewportTop = 0;
+    private int viewportHeight = 0;
 
     public VerticalMergableDecisionTableGridWidget( ResourcesProvider<BaseColumn> resources,
                                                     DecisionTableCellFactory cellFactory,
@@ -41,12 +72,303 @@ public class VerticalMergableDecisionTableGridWidget extends AbstractVerticalMer
                dropDownManager,
                isReadOnly,
                eventBus );
+        this.resources = resources;
 
         //Wire-up event handlers
         eventBus.addHandler( SetInternalDecisionTableModelEvent.TYPE,
                              this );
         eventBus.addHandler( InsertInternalDecisionTableColumnEvent.TYPE,
                              this );
+        eventBus.addHandler( UpdateAnalysisColumnDataEvent.TYPE,
+                             this );
+    }
+
+    @Override
+    public void redraw() {
+        window.clear();
+        virtualised = isVirtualised();
+        if ( !virtualised ) {
+            super.redraw();
+            return;
+        }
+
+        //Replace all rows with placeholders and then render those in the viewport
+        while ( tbody.getFirstChild() != null ) {
+            tbody.removeChild( tbody.getFirstChild() );
+        }
+        for ( int iRow = 0; iRow < data.size(); iRow++ ) {
+            tbody.appendChild( makePlaceholderRow() );
+        }
+        redrawViewport();
+    }
+
+    @Override
+    public void redrawColumn( int index ) {
+        redrawColumns( index,
+                       index );
+    }
+
+    //Only the rendered rows need redrawing; placeholders are rendered with the current data when they are scrolled to
+    @Override
+    public void redrawColumns( int startRedrawIndex,
+                               int endRedrawIndex ) {
+        if ( !virtualised ) {
+            super.redrawColumns( startRedrawIndex,
+                                 endRedrawIndex );
+            return;
+        }
+        if ( !window.isEmpty() ) {
+            super.redrawRows( window.getStartRow(),
+                              window.getEndRow() );
+        }
+    }
+
+    @Override
+    public void redrawRows( int startRedrawIndex,
+                            int endRedrawIndex ) {
+        if ( !virtualised ) {
+            super.redrawRows( startRedrawIndex,
+                              endRedrawIndex );
+            return;
+        }
+        if ( window.isEmpty() ) {
+            return;
+        }
+        final int startRow = Math.max( startRedrawIndex,
+                                       window.getStartRow() );
+        final int endRow = Math.min( endRedrawIndex,
+                                     window.getEndRow() );
+        if ( startRow <= endRow ) {
+            super.redrawRows( startRow,
+                              endRow );
+        }
+    }
+
+    @Override
+    public void appendRow( DynamicDataRow rowData ) {
+        if ( isVirtualised() != virtualised ) {
+            redraw();
+            return;
+        }
+        if ( !virtualised ) {
+            super.appendRow( rowData );
+            return;
+        }
+        tbody.appendChild( makePlaceholderRow() );
+        redrawMutatedRows( data.size() - 1 );
+    }
+
+    @Override
+    public void insertRowBefore( int index,
+                                 DynamicDataRow rowData ) {
+        if ( isVirtualised() != virtualised ) {
+            redraw();
+            return;
+        }
+        if ( !virtualised ) {
+            super.insertRowBefore( index,
+                                   rowData );
+            return;
+        }
+        tbody.insertBefore( makePlaceholderRow(),
+                            tbody.getChild( index ) );
+        window.onRowInserted( index );
+        redrawMutatedRows( index );
+    }
+
+    @Override
+    public void deleteRow( int index ) {
+        if ( isVirtualised() != virtualised ) {
+            redraw();
+            return;
+        }
+        if ( !virtualised ) {
+            super.deleteRow( index );
+            return;
+        }
+        tbody.removeChild( tbody.getChild( index ) );
+        window.onRowDeleted( index );
+        if ( data.size() > 0 ) {
+            redrawMutatedRows( Math.min( index,
+                                         data.size() - 1 ) );
+        }
+    }
+
+    //Redraw the rendered rows sharing merged cells with a mutated row, then fill any gap left in the viewport
+    private void redrawMutatedRows( int rowIndex ) {
+        final int maxRowIndex = Math.min( data.size(),
+                                          tbody.getChildCount() ) - 1;
+        redrawRows( findMergedBlockStart( rowIndex ),
+                    findMergedBlockEnd( rowIndex,
+                                        maxRowIndex ) );
+        redrawViewport();
+    }
+
+    public void onUpdateAnalysisColumnData( UpdateAnalysisColumnDataEvent event ) {
+        final int index = event.getIndex();
+        final List<CellValue<? extends Comparable<?>>> columnData = event.getColumnData();
+        if ( index < 0 || data == null ) {
+            return;
+        }
+
+        //Rows are being inserted or deleted so the whole column is refreshed
+        if ( columnData.size() != data.size() ) {
+            onUpdateColumnData( new UpdateColumnDataEvent( index,
+                                                           columnData ) );
+            return;
+        }
+
+        //Replace the cells whose Analysis has changed and redraw them in contiguous ranges
+        int rangeStart = -1;
+        for ( int iRow = 0; iRow <= data.size(); iRow++ ) {
+            boolean isChanged = false;
+            if ( iRow < data.size() ) {
+                final CellValue<? extends Comparable<?>> oldCell = data.get( iRow ).get( index );
+                final CellValue<? extends Comparable<?>> newCell = columnData.get( iRow );
+                if ( !isSameAnalysis( oldCell.getValue(),
+                                      newCell.getValue() ) ) {
+                    newCell.setRowSpan( oldCell.getRowSpan() );
+                    data.get( iRow ).set( index,
+                                          newCell );
+                    isChanged = iRow < tbody.getChildCount() && !isPlaceholder( iRow );
+                }
+            }
+            if ( isChanged && rangeStart < 0 ) {
+                rangeStart = iRow;
+            } else if ( !isChanged && rangeStart >= 0 ) {
+                redrawRows( rangeStart,
+                            iRow - 1 );
+                rangeStart = -1;
+            }
+        }
+    }
+
+    //Two Analyses are the same if they render identically
+    private boolean isSameAnalysis( final Object a,
+                                    final Object b ) {
+        if ( a == b ) {
+            return true;
+        }
+        if ( !( a instanceof Analysis ) || !( b instanceof Analysis ) ) {
+            return false;
+        }
+        return ( (Analysis) a ).toHtmlString().equals( ( (Analysis) b ).toHtmlString() );
+    }
+
+    /**
+     * Set the visible region of the table, in pixels. Rows entering the region are rendered and those leaving
+     * it (beyond the buffer) are replaced with placeholders.
+     * @param top Vertical scroll position
+     * @param height Height of the visible region
+     */
+    public void setViewport( int top,
+                             int height ) {
+        this.viewportTop = top;
+        this.viewportHeight = height;
+        if ( virtualised ) {
+            redrawViewport();
+        }
+    }
+
+    private boolean isVirtualised() {
+        return data != null && VirtualRowWindow.isVirtualised( data.size() );
+    }
+
+    private void redrawViewport() {
+        final int maxRowIndex = Math.min( data.size(),
+                                          tbody.getChildCount() ) - 1;
+        if ( maxRowIndex < 0 ) {
+            window.clear();
+            return;
+        }
+        int endRow = VirtualRowWindow.getViewportEndRow( viewportTop,
+                                                         viewportHeight,
+                                                         resources.rowHeight(),
+                                                         maxRowIndex );
+        int startRow = Math.min( VirtualRowWindow.getViewportStartRow( viewportTop,
+                                                                       resources.rowHeight() ),
+                                 endRow );
+
+        //Include the whole of any merged blocks that straddle the boundaries
+        startRow = findMergedBlockStart( startRow );
+        endRow = findMergedBlockEnd( endRow,
+                                     maxRowIndex );
+
+        //Remove rows that have left the viewport
+        if ( !window.isEmpty() ) {
+            for ( int iRow = window.getStartRow(); iRow <= Math.min( window.getEndRow(),
+                                                                     maxRowIndex ); iRow++ ) {
+                if ( iRow < startRow || iRow > endRow ) {
+                    tbody.replaceChild( makePlaceholderRow(),
+                                        tbody.getChild( iRow ) );
+                }
+            }
+        }
+
+        //Render rows that have entered the viewport, in contiguous ranges
+        int rangeStart = -1;
+        for ( int iRow = startRow; iRow <= endRow; iRow++ ) {
+            final boolean isRendered = window.contains( iRow ) && !isPlaceholder( iRow );
+            if ( !isRendered && rangeStart < 0 ) {
+                rangeStart = iRow;
+            } else if ( isRendered && rangeStart >= 0 ) {
+                super.redrawRows( rangeStart,
+                                  iRow - 1 );
+                rangeStart = -1;
+            }
+        }
+        if ( rangeStart >= 0 ) {
+            super.redrawRows( rangeStart,
+                              endRow );
+        }
+
+        window.setRange( startRow,
+                         endRow );
+    }
+
+    //Walk up to the first row of any merged cells in the given row
+    private int findMergedBlockStart( int rowIndex ) {
+        int startRow = rowIndex;
+        final DynamicDataRow row = data.get( rowIndex );
+        for ( int iCol = 0; iCol < row.size(); iCol++ ) {
+            int iRow = rowIndex;
+            while ( iRow > 0 && data.get( iRow ).get( iCol ).getRowSpan() == 0 ) {
+                iRow--;
+            }
+            startRow = Math.min( startRow,
+                                 iRow );
+        }
+        return startRow;
+    }
+
+    //Walk down to the last row of any merged cells in the given row
+    private int findMergedBlockEnd( int rowIndex,
+                                    int maxRowIndex ) {
+        int endRow = rowIndex;
+        final DynamicDataRow row = data.get( rowIndex );
+        for ( int iCol = 0; iCol < row.size(); iCol++ ) {
+            int iRow = rowIndex;
+            while ( iRow < maxRowIndex && data.get( iRow + 1 ).get( iCol ).getRowSpan() == 0 ) {
+                iRow++;
+            }
+            endRow = Math.max( endRow,
+                               iRow );
+        }
+        return endRow;
+    }
+
+    private boolean isPlaceholder( int rowIndex ) {
+        final Element tre = Element.as( tbody.getChild( rowIndex ) );
+        return tre.hasAttribute( PLACEHOLDER_ATTRIBUTE );
+    }
+
+    private TableRowElement makePlaceholderRow() {
+        final TableRowElement tre = Document.get().createTRElement();
+        tre.setAttribute( PLACEHOLDER_ATTRIBUTE,
+                          "true" );
+        tre.getStyle().setHeight( resources.rowHeight(),
+                                  Style.Unit.PX );
+        return tre;
     }
 
 }
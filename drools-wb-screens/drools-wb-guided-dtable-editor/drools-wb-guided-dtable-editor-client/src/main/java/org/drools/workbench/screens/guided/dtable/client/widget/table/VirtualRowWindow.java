@@ -0,0 +1,135 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.drools.workbench.screens.guided.dtable.client.widget.table;
+
+/**
+ * The range of rows rendered by a virtualised grid: those within the viewport plus a buffer above and below.
+ * Rows are identified by index, so the range is shifted as rows are inserted and deleted before or within it.
+ */
+class VirtualRowWindow {
+
+    //Tables with fewer rows than this are rendered in full
+    static final int VIRTUALISATION_THRESHOLD = 250;
+
+    //Number of rows rendered above and below the viewport
+    static final int BUFFER_ROWS = 50;
+
+    //Number of rows assumed to be visible before the viewport's size is known
+    static final int DEFAULT_VIEWPORT_ROWS = 50;
+
+    //Range of rendered rows, inclusive; -1 if no rows are rendered
+    private int startRow = -1;
+    private int endRow = -1;
+
+    static boolean isVirtualised( final int rowCount ) {
+        return rowCount >= VIRTUALISATION_THRESHOLD;
+    }
+
+    /**
+     * First row to render for the viewport
+     * @param top Vertical scroll position, in pixels
+     * @param rowHeight Height of a row, in pixels
+     * @return
+     */
+    static int getViewportStartRow( final int top,
+                                    final int rowHeight ) {
+        return Math.max( 0,
+                         top / Math.max( rowHeight,
+                                         1 ) - BUFFER_ROWS );
+    }
+
+    /**
+     * Last row to render for the viewport
+     * @param top Vertical scroll position, in pixels
+     * @param height Height of the viewport, in pixels; zero if not yet known
+     * @param rowHeight Height of a row, in pixels
+     * @param maxRowIndex Index of the last row of the table
+     * @return
+     */
+    static int getViewportEndRow( final int top,
+                                  final int height,
+                                  final int rowHeight,
+                                  final int maxRowIndex ) {
+        final int safeRowHeight = Math.max( rowHeight,
+                                            1 );
+        final int safeHeight = ( height > 0 ? height : DEFAULT_VIEWPORT_ROWS * safeRowHeight );
+        return Math.min( maxRowIndex,
+                         ( top + safeHeight ) / safeRowHeight + BUFFER_ROWS );
+    }
+
+    int getStartRow() {
+        return startRow;
+    }
+
+    int getEndRow() {
+        return endRow;
+    }
+
+    boolean isEmpty() {
+        return startRow < 0;
+    }
+
+    boolean contains( final int rowIndex ) {
+        return !isEmpty() && rowIndex >= startRow && rowIndex <= endRow;
+    }
+
+    void setRange( final int startRow,
+                   final int endRow ) {
+        this.startRow = startRow;
+        this.endRow = endRow;
+    }
+
+    void clear() {
+        setRange( -1,
+                  -1 );
+    }
+
+    /**
+     * A row has been inserted at the given index. Rows at or after the index move down one.
+     * @param index
+     */
+    void onRowInserted( final int index ) {
+        if ( isEmpty() ) {
+            return;
+        }
+        if ( index < startRow ) {
+            startRow++;
+            endRow++;
+        } else if ( index <= endRow ) {
+            endRow++;
+        }
+    }
+
+    /**
+     * The row at the given index has been deleted. Rows after the index move up one.
+     * @param index
+     */
+    void onRowDeleted( final int index ) {
+        if ( isEmpty() ) {
+            return;
+        }
+        if ( index < startRow ) {
+            startRow--;
+            endRow--;
+        } else if ( index <= endRow ) {
+            endRow--;
+            if ( endRow < startRow ) {
+                clear();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.drools.workbench.screens.guided.dtable.client.widget.table.events;
+
+import java.util.List;
+
+import com.google.gwt.event.shared.EventHandler;
+import com.google.gwt.event.shared.GwtEvent;
+import org.kie.workbench.common.widgets.decoratedgrid.client.widget.CellValue;
+
+/**
+ * An event to refresh the Analysis column following an incremental analysis. Unlike UpdateColumnDataEvent only
+ * the rows whose Analysis has changed are redrawn.
+ */
+public class UpdateAnalysisColumnDataEvent extends GwtEvent<UpdateAnalysisColumnDataEvent.Handler> {
+
+    public static interface Handler
+            extends
+            EventHandler {
+
+        void onUpdateAnalysisColumnData( UpdateAnalysisColumnDataEvent event );
+    }
+
+    public static final Type<Handler> TYPE = new Type<Handler>();
+
+    private final int index;
+    private final List<CellValue<? extends Comparable<?>>> columnData;
+
+    public UpdateAnalysisColumnDataEvent( final int index,
+                                          final List<CellValue<? extends Comparable<?>>> columnData ) {
+        this.index = index;
+        this.columnData = columnData;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public List<CellValue<? extends Comparable<?>>> getColumnData() {
+        return columnData;
+    }
+
+    @Override
+    public Type<Handler> getAssociatedType() {
+        return TYPE;
+    }
+
+    @Override
+    protected void dispatch( final Handler handler ) {
+        handler.onUpdateAnalysisColumnData( this );
+    }
+
+}
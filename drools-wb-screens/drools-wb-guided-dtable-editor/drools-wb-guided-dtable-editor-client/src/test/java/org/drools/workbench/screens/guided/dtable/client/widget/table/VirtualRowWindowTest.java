@@ -0,0 +1,171 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.drools.workbench.screens.guided.dtable.client.widget.table;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class VirtualRowWindowTest {
+
+    private static final int ROW_HEIGHT = 20;
+
+    @Test
+    public void testThreshold() {
+        assertFalse( VirtualRowWindow.isVirtualised( 0 ) );
+        assertFalse( VirtualRowWindow.isVirtualised( VirtualRowWindow.VIRTUALISATION_THRESHOLD - 1 ) );
+        assertTrue( VirtualRowWindow.isVirtualised( VirtualRowWindow.VIRTUALISATION_THRESHOLD ) );
+    }
+
+    @Test
+    public void testViewportAtTop() {
+        assertEquals( 0,
+                      VirtualRowWindow.getViewportStartRow( 0,
+                                                            ROW_HEIGHT ) );
+        assertEquals( 10 + VirtualRowWindow.BUFFER_ROWS,
+                      VirtualRowWindow.getViewportEndRow( 0,
+                                                          10 * ROW_HEIGHT,
+                                                          ROW_HEIGHT,
+                                                          999 ) );
+    }
+
+    @Test
+    public void testViewportBuffer() {
+        final int top = 500 * ROW_HEIGHT;
+        assertEquals( 500 - VirtualRowWindow.BUFFER_ROWS,
+                      VirtualRowWindow.getViewportStartRow( top,
+                                                            ROW_HEIGHT ) );
+        assertEquals( 510 + VirtualRowWindow.BUFFER_ROWS,
+                      VirtualRowWindow.getViewportEndRow( top,
+                                                          10 * ROW_HEIGHT,
+                                                          ROW_HEIGHT,
+                                                          999 ) );
+    }
+
+    @Test
+    public void testViewportAtBottom() {
+        assertEquals( 999,
+                      VirtualRowWindow.getViewportEndRow( 995 * ROW_HEIGHT,
+                                                          10 * ROW_HEIGHT,
+                                                          ROW_HEIGHT,
+                                                          999 ) );
+    }
+
+    @Test
+    public void testViewportSizeUnknown() {
+        assertEquals( VirtualRowWindow.DEFAULT_VIEWPORT_ROWS + VirtualRowWindow.BUFFER_ROWS,
+                      VirtualRowWindow.getViewportEndRow( 0,
+                                                          0,
+                                                          ROW_HEIGHT,
+                                                          999 ) );
+    }
+
+    @Test
+    public void testRowInsertedBeforeWindow() {
+        final VirtualRowWindow window = makeWindow( 100,
+                                                    200 );
+        window.onRowInserted( 10 );
+        assertRange( window,
+                     101,
+                     201 );
+    }
+
+    @Test
+    public void testRowInsertedWithinWindow() {
+        final VirtualRowWindow window = makeWindow( 100,
+                                                    200 );
+        window.onRowInserted( 100 );
+        assertRange( window,
+                     100,
+                     201 );
+        assertTrue( window.contains( 100 ) );
+    }
+
+    @Test
+    public void testRowAppendedAfterWindow() {
+        final VirtualRowWindow window = makeWindow( 100,
+                                                    200 );
+        window.onRowInserted( 500 );
+        assertRange( window,
+                     100,
+                     200 );
+    }
+
+    @Test
+    public void testRowDeletedBeforeWindow() {
+        final VirtualRowWindow window = makeWindow( 100,
+                                                    200 );
+        window.onRowDeleted( 0 );
+        assertRange( window,
+                     99,
+                     199 );
+    }
+
+    @Test
+    public void testRowDeletedWithinWindow() {
+        final VirtualRowWindow window = makeWindow( 100,
+                                                    200 );
+        window.onRowDeleted( 200 );
+        assertRange( window,
+                     100,
+                     199 );
+    }
+
+    @Test
+    public void testRowDeletedAfterWindow() {
+        final VirtualRowWindow window = makeWindow( 100,
+                                                    200 );
+        window.onRowDeleted( 201 );
+        assertRange( window,
+                     100,
+                     200 );
+    }
+
+    @Test
+    public void testLastRowDeleted() {
+        final VirtualRowWindow window = makeWindow( 0,
+                                                    0 );
+        window.onRowDeleted( 0 );
+        assertTrue( window.isEmpty() );
+    }
+
+    @Test
+    public void testEmptyWindowIgnoresMutations() {
+        final VirtualRowWindow window = new VirtualRowWindow();
+        window.onRowInserted( 0 );
+        window.onRowDeleted( 0 );
+        assertTrue( window.isEmpty() );
+        assertFalse( window.contains( 0 ) );
+    }
+
+    private VirtualRowWindow makeWindow( final int startRow,
+                                         final int endRow ) {
+        final VirtualRowWindow window = new VirtualRowWindow();
+        window.setRange( startRow,
+                         endRow );
+        return window;
+    }
+
+    private void assertRange( final VirtualRowWindow window,
+                              final int startRow,
+                              final int endRow ) {
+        assertEquals( startRow,
+                      window.getStartRow() );
+        assertEquals( endRow,
+                      window.getEndRow() );
+    }
+
+}
@@ -15,7 +15,6 @@
 */
 package org.drools.workbench.screens.guided.rule.backend.server;
 
-import java.util.List;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -53,6 +52,9 @@ public class GuidedRuleEditorRenameHelper implements RenameHelper {
     @Inject
     private GuidedRuleEditorServiceUtilities utilities;
 
+    @Inject
+    private PackageRuleContextCache packageRuleContextCache;
+
     @Override
     public boolean supports( final Path destination ) {
         return ( drlResourceType.accept( destination ) || dslrResourceType.accept( destination ) );
@@ -64,13 +66,12 @@ public class GuidedRuleEditorRenameHelper implements RenameHelper {
         //Load existing file
         final org.uberfire.java.nio.file.Path _destination = Paths.convert( destination );
         final String drl = ioService.readAllString( _destination );
-        final String[] dsls = utilities.loadDslsForPackage( destination );
-        final List<String> globals = utilities.loadGlobalsForPackage( destination );
+        final PackageRuleContext context = packageRuleContextCache.getPackageRuleContext( destination );
 
         final RuleModel model = RuleModelDRLPersistenceImpl.getInstance().unmarshalUsingDSL( drl,
-                                                                                             globals,
+                                                                                             context.getGlobals(),
                                                                                              dataModelService.getDataModel( destination ),
-                                                                                             dsls );
+                                                                                             context.getDSLs() );
         //Update rule name
         String ruleName = model.name;
         if ( drlResourceType.accept( destination ) ) {
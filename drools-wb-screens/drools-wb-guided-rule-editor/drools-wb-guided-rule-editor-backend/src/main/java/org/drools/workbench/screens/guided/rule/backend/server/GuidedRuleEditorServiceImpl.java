@@ -97,6 +97,9 @@ public class GuidedRuleEditorServiceImpl
     @Inject
     private GuidedRuleEditorServiceUtilities utilities;
 
+    @Inject
+    private PackageRuleContextCache packageRuleContextCache;
+
     @Inject
     private GuidedRuleDRLResourceTypeDefinition drlResourceType;
 
@@ -142,12 +145,13 @@ public class GuidedRuleEditorServiceImpl
     public RuleModel load( final Path path ) {
         try {
             final String drl = ioService.readAllString( Paths.convert( path ) );
-            final List<String> globals = utilities.loadGlobalsForPackage( path );
+            final PackageRuleContext context = packageRuleContextCache.getPackageRuleContext( path );
+            final List<String> globals = context.getGlobals();
             final PackageDataModelOracle oracle = dataModelService.getDataModel( path );
 
             RuleModel ruleModel = null;
             if ( dslrResourceType.accept( path ) ) {
-                final String[] dsls = utilities.loadDslsForPackage( path );
+                final String[] dsls = context.getDSLs();
                 ruleModel = RuleModelDRLPersistenceImpl.getInstance().unmarshalUsingDSL( drl,
                                                                                          globals,
                                                                                          oracle,
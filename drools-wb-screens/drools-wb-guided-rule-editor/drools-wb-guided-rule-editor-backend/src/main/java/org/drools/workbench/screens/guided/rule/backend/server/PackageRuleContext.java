@@ -0,0 +1,76 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.drools.workbench.screens.guided.rule.backend.server;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.drools.compiler.lang.Expander;
+import org.drools.compiler.lang.dsl.DSLMappingFile;
+import org.drools.compiler.lang.dsl.DefaultExpander;
+
+/**
+ * The Globals and DSLs held in a Package, needed to load and generate the source of rules in that Package.
+ */
+public class PackageRuleContext {
+
+    private final List<String> globals;
+    private final List<String> dsls;
+    private final List<DSLMappingFile> dslMappingFiles;
+
+    public PackageRuleContext( final List<String> globals,
+                               final List<String> dsls,
+                               final List<DSLMappingFile> dslMappingFiles ) {
+        this.globals = Collections.unmodifiableList( globals );
+        this.dsls = Collections.unmodifiableList( dsls );
+        this.dslMappingFiles = Collections.unmodifiableList( dslMappingFiles );
+    }
+
+    /**
+     * @return Global definitions
+     */
+    public List<String> getGlobals() {
+        return globals;
+    }
+
+    /**
+     * @return DSL definitions, as held in the DSL files
+     */
+    public String[] getDSLs() {
+        return dsls.toArray( new String[ dsls.size() ] );
+    }
+
+    /**
+     * @return Parsed DSL definitions
+     */
+    public List<DSLMappingFile> getDSLMappingFiles() {
+        return dslMappingFiles;
+    }
+
+    /**
+     * Returns an expander for the Package's DSLs. A new Expander is returned for each call, as DefaultExpander
+     * records errors of the last expansion.
+     * @return
+     */
+    public Expander getDSLExpander() {
+        final Expander expander = new DefaultExpander();
+        for ( DSLMappingFile dsl : dslMappingFiles ) {
+            expander.addDSLMapping( dsl.getMapping() );
+        }
+        return expander;
+    }
+
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.drools.workbench.screens.guided.rule.backend.server;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.drools.compiler.lang.Expander;
+import org.drools.compiler.lang.dsl.DSLMappingFile;
+import org.drools.compiler.lang.dsl.DSLTokenizedMappingFile;
+import org.guvnor.common.services.backend.file.FileDiscoveryService;
+import org.guvnor.common.services.project.model.Package;
+import org.kie.workbench.common.services.backend.file.DSLFileFilter;
+import org.kie.workbench.common.services.backend.file.GlobalsFileFilter;
+import org.kie.workbench.common.services.shared.project.KieProjectService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.backend.server.util.Paths;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.DirectoryStream;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.workbench.events.ResourceAddedEvent;
+import org.uberfire.workbench.events.ResourceBatchChangesEvent;
+import org.uberfire.workbench.events.ResourceDeletedEvent;
+import org.uberfire.workbench.events.ResourceRenamedEvent;
+import org.uberfire.workbench.events.ResourceUpdatedEvent;
+
+/**
+ * Package-level cache of the Globals and DSL definitions shared by the Guided Rule Editor, its helpers and the
+ * Source Services of assets supporting DSLs. A Package's Globals and DSLs are discovered in a single pass.
+ * Entries are keyed on the Package's main resources folder and are invalidated when a Global or DSL within it
+ * changes.
+ */
+@ApplicationScoped
+public class PackageRuleContextCache {
+
+    private static final Logger logger = LoggerFactory.getLogger( PackageRuleContextCache.class );
+
+    private static final DSLFileFilter FILTER_DSLS = new DSLFileFilter();
+
+    private static final GlobalsFileFilter FILTER_GLOBALS = new GlobalsFileFilter();
+
+    private static final DirectoryStream.Filter<Path> FILTER_DSLS_AND_GLOBALS = new DirectoryStream.Filter<Path>() {
+        @Override
+        public boolean accept( final Path path ) {
+            return FILTER_DSLS.accept( path ) || FILTER_GLOBALS.accept( path );
+        }
+    };
+
+    private final ConcurrentMap<Path, PackageRuleContext> cache = new ConcurrentHashMap<Path, PackageRuleContext>();
+
+    //Incremented by every invalidation, so that a context loaded whilst its files were changing is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private IOService ioService;
+
+    private FileDiscoveryService fileDiscoveryService;
+
+    private KieProjectService projectService;
+
+    public PackageRuleContextCache() {
+        //CDI proxy
+    }
+
+    @Inject
+    public PackageRuleContextCache( final @Named("ioStrategy") IOService ioService,
+                                    final FileDiscoveryService fileDiscoveryService,
+                                    final KieProjectService projectService ) {
+        this.ioService = ioService;
+        this.fileDiscoveryService = fileDiscoveryService;
+        this.projectService = projectService;
+    }
+
+    /**
+     * Returns an expander for DSLs (only if there is a DSL configured for the Package containing the Path).
+     * A new Expander is returned for each call, as DefaultExpander records errors of the last expansion.
+     * @param path
+     * @return
+     */
+    public Expander getDSLExpander( final Path path ) {
+        return getPackageRuleContext( path ).getDSLExpander();
+    }
+
+    /**
+     * Returns the Globals and DSLs held in the Package containing the Path
+     * @param path
+     * @return
+     */
+    public PackageRuleContext getPackageRuleContext( final org.uberfire.backend.vfs.Path path ) {
+        return getPackageRuleContext( projectService.resolvePackage( path ) );
+    }
+
+    /**
+     * Returns the Globals and DSLs held in the Package
+     * @param pkg
+     * @return
+     */
+    public PackageRuleContext getPackageRuleContext( final Package pkg ) {
+        final Path nioPackagePath = Paths.convert( pkg.getPackageMainResourcesPath() );
+
+        final PackageRuleContext cachedContext = cache.get( nioPackagePath );
+        if ( cachedContext != null ) {
+            return cachedContext;
+        }
+
+        //An invalidation may happen whilst loading; if so the loaded context is returned but not kept
+        final long loadGeneration = generation.get();
+        final PackageRuleContext context = loadPackageRuleContext( nioPackagePath );
+        final PackageRuleContext existingContext = cache.putIfAbsent( nioPackagePath,
+                                                                      context );
+        if ( existingContext != null ) {
+            return existingContext;
+        }
+        if ( generation.get() != loadGeneration ) {
+            cache.remove( nioPackagePath,
+                          context );
+        }
+        return context;
+    }
+
+    /**
+     * Returns the Globals and DSLs held in the Package containing the Path
+     * @param path
+     * @return
+     */
+    public PackageRuleContext getPackageRuleContext( final Path path ) {
+        return getPackageRuleContext( Paths.convert( path ) );
+    }
+
+    public void onResourceAdded( @Observes final ResourceAddedEvent event ) {
+        invalidate( event.getPath() );
+    }
+
+    public void onResourceUpdated( @Observes final ResourceUpdatedEvent event ) {
+        invalidate( event.getPath() );
+    }
+
+    public void onResourceDeleted( @Observes final ResourceDeletedEvent event ) {
+        invalidate( event.getPath() );
+    }
+
+    public void onResourceRenamed( @Observes final ResourceRenamedEvent event ) {
+        invalidate( event.getPath() );
+        invalidate( event.getDestinationPath() );
+    }
+
+    public void onBatchResourceChanges( @Observes final ResourceBatchChangesEvent event ) {
+        for ( org.uberfire.backend.vfs.Path path : event.getBatch().keySet() ) {
+            invalidate( path );
+        }
+    }
+
+    void invalidate( final org.uberfire.backend.vfs.Path path ) {
+        if ( path == null ) {
+            return;
+        }
+        final Path nioPath = Paths.convert( path );
+        if ( !FILTER_DSLS_AND_GLOBALS.accept( nioPath ) ) {
+            return;
+        }
+        generation.incrementAndGet();
+        //Definitions may be discovered beneath the Package folder so remove any entry that is an ancestor of the file
+        final Iterator<Path> itr = cache.keySet().iterator();
+        while ( itr.hasNext() ) {
+            final Path packagePath = itr.next();
+            if ( nioPath.startsWith( packagePath ) ) {
+                itr.remove();
+            }
+        }
+    }
+
+    private PackageRuleContext loadPackageRuleContext( final Path nioPackagePath ) {
+        final List<String> globals = new ArrayList<String>();
+        final List<String> dsls = new ArrayList<String>();
+        final List<DSLMappingFile> dslMappingFiles = new ArrayList<DSLMappingFile>();
+        final Collection<Path> paths = fileDiscoveryService.discoverFiles( nioPackagePath,
+                                                                           FILTER_DSLS_AND_GLOBALS );
+        for ( final Path path : paths ) {
+            final String definition = ioService.readAllString( path );
+            if ( FILTER_GLOBALS.accept( path ) ) {
+                globals.add( definition );
+                continue;
+            }
+            dsls.add( definition );
+            final DSLTokenizedMappingFile dslFile = new DSLTokenizedMappingFile();
+            try {
+                if ( dslFile.parseAndLoad( new StringReader( definition ) ) ) {
+                    dslMappingFiles.add( dslFile );
+                } else {
+                    logger.error( "Unable to parse DSL definition: " + definition );
+                }
+            } catch ( IOException ioe ) {
+                logger.error( ioe.getMessage() );
+            }
+        }
+        return new PackageRuleContext( globals,
+                                       dsls,
+                                       dslMappingFiles );
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.drools.workbench.screens.guided.rule.backend.server;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.guvnor.common.services.backend.file.FileDiscoveryService;
+import org.guvnor.common.services.project.model.Package;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.workbench.common.services.shared.project.KieProjectService;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.uberfire.backend.server.util.Paths;
+import org.uberfire.io.IOService;
+import org.uberfire.java.nio.file.DirectoryStream;
+import org.uberfire.java.nio.file.Path;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class PackageRuleContextCacheTest {
+
+    private static final String DSL = "[when]There is a Smurf=Smurf()";
+    private static final String GLOBALS = "global java.util.List list;";
+
+    private IOService ioService;
+    private FileDiscoveryService fileDiscoveryService;
+    private PackageRuleContextCache cache;
+
+    private Path packagePath;
+    private Path dslPath;
+    private Path globalsPath;
+    private org.uberfire.backend.vfs.Path rulePath;
+
+    @Before
+    public void setup() {
+        ioService = mock( IOService.class );
+        fileDiscoveryService = mock( FileDiscoveryService.class );
+        final KieProjectService projectService = mock( KieProjectService.class );
+
+        packagePath = org.uberfire.java.nio.file.Paths.get( URI.create( "file:///project/src/main/resources/org/test" ) );
+        dslPath = packagePath.resolve( "smurf.dsl" );
+        globalsPath = packagePath.resolve( "globals.gdrl" );
+        rulePath = Paths.convert( packagePath.resolve( "rule.gre.dslr" ) );
+
+        final Package pkg = mock( Package.class );
+        when( pkg.getPackageMainResourcesPath() ).thenReturn( Paths.convert( packagePath ) );
+        when( projectService.resolvePackage( any( org.uberfire.backend.vfs.Path.class ) ) ).thenReturn( pkg );
+        when( ioService.readAllString( dslPath ) ).thenReturn( DSL );
+        when( ioService.readAllString( globalsPath ) ).thenReturn( GLOBALS );
+        when( fileDiscoveryService.discoverFiles( eq( packagePath ),
+                                                  any( DirectoryStream.Filter.class ) ) ).thenReturn( paths( dslPath,
+                                                                                                              globalsPath ) );
+
+        cache = new PackageRuleContextCache( ioService,
+                                             fileDiscoveryService,
+                                             projectService );
+    }
+
+    @Test
+    public void testContextLoadedInSinglePass() {
+        final PackageRuleContext context = cache.getPackageRuleContext( rulePath );
+
+        assertEquals( 1,
+                      context.getGlobals().size() );
+        assertEquals( GLOBALS,
+                      context.getGlobals().get( 0 ) );
+        assertArrayEquals( new String[]{ DSL },
+                           context.getDSLs() );
+        assertEquals( 1,
+                      context.getDSLMappingFiles().size() );
+
+        assertSame( context,
+                    cache.getPackageRuleContext( rulePath ) );
+        verify( fileDiscoveryService,
+                times( 1 ) ).discoverFiles( eq( packagePath ),
+                                            any( DirectoryStream.Filter.class ) );
+    }
+
+    @Test
+    public void testContextReloadedAfterInvalidation() {
+        final PackageRuleContext context = cache.getPackageRuleContext( rulePath );
+
+        //Changes to other files do not invalidate the context
+        cache.invalidate( rulePath );
+        assertSame( context,
+                    cache.getPackageRuleContext( rulePath ) );
+
+        cache.invalidate( Paths.convert( dslPath ) );
+        assertNotSame( context,
+                       cache.getPackageRuleContext( rulePath ) );
+    }
+
+    @Test
+    public void testContextLoadedDuringInvalidationIsNotCached() {
+        //Simulate a DSL being changed whilst the Package is being loaded
+        when( fileDiscoveryService.discoverFiles( eq( packagePath ),
+                                                  any( DirectoryStream.Filter.class ) ) ).thenAnswer( new Answer<List<Path>>() {
+            @Override
+            public List<Path> answer( final InvocationOnMock invocation ) {
+                cache.invalidate( Paths.convert( dslPath ) );
+                return paths( dslPath,
+                              globalsPath );
+            }
+        } );
+
+        final PackageRuleContext context = cache.getPackageRuleContext( rulePath );
+        assertNotSame( context,
+                       cache.getPackageRuleContext( rulePath ) );
+        verify( fileDiscoveryService,
+                times( 2 ) ).discoverFiles( eq( packagePath ),
+                                            any( DirectoryStream.Filter.class ) );
+    }
+
+    private static List<Path> paths( final Path... paths ) {
+        final List<Path> result = new ArrayList<Path>();
+        for ( Path path : paths ) {
+            result.add( path );
+        }
+        return result;
+    }
+
+}
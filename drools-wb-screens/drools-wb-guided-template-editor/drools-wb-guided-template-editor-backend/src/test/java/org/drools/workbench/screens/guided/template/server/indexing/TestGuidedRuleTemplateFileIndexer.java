@@ -18,6 +18,7 @@ package org.drools.workbench.screens.guided.template.server.indexing;
 import javax.enterprise.context.ApplicationScoped;
 
 import org.drools.workbench.screens.guided.template.type.GuidedRuleTemplateResourceTypeDefinition;
+import org.drools.workbench.screens.indexing.backend.server.IndexingContext;
 import org.kie.workbench.common.services.refactoring.backend.server.TestIndexer;
 import org.kie.workbench.common.services.shared.project.KieProjectService;
 import org.uberfire.io.IOService;
@@ -35,7 +36,8 @@ public class TestGuidedRuleTemplateFileIndexer extends GuidedRuleTemplateFileInd
 
     @Override
     public void setProjectService( final KieProjectService projectService ) {
-        this.projectService = projectService;
+        this.indexingContext = new IndexingContext( projectService,
+                                                    null );
     }
 
     @Override
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.drools.workbench.screens.indexing.backend.server;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.drools.workbench.models.datamodel.oracle.ProjectDataModelOracle;
+import org.guvnor.common.services.project.model.Package;
+import org.guvnor.common.services.project.model.Project;
+import org.kie.workbench.common.services.datamodel.backend.server.service.DataModelService;
+import org.kie.workbench.common.services.shared.project.KieProjectService;
+import org.uberfire.backend.server.util.Paths;
+import org.uberfire.java.nio.file.Path;
+
+/**
+ * Resolves the Project, Package and ProjectDataModelOracle of files being indexed. Whilst a batch is in progress
+ * the results are memoized per folder, since every file in a folder resolves to the same Project and Package;
+ * outside of a batch all calls are delegated, so individually indexed files always see the current state.
+ * Batches are bound to the threads taking part in them, so a batch never affects indexing by other threads.
+ */
+@ApplicationScoped
+public class IndexingContext {
+
+    private KieProjectService projectService;
+    private DataModelService dataModelService;
+
+    private final ThreadLocal<Batch> currentBatch = new ThreadLocal<Batch>();
+
+    public IndexingContext() {
+        //CDI proxy
+    }
+
+    @Inject
+    public IndexingContext( final KieProjectService projectService,
+                            final DataModelService dataModelService ) {
+        this.projectService = projectService;
+        this.dataModelService = dataModelService;
+    }
+
+    /**
+     * Start memoizing resolutions on the current thread. Other threads can take part in the batch with
+     * joinBatch(). Batches can be nested; the enclosing batch is restored when the nested batch ends.
+     * @return The batch, to be ended with endBatch()
+     */
+    public Batch startBatch() {
+        final Batch batch = new Batch( currentBatch.get() );
+        currentBatch.set( batch );
+        return batch;
+    }
+
+    /**
+     * End a batch started with startBatch(), discarding its memoized resolutions
+     * @param batch
+     */
+    public void endBatch( final Batch batch ) {
+        batch.resolutions.clear();
+        batch.projectDataModels.clear();
+        if ( currentBatch.get() == batch ) {
+            setCurrentBatch( batch.enclosingBatch );
+        }
+    }
+
+    /**
+     * Make the current thread take part in a batch started by another thread
+     * @param batch
+     * @return The batch the thread was previously part of, to be passed to leaveBatch()
+     */
+    public Batch joinBatch( final Batch batch ) {
+        final Batch previousBatch = currentBatch.get();
+        setCurrentBatch( batch );
+        return previousBatch;
+    }
+
+    /**
+     * Stop the current thread taking part in a batch joined with joinBatch()
+     * @param previousBatch The batch returned by joinBatch()
+     */
+    public void leaveBatch( final Batch previousBatch ) {
+        setCurrentBatch( previousBatch );
+    }
+
+    public boolean isBatch() {
+        return currentBatch.get() != null;
+    }
+
+    private void setCurrentBatch( final Batch batch ) {
+        if ( batch == null ) {
+            currentBatch.remove();
+        } else {
+            currentBatch.set( batch );
+        }
+    }
+
+    /**
+     * Resolve the Project containing a file
+     * @param path
+     * @return The Project or null if the file is not within a Project
+     */
+    public Project resolveProject( final Path path ) {
+        if ( !isBatch() ) {
+            return projectService.resolveProject( Paths.convert( path ) );
+        }
+        return getResolution( path ).project;
+    }
+
+    /**
+     * Resolve the Package containing a file
+     * @param path
+     * @return The Package or null if the file is not within a Package
+     */
+    public Package resolvePackage( final Path path ) {
+        if ( !isBatch() ) {
+            return projectService.resolvePackage( Paths.convert( path ) );
+        }
+        return getResolution( path ).pkg;
+    }
+
+    /**
+     * Get the ProjectDataModelOracle for the Project containing a file
+     * @param path
+     * @return
+     */
+    public ProjectDataModelOracle getProjectDataModel( final Path path ) {
+        if ( !isBatch() ) {
+            return dataModelService.getProjectDataModel( Paths.convert( path ) );
+        }
+        final Project project = resolveProject( path );
+        if ( project == null ) {
+            return dataModelService.getProjectDataModel( Paths.convert( path ) );
+        }
+        final Map<Path, ProjectDataModelOracle> projectDataModels = currentBatch.get().projectDataModels;
+        final Path projectRootPath = Paths.convert( project.getRootPath() );
+        ProjectDataModelOracle dmo = projectDataModels.get( projectRootPath );
+        if ( dmo == null ) {
+            dmo = dataModelService.getProjectDataModel( Paths.convert( path ) );
+            projectDataModels.put( projectRootPath,
+                                   dmo );
+        }
+        return dmo;
+    }
+
+    private Resolution getResolution( final Path path ) {
+        final Map<Path, Resolution> resolutions = currentBatch.get().resolutions;
+        final Path folder = path.getParent();
+        Resolution resolution = resolutions.get( folder );
+        if ( resolution == null ) {
+            final org.uberfire.backend.vfs.Path vfsPath = Paths.convert( path );
+            resolution = new Resolution( projectService.resolveProject( vfsPath ),
+                                         projectService.resolvePackage( vfsPath ) );
+            resolutions.put( folder,
+                             resolution );
+        }
+        return resolution;
+    }
+
+    /**
+     * Resolutions memoized for a batch. Threads taking part in the same batch share its resolutions.
+     */
+    public static class Batch {
+
+        private final Batch enclosingBatch;
+        private final Map<Path, Resolution> resolutions = new ConcurrentHashMap<Path, Resolution>();
+        private final Map<Path, ProjectDataModelOracle> projectDataModels = new ConcurrentHashMap<Path, ProjectDataModelOracle>();
+
+        private Batch( final Batch enclosingBatch ) {
+            this.enclosingBatch = enclosingBatch;
+        }
+
+    }
+
+    //Project and Package can be null, which ConcurrentHashMap cannot hold directly
+    private static class Resolution {
+
+        private final Project project;
+        private final Package pkg;
+
+        private Resolution( final Project project,
+                            final Package pkg ) {
+            this.project = project;
+            this.pkg = pkg;
+        }
+
+    }
+
+}
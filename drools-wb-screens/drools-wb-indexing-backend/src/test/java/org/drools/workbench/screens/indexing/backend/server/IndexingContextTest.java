@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.drools.workbench.screens.indexing.backend.server;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.guvnor.common.services.project.model.Package;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.workbench.common.services.datamodel.backend.server.service.DataModelService;
+import org.kie.workbench.common.services.shared.project.KieProjectService;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.Paths;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class IndexingContextTest {
+
+    private KieProjectService projectService;
+    private IndexingContext indexingContext;
+    private Path file1;
+    private Path file2;
+
+    @Before
+    public void setup() {
+        projectService = mock( KieProjectService.class );
+        when( projectService.resolvePackage( any( org.uberfire.backend.vfs.Path.class ) ) ).thenReturn( new Package() );
+        indexingContext = new IndexingContext( projectService,
+                                               mock( DataModelService.class ) );
+        file1 = Paths.get( URI.create( "file:///project/src/main/resources/org/test/file1.drl" ) );
+        file2 = Paths.get( URI.create( "file:///project/src/main/resources/org/test/file2.drl" ) );
+    }
+
+    @Test
+    public void testBatchMemoizesPerFolder() {
+        final IndexingContext.Batch batch = indexingContext.startBatch();
+        indexingContext.resolvePackage( file1 );
+        indexingContext.resolvePackage( file2 );
+        indexingContext.endBatch( batch );
+
+        verify( projectService,
+                times( 1 ) ).resolvePackage( any( org.uberfire.backend.vfs.Path.class ) );
+        assertFalse( indexingContext.isBatch() );
+    }
+
+    @Test
+    public void testBatchDoesNotAffectOtherThreads() throws InterruptedException {
+        final IndexingContext.Batch batch = indexingContext.startBatch();
+        final AtomicBoolean isOtherThreadInBatch = new AtomicBoolean( true );
+        final Thread other = new Thread( new Runnable() {
+            @Override
+            public void run() {
+                isOtherThreadInBatch.set( indexingContext.isBatch() );
+                indexingContext.resolvePackage( file1 );
+                indexingContext.resolvePackage( file2 );
+            }
+        } );
+        other.start();
+        other.join();
+        indexingContext.endBatch( batch );
+
+        assertFalse( isOtherThreadInBatch.get() );
+        verify( projectService,
+                times( 2 ) ).resolvePackage( any( org.uberfire.backend.vfs.Path.class ) );
+    }
+
+    @Test
+    public void testJoinBatch() throws InterruptedException {
+        final IndexingContext.Batch batch = indexingContext.startBatch();
+        indexingContext.resolvePackage( file1 );
+        final Thread worker = new Thread( new Runnable() {
+            @Override
+            public void run() {
+                final IndexingContext.Batch previousBatch = indexingContext.joinBatch( batch );
+                try {
+                    indexingContext.resolvePackage( file2 );
+                } finally {
+                    indexingContext.leaveBatch( previousBatch );
+                }
+            }
+        } );
+        worker.start();
+        worker.join();
+        indexingContext.endBatch( batch );
+
+        verify( projectService,
+                times( 1 ) ).resolvePackage( any( org.uberfire.backend.vfs.Path.class ) );
+    }
+
+    @Test
+    public void testNestedBatches() {
+        final IndexingContext.Batch outer = indexingContext.startBatch();
+        final IndexingContext.Batch inner = indexingContext.startBatch();
+        indexingContext.endBatch( inner );
+
+        assertTrue( indexingContext.isBatch() );
+
+        indexingContext.endBatch( outer );
+
+        assertFalse( indexingContext.isBatch() );
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.testscenario.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.guvnor.common.services.shared.test.Failure;
+import org.jboss.errai.common.client.api.annotations.Portable;
+
+/**
+ * Published as each Test Scenario in a run finishes. A TestResultMessage is published when the run completes.
+ */
+@Portable
+public class TestScenarioProgressMessage {
+
+    private String identifier;
+    private String scenarioName;
+    private List<Failure> failures = new ArrayList<Failure>();
+    private long scenarioRunTime;
+    private int runCount;
+    private int failureCount;
+    private int scenarioCount;
+    private long runTime;
+
+    public TestScenarioProgressMessage() {
+    }
+
+    public TestScenarioProgressMessage(String identifier,
+                                       String scenarioName,
+                                       List<Failure> failures,
+                                       long scenarioRunTime,
+                                       int runCount,
+                                       int failureCount,
+                                       int scenarioCount,
+                                       long runTime) {
+        this.identifier = identifier;
+        this.scenarioName = scenarioName;
+        this.failures = failures;
+        this.scenarioRunTime = scenarioRunTime;
+        this.runCount = runCount;
+        this.failureCount = failureCount;
+        this.scenarioCount = scenarioCount;
+        this.runTime = runTime;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public String getScenarioName() {
+        return scenarioName;
+    }
+
+    /**
+     * @return Failures of this Scenario
+     */
+    public List<Failure> getFailures() {
+        return failures;
+    }
+
+    public boolean wasSuccessful() {
+        return failures.isEmpty();
+    }
+
+    /**
+     * @return Time taken to run this Scenario, in milliseconds
+     */
+    public long getScenarioRunTime() {
+        return scenarioRunTime;
+    }
+
+    /**
+     * @return Number of Scenarios run so far
+     */
+    public int getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * @return Number of Scenarios that have failed so far
+     */
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * @return Number of Scenarios in the run
+     */
+    public int getScenarioCount() {
+        return scenarioCount;
+    }
+
+    /**
+     * @return Time since the run started, in milliseconds
+     */
+    public long getRunTime() {
+        return runTime;
+    }
+}
@@ -19,21 +19,21 @@ package org.drools.workbench.screens.testscenario.model;
 import org.drools.workbench.models.testscenarios.shared.Scenario;
 import org.jboss.errai.common.client.api.annotations.Portable;
 
-import java.util.Set;
+import java.util.List;
 
 @Portable
 public class TestScenarioResult {
 
     private String identifier;
     private Scenario scenario;
-    private Set<String> log;
+    private List<String> log;
 
     public TestScenarioResult() {
     }
 
     public TestScenarioResult(String identifier,
                               Scenario scenario,
-                              Set<String> log) {
+                              List<String> log) {
         this.identifier = identifier;
         this.scenario = scenario;
         this.log = log;
@@ -47,7 +47,7 @@ public class TestScenarioResult {
         return scenario;
     }
 
-    public Set<String> getLog() {
+    public List<String> getLog() {
         return log;
     }
 }
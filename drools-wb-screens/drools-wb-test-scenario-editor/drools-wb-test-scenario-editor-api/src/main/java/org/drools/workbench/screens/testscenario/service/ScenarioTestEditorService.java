@@ -16,6 +16,7 @@
 
 package org.drools.workbench.screens.testscenario.service;
 
+import java.util.Set;
 import javax.enterprise.event.Event;
 
 import org.drools.workbench.models.testscenarios.shared.Scenario;
@@ -53,4 +54,20 @@ public interface ScenarioTestEditorService
     TestScenarioResult runScenario(Path path,
                                    Scenario scenario);
 
+    /**
+     * Run the Test Scenarios in the folder that reference any of the given rules or types. Results are
+     * published as a TestResultMessage.
+     * @param path Folder, or a file in the folder, containing the Test Scenarios
+     * @param ruleNames Names of the changed rules
+     * @param typeNames Fully qualified names of the changed types
+     */
+    void runAffectedScenarios(Path path,
+                              Set<String> ruleNames,
+                              Set<String> typeNames);
+
+    /**
+     * Stop the current user's running Test Scenarios. Scenarios that have not yet started are not run.
+     */
+    void cancelScenarios();
+
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.testscenario.backend.server;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Any;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+
+import org.drools.workbench.screens.testscenario.type.TestScenarioResourceTypeDefinition;
+import org.kie.workbench.common.services.refactoring.model.index.terms.TypeIndexTerm;
+import org.kie.workbench.common.services.refactoring.model.index.terms.valueterms.ValueIndexTerm;
+import org.kie.workbench.common.services.refactoring.model.index.terms.valueterms.ValueRuleIndexTerm;
+import org.kie.workbench.common.services.refactoring.model.index.terms.valueterms.ValueTypeIndexTerm;
+import org.kie.workbench.common.services.refactoring.service.RefactoringPageRow;
+import org.kie.workbench.common.services.refactoring.service.RefactoringQueryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.backend.server.util.Paths;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.ext.metadata.engine.Indexer;
+import org.uberfire.ext.metadata.model.KObject;
+import org.uberfire.ext.metadata.model.KProperty;
+
+/**
+ * Finds the Test Scenarios affected by a change to rules or types. TestScenarioFileIndexer indexes the types used
+ * by each Scenario's facts and the rules each Scenario expects to fire; Scenarios referencing any of the changed
+ * rules or types are affected. A changed rule also affects the Scenarios using the types its asset references, since
+ * a Scenario can depend on a rule's behaviour without expecting it to fire. Types are taken from the whole asset
+ * defining the rule, so this over-approximates for assets containing more than one rule.
+ */
+@ApplicationScoped
+public class AffectedScenarioFinder {
+
+    static final String FIND_RULES_QUERY = "FindRulesQuery";
+    static final String FIND_TYPES_QUERY = "FindTypesQuery";
+
+    private static final Logger logger = LoggerFactory.getLogger(AffectedScenarioFinder.class);
+
+    private RefactoringQueryService queryService;
+
+    private Instance<Indexer> indexers;
+
+    private TestScenarioResourceTypeDefinition resourceType = new TestScenarioResourceTypeDefinition();
+
+    public AffectedScenarioFinder() {
+        //CDI proxy
+    }
+
+    @Inject
+    public AffectedScenarioFinder(final RefactoringQueryService queryService,
+                                  final @Any Instance<Indexer> indexers) {
+        this.queryService = queryService;
+        this.indexers = indexers;
+    }
+
+    /**
+     * Find the Test Scenarios referencing any of the given rules or types
+     * @param ruleNames Names of the changed rules
+     * @param typeNames Fully qualified names of the changed types
+     * @return URIs of the affected Test Scenarios
+     */
+    public Set<String> findAffectedScenarios(final Set<String> ruleNames,
+                                             final Set<String> typeNames) {
+        final Set<String> uris = new HashSet<String>();
+        final Set<String> affectedTypeNames = new HashSet<String>();
+        if (typeNames != null) {
+            affectedTypeNames.addAll(typeNames);
+        }
+        if (ruleNames != null) {
+            for (final String ruleName : ruleNames) {
+                final List<RefactoringPageRow> rows = queryService.query(FIND_RULES_QUERY,
+                                                                         new HashSet<ValueIndexTerm>() {{
+                                                                             add(new ValueRuleIndexTerm(ruleName));
+                                                                         }},
+                                                                         false);
+                addScenarios(rows,
+                             uris);
+                addRuleTypes(rows,
+                             affectedTypeNames);
+            }
+        }
+        for (final String typeName : affectedTypeNames) {
+            addScenarios(queryService.query(FIND_TYPES_QUERY,
+                                            new HashSet<ValueIndexTerm>() {{
+                                                add(new ValueTypeIndexTerm(typeName));
+                                            }},
+                                            false),
+                         uris);
+        }
+        return uris;
+    }
+
+    private void addScenarios(final List<RefactoringPageRow> rows,
+                              final Set<String> uris) {
+        for (RefactoringPageRow row : rows) {
+            if (row.getValue() instanceof Path) {
+                final Path path = (Path) row.getValue();
+                if (resourceType.accept(path)) {
+                    uris.add(path.toURI());
+                }
+            }
+        }
+    }
+
+    //Rows other than Test Scenarios are the assets defining the rule; collect the types they reference
+    private void addRuleTypes(final List<RefactoringPageRow> rows,
+                              final Set<String> typeNames) {
+        for (RefactoringPageRow row : rows) {
+            if (row.getValue() instanceof Path) {
+                final Path path = (Path) row.getValue();
+                if (!resourceType.accept(path)) {
+                    addTypes(Paths.convert(path),
+                             typeNames);
+                }
+            }
+        }
+    }
+
+    private void addTypes(final org.uberfire.java.nio.file.Path path,
+                          final Set<String> typeNames) {
+        if (indexers == null) {
+            return;
+        }
+        for (Indexer indexer : indexers) {
+            if (!indexer.supportsPath(path)) {
+                continue;
+            }
+            try {
+                final KObject kObject = indexer.toKObject(path);
+                if (kObject == null) {
+                    continue;
+                }
+                for (KProperty<?> property : kObject.getProperties()) {
+                    if (TypeIndexTerm.TERM.equals(property.getName()) && property.getValue() != null) {
+                        typeNames.add(property.getValue().toString());
+                    }
+                }
+            } catch (Exception e) {
+                logger.warn("Unable to determine the types used by '" + path.toUri() + "'.",
+                            e);
+            }
+        }
+    }
+
+}
@@ -16,9 +16,10 @@
 
 package org.drools.workbench.screens.testscenario.backend.server;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import org.kie.api.definition.rule.Rule;
 import org.kie.api.event.process.ProcessCompletedEvent;
@@ -42,78 +43,158 @@ import org.kie.api.event.rule.RuleFlowGroupDeactivatedEvent;
 import org.kie.api.event.rule.RuleRuntimeEventListener;
 import org.kie.api.runtime.KieSession;
 
+/**
+ * Audit trail of a Test Scenario run. Events are held, in order, in a ring buffer so only the most recent events
+ * are kept. Events are held as the rule and fact type involved and are only rendered as text when the log is read.
+ * The events captured, and whether fact contents are rendered, depend upon the Level; the default is FACTS.
+ */
 public class AuditLogger {
 
-    private final Set<String> logs = new HashSet<String>();
+    public enum Level {
+        /**
+         * Rules fired
+         */
+        RULES,
+        /**
+         * Rules fired and facts inserted, updated or deleted. Fact contents are not rendered. This is the default.
+         */
+        FACTS,
+        /**
+         * All rule, fact, agenda and process events. Fact contents are rendered. A fact can change after an event
+         * so facts, and agenda and process events, are rendered with toString() when each event occurs. This costs
+         * CPU time and memory for every event, which can dominate the run time of large scenarios.
+         */
+        VERBOSE
+    }
+
+    static final String LEVEL_PROPERTY = "org.drools.workbench.testscenario.audit.level";
+    static final String CAPACITY_PROPERTY = "org.drools.workbench.testscenario.audit.capacity";
+    static final int DEFAULT_CAPACITY = 1000;
+
+    private final Level level;
+    private final AuditEvent[] events;
+    private int next = 0;
+    private int size = 0;
+    private long dropped = 0;
+
     private final Map<String, KieSession> ksessions;
 
     public AuditLogger(Map<String, KieSession> ksessions) {
+        this(ksessions,
+             getLevel(),
+             getCapacity());
+    }
+
+    public AuditLogger(Map<String, KieSession> ksessions,
+                       Level level,
+                       int capacity) {
 
         this.ksessions = ksessions;
+        this.level = level;
+        this.events = new AuditEvent[Math.max(1, capacity)];
 
         for (KieSession ksession : ksessions.values()) {
             if (ksession != null) {
-                addRuleRuntimeEventListener(ksession);
                 addAgendaEventListener(ksession);
-                addProcessEventListener(ksession);
+                if (level != Level.RULES) {
+                    addRuleRuntimeEventListener(ksession);
+                }
+                if (level == Level.VERBOSE) {
+                    addProcessEventListener(ksession);
+                }
             }
         }
     }
 
-    public Set<String> getLog() {
+    /**
+     * The rendered log, in the order the events occurred. If events were discarded the first entry says how many.
+     */
+    public List<String> getLog() {
+        final List<AuditEvent> events = getEvents();
+        final long dropped = getDroppedEventCount();
+        final List<String> logs = new ArrayList<String>(events.size() + 1);
+        if (dropped > 0) {
+            logs.add(dropped + " earlier events were discarded. Only the last " + events.size() + " events are shown.");
+        }
+        for (AuditEvent event : events) {
+            logs.add(event.getText());
+        }
         return logs;
     }
 
+    /**
+     * The events captured, in the order they occurred.
+     */
+    public synchronized List<AuditEvent> getEvents() {
+        List<AuditEvent> result = new ArrayList<AuditEvent>(size);
+        int first = (next - size + events.length) % events.length;
+        for (int i = 0; i < size; i++) {
+            result.add(events[(first + i) % events.length]);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Number of events discarded because the buffer was full.
+     */
+    public synchronized long getDroppedEventCount() {
+        return dropped;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
     private void addProcessEventListener(KieSession ksession) {
         ksession.addEventListener(new ProcessEventListener() {
             @Override
             public void beforeProcessStarted(ProcessStartedEvent processStartedEvent) {
-                log(processStartedEvent);
+                logVerbose(processStartedEvent);
             }
 
             @Override
             public void afterProcessStarted(ProcessStartedEvent processStartedEvent) {
-                log(processStartedEvent);
+                logVerbose(processStartedEvent);
             }
 
             @Override
             public void beforeProcessCompleted(ProcessCompletedEvent processCompletedEvent) {
-                log(processCompletedEvent);
+                logVerbose(processCompletedEvent);
             }
 
             @Override
             public void afterProcessCompleted(ProcessCompletedEvent processCompletedEvent) {
-                log(processCompletedEvent);
+                logVerbose(processCompletedEvent);
             }
 
             @Override
             public void beforeNodeTriggered(ProcessNodeTriggeredEvent processNodeTriggeredEvent) {
-                log(processNodeTriggeredEvent);
+                logVerbose(processNodeTriggeredEvent);
             }
 
             @Override
             public void afterNodeTriggered(ProcessNodeTriggeredEvent processNodeTriggeredEvent) {
-                log(processNodeTriggeredEvent);
+                logVerbose(processNodeTriggeredEvent);
             }
 
             @Override
             public void beforeNodeLeft(ProcessNodeLeftEvent processNodeLeftEvent) {
-                log(processNodeLeftEvent);
+                logVerbose(processNodeLeftEvent);
             }
 
             @Override
             public void afterNodeLeft(ProcessNodeLeftEvent processNodeLeftEvent) {
-                log(processNodeLeftEvent);
+                logVerbose(processNodeLeftEvent);
             }
 
             @Override
             public void beforeVariableChanged(ProcessVariableChangedEvent processVariableChangedEvent) {
-                log(processVariableChangedEvent);
+                logVerbose(processVariableChangedEvent);
             }
 
             @Override
             public void afterVariableChanged(ProcessVariableChangedEvent processVariableChangedEvent) {
-                log(processVariableChangedEvent);
+                logVerbose(processVariableChangedEvent);
             }
         });
     }
@@ -122,12 +203,12 @@ public class AuditLogger {
         ksession.addEventListener(new AgendaEventListener() {
             @Override
             public void matchCreated(MatchCreatedEvent matchCreatedEvent) {
-                log(matchCreatedEvent);
+                logVerbose(matchCreatedEvent);
             }
 
             @Override
             public void matchCancelled(MatchCancelledEvent matchCancelledEvent) {
-                log(matchCancelledEvent);
+                logVerbose(matchCancelledEvent);
             }
 
             @Override
@@ -137,37 +218,40 @@ public class AuditLogger {
 
             @Override
             public void afterMatchFired(AfterMatchFiredEvent afterMatchFiredEvent) {
-                logs.add("Rule " + afterMatchFiredEvent.getMatch().getRule() + " fired.");
+                add(new AuditEvent(AuditEvent.Type.RULE_FIRED,
+                                   afterMatchFiredEvent.getMatch().getRule(),
+                                   null,
+                                   null));
             }
 
             @Override
             public void agendaGroupPopped(AgendaGroupPoppedEvent agendaGroupPoppedEvent) {
-                log(agendaGroupPoppedEvent);
+                logVerbose(agendaGroupPoppedEvent);
             }
 
             @Override
             public void agendaGroupPushed(AgendaGroupPushedEvent agendaGroupPushedEvent) {
-                log(agendaGroupPushedEvent);
+                logVerbose(agendaGroupPushedEvent);
             }
 
             @Override
             public void beforeRuleFlowGroupActivated(RuleFlowGroupActivatedEvent ruleFlowGroupActivatedEvent) {
-                log(ruleFlowGroupActivatedEvent);
+                logVerbose(ruleFlowGroupActivatedEvent);
             }
 
             @Override
             public void afterRuleFlowGroupActivated(RuleFlowGroupActivatedEvent ruleFlowGroupActivatedEvent) {
-                log(ruleFlowGroupActivatedEvent);
+                logVerbose(ruleFlowGroupActivatedEvent);
             }
 
             @Override
             public void beforeRuleFlowGroupDeactivated(RuleFlowGroupDeactivatedEvent ruleFlowGroupDeactivatedEvent) {
-                log(ruleFlowGroupDeactivatedEvent);
+                logVerbose(ruleFlowGroupDeactivatedEvent);
             }
 
             @Override
             public void afterRuleFlowGroupDeactivated(RuleFlowGroupDeactivatedEvent ruleFlowGroupDeactivatedEvent) {
-                log(ruleFlowGroupDeactivatedEvent);
+                logVerbose(ruleFlowGroupDeactivatedEvent);
             }
         });
     }
@@ -178,11 +262,10 @@ public class AuditLogger {
             public void objectInserted(ObjectInsertedEvent objectInsertedEvent) {
                 Object object = objectInsertedEvent.getObject();
                 Rule rule = objectInsertedEvent.getRule();
-                if (rule == null) {
-                    logs.add("Fact " + object.getClass().getName() + " inserted.");
-                } else {
-                    logs.add("Fact " + object.getClass().getName() + " inserted in rule " + rule.getName() + ". Fact[ " + object.toString() + " ].");
-                }
+                add(new AuditEvent(AuditEvent.Type.FACT_INSERTED,
+                                   rule,
+                                   object.getClass(),
+                                   (isVerbose() && rule != null ? " Fact[ " + object.toString() + " ]." : null)));
             }
 
             @Override
@@ -190,32 +273,141 @@ public class AuditLogger {
                 Object object = objectUpdatedEvent.getObject();
                 Rule rule = objectUpdatedEvent.getRule();
                 Object oldObject = objectUpdatedEvent.getOldObject();
-
-                if (rule == null) {
-
-                    logs.add("Object " + object.getClass().getName() + " updated. Old fact[ " + oldObject.toString()
-                             + " ]. New fact[ " + object.toString() + " ].");
-                } else {
-                    logs.add("Object " + object.getClass().getName() + " updated in rule " + rule.getName()
-                             + ". Old fact[ " + oldObject.toString()
-                             + " ]. New fact[ " + object.toString() + " ].");
-                }
+                add(new AuditEvent(AuditEvent.Type.FACT_UPDATED,
+                                   rule,
+                                   object.getClass(),
+                                   (isVerbose() ? " Old fact[ " + oldObject.toString() + " ]. New fact[ " + object.toString() + " ]." : null)));
             }
 
             @Override
             public void objectDeleted(ObjectDeletedEvent objectDeletedEvent) {
                 Object oldObject = objectDeletedEvent.getOldObject();
                 Rule rule = objectDeletedEvent.getRule();
-                if (rule == null) {
-                    logs.add("Object " + oldObject.getClass().getName() + " deleted. Fact[ " + oldObject.toString() + " ].");
-                } else {
-                    logs.add("Object " + oldObject.getClass().getName() + " deleted in rule " + rule.getName() + ". Fact[ " + oldObject.toString() + " ].");
-                }
+                add(new AuditEvent(AuditEvent.Type.FACT_DELETED,
+                                   rule,
+                                   oldObject.getClass(),
+                                   (isVerbose() ? " Fact[ " + oldObject.toString() + " ]." : null)));
             }
         });
     }
 
-    private void log(Object o) {
-        logs.add(o.toString());
+    private void logVerbose(Object o) {
+        if (isVerbose()) {
+            add(new AuditEvent(AuditEvent.Type.OTHER,
+                               null,
+                               null,
+                               o.toString()));
+        }
+    }
+
+    private boolean isVerbose() {
+        return level == Level.VERBOSE;
+    }
+
+    private synchronized void add(AuditEvent event) {
+        if (size == events.length) {
+            dropped++;
+        } else {
+            size++;
+        }
+        events[next] = event;
+        next = (next + 1) % events.length;
+    }
+
+    private static Level getLevel() {
+        String level = System.getProperty(LEVEL_PROPERTY);
+        if (level != null) {
+            try {
+                return Level.valueOf(level.trim().toUpperCase());
+            } catch (IllegalArgumentException iae) {
+                //Use the default
+            }
+        }
+        return Level.FACTS;
+    }
+
+    private static int getCapacity() {
+        String capacity = System.getProperty(CAPACITY_PROPERTY);
+        if (capacity != null) {
+            try {
+                return Integer.parseInt(capacity.trim());
+            } catch (NumberFormatException nfe) {
+                //Use the default
+            }
+        }
+        return DEFAULT_CAPACITY;
+    }
+
+    /**
+     * A single audit event. Only the contents of facts (and events at the VERBOSE Level) are rendered when the event
+     * occurs; the rest of the text is rendered when it is read.
+     */
+    public static class AuditEvent {
+
+        public enum Type {
+            RULE_FIRED,
+            FACT_INSERTED,
+            FACT_UPDATED,
+            FACT_DELETED,
+            OTHER
+        }
+
+        private final Type type;
+        private final Rule rule;
+        private final Class<?> factType;
+        private final String detail;
+
+        AuditEvent(Type type,
+                   Rule rule,
+                   Class<?> factType,
+                   String detail) {
+            this.type = type;
+            this.rule = rule;
+            this.factType = factType;
+            this.detail = detail;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public Rule getRule() {
+            return rule;
+        }
+
+        /**
+         * The fact type inserted, updated or deleted; otherwise null
+         */
+        public Class<?> getFactType() {
+            return factType;
+        }
+
+        public String getText() {
+            switch (type) {
+                case RULE_FIRED:
+                    return "Rule " + rule + " fired.";
+                case FACT_INSERTED:
+                    return "Fact " + factType.getName() + " inserted" + getRuleText() + getDetail();
+                case FACT_UPDATED:
+                    return "Object " + factType.getName() + " updated" + getRuleText() + getDetail();
+                case FACT_DELETED:
+                    return "Object " + factType.getName() + " deleted" + getRuleText() + getDetail();
+                default:
+                    return getDetail();
+            }
+        }
+
+        private String getRuleText() {
+            return (rule == null ? "." : " in rule " + rule.getName() + ".");
+        }
+
+        private String getDetail() {
+            return (detail == null ? "" : detail);
+        }
+
+        @Override
+        public String toString() {
+            return getText();
+        }
     }
 }
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.testscenario.backend.server;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.drools.core.base.MapGlobalResolver;
+import org.drools.core.impl.StatefulKnowledgeSessionImpl;
+import org.drools.core.spi.GlobalResolver;
+import org.drools.core.time.impl.PseudoClockScheduler;
+import org.guvnor.common.services.project.builder.events.InvalidateDMOProjectCacheEvent;
+import org.guvnor.common.services.project.model.Project;
+import org.kie.api.event.process.ProcessEventListener;
+import org.kie.api.event.rule.AgendaEventListener;
+import org.kie.api.event.rule.RuleRuntimeEventListener;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.time.SessionClock;
+import org.kie.workbench.common.services.backend.session.SessionService;
+import org.kie.workbench.common.services.shared.project.KieProject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.workbench.events.ResourceAddedEvent;
+import org.uberfire.workbench.events.ResourceBatchChangesEvent;
+import org.uberfire.workbench.events.ResourceDeletedEvent;
+import org.uberfire.workbench.events.ResourceRenamedEvent;
+import org.uberfire.workbench.events.ResourceUpdatedEvent;
+
+/**
+ * Pool of KieSessions for running Test Scenarios. KieSessions are loaded with SessionService, reset when released and
+ * kept for re-use until any resource within the Project changes or the Project's build is invalidated, when a new
+ * generation of KieSessions is started from the new build.
+ */
+@ApplicationScoped
+public class KieSessionPool {
+
+    //Number of idle KieSessions kept for each Project and KieSession name
+    static final int MAX_IDLE_SESSIONS = 4;
+
+    private static final Logger logger = LoggerFactory.getLogger(KieSessionPool.class);
+
+    private static final String DEFAULT_KIE_SESSION = "defaultKieSession";
+
+    private SessionService sessionService;
+
+    private final Map<String, Pool> pools = new HashMap<String, Pool>();
+
+    private final Map<KieSession, Lease> leases = new IdentityHashMap<KieSession, Lease>();
+
+    public KieSessionPool() {
+        //CDI proxy
+    }
+
+    @Inject
+    public KieSessionPool(final SessionService sessionService) {
+        this.sessionService = sessionService;
+    }
+
+    /**
+     * Borrow a KieSession. KieSessions must be returned with release().
+     * @param project
+     * @param ksessionName Name of the KieSession, or null for the default KieSession
+     * @return The KieSession, or null if it cannot be loaded
+     */
+    public KieSession borrow(final KieProject project,
+                             final String ksessionName) {
+        final Pool pool;
+        synchronized (this) {
+            pool = getPool(project, ksessionName);
+            if (!pool.idle.isEmpty()) {
+                final Lease lease = pool.idle.removeFirst();
+                leases.put(lease.ksession, lease);
+                return lease.ksession;
+            }
+        }
+
+        //New KieSessions are always created by SessionService so they have the kmodule's listeners, work item
+        //handlers, channels and Environment
+        final KieSession ksession = loadKSession(project, ksessionName);
+        if (ksession == null) {
+            return null;
+        }
+        synchronized (this) {
+            leases.put(ksession, new Lease(pool, ksession));
+        }
+        return ksession;
+    }
+
+    /**
+     * Return a KieSession to the pool. The KieSession is reset, or disposed if it cannot be reset or if the
+     * Project's build has been invalidated since the KieSession was borrowed.
+     * @param ksession
+     */
+    public void release(final KieSession ksession) {
+        if (ksession == null) {
+            return;
+        }
+        final Lease lease;
+        synchronized (this) {
+            lease = leases.remove(ksession);
+        }
+        if (lease == null || !reset(lease)) {
+            ksession.dispose();
+            return;
+        }
+        synchronized (this) {
+            final Pool pool = lease.pool;
+            if (pools.get(pool.key) == pool && pool.idle.size() < MAX_IDLE_SESSIONS) {
+                pool.idle.add(lease);
+                return;
+            }
+        }
+        ksession.dispose();
+    }
+
+    public void onInvalidateProject(@Observes final InvalidateDMOProjectCacheEvent event) {
+        final Project project = event.getProject();
+        if (project == null) {
+            return;
+        }
+        invalidate(project.getRootPath());
+    }
+
+    public void onResourceAdded(@Observes final ResourceAddedEvent event) {
+        invalidate(event.getPath());
+    }
+
+    public void onResourceUpdated(@Observes final ResourceUpdatedEvent event) {
+        invalidate(event.getPath());
+    }
+
+    public void onResourceDeleted(@Observes final ResourceDeletedEvent event) {
+        invalidate(event.getPath());
+    }
+
+    public void onResourceRenamed(@Observes final ResourceRenamedEvent event) {
+        invalidate(event.getPath());
+        invalidate(event.getDestinationPath());
+    }
+
+    public void onBatchResourceChanges(@Observes final ResourceBatchChangesEvent event) {
+        for (Path path : event.getBatch().keySet()) {
+            invalidate(path);
+        }
+    }
+
+    //Saving a rule, model or the kmodule does not invalidate the Project's build, so any change to a resource within
+    //the Project disposes its idle KieSessions. KieSessions borrowed at the time are disposed when they are released.
+    void invalidate(final Path path) {
+        if (path == null) {
+            return;
+        }
+        final String uri = path.toURI();
+        final List<Lease> idle = new ArrayList<Lease>();
+        synchronized (this) {
+            final Iterator<Pool> itr = pools.values().iterator();
+            while (itr.hasNext()) {
+                final Pool pool = itr.next();
+                if (isWithinProject(uri, pool.projectKey)) {
+                    idle.addAll(pool.idle);
+                    itr.remove();
+                }
+            }
+        }
+        for (Lease lease : idle) {
+            lease.ksession.dispose();
+        }
+    }
+
+    private boolean isWithinProject(final String uri,
+                                    final String projectKey) {
+        if (projectKey.isEmpty()) {
+            return false;
+        }
+        return uri.equals(projectKey) || uri.startsWith(projectKey.endsWith("/") ? projectKey : projectKey + "/");
+    }
+
+    private Pool getPool(final KieProject project,
+                         final String ksessionName) {
+        final String projectKey = getProjectKey(project == null ? null : project.getRootPath());
+        final String key = projectKey + "|" + (ksessionName == null ? DEFAULT_KIE_SESSION : ksessionName);
+        Pool pool = pools.get(key);
+        if (pool == null) {
+            pool = new Pool(key, projectKey);
+            pools.put(key, pool);
+        }
+        return pool;
+    }
+
+    private String getProjectKey(final Path rootPath) {
+        return (rootPath == null ? "" : rootPath.toURI());
+    }
+
+    private KieSession loadKSession(final KieProject project,
+                                    final String ksessionName) {
+        try {
+            if (ksessionName == null || ksessionName.equals(DEFAULT_KIE_SESSION)) {
+                return sessionService.newDefaultKieSessionWithPseudoClock(project);
+            } else {
+                return sessionService.newKieSession(project, ksessionName);
+            }
+        } catch (Exception e) {
+            // If for one reason or another we can not load the ksession. Return null
+            return null;
+        }
+    }
+
+    //Remove listeners added whilst the KieSession was borrowed and return it to the state of a new KieSession:
+    //no facts, activations, timers or globals and the pseudo-clock at zero
+    private boolean reset(final Lease lease) {
+        if (!(lease.ksession instanceof StatefulKnowledgeSessionImpl)) {
+            return false;
+        }
+        try {
+            final KieSession ksession = lease.ksession;
+            for (AgendaEventListener listener : new ArrayList<AgendaEventListener>(ksession.getAgendaEventListeners())) {
+                if (!lease.agendaEventListeners.contains(listener)) {
+                    ksession.removeEventListener(listener);
+                }
+            }
+            for (RuleRuntimeEventListener listener : new ArrayList<RuleRuntimeEventListener>(ksession.getRuleRuntimeEventListeners())) {
+                if (!lease.ruleRuntimeEventListeners.contains(listener)) {
+                    ksession.removeEventListener(listener);
+                }
+            }
+            for (ProcessEventListener listener : new ArrayList<ProcessEventListener>(ksession.getProcessEventListeners())) {
+                if (!lease.processEventListeners.contains(listener)) {
+                    ksession.removeEventListener(listener);
+                }
+            }
+            final StatefulKnowledgeSessionImpl ksessionImpl = (StatefulKnowledgeSessionImpl) ksession;
+            final GlobalResolver globals = ksessionImpl.getGlobalResolver();
+            if (!(globals instanceof MapGlobalResolver)) {
+                return false;
+            }
+            ksessionImpl.reset();
+            ((MapGlobalResolver) globals).clear();
+            final SessionClock clock = ksession.getSessionClock();
+            if (clock instanceof PseudoClockScheduler) {
+                ((PseudoClockScheduler) clock).setStartupTime(0);
+            }
+            return true;
+
+        } catch (RuntimeException e) {
+            logger.warn("Unable to reset KieSession. It will be disposed.", e);
+            return false;
+        }
+    }
+
+    //KieSessions for a Project and KieSession name, from a single build of the Project
+    private static class Pool {
+
+        private final String key;
+        private final String projectKey;
+        private final LinkedList<Lease> idle = new LinkedList<Lease>();
+
+        private Pool(final String key,
+                     final String projectKey) {
+            this.key = key;
+            this.projectKey = projectKey;
+        }
+
+    }
+
+    //A KieSession and the listeners it had when it was created
+    private static class Lease {
+
+        private final Pool pool;
+        private final KieSession ksession;
+        private final List<AgendaEventListener> agendaEventListeners;
+        private final List<RuleRuntimeEventListener> ruleRuntimeEventListeners;
+        private final List<ProcessEventListener> processEventListeners;
+
+        private Lease(final Pool pool,
+                      final KieSession ksession) {
+            this.pool = pool;
+            this.ksession = ksession;
+            this.agendaEventListeners = new ArrayList<AgendaEventListener>(ksession.getAgendaEventListeners());
+            this.ruleRuntimeEventListeners = new ArrayList<RuleRuntimeEventListener>(ksession.getRuleRuntimeEventListeners());
+            this.processEventListeners = new ArrayList<ProcessEventListener>(ksession.getProcessEventListeners());
+        }
+
+    }
+
+}
@@ -18,6 +18,7 @@ package org.drools.workbench.screens.testscenario.backend.server;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import javax.inject.Inject;
 import javax.inject.Named;
 
@@ -51,6 +52,23 @@ public class ScenarioLoader {
         return scenarios;
     }
 
+    /**
+     * Load the Scenarios in the folder that are also in the given set
+     * @param testResourcePath Folder, or a file in the folder, containing the Scenarios
+     * @param uris URIs of the Scenarios to load
+     * @return
+     */
+    public List<Scenario> loadScenarios(Path testResourcePath, Set<String> uris) {
+        List<Scenario> scenarios = new ArrayList<Scenario>();
+
+        for (Path path : loadScenarioPaths(testResourcePath)) {
+            if (uris.contains(path.toURI())) {
+                scenarios.add(scenarioTestEditorService.load(path));
+            }
+        }
+        return scenarios;
+    }
+
     private List<Path> loadScenarioPaths(final Path path) {
         // Check Path exists
         final List<Path> items = new ArrayList<Path>();
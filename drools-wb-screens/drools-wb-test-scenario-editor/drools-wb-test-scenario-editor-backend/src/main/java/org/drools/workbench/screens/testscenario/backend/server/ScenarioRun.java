@@ -0,0 +1,147 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.testscenario.backend.server;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.enterprise.event.Event;
+
+import org.drools.workbench.screens.testscenario.model.TestScenarioProgressMessage;
+import org.junit.runner.Description;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+import org.junit.runner.notification.RunNotifier;
+
+import static org.drools.workbench.screens.testscenario.backend.server.ScenarioUtil.*;
+
+/**
+ * A run of one or more Test Scenarios. A TestScenarioProgressMessage is published as each Scenario finishes. The
+ * run can be cancelled, in which case the Scenarios that have not yet started are not run.
+ */
+public class ScenarioRun extends RunListener {
+
+    private final String identifier;
+    private final int scenarioCount;
+    private final Event<TestScenarioProgressMessage> progressEvent;
+    private final long startTime = System.currentTimeMillis();
+
+    private final List<RunNotifier> notifiers = new ArrayList<RunNotifier>();
+    private final Map<Description, Long> startTimes = new HashMap<Description, Long>();
+    private final Map<Description, List<org.guvnor.common.services.shared.test.Failure>> failures = new HashMap<Description, List<org.guvnor.common.services.shared.test.Failure>>();
+
+    private int runCount = 0;
+    private int failureCount = 0;
+    private boolean cancelled = false;
+
+    public ScenarioRun(final String identifier,
+                       final int scenarioCount,
+                       final Event<TestScenarioProgressMessage> progressEvent) {
+        this.identifier = identifier;
+        this.scenarioCount = scenarioCount;
+        this.progressEvent = progressEvent;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    /**
+     * @return Time since the run started, in milliseconds
+     */
+    public long getRunTime() {
+        return System.currentTimeMillis() - startTime;
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Stop the run. Scenarios already running finish; those that have not started are not run.
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        for (RunNotifier notifier : notifiers) {
+            notifier.pleaseStop();
+        }
+    }
+
+    synchronized void addNotifier(final RunNotifier notifier) {
+        if (cancelled) {
+            notifier.pleaseStop();
+        }
+        notifiers.add(notifier);
+    }
+
+    synchronized void removeNotifier(final RunNotifier notifier) {
+        notifiers.remove(notifier);
+    }
+
+    @Override
+    public synchronized void testStarted(final Description description) {
+        startTimes.put(description, System.currentTimeMillis());
+    }
+
+    @Override
+    public void testFailure(final Failure failure) {
+        addFailure(failure);
+    }
+
+    @Override
+    public void testAssumptionFailure(final Failure failure) {
+        addFailure(failure);
+    }
+
+    @Override
+    public void testFinished(final Description description) {
+        final TestScenarioProgressMessage message;
+        synchronized (this) {
+            final Long scenarioStartTime = startTimes.remove(description);
+            List<org.guvnor.common.services.shared.test.Failure> scenarioFailures = failures.remove(description);
+            if (scenarioFailures == null) {
+                scenarioFailures = new ArrayList<org.guvnor.common.services.shared.test.Failure>();
+            } else {
+                failureCount++;
+            }
+            runCount++;
+
+            final long now = System.currentTimeMillis();
+            message = new TestScenarioProgressMessage(identifier,
+                                                      getScenarioName(description),
+                                                      scenarioFailures,
+                                                      (scenarioStartTime == null ? 0 : now - scenarioStartTime),
+                                                      runCount,
+                                                      failureCount,
+                                                      scenarioCount,
+                                                      now - startTime);
+        }
+        progressEvent.fire(message);
+    }
+
+    private synchronized void addFailure(final Failure failure) {
+        List<org.guvnor.common.services.shared.test.Failure> scenarioFailures = failures.get(failure.getDescription());
+        if (scenarioFailures == null) {
+            scenarioFailures = new ArrayList<org.guvnor.common.services.shared.test.Failure>();
+            failures.put(failure.getDescription(),
+                         scenarioFailures);
+        }
+        scenarioFailures.add(failureToFailure(failure));
+    }
+
+}
@@ -1,15 +1,23 @@
 package org.drools.workbench.screens.testscenario.backend.server;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Event;
 import javax.inject.Inject;
 
 import org.drools.workbench.models.testscenarios.backend.ScenarioRunner4JUnit;
 import org.drools.workbench.models.testscenarios.shared.Scenario;
+import org.drools.workbench.screens.testscenario.model.TestScenarioProgressMessage;
 import org.drools.workbench.screens.testscenario.model.TestScenarioResult;
 import org.drools.workbench.screens.testscenario.service.ScenarioTestEditorService;
 import org.guvnor.common.services.backend.exceptions.ExceptionUtilities;
@@ -22,13 +30,14 @@ import org.guvnor.structure.server.config.ConfigType;
 import org.guvnor.structure.server.config.ConfigurationService;
 import org.jboss.errai.bus.server.annotations.Service;
 import org.jboss.errai.security.shared.api.identity.User;
-import org.junit.runner.JUnitCore;
 import org.junit.runner.Result;
+import org.junit.runner.Runner;
 import org.junit.runner.notification.Failure;
 import org.junit.runner.notification.RunListener;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runner.notification.StoppedByUserException;
 import org.junit.runners.model.InitializationError;
 import org.kie.api.runtime.KieSession;
-import org.kie.workbench.common.services.backend.session.SessionService;
 import org.kie.workbench.common.services.shared.project.KieProject;
 import org.kie.workbench.common.services.shared.project.KieProjectService;
 import org.uberfire.backend.vfs.Path;
@@ -40,12 +49,23 @@ import static org.drools.workbench.screens.testscenario.backend.server.ScenarioU
 public class ScenarioRunnerService
         implements TestService {
 
+    /**
+     * Number of threads used to run the scenarios in runAllTests(). If greater than one each scenario is run
+     * in its own KieSession, borrowed from the KieSessionPool.
+     */
+    static final String PARALLELISM_PROPERTY = "org.drools.workbench.testscenario.parallelism";
+
     protected KieProjectService        projectService;
     private   ScenarioLoader           scenarioLoader;
-    private   SessionService           sessionService;
+    private   KieSessionPool           sessionPool;
+    private   AffectedScenarioFinder   affectedScenarioFinder;
     private   Event<TestResultMessage> defaultTestResultMessageEvent;
+    private   Event<TestScenarioProgressMessage> progressEvent;
     private   ConfigurationService     configurationService;
     protected User                     identity;
+    private   int                      parallelism = getParallelism();
+
+    private final List<ScenarioRun> runs = new ArrayList<ScenarioRun>();
 
     public ScenarioRunnerService() {
     }
@@ -53,25 +73,29 @@ public class ScenarioRunnerService
     @Inject
     public ScenarioRunnerService(final ConfigurationService configurationService,
                                  final Event<TestResultMessage> defaultTestResultMessageEvent,
-                                 final SessionService sessionService,
+                                 final Event<TestScenarioProgressMessage> progressEvent,
+                                 final KieSessionPool sessionPool,
                                  final KieProjectService projectService,
                                  final ScenarioLoader scenarioLoader,
+                                 final AffectedScenarioFinder affectedScenarioFinder,
                                  final User identity) {
         this.configurationService = configurationService;
         this.defaultTestResultMessageEvent = defaultTestResultMessageEvent;
-        this.sessionService = sessionService;
+        this.progressEvent = progressEvent;
+        this.sessionPool = sessionPool;
         this.projectService = projectService;
         this.scenarioLoader = scenarioLoader;
+        this.affectedScenarioFinder = affectedScenarioFinder;
         this.identity = identity;
     }
 
     public TestScenarioResult run(final Scenario scenario,
                                   final KieProject project) {
+        HashMap<String, KieSession> ksessions = new HashMap<String, KieSession>();
         try {
 
-            HashMap<String, KieSession> ksessions = new HashMap<String, KieSession>();
             String ksessionName = getKSessionName(scenario.getKSessions());
-            ksessions.put(ksessionName, loadKSession(project, ksessionName));
+            ksessions.put(ksessionName, sessionPool.borrow(project, ksessionName));
 
             AuditLogger auditLogger = new AuditLogger(ksessions);
 
@@ -80,12 +104,19 @@ public class ScenarioRunnerService
                     ksessions,
                     getMaxRuleFirings());
 
-            run(scenarioRunner, defaultTestResultMessageEvent);
+            final ScenarioRun scenarioRun = startRun(1);
+            try {
+                run(scenarioRunner, scenarioRun, defaultTestResultMessageEvent);
+            } finally {
+                finishRun(scenarioRun);
+            }
 
             return new TestScenarioResult(identity.getIdentifier(), scenario, auditLogger.getLog());
 
         } catch (InitializationError initializationError) {
             throw new GenericPortableException(initializationError.getMessage());
+        } finally {
+            release(ksessions);
         }
     }
 
@@ -97,44 +128,231 @@ public class ScenarioRunnerService
     @Override
     public void runAllTests(Path path, Event<TestResultMessage> customTestResultEvent) {
         try {
-            List<Scenario> scenarios = scenarioLoader.loadScenarios(path);
+            runTests(path,
+                     scenarioLoader.loadScenarios(path),
+                     customTestResultEvent);
 
-            ScenarioRunner4JUnit scenarioRunner = new ScenarioRunner4JUnit(
-                    scenarios,
-                    getKSessions(path, scenarios),
-                    getMaxRuleFirings());
+        } catch (Exception e) {
+            throw ExceptionUtilities.handleException(e);
+        }
+    }
 
-            run(scenarioRunner, customTestResultEvent);
+    public void runAffectedTests(Path path,
+                                 Set<String> ruleNames,
+                                 Set<String> typeNames) {
+        runAffectedTests(path, ruleNames, typeNames, defaultTestResultMessageEvent);
+    }
+
+    /**
+     * Run only those Scenarios in the folder that reference any of the given rules or types, as recorded in the index.
+     * @param path Folder, or a file in the folder, containing the Scenarios
+     * @param ruleNames Names of the changed rules
+     * @param typeNames Fully qualified names of the changed types
+     * @param customTestResultEvent
+     */
+    public void runAffectedTests(Path path,
+                                 Set<String> ruleNames,
+                                 Set<String> typeNames,
+                                 Event<TestResultMessage> customTestResultEvent) {
+        try {
+            Set<String> affected = affectedScenarioFinder.findAffectedScenarios(ruleNames, typeNames);
+            List<Scenario> scenarios = scenarioLoader.loadScenarios(path, affected);
+
+            if (scenarios.isEmpty()) {
+                customTestResultEvent.fire(
+                        new TestResultMessage(
+                                identity.getIdentifier(),
+                                0,
+                                0,
+                                new ArrayList<org.guvnor.common.services.shared.test.Failure>()));
+                return;
+            }
+
+            runTests(path,
+                     scenarios,
+                     customTestResultEvent);
 
         } catch (Exception e) {
             throw ExceptionUtilities.handleException(e);
         }
     }
 
+    private void runTests(Path path,
+                          List<Scenario> scenarios,
+                          Event<TestResultMessage> testResultMessageEvent) throws Exception {
+        final ScenarioRun scenarioRun = startRun(scenarios.size());
+        try {
+            if (parallelism > 1 && scenarios.size() > 1) {
+                runInParallel(scenarios,
+                              projectService.resolveProject(path),
+                              scenarioRun,
+                              testResultMessageEvent);
+                return;
+            }
+
+            Map<String, KieSession> ksessions = getKSessions(path, scenarios);
+            try {
+                ScenarioRunner4JUnit scenarioRunner = new ScenarioRunner4JUnit(
+                        scenarios,
+                        ksessions,
+                        getMaxRuleFirings());
+
+                run(scenarioRunner, scenarioRun, testResultMessageEvent);
+
+            } finally {
+                release(ksessions);
+            }
+        } finally {
+            finishRun(scenarioRun);
+        }
+    }
+
+    /**
+     * Cancel the runs started by the current user. Scenarios already running finish, the remainder are not run
+     * and a TestResultMessage is published for those that have.
+     */
+    public void cancelTests() {
+        final String identifier = identity.getIdentifier();
+        synchronized (runs) {
+            for (ScenarioRun scenarioRun : runs) {
+                if (scenarioRun.getIdentifier().equals(identifier)) {
+                    scenarioRun.cancel();
+                }
+            }
+        }
+    }
+
+    void setParallelism(final int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    private void runInParallel(final List<Scenario> scenarios,
+                               final KieProject project,
+                               final ScenarioRun scenarioRun,
+                               final Event<TestResultMessage> testResultMessageEvent) throws Exception {
+
+        final List<org.guvnor.common.services.shared.test.Failure> failures = Collections.synchronizedList(new ArrayList<org.guvnor.common.services.shared.test.Failure>());
+        final int maxRuleFirings = getMaxRuleFirings();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, scenarios.size()));
+        try {
+            final List<Future<Result>> futures = new ArrayList<Future<Result>>();
+            for (final Scenario scenario : scenarios) {
+                futures.add(executor.submit(new Callable<Result>() {
+                    @Override
+                    public Result call() throws Exception {
+                        return runScenario(scenario, project, maxRuleFirings, scenarioRun, failures);
+                    }
+                }));
+            }
+
+            int runCount = 0;
+            for (Future<Result> future : futures) {
+                Result result = future.get();
+                runCount = runCount + result.getRunCount();
+                failures.addAll(failuresToFailures(result.getFailures()));
+            }
+
+            testResultMessageEvent.fire(
+                    new TestResultMessage(
+                            identity.getIdentifier(),
+                            runCount,
+                            scenarioRun.getRunTime(),
+                            new ArrayList<org.guvnor.common.services.shared.test.Failure>(failures)));
+
+        } catch (ExecutionException ee) {
+            throw (ee.getCause() instanceof Exception ? (Exception) ee.getCause() : ee);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Result runScenario(final Scenario scenario,
+                               final KieProject project,
+                               final int maxRuleFirings,
+                               final ScenarioRun scenarioRun,
+                               final List<org.guvnor.common.services.shared.test.Failure> failures) throws InitializationError {
+        if (scenarioRun.isCancelled()) {
+            return new Result();
+        }
+        String ksessionName = getKSessionName(scenario.getKSessions());
+        KieSession ksession = sessionPool.borrow(project, ksessionName);
+        try {
+            Map<String, KieSession> ksessions = new HashMap<String, KieSession>();
+            ksessions.put(ksessionName, ksession);
+
+            ScenarioRunner4JUnit scenarioRunner = new ScenarioRunner4JUnit(
+                    scenario,
+                    ksessions,
+                    maxRuleFirings);
+
+            return run(scenarioRunner, scenarioRun, failures);
+
+        } finally {
+            sessionPool.release(ksession);
+        }
+    }
+
     private void run(final ScenarioRunner4JUnit scenarioRunner,
+                     final ScenarioRun scenarioRun,
                      Event<TestResultMessage> testResultMessageEvent) {
 
         final List<org.guvnor.common.services.shared.test.Failure> failures = new ArrayList<org.guvnor.common.services.shared.test.Failure>();
 
-        JUnitCore jUnitCore = new JUnitCore();
+        Result result = run(scenarioRunner, scenarioRun, failures);
 
-        jUnitCore.addListener(new RunListener() {
+        failures.addAll(failuresToFailures(result.getFailures()));
+
+        testResultMessageEvent.fire(
+                new TestResultMessage(
+                        identity.getIdentifier(),
+                        result.getRunCount(),
+                        scenarioRun.getRunTime(),
+                        failures));
+    }
+
+    //Equivalent to JUnitCore.run(), but with a RunNotifier that the ScenarioRun can stop
+    private Result run(final Runner runner,
+                       final ScenarioRun scenarioRun,
+                       final List<org.guvnor.common.services.shared.test.Failure> failures) {
+        final Result result = new Result();
+        final RunNotifier notifier = new RunNotifier();
+        notifier.addFirstListener(result.createListener());
+        notifier.addListener(scenarioRun);
+        notifier.addListener(new RunListener() {
             @Override
             public void testAssumptionFailure(Failure failure) {
                 failures.add(failureToFailure(failure));
             }
         });
 
-        Result result = jUnitCore.run(scenarioRunner);
+        scenarioRun.addNotifier(notifier);
+        try {
+            notifier.fireTestRunStarted(runner.getDescription());
+            runner.run(notifier);
+            notifier.fireTestRunFinished(result);
+
+        } catch (StoppedByUserException sbue) {
+            //Cancelled; the remaining Scenarios are not run
+        } finally {
+            scenarioRun.removeNotifier(notifier);
+        }
+        return result;
+    }
 
-        failures.addAll(failuresToFailures(result.getFailures()));
+    private ScenarioRun startRun(final int scenarioCount) {
+        final ScenarioRun scenarioRun = new ScenarioRun(identity.getIdentifier(),
+                                                        scenarioCount,
+                                                        progressEvent);
+        synchronized (runs) {
+            runs.add(scenarioRun);
+        }
+        return scenarioRun;
+    }
 
-        testResultMessageEvent.fire(
-                new TestResultMessage(
-                        identity.getIdentifier(),
-                        result.getRunCount(),
-                        result.getRunTime(),
-                        failures));
+    private void finishRun(final ScenarioRun scenarioRun) {
+        synchronized (runs) {
+            runs.remove(scenarioRun);
+        }
     }
 
     private int getMaxRuleFirings() {
@@ -152,29 +370,33 @@ public class ScenarioRunnerService
     }
 
     private Map<String, KieSession> getKSessions(Path path, List<Scenario> scenarios) {
+        KieProject project = projectService.resolveProject(path);
         Map<String, KieSession> ksessions = new HashMap<String, KieSession>();
         for (Scenario scenario : scenarios) {
             String ksessionName = getKSessionName(scenario.getKSessions());
-            ksessions.put(ksessionName, loadKSession(projectService.resolveProject(path), ksessionName));
+            if (!ksessions.containsKey(ksessionName)) {
+                ksessions.put(ksessionName, sessionPool.borrow(project, ksessionName));
+            }
         }
         return ksessions;
     }
 
-    private KieSession loadKSession(KieProject project, String ksessionName) {
-        KieSession ksession = null;
-        try {
-            if (ksessionName == null || ksessionName.equals("defaultKieSession")) {
-                ksession = sessionService.newDefaultKieSessionWithPseudoClock(project);
-            } else {
-                ksession = sessionService.newKieSession(project, ksessionName);
-            }
-        } catch (Exception e) {
-            // If for one reason or another we can not load the ksession. Return null
-            return null;
+    private void release(Map<String, KieSession> ksessions) {
+        for (KieSession ksession : ksessions.values()) {
+            sessionPool.release(ksession);
         }
+    }
 
-        return ksession;
-
+    private static int getParallelism() {
+        String parallelism = System.getProperty(PARALLELISM_PROPERTY);
+        if (parallelism == null || parallelism.trim().isEmpty()) {
+            return 1;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(parallelism.trim()));
+        } catch (NumberFormatException nfe) {
+            return 1;
+        }
     }
 
 }
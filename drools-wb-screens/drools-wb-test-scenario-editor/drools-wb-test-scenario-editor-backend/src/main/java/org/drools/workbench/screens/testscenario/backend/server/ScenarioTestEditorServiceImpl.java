@@ -224,4 +224,28 @@ public class ScenarioTestEditorServiceImpl
         }
     }
 
+    @Override
+    public void runAffectedScenarios(final Path path,
+                                     final Set<String> ruleNames,
+                                     final Set<String> typeNames) {
+        try {
+            scenarioRunner.runAffectedTests(path,
+                                            ruleNames,
+                                            typeNames);
+
+        } catch (Exception e) {
+            throw ExceptionUtilities.handleException(e);
+        }
+    }
+
+    @Override
+    public void cancelScenarios() {
+        try {
+            scenarioRunner.cancelTests();
+
+        } catch (Exception e) {
+            throw ExceptionUtilities.handleException(e);
+        }
+    }
+
 }
@@ -19,6 +19,7 @@ package org.drools.workbench.screens.testscenario.backend.server;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.junit.runner.Description;
 import org.junit.runner.notification.Failure;
 
 public class ScenarioUtil {
@@ -43,7 +44,13 @@ public class ScenarioUtil {
         return failure.getDescription().getDisplayName().substring(0, failure.getDescription().getDisplayName().indexOf(".scenario"));
     }
 
-    static String getKSessionName(List<String> kSessions) {
+    static String getScenarioName(final Description description) {
+        final String displayName = description.getDisplayName();
+        final int index = displayName.indexOf(".scenario");
+        return (index < 0 ? displayName : displayName.substring(0, index));
+    }
+
+    public static String getKSessionName(List<String> kSessions) {
         if (kSessions == null || kSessions.isEmpty()) {
             return null;
         } else {
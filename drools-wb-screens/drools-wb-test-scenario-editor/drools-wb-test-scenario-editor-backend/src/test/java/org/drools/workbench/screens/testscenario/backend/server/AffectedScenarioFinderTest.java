@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.testscenario.backend.server;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import javax.enterprise.inject.Instance;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.workbench.common.services.refactoring.model.index.terms.TypeIndexTerm;
+import org.kie.workbench.common.services.refactoring.model.index.terms.valueterms.ValueIndexTerm;
+import org.kie.workbench.common.services.refactoring.service.RefactoringPageRow;
+import org.kie.workbench.common.services.refactoring.service.RefactoringQueryService;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.backend.vfs.PathFactory;
+import org.uberfire.ext.metadata.engine.Indexer;
+import org.uberfire.ext.metadata.model.KObject;
+import org.uberfire.ext.metadata.model.KProperty;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class AffectedScenarioFinderTest {
+
+    private RefactoringQueryService queryService;
+    private Indexer indexer;
+    private AffectedScenarioFinder finder;
+
+    private final Path rulePath = PathFactory.newPath("rule.drl",
+                                                      "file:///tmp/rule.drl");
+    private final Path ruleScenarioPath = PathFactory.newPath("rule.scenario",
+                                                              "file:///tmp/rule.scenario");
+    private final Path typeScenarioPath = PathFactory.newPath("type.scenario",
+                                                              "file:///tmp/type.scenario");
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        queryService = mock(RefactoringQueryService.class);
+        indexer = mock(Indexer.class);
+
+        final Instance<Indexer> indexers = mock(Instance.class);
+        when(indexers.iterator()).thenAnswer(new Answer<Iterator<Indexer>>() {
+            @Override
+            public Iterator<Indexer> answer(final InvocationOnMock invocation) throws Throwable {
+                return Collections.singletonList(indexer).iterator();
+            }
+        });
+
+        finder = new AffectedScenarioFinder(queryService,
+                                            indexers);
+    }
+
+    @Test
+    public void testScenariosReferencingTypeAreAffected() throws Exception {
+        final List<RefactoringPageRow> typeRows = rows(typeScenarioPath,
+                                                       rulePath);
+        when(queryService.query(eq(AffectedScenarioFinder.FIND_TYPES_QUERY),
+                                anySetOf(ValueIndexTerm.class),
+                                eq(false))).thenReturn(typeRows);
+
+        final Set<String> uris = finder.findAffectedScenarios(null,
+                                                              Collections.singleton("org.test.Person"));
+
+        assertEquals(Collections.singleton(typeScenarioPath.toURI()),
+                     uris);
+        verify(indexer,
+               never()).toKObject(any(org.uberfire.java.nio.file.Path.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testScenariosUsingTypesOfChangedRuleAreAffected() throws Exception {
+        final List<RefactoringPageRow> ruleRows = rows(rulePath,
+                                                       ruleScenarioPath);
+        final List<RefactoringPageRow> typeRows = rows(typeScenarioPath);
+        when(queryService.query(eq(AffectedScenarioFinder.FIND_RULES_QUERY),
+                                anySetOf(ValueIndexTerm.class),
+                                eq(false))).thenReturn(ruleRows);
+        when(queryService.query(eq(AffectedScenarioFinder.FIND_TYPES_QUERY),
+                                anySetOf(ValueIndexTerm.class),
+                                eq(false))).thenReturn(typeRows);
+
+        final KProperty typeProperty = mock(KProperty.class);
+        when(typeProperty.getName()).thenReturn(TypeIndexTerm.TERM);
+        when(typeProperty.getValue()).thenReturn("org.test.Person");
+        final KObject kObject = mock(KObject.class);
+        doReturn(Arrays.asList(typeProperty)).when(kObject).getProperties();
+        when(indexer.supportsPath(any(org.uberfire.java.nio.file.Path.class))).thenReturn(true);
+        when(indexer.toKObject(any(org.uberfire.java.nio.file.Path.class))).thenReturn(kObject);
+
+        final Set<String> uris = finder.findAffectedScenarios(Collections.singleton("rule1"),
+                                                              null);
+
+        assertEquals(2,
+                     uris.size());
+        assertTrue(uris.contains(ruleScenarioPath.toURI()));
+        assertTrue(uris.contains(typeScenarioPath.toURI()));
+        verify(indexer,
+               times(1)).toKObject(any(org.uberfire.java.nio.file.Path.class));
+    }
+
+    @Test
+    public void testRuleAssetsNotSupportedByAnIndexerAreSkipped() throws Exception {
+        final List<RefactoringPageRow> ruleRows = rows(rulePath,
+                                                       ruleScenarioPath);
+        when(queryService.query(eq(AffectedScenarioFinder.FIND_RULES_QUERY),
+                                anySetOf(ValueIndexTerm.class),
+                                eq(false))).thenReturn(ruleRows);
+        when(indexer.supportsPath(any(org.uberfire.java.nio.file.Path.class))).thenReturn(false);
+
+        final Set<String> uris = finder.findAffectedScenarios(Collections.singleton("rule1"),
+                                                              null);
+
+        assertEquals(Collections.singleton(ruleScenarioPath.toURI()),
+                     uris);
+        verify(indexer,
+               never()).toKObject(any(org.uberfire.java.nio.file.Path.class));
+        verify(queryService,
+               never()).query(eq(AffectedScenarioFinder.FIND_TYPES_QUERY),
+                              anySetOf(ValueIndexTerm.class),
+                              anyBoolean());
+    }
+
+    private List<RefactoringPageRow> rows(final Path... paths) {
+        final RefactoringPageRow[] rows = new RefactoringPageRow[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            rows[i] = mock(RefactoringPageRow.class);
+            when(rows[i].getValue()).thenReturn(paths[i]);
+        }
+        return Arrays.asList(rows);
+    }
+
+}
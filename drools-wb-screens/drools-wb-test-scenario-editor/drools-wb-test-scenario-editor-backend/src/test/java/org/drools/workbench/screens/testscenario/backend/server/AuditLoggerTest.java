@@ -17,11 +17,17 @@
 package org.drools.workbench.screens.testscenario.backend.server;
 
 import java.util.HashMap;
+import java.util.List;
 
 import org.junit.Test;
+import org.kie.api.definition.rule.Rule;
+import org.kie.api.event.rule.ObjectInsertedEvent;
+import org.kie.api.event.rule.RuleRuntimeEventListener;
 import org.kie.api.runtime.KieSession;
+import org.mockito.ArgumentCaptor;
 
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
 
 public class AuditLoggerTest {
 
@@ -35,4 +41,103 @@ public class AuditLoggerTest {
 
         assertNotNull(auditLogger.getLog());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testKeepsMostRecentEventsInOrder() throws Exception {
+        KieSession ksession = mock(KieSession.class);
+        HashMap<String, KieSession> ksessions = new HashMap<String, KieSession>();
+        ksessions.put("ksession", ksession);
+
+        AuditLogger auditLogger = new AuditLogger(ksessions, AuditLogger.Level.FACTS, 3);
+        RuleRuntimeEventListener listener = getRuleRuntimeEventListener(ksession);
+
+        for (int i = 0; i < 5; i++) {
+            listener.objectInserted(makeInsertedEvent(new Fact(), "rule" + i));
+        }
+
+        List<String> log = auditLogger.getLog();
+        assertEquals(4, log.size());
+        assertEquals("2 earlier events were discarded. Only the last 3 events are shown.", log.get(0));
+        assertEquals("Fact " + Fact.class.getName() + " inserted in rule rule2.", log.get(1));
+        assertEquals("Fact " + Fact.class.getName() + " inserted in rule rule4.", log.get(3));
+        assertEquals(2, auditLogger.getDroppedEventCount());
+    }
+
+    @Test
+    public void testRepeatedEventsAreKept() throws Exception {
+        KieSession ksession = mock(KieSession.class);
+        HashMap<String, KieSession> ksessions = new HashMap<String, KieSession>();
+        ksessions.put("ksession", ksession);
+
+        AuditLogger auditLogger = new AuditLogger(ksessions, AuditLogger.Level.FACTS, 10);
+        RuleRuntimeEventListener listener = getRuleRuntimeEventListener(ksession);
+
+        listener.objectInserted(makeInsertedEvent(new Fact(), "rule"));
+        listener.objectInserted(makeInsertedEvent(new Fact(), "rule"));
+
+        assertEquals(2, auditLogger.getLog().size());
+        assertEquals(0, auditLogger.getDroppedEventCount());
+    }
+
+    @Test
+    public void testFactsRenderedWhenEventOccurs() throws Exception {
+        KieSession ksession = mock(KieSession.class);
+        HashMap<String, KieSession> ksessions = new HashMap<String, KieSession>();
+        ksessions.put("ksession", ksession);
+
+        AuditLogger auditLogger = new AuditLogger(ksessions, AuditLogger.Level.VERBOSE, 10);
+        RuleRuntimeEventListener listener = getRuleRuntimeEventListener(ksession);
+
+        Fact fact = new Fact();
+        listener.objectInserted(makeInsertedEvent(fact, "rule"));
+        fact.name = "changed";
+
+        assertEquals("Fact " + Fact.class.getName() + " inserted in rule rule. Fact[ fact ].",
+                     auditLogger.getLog().get(0));
+    }
+
+    @Test
+    public void testFactsNotRenderedByDefault() throws Exception {
+        KieSession ksession = mock(KieSession.class);
+        HashMap<String, KieSession> ksessions = new HashMap<String, KieSession>();
+        ksessions.put("ksession", ksession);
+
+        AuditLogger auditLogger = new AuditLogger(ksessions);
+        assertEquals(AuditLogger.Level.FACTS, auditLogger.getLevel());
+        RuleRuntimeEventListener listener = getRuleRuntimeEventListener(ksession);
+
+        Fact fact = new Fact();
+        listener.objectInserted(makeInsertedEvent(fact, "rule"));
+
+        assertEquals("Fact " + Fact.class.getName() + " inserted in rule rule.",
+                     auditLogger.getLog().get(0));
+        assertEquals(0, fact.toStringCount);
+    }
+
+    private RuleRuntimeEventListener getRuleRuntimeEventListener(KieSession ksession) {
+        ArgumentCaptor<RuleRuntimeEventListener> captor = ArgumentCaptor.forClass(RuleRuntimeEventListener.class);
+        verify(ksession).addEventListener(captor.capture());
+        return captor.getValue();
+    }
+
+    private ObjectInsertedEvent makeInsertedEvent(Object fact, String ruleName) {
+        Rule rule = mock(Rule.class);
+        when(rule.getName()).thenReturn(ruleName);
+        ObjectInsertedEvent event = mock(ObjectInsertedEvent.class);
+        when(event.getObject()).thenReturn(fact);
+        when(event.getRule()).thenReturn(rule);
+        return event;
+    }
+
+    private static class Fact {
+
+        private String name = "fact";
+        private int toStringCount = 0;
+
+        @Override
+        public String toString() {
+            toStringCount++;
+            return name;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.testscenario.backend.server;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.drools.core.base.MapGlobalResolver;
+import org.drools.core.impl.StatefulKnowledgeSessionImpl;
+import org.drools.core.time.impl.PseudoClockScheduler;
+import org.guvnor.common.services.project.builder.events.InvalidateDMOProjectCacheEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.KieBase;
+import org.kie.api.runtime.Environment;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.kie.api.time.SessionClock;
+import org.kie.workbench.common.services.backend.session.SessionService;
+import org.kie.workbench.common.services.shared.project.KieProject;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.workbench.events.ResourceUpdatedEvent;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class KieSessionPoolTest {
+
+    private SessionService sessionService;
+    private KieBase kieBase;
+    private KieProject project;
+    private KieSessionPool pool;
+    private MapGlobalResolver globals;
+    private PseudoClockScheduler clock;
+
+    @Before
+    public void setUp() throws Exception {
+        sessionService = mock(SessionService.class);
+        kieBase = mock(KieBase.class);
+        globals = new MapGlobalResolver();
+        clock = new PseudoClockScheduler();
+
+        Path rootPath = mock(Path.class);
+        when(rootPath.toURI()).thenReturn("default://project");
+        project = mock(KieProject.class);
+        when(project.getRootPath()).thenReturn(rootPath);
+
+        StatefulKnowledgeSessionImpl ksession = mockKieSession();
+        when(sessionService.newDefaultKieSessionWithPseudoClock(project)).thenReturn(ksession);
+
+        pool = new KieSessionPool(sessionService);
+    }
+
+    @Test
+    public void testReleasedSessionIsReused() throws Exception {
+        StatefulKnowledgeSessionImpl ksession = (StatefulKnowledgeSessionImpl) pool.borrow(project, null);
+        pool.release(ksession);
+
+        assertSame(ksession, pool.borrow(project, null));
+        verify(ksession).reset();
+        verify(ksession, never()).dispose();
+        verify(sessionService, times(1)).newDefaultKieSessionWithPseudoClock(project);
+    }
+
+    @Test
+    public void testSessionsCreatedBySessionService() throws Exception {
+        StatefulKnowledgeSessionImpl ksession1 = (StatefulKnowledgeSessionImpl) pool.borrow(project, null);
+        StatefulKnowledgeSessionImpl ksession2 = mockKieSession();
+        when(sessionService.newDefaultKieSessionWithPseudoClock(project)).thenReturn(ksession2);
+
+        assertSame(ksession2, pool.borrow(project, null));
+        assertNotSame(ksession1, ksession2);
+        verify(sessionService, times(2)).newDefaultKieSessionWithPseudoClock(project);
+        verify(kieBase, never()).newKieSession(any(KieSessionConfiguration.class), any(Environment.class));
+    }
+
+    @Test
+    public void testResetClearsGlobalsAndClock() throws Exception {
+        StatefulKnowledgeSessionImpl ksession = (StatefulKnowledgeSessionImpl) pool.borrow(project, null);
+        globals.setGlobal("list", new ArrayList<String>());
+        clock.advanceTime(1, TimeUnit.DAYS);
+        pool.release(ksession);
+
+        assertSame(ksession, pool.borrow(project, null));
+        assertNull(globals.resolveGlobal("list"));
+        assertEquals(0, clock.getCurrentTime());
+    }
+
+    @Test
+    public void testInvalidatedSessionsAreDisposed() throws Exception {
+        StatefulKnowledgeSessionImpl idle = (StatefulKnowledgeSessionImpl) pool.borrow(project, null);
+        StatefulKnowledgeSessionImpl borrowed = mockKieSession();
+        when(sessionService.newDefaultKieSessionWithPseudoClock(project)).thenReturn(borrowed);
+        assertSame(borrowed, pool.borrow(project, null));
+        pool.release(idle);
+
+        pool.onInvalidateProject(new InvalidateDMOProjectCacheEvent(null, project, null));
+
+        verify(idle).dispose();
+        pool.release(borrowed);
+        verify(borrowed).dispose();
+
+        //The next KieSession is loaded from the new build
+        pool.borrow(project, null);
+        verify(sessionService, times(3)).newDefaultKieSessionWithPseudoClock(project);
+    }
+
+    @Test
+    public void testSessionsAreDisposedWhenRuleIsEdited() throws Exception {
+        //First run
+        StatefulKnowledgeSessionImpl ksession1 = (StatefulKnowledgeSessionImpl) pool.borrow(project, null);
+        pool.release(ksession1);
+
+        //A rule in the Project is saved
+        pool.onResourceUpdated(mockResourceUpdatedEvent("default://project/src/main/resources/org/test/rule.drl"));
+        verify(ksession1).dispose();
+
+        //Second run uses a KieSession from the new build
+        StatefulKnowledgeSessionImpl ksession2 = mockKieSession();
+        when(sessionService.newDefaultKieSessionWithPseudoClock(project)).thenReturn(ksession2);
+        assertSame(ksession2, pool.borrow(project, null));
+        verify(sessionService, times(2)).newDefaultKieSessionWithPseudoClock(project);
+    }
+
+    @Test
+    public void testSessionsAreKeptWhenOtherProjectIsEdited() throws Exception {
+        StatefulKnowledgeSessionImpl ksession = (StatefulKnowledgeSessionImpl) pool.borrow(project, null);
+        pool.release(ksession);
+
+        pool.onResourceUpdated(mockResourceUpdatedEvent("default://project2/src/main/resources/org/test/rule.drl"));
+
+        verify(ksession, never()).dispose();
+        assertSame(ksession, pool.borrow(project, null));
+    }
+
+    @Test
+    public void testBorrowedSessionIsDisposedWhenRuleIsEdited() throws Exception {
+        StatefulKnowledgeSessionImpl ksession = (StatefulKnowledgeSessionImpl) pool.borrow(project, null);
+
+        pool.onResourceUpdated(mockResourceUpdatedEvent("default://project/src/main/resources/org/test/rule.drl"));
+        pool.release(ksession);
+
+        verify(ksession).dispose();
+    }
+
+    private ResourceUpdatedEvent mockResourceUpdatedEvent(final String uri) {
+        Path path = mock(Path.class);
+        when(path.toURI()).thenReturn(uri);
+        ResourceUpdatedEvent event = mock(ResourceUpdatedEvent.class);
+        when(event.getPath()).thenReturn(path);
+        return event;
+    }
+
+    private StatefulKnowledgeSessionImpl mockKieSession() {
+        StatefulKnowledgeSessionImpl ksession = mock(StatefulKnowledgeSessionImpl.class);
+        when(ksession.getKieBase()).thenReturn(kieBase);
+        when(ksession.getGlobalResolver()).thenReturn(globals);
+        when(ksession.<SessionClock>getSessionClock()).thenReturn(clock);
+        return ksession;
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.testscenario.backend.server;
+
+import java.util.List;
+import javax.enterprise.event.Event;
+
+import org.drools.workbench.screens.testscenario.model.TestScenarioProgressMessage;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.Description;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runner.notification.StoppedByUserException;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class ScenarioRunTest {
+
+    private Event<TestScenarioProgressMessage> progressEvent;
+    private ScenarioRun scenarioRun;
+    private RunNotifier notifier;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        progressEvent = mock(Event.class);
+        scenarioRun = new ScenarioRun("testUser",
+                                      2,
+                                      progressEvent);
+        notifier = new RunNotifier();
+        notifier.addListener(scenarioRun);
+        scenarioRun.addNotifier(notifier);
+    }
+
+    @Test
+    public void testProgressPublishedForEachScenario() throws Exception {
+        Description test1 = Description.createTestDescription(ScenarioRunTest.class, "test1.scenario");
+        Description test2 = Description.createTestDescription(ScenarioRunTest.class, "test2.scenario");
+
+        notifier.fireTestStarted(test1);
+        notifier.fireTestFailure(new Failure(test1, new AssertionError("Expected 1")));
+        notifier.fireTestFinished(test1);
+        notifier.fireTestStarted(test2);
+        notifier.fireTestFinished(test2);
+
+        ArgumentCaptor<TestScenarioProgressMessage> argumentCaptor = ArgumentCaptor.forClass(TestScenarioProgressMessage.class);
+        verify(progressEvent, times(2)).fire(argumentCaptor.capture());
+        List<TestScenarioProgressMessage> messages = argumentCaptor.getAllValues();
+
+        assertEquals("test1", messages.get(0).getScenarioName());
+        assertFalse(messages.get(0).wasSuccessful());
+        assertEquals(1, messages.get(0).getRunCount());
+        assertEquals(1, messages.get(0).getFailureCount());
+
+        assertEquals("test2", messages.get(1).getScenarioName());
+        assertTrue(messages.get(1).wasSuccessful());
+        assertEquals(2, messages.get(1).getRunCount());
+        assertEquals(1, messages.get(1).getFailureCount());
+        assertEquals(2, messages.get(1).getScenarioCount());
+        assertEquals("testUser", messages.get(1).getIdentifier());
+    }
+
+    @Test(expected = StoppedByUserException.class)
+    public void testCancelStopsRemainingScenarios() throws Exception {
+        scenarioRun.cancel();
+
+        assertTrue(scenarioRun.isCancelled());
+        notifier.fireTestStarted(Description.createTestDescription(ScenarioRunTest.class, "test1.scenario"));
+    }
+
+}
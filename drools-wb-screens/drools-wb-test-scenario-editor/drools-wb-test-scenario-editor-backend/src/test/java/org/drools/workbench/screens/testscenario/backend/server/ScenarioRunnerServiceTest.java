@@ -18,9 +18,13 @@ package org.drools.workbench.screens.testscenario.backend.server;
 
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 import javax.enterprise.event.Event;
 
 import org.drools.workbench.models.testscenarios.shared.Scenario;
+import org.drools.workbench.screens.testscenario.model.TestScenarioProgressMessage;
 import org.drools.workbench.screens.testscenario.model.TestScenarioResult;
 import org.guvnor.common.services.shared.test.TestResultMessage;
 import org.guvnor.structure.server.config.ConfigurationService;
@@ -54,6 +58,12 @@ public class ScenarioRunnerServiceTest {
     @Mock
     ScenarioLoader scenarioLoader;
 
+    @Mock
+    AffectedScenarioFinder affectedScenarioFinder;
+
+    @Mock
+    Event<TestScenarioProgressMessage> progressEvent;
+
     private TestResultMessageEventMock defaultTestResultMessageEvent;
 
     @Before
@@ -66,9 +76,11 @@ public class ScenarioRunnerServiceTest {
 
         service = new ScenarioRunnerService(configurationService,
                                             defaultTestResultMessageEvent,
-                                            sessionService,
+                                            progressEvent,
+                                            new KieSessionPool(sessionService),
                                             projectService,
                                             scenarioLoader,
+                                            affectedScenarioFinder,
                                             identity);
 
         when(sessionService.newDefaultKieSessionWithPseudoClock(any(KieProject.class))).thenReturn(defaultPseudoClockKieSession);
@@ -107,6 +119,70 @@ public class ScenarioRunnerServiceTest {
         assertEquals("testUser", argumentCaptor.getValue().getIdentifier());
     }
 
+    @Test
+    public void testRunSeveralScenariosInParallel() throws Exception {
+
+        Path path = mock(Path.class);
+        KieSession scenarioKieSession = mock(KieSession.class);
+        when(sessionService.newDefaultKieSessionWithPseudoClock(any(KieProject.class))).thenReturn(defaultPseudoClockKieSession,
+                                                                                                   scenarioKieSession);
+
+        ArrayList<Scenario> scenarios = new ArrayList<Scenario>();
+        scenarios.add(makeScenario("test1.scenario"));
+        scenarios.add(makeScenario("test2.scenario"));
+        scenarios.add(makeScenario("test3.scenario"));
+        when(scenarioLoader.loadScenarios(path)).thenReturn(scenarios);
+
+        service.setParallelism(2);
+        service.runAllTests(path);
+
+        ArgumentCaptor<TestResultMessage> argumentCaptor = ArgumentCaptor.forClass(TestResultMessage.class);
+        verify(defaultTestResultMessageEvent).fire(argumentCaptor.capture());
+        assertEquals("testUser", argumentCaptor.getValue().getIdentifier());
+
+        //Each scenario has its own KieSession, loaded by SessionService
+        verify(sessionService, times(3)).newDefaultKieSessionWithPseudoClock(any(KieProject.class));
+        verify(scenarioKieSession, times(2)).dispose();
+        verify(defaultPseudoClockKieSession).dispose();
+    }
+
+    @Test
+    public void testRunAffectedScenarios() throws Exception {
+
+        Path path = mock(Path.class);
+        Set<String> ruleNames = Collections.singleton("rule1");
+        Set<String> affected = new HashSet<String>();
+        affected.add("default://project/src/test/resources/test1.scenario");
+        when(affectedScenarioFinder.findAffectedScenarios(ruleNames, null)).thenReturn(affected);
+
+        ArrayList<Scenario> scenarios = new ArrayList<Scenario>();
+        scenarios.add(makeScenario("test1.scenario"));
+        when(scenarioLoader.loadScenarios(path, affected)).thenReturn(scenarios);
+
+        service.runAffectedTests(path, ruleNames, null);
+
+        ArgumentCaptor<TestResultMessage> argumentCaptor = ArgumentCaptor.forClass(TestResultMessage.class);
+        verify(defaultTestResultMessageEvent).fire(argumentCaptor.capture());
+        assertEquals("testUser", argumentCaptor.getValue().getIdentifier());
+        verify(scenarioLoader, never()).loadScenarios(path);
+    }
+
+    @Test
+    public void testRunAffectedScenariosWhenNoneAffected() throws Exception {
+
+        Path path = mock(Path.class);
+        Set<String> typeNames = Collections.singleton("org.test.Person");
+        when(affectedScenarioFinder.findAffectedScenarios(null, typeNames)).thenReturn(new HashSet<String>());
+        when(scenarioLoader.loadScenarios(eq(path), anySetOf(String.class))).thenReturn(new ArrayList<Scenario>());
+
+        service.runAffectedTests(path, null, typeNames);
+
+        ArgumentCaptor<TestResultMessage> argumentCaptor = ArgumentCaptor.forClass(TestResultMessage.class);
+        verify(defaultTestResultMessageEvent).fire(argumentCaptor.capture());
+        assertEquals(0, argumentCaptor.getValue().getRunCount());
+        verify(sessionService, never()).newDefaultKieSessionWithPseudoClock(any(KieProject.class));
+    }
+
     private Scenario makeScenario(String name) {
         Scenario scenario = new Scenario();
         scenario.setName(name);
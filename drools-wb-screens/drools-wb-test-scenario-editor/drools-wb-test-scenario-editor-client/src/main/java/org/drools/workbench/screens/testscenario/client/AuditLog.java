@@ -16,7 +16,7 @@
 
 package org.drools.workbench.screens.testscenario.client;
 
-import java.util.Set;
+import java.util.List;
 
 import com.github.gwtbootstrap.client.ui.AccordionGroup;
 import com.github.gwtbootstrap.client.ui.constants.IconType;
@@ -38,7 +38,7 @@ public class AuditLog
 
     }
 
-    public void fill(Set<String> log) {
+    public void fill(List<String> log) {
         clear();
         setVisible(true);
         VerticalPanel list = new VerticalPanel();
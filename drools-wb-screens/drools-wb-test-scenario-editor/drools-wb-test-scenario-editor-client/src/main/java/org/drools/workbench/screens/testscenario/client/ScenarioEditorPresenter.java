@@ -16,6 +16,7 @@
 
 package org.drools.workbench.screens.testscenario.client;
 
+import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 
 import com.google.gwt.user.client.ui.IsWidget;
@@ -24,11 +25,13 @@ import org.drools.workbench.models.testscenarios.shared.Scenario;
 import org.drools.workbench.screens.testscenario.client.resources.i18n.TestScenarioConstants;
 import org.drools.workbench.screens.testscenario.client.type.TestScenarioResourceType;
 import org.drools.workbench.screens.testscenario.model.TestScenarioModelContent;
+import org.drools.workbench.screens.testscenario.model.TestScenarioProgressMessage;
 import org.drools.workbench.screens.testscenario.model.TestScenarioResult;
 import org.drools.workbench.screens.testscenario.service.ScenarioTestEditorService;
 import org.guvnor.common.services.shared.test.TestService;
 import org.jboss.errai.common.client.api.Caller;
 import org.jboss.errai.common.client.api.RemoteCallback;
+import org.jboss.errai.security.shared.api.identity.User;
 import org.kie.workbench.common.widgets.client.datamodel.AsyncPackageDataModelOracle;
 import org.kie.workbench.common.widgets.client.datamodel.AsyncPackageDataModelOracleFactory;
 import org.kie.workbench.common.widgets.configresource.client.widget.bound.ImportsWidgetPresenter;
@@ -60,6 +63,7 @@ public class ScenarioEditorPresenter
     private final AsyncPackageDataModelOracleFactory oracleFactory;
     private final Caller<TestService>                testService;
     private final ImportsWidgetPresenter             importsWidget;
+    private final User                               identity;
 
     private Scenario                    scenario;
     private AsyncPackageDataModelOracle dmo;
@@ -70,7 +74,8 @@ public class ScenarioEditorPresenter
                                    final Caller<ScenarioTestEditorService> service,
                                    final Caller<TestService> testService,
                                    final TestScenarioResourceType type,
-                                   final AsyncPackageDataModelOracleFactory oracleFactory) {
+                                   final AsyncPackageDataModelOracleFactory oracleFactory,
+                                   final User identity) {
         super(view);
         this.view = view;
         this.importsWidget = importsWidget;
@@ -78,6 +83,7 @@ public class ScenarioEditorPresenter
         this.testService = testService;
         this.type = type;
         this.oracleFactory = oracleFactory;
+        this.identity = identity;
 
         view.setPresenter(this);
     }
@@ -175,6 +181,13 @@ public class ScenarioEditorPresenter
                     ).runAllTests(versionRecordManager.getCurrentPath());
     }
 
+    //Results are shown as the Scenarios run, and the run can be stopped from the reporting screen
+    public void onTestScenarioProgress(@Observes TestScenarioProgressMessage progressMessage) {
+        if (progressMessage.getIdentifier().equals(identity.getIdentifier())) {
+            view.hideBusyIndicator();
+        }
+    }
+
     @Override
     public void onRedraw() {
         view.renderFixtures(versionRecordManager.getCurrentPath(), dmo, scenario);
@@ -1,6 +1,6 @@
 package org.drools.workbench.screens.testscenario.client;
 
-import java.util.Set;
+import java.util.List;
 
 import com.google.gwt.user.client.ui.IsWidget;
 import org.drools.workbench.models.testscenarios.shared.Scenario;
@@ -33,7 +33,7 @@ public interface ScenarioEditorView
     void initKSessionSelector(final ObservablePath path,
                               final Scenario scenario);
 
-    void showAuditView(Set<String> log);
+    void showAuditView(List<String> log);
 
     void showResults();
 
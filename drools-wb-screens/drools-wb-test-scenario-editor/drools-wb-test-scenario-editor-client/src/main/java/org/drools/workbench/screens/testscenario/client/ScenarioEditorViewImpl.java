@@ -16,7 +16,7 @@
 
 package org.drools.workbench.screens.testscenario.client;
 
-import java.util.Set;
+import java.util.List;
 import javax.enterprise.context.Dependent;
 import javax.inject.Inject;
 
@@ -125,7 +125,7 @@ public class ScenarioEditorViewImpl
     }
 
     @Override
-    public void showAuditView(Set<String> log) {
+    public void showAuditView(List<String> log) {
         auditLog.setVisible(true);
         auditLog.fill(log);
     }
@@ -6,8 +6,12 @@ import javax.inject.Inject;
 
 import com.google.gwt.user.client.ui.Widget;
 import org.drools.workbench.screens.testscenario.client.service.TestRuntimeReportingService;
+import org.drools.workbench.screens.testscenario.model.TestScenarioProgressMessage;
+import org.drools.workbench.screens.testscenario.service.ScenarioTestEditorService;
 import org.guvnor.common.services.shared.test.Failure;
 import org.guvnor.common.services.shared.test.TestResultMessage;
+import org.jboss.errai.common.client.api.Caller;
+import org.jboss.errai.security.shared.api.identity.User;
 import org.uberfire.client.annotations.DefaultPosition;
 import org.uberfire.client.annotations.WorkbenchPartTitle;
 import org.uberfire.client.annotations.WorkbenchPartView;
@@ -21,11 +25,17 @@ public class TestRunnerReportingScreen
         implements TestRunnerReportingView.Presenter {
 
     private final TestRunnerReportingView view;
+    private final Caller<ScenarioTestEditorService> scenarioService;
+    private final User identity;
 
     @Inject
     public TestRunnerReportingScreen(TestRunnerReportingView view,
-                                     TestRuntimeReportingService testRuntimeReportingService) {
+                                     TestRuntimeReportingService testRuntimeReportingService,
+                                     Caller<ScenarioTestEditorService> scenarioService,
+                                     User identity) {
         this.view = view;
+        this.scenarioService = scenarioService;
+        this.identity = identity;
         view.setPresenter(this);
         view.bindDataGridToService(testRuntimeReportingService);
     }
@@ -52,9 +62,23 @@ public class TestRunnerReportingScreen
         }
 
         view.setRunStatus(testResultMessage.getRunCount(), testResultMessage.getRunTime());
+        view.setCancelEnabled(false);
 
     }
 
+    public void onProgress(@Observes TestScenarioProgressMessage progressMessage) {
+        if (!progressMessage.getIdentifier().equals(identity.getIdentifier())) {
+            return;
+        }
+
+        if (progressMessage.getFailureCount() > 0) {
+            view.showFailure();
+        }
+
+        view.setRunStatus(progressMessage.getRunCount(), progressMessage.getRunTime());
+        view.setCancelEnabled(progressMessage.getRunCount() < progressMessage.getScenarioCount());
+    }
+
     @Override
     public void onMessageSelected(Failure failure) {
         view.setExplanation(failure.getMessage());
@@ -64,4 +88,10 @@ public class TestRunnerReportingScreen
     public void onAddingFailure(Failure failure) {
         view.showFailure();
     }
+
+    @Override
+    public void onCancel() {
+        view.setCancelEnabled(false);
+        scenarioService.call().cancelScenarios();
+    }
 }
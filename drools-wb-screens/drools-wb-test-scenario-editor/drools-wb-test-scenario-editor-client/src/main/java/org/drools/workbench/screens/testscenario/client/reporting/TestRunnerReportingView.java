@@ -15,6 +15,8 @@ public interface TestRunnerReportingView
 
         void onAddingFailure(Failure failure);
 
+        void onCancel();
+
     }
     void setPresenter(Presenter presenter);
 
@@ -28,4 +30,6 @@ public interface TestRunnerReportingView
 
     void setRunStatus(int runCount, long runTime);
 
+    void setCancelEnabled(boolean enabled);
+
 }
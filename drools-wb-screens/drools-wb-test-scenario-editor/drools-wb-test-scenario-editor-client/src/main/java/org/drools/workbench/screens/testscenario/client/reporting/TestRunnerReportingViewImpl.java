@@ -8,14 +8,17 @@ import com.google.gwt.cell.client.FieldUpdater;
 import com.google.gwt.cell.client.ImageResourceCell;
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.dom.client.Style;
+import com.google.gwt.event.dom.client.ClickEvent;
 import com.google.gwt.i18n.client.DateTimeFormat;
 import com.google.gwt.resources.client.ImageResource;
 import com.google.gwt.safehtml.client.SafeHtmlTemplates;
 import com.google.gwt.safehtml.shared.SafeHtml;
 import com.google.gwt.uibinder.client.UiBinder;
 import com.google.gwt.uibinder.client.UiField;
+import com.google.gwt.uibinder.client.UiHandler;
 import com.google.gwt.user.cellview.client.Column;
 import com.google.gwt.user.cellview.client.DataGrid;
+import com.google.gwt.user.client.ui.Button;
 import com.google.gwt.user.client.ui.Composite;
 import com.google.gwt.user.client.ui.HTML;
 import com.google.gwt.user.client.ui.Label;
@@ -62,6 +65,9 @@ public class TestRunnerReportingViewImpl
     @UiField
     Label explanationLabel;
 
+    @UiField
+    Button cancelButton;
+
     @Inject
     public TestRunnerReportingViewImpl() {
         dataGrid = new DataGrid<Failure>();
@@ -74,6 +80,9 @@ public class TestRunnerReportingViewImpl
         setUpColumns();
 
         initWidget(uiBinder.createAndBindUi(this));
+
+        cancelButton.setText(TestScenarioConstants.INSTANCE.StopRunningScenarios());
+        cancelButton.setEnabled(false);
     }
 
     @Override
@@ -159,4 +168,14 @@ public class TestRunnerReportingViewImpl
 
         stats.setText(TestScenarioConstants.INSTANCE.XTestsRanInYMinutesZSeconds(runCount, minutesFormat.format(date), secondsFormat.format(date)));
     }
+
+    @Override
+    public void setCancelEnabled(boolean enabled) {
+        cancelButton.setEnabled(enabled);
+    }
+
+    @UiHandler("cancelButton")
+    public void onCancelButtonClick(ClickEvent event) {
+        presenter.onCancel();
+    }
 }
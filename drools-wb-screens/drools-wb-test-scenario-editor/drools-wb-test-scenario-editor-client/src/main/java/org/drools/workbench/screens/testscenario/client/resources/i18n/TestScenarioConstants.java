@@ -271,4 +271,6 @@ public interface
 
     String ErrorCannotFindADefaultKieBase();
 
+    String StopRunningScenarios();
+
 }
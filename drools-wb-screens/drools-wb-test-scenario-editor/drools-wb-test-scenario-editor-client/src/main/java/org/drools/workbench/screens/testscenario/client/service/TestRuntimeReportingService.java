@@ -6,6 +6,7 @@ import javax.inject.Inject;
 
 import com.google.gwt.view.client.HasData;
 import com.google.gwt.view.client.ListDataProvider;
+import org.drools.workbench.screens.testscenario.model.TestScenarioProgressMessage;
 import org.guvnor.common.services.shared.test.Failure;
 import org.guvnor.common.services.shared.test.TestResultMessage;
 import org.jboss.errai.security.shared.api.identity.User;
@@ -43,6 +44,20 @@ public class TestRuntimeReportingService {
         }
     }
 
+    public void addProgressMessages(final @Observes TestScenarioProgressMessage message) {
+        if (message.getIdentifier().equals(identity.getIdentifier())) {
+            if (message.getRunCount() == 1) {
+                dataProvider.getList().clear();
+                placeManager.goTo("org.kie.guvnor.TestResults");
+            }
+
+            if (!message.wasSuccessful()) {
+                dataProvider.getList().addAll(message.getFailures());
+                dataProvider.flush();
+            }
+        }
+    }
+
     public void addDataDisplay(HasData<Failure> failures) {
         dataProvider.addDataDisplay(failures);
     }
@@ -16,22 +16,26 @@
 
 package org.drools.workbench.screens.testscenario.client;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Set;
 import javax.enterprise.event.Event;
 
 import org.drools.workbench.models.datamodel.imports.HasImports;
 import org.drools.workbench.models.testscenarios.shared.Scenario;
 import org.drools.workbench.screens.testscenario.client.type.TestScenarioResourceType;
 import org.drools.workbench.screens.testscenario.model.TestScenarioModelContent;
+import org.drools.workbench.screens.testscenario.model.TestScenarioProgressMessage;
 import org.drools.workbench.screens.testscenario.model.TestScenarioResult;
 import org.drools.workbench.screens.testscenario.service.ScenarioTestEditorService;
 import org.guvnor.common.services.shared.metadata.model.Metadata;
 import org.guvnor.common.services.shared.metadata.model.Overview;
+import org.guvnor.common.services.shared.test.Failure;
 import org.guvnor.common.services.shared.test.TestResultMessage;
 import org.guvnor.common.services.shared.test.TestService;
 import org.jboss.errai.common.client.api.Caller;
 import org.jboss.errai.common.client.api.ErrorCallback;
 import org.jboss.errai.common.client.api.RemoteCallback;
+import org.jboss.errai.security.shared.api.identity.User;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -61,6 +65,7 @@ public class ScenarioEditorPresenterTest {
     @Mock private OverviewWidgetPresenter overviewWidget;
     @Mock private MultiPageEditor         multiPage;
     @Mock private ImportsWidgetPresenter importsWidget;
+    @Mock private User identity;
 
     private ScenarioTestEditorServiceCallerMock service;
 
@@ -81,7 +86,8 @@ public class ScenarioEditorPresenterTest {
                                              service,
                                              new TestServiceCallerMock(),
                                              new TestScenarioResourceType(),
-                                             modelOracleFactory) {
+                                             modelOracleFactory,
+                                             identity) {
             {
                 kieView = ScenarioEditorPresenterTest.this.kieView;
                 versionRecordManager = ScenarioEditorPresenterTest.this.versionRecordManager;
@@ -169,7 +175,32 @@ public class ScenarioEditorPresenterTest {
         presenter.onRunScenario();
 
         verify(view).initKSessionSelector(eq(path), any(Scenario.class));
-        verify(view).showAuditView(anySet());
+        verify(view).showAuditView(anyListOf(String.class));
+    }
+
+    @Test
+    public void testProgressClosesBusyIndicatorOnlyForOwnRuns() throws Exception {
+        when(identity.getIdentifier()).thenReturn("me");
+
+        editor.onTestScenarioProgress(new TestScenarioProgressMessage("someone-else",
+                                                                      "test1",
+                                                                      new ArrayList<Failure>(),
+                                                                      10,
+                                                                      1,
+                                                                      0,
+                                                                      2,
+                                                                      10));
+        verify(view, never()).hideBusyIndicator();
+
+        editor.onTestScenarioProgress(new TestScenarioProgressMessage("me",
+                                                                      "test1",
+                                                                      new ArrayList<Failure>(),
+                                                                      10,
+                                                                      1,
+                                                                      0,
+                                                                      2,
+                                                                      10));
+        verify(view).hideBusyIndicator();
     }
 
     class ScenarioTestEditorServiceCallerMock
@@ -205,11 +236,17 @@ public class ScenarioEditorPresenterTest {
             @Override public TestScenarioResult runScenario(Path path, Scenario scenario) {
                 TestScenarioResult result = new TestScenarioResult("user",
                                                                    scenarioRunResult,
-                                                                   new HashSet<String>());
+                                                                   new ArrayList<String>());
                 remoteCallback.callback(result);
                 return null;
             }
 
+            @Override public void runAffectedScenarios(Path path, Set<String> ruleNames, Set<String> typeNames) {
+            }
+
+            @Override public void cancelScenarios() {
+            }
+
             @Override public Path copy(Path path, String s, String s1) {
                 return null;
             }
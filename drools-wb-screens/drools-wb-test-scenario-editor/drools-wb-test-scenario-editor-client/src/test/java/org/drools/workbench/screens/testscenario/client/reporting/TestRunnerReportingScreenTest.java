@@ -1,6 +1,12 @@
 package org.drools.workbench.screens.testscenario.client.reporting;
 
+import java.util.ArrayList;
+
 import org.drools.workbench.screens.testscenario.client.service.TestRuntimeReportingService;
+import org.drools.workbench.screens.testscenario.model.TestScenarioProgressMessage;
+import org.guvnor.common.services.shared.test.Failure;
+import org.jboss.errai.common.client.api.Caller;
+import org.jboss.errai.security.shared.api.identity.User;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -15,12 +21,48 @@ public class TestRunnerReportingScreenTest {
     public void setUp() throws Exception {
         view = mock(TestRunnerReportingView.class);
         TestRuntimeReportingService testRuntimeReportingService = mock(TestRuntimeReportingService.class);
+        User identity = mock(User.class);
+        when(identity.getIdentifier()).thenReturn("id");
         screen = new TestRunnerReportingScreen(view,
-                testRuntimeReportingService);
+                testRuntimeReportingService,
+                mock(Caller.class),
+                identity);
     }
 
     @Test
     public void testSetPresenter() throws Exception {
         verify(view).setPresenter(screen);
     }
+
+    @Test
+    public void testProgress() throws Exception {
+        screen.onProgress(new TestScenarioProgressMessage("id",
+                                                          "test1",
+                                                          new ArrayList<Failure>(),
+                                                          10,
+                                                          1,
+                                                          0,
+                                                          2,
+                                                          10));
+
+        verify(view).setRunStatus(1, 10);
+        verify(view).setCancelEnabled(true);
+        verify(view, never()).showFailure();
+    }
+
+    @Test
+    public void testProgressOfAnotherUserIsIgnored() throws Exception {
+        screen.onProgress(new TestScenarioProgressMessage("someone-else",
+                                                          "test1",
+                                                          new ArrayList<Failure>(),
+                                                          10,
+                                                          1,
+                                                          1,
+                                                          2,
+                                                          10));
+
+        verify(view, never()).setRunStatus(anyInt(), anyLong());
+        verify(view, never()).setCancelEnabled(anyBoolean());
+        verify(view, never()).showFailure();
+    }
 }
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.testscenario.runner;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.drools.workbench.models.testscenarios.backend.ScenarioRunner4JUnit;
+import org.drools.workbench.models.testscenarios.backend.util.ScenarioXMLPersistence;
+import org.drools.workbench.models.testscenarios.shared.Scenario;
+import org.drools.workbench.screens.testscenario.backend.server.ScenarioUtil;
+import org.drools.workbench.screens.testscenario.runner.report.JUnitXmlReport;
+import org.drools.workbench.screens.testscenario.runner.report.TimingHistogram;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieBuilder;
+import org.kie.api.builder.Message;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.kie.api.runtime.conf.ClockTypeOption;
+
+/**
+ * Builds a Project once and runs all of its Test Scenarios in parallel, each in its own KieSession, with the same
+ * ScenarioRunner4JUnit used by the Workbench. A JUnit XML report is written for each package and a histogram of
+ * the Scenarios' run times is printed.
+ */
+public class ScenarioBatchRunner {
+
+    private static final String SCENARIO_EXTENSION = ".scenario";
+    private static final String DEFAULT_KIE_SESSION = "defaultKieSession";
+    private static final String[] RESOURCE_FOLDERS = new String[]{ "src/test/resources/", "src/main/resources/" };
+    private static final List<String> IGNORED_FOLDERS = Arrays.asList( ".git", ".niogit", "target" );
+
+    private final ScenarioRunnerConfig config;
+    private final PrintStream out;
+
+    public ScenarioBatchRunner( final ScenarioRunnerConfig config ) {
+        this( config,
+              System.out );
+    }
+
+    public ScenarioBatchRunner( final ScenarioRunnerConfig config,
+                                final PrintStream out ) {
+        this.config = config;
+        this.out = out;
+    }
+
+    /**
+     * Build the Project and run all of its Scenarios.
+     * @return true if all Scenarios passed
+     */
+    public boolean runAll() {
+        final long startTime = System.currentTimeMillis();
+        final KieContainer kieContainer = build( config.getProjectDir() );
+        out.println( "Built " + config.getProjectDir().getAbsolutePath() + " in " + ( System.currentTimeMillis() - startTime ) + " ms." );
+
+        final List<File> scenarioFiles = new ArrayList<File>();
+        findScenarioFiles( config.getProjectDir(),
+                           scenarioFiles );
+        out.println( "Running " + scenarioFiles.size() + " scenario(s) with " + config.getThreads() + " thread(s)." );
+
+        final List<ScenarioRunResult> results = runScenarios( kieContainer,
+                                                              scenarioFiles );
+        return report( results,
+                       System.currentTimeMillis() - startTime );
+    }
+
+    KieContainer build( final File projectDir ) {
+        final KieServices kieServices = KieServices.Factory.get();
+        final KieBuilder kieBuilder = kieServices.newKieBuilder( projectDir ).buildAll();
+        if ( kieBuilder.getResults().hasMessages( Message.Level.ERROR ) ) {
+            for ( Message message : kieBuilder.getResults().getMessages( Message.Level.ERROR ) ) {
+                out.println( message );
+            }
+            throw new IllegalStateException( "The project (" + projectDir.getAbsolutePath() + ") has build errors." );
+        }
+        return kieServices.newKieContainer( kieBuilder.getKieModule().getReleaseId() );
+    }
+
+    List<ScenarioRunResult> runScenarios( final KieContainer kieContainer,
+                                          final List<File> scenarioFiles ) {
+        final List<ScenarioRunResult> results = new ArrayList<ScenarioRunResult>();
+        final ExecutorService executor = Executors.newFixedThreadPool( config.getThreads() );
+        try {
+            final List<Future<ScenarioRunResult>> futures = new ArrayList<Future<ScenarioRunResult>>();
+            for ( final File scenarioFile : scenarioFiles ) {
+                futures.add( executor.submit( new Callable<ScenarioRunResult>() {
+                    @Override
+                    public ScenarioRunResult call() throws Exception {
+                        return runScenario( kieContainer,
+                                            scenarioFile );
+                    }
+                } ) );
+            }
+            for ( Future<ScenarioRunResult> future : futures ) {
+                results.add( future.get() );
+            }
+            return results;
+
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException( "Interrupted whilst running scenarios.",
+                                             e );
+        } catch ( ExecutionException e ) {
+            throw new IllegalStateException( "Unable to run scenarios.",
+                                             e.getCause() );
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    ScenarioRunResult runScenario( final KieContainer kieContainer,
+                                   final File scenarioFile ) {
+        final long startTime = System.nanoTime();
+        final String packageName = getPackageName( scenarioFile );
+        final String name = scenarioFile.getName();
+        KieSession ksession = null;
+        try {
+            final Scenario scenario = ScenarioXMLPersistence.getInstance().unmarshal( readFile( scenarioFile ) );
+            scenario.setName( name );
+
+            final String ksessionName = ScenarioUtil.getKSessionName( scenario.getKSessions() );
+            ksession = newKieSession( kieContainer,
+                                      ksessionName );
+            final Map<String, KieSession> ksessions = new HashMap<String, KieSession>();
+            ksessions.put( ksessionName,
+                           ksession );
+
+            final ScenarioRunner4JUnit scenarioRunner = new ScenarioRunner4JUnit( scenario,
+                                                                                  ksessions,
+                                                                                  config.getMaxRuleFirings() );
+
+            final List<Failure> failures = new ArrayList<Failure>();
+            final JUnitCore jUnitCore = new JUnitCore();
+            jUnitCore.addListener( new RunListener() {
+                @Override
+                public void testAssumptionFailure( Failure failure ) {
+                    failures.add( failure );
+                }
+            } );
+            final Result result = jUnitCore.run( scenarioRunner );
+            failures.addAll( result.getFailures() );
+
+            return new ScenarioRunResult( packageName,
+                                          name,
+                                          elapsed( startTime ),
+                                          failures,
+                                          null );
+
+        } catch ( Exception e ) {
+            return new ScenarioRunResult( packageName,
+                                          name,
+                                          elapsed( startTime ),
+                                          null,
+                                          e );
+        } finally {
+            if ( ksession != null ) {
+                ksession.dispose();
+            }
+        }
+    }
+
+    private boolean report( final List<ScenarioRunResult> results,
+                            final long runTime ) {
+        final Map<String, List<ScenarioRunResult>> suites = new TreeMap<String, List<ScenarioRunResult>>();
+        final TimingHistogram histogram = new TimingHistogram();
+        int failureCount = 0;
+        for ( ScenarioRunResult result : results ) {
+            List<ScenarioRunResult> suite = suites.get( result.getPackageName() );
+            if ( suite == null ) {
+                suite = new ArrayList<ScenarioRunResult>();
+                suites.put( result.getPackageName(),
+                            suite );
+            }
+            suite.add( result );
+            histogram.add( result.getRunTime() );
+            if ( !result.wasSuccessful() ) {
+                failureCount++;
+                out.println( "FAILED: " + result.getPackageName() + "." + result.getName() );
+            }
+        }
+
+        try {
+            for ( Map.Entry<String, List<ScenarioRunResult>> e : suites.entrySet() ) {
+                new JUnitXmlReport( e.getKey(),
+                                    e.getValue() ).write( config.getReportsDir() );
+            }
+        } catch ( IOException e ) {
+            throw new IllegalStateException( "Unable to write reports to " + config.getReportsDir().getAbsolutePath(),
+                                             e );
+        }
+
+        out.println( results.size() + " scenario(s) ran in " + runTime + " ms; " + failureCount + " failed." );
+        histogram.print( out );
+        return failureCount == 0;
+    }
+
+    private KieSession newKieSession( final KieContainer kieContainer,
+                                      final String ksessionName ) {
+        if ( ksessionName == null || ksessionName.equals( DEFAULT_KIE_SESSION ) ) {
+            final KieSessionConfiguration conf = KieServices.Factory.get().newKieSessionConfiguration();
+            conf.setOption( ClockTypeOption.get( "pseudo" ) );
+            return kieContainer.newKieSession( conf );
+        }
+        return kieContainer.newKieSession( ksessionName );
+    }
+
+    //Scenarios are stored alongside the Project's resources, so their folder gives their package
+    private String getPackageName( final File scenarioFile ) {
+        final String projectPath = config.getProjectDir().getAbsoluteFile().toURI().getPath();
+        String path = scenarioFile.getAbsoluteFile().getParentFile().toURI().getPath();
+        path = ( path.startsWith( projectPath ) ? path.substring( projectPath.length() ) : path );
+        for ( String resourceFolder : RESOURCE_FOLDERS ) {
+            if ( path.startsWith( resourceFolder ) ) {
+                path = path.substring( resourceFolder.length() );
+                break;
+            }
+        }
+        if ( path.endsWith( "/" ) ) {
+            path = path.substring( 0, path.length() - 1 );
+        }
+        return ( path.isEmpty() ? "default" : path.replace( '/', '.' ) );
+    }
+
+    private void findScenarioFiles( final File dir,
+                                    final List<File> scenarioFiles ) {
+        final File[] files = dir.listFiles();
+        if ( files == null ) {
+            return;
+        }
+        Arrays.sort( files );
+        for ( File file : files ) {
+            if ( file.isDirectory() ) {
+                if ( !IGNORED_FOLDERS.contains( file.getName() ) ) {
+                    findScenarioFiles( file,
+                                       scenarioFiles );
+                }
+            } else if ( file.getName().endsWith( SCENARIO_EXTENSION ) ) {
+                scenarioFiles.add( file );
+            }
+        }
+    }
+
+    private String readFile( final File file ) throws IOException {
+        final InputStream is = new FileInputStream( file );
+        try {
+            final Reader reader = new InputStreamReader( is,
+                                                         "UTF-8" );
+            final StringBuilder sb = new StringBuilder();
+            final char[] buffer = new char[ 4096 ];
+            int length;
+            while ( ( length = reader.read( buffer ) ) != -1 ) {
+                sb.append( buffer,
+                           0,
+                           length );
+            }
+            return sb.toString();
+        } finally {
+            is.close();
+        }
+    }
+
+    private long elapsed( final long startNanos ) {
+        return TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - startNanos );
+    }
+
+}
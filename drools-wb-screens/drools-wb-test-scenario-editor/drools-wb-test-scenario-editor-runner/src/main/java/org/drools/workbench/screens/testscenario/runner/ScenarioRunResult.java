@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.testscenario.runner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.runner.notification.Failure;
+
+/**
+ * Result of running a single Test Scenario file.
+ */
+public class ScenarioRunResult {
+
+    private final String packageName;
+    private final String name;
+    private final long runTime;
+    private final List<Failure> failures;
+    private final Throwable error;
+
+    public ScenarioRunResult( final String packageName,
+                              final String name,
+                              final long runTime,
+                              final List<Failure> failures,
+                              final Throwable error ) {
+        this.packageName = packageName;
+        this.name = name;
+        this.runTime = runTime;
+        this.failures = ( failures == null ? new ArrayList<Failure>() : failures );
+        this.error = error;
+    }
+
+    /**
+     * @return Package of the Scenario, derived from its folder
+     */
+    public String getPackageName() {
+        return packageName;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Time taken to load and run the Scenario, in milliseconds
+     */
+    public long getRunTime() {
+        return runTime;
+    }
+
+    public List<Failure> getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return The error that prevented the Scenario from running, or null if it ran
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    public boolean wasSuccessful() {
+        return error == null && failures.isEmpty();
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.testscenario.runner;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.cli.BasicParser;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+public class ScenarioRunnerConfig {
+
+    public static final String formatstr = "runScenarios  [options...]";
+
+    private File projectDir;
+    private File reportsDir;
+    private int threads;
+    private int maxRuleFirings;
+
+    public File getProjectDir() {
+        return projectDir;
+    }
+
+    public File getReportsDir() {
+        return reportsDir;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getMaxRuleFirings() {
+        return maxRuleFirings;
+    }
+
+    // ************************************************************************
+    // Configuration methods
+    // ************************************************************************
+
+    public boolean parseArgs( String[] args ) {
+        Options options = new Options();
+        options.addOption( "h", "help", false, "help for the command." );
+        options.addOption( "p", "projectDir", true, "The Project's directory, in a clone of the Workbench repository" );
+        options.addOption( "o", "reportsDir", true, "The directory for the JUnit XML reports" );
+        options.addOption( "t", "threads", true, "The number of Scenarios run in parallel" );
+        options.addOption( "m", "maxRuleFirings", true, "The maximum number of rules fired by each Scenario; 0 for no limit" );
+
+        CommandLine commandLine;
+        HelpFormatter formatter = new HelpFormatter();
+        try {
+            commandLine = new BasicParser().parse( options, args );
+        } catch ( ParseException e ) {
+            formatter.printHelp( formatstr, options );
+            return false;
+        }
+
+        if ( commandLine.hasOption( "h" ) ) {
+            formatter.printHelp( formatstr, options );
+            return false;
+        }
+
+        return ( parseArgProjectDir( commandLine ) && parseArgReportsDir( commandLine ) && parseArgNumbers( commandLine ) );
+    }
+
+    private boolean parseArgProjectDir( CommandLine commandLine ) {
+        projectDir = new File( commandLine.getOptionValue( "p", "." ) );
+        if ( !projectDir.isDirectory() ) {
+            System.out.println( "The project directory specified (" + projectDir.getAbsolutePath() + ") is not a directory." );
+            return false;
+        }
+        return true;
+    }
+
+    private boolean parseArgReportsDir( CommandLine commandLine ) {
+        reportsDir = new File( commandLine.getOptionValue( "o", "scenario-reports" ) );
+        try {
+            reportsDir = reportsDir.getCanonicalFile();
+        } catch ( IOException e ) {
+            System.out.println( "The reports directory (" + reportsDir + ") has issues: " + e );
+            return false;
+        }
+        if ( !reportsDir.isDirectory() && !reportsDir.mkdirs() ) {
+            System.out.println( "The reports directory (" + reportsDir.getAbsolutePath() + ") could not be created." );
+            return false;
+        }
+        return true;
+    }
+
+    private boolean parseArgNumbers( CommandLine commandLine ) {
+        try {
+            threads = Integer.parseInt( commandLine.getOptionValue( "t", String.valueOf( Runtime.getRuntime().availableProcessors() ) ) );
+            maxRuleFirings = Integer.parseInt( commandLine.getOptionValue( "m", "0" ) );
+        } catch ( NumberFormatException e ) {
+            System.out.println( "The number of threads and maximum rule firings must be integers: " + e.getMessage() );
+            return false;
+        }
+        if ( threads < 1 || maxRuleFirings < 0 ) {
+            System.out.println( "The number of threads must be at least 1 and the maximum rule firings cannot be negative." );
+            return false;
+        }
+        return true;
+    }
+
+}
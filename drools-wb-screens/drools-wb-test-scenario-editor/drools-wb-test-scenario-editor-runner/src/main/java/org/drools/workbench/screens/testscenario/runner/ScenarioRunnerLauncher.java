@@ -0,0 +1,52 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.testscenario.runner;
+
+/**
+ * Runs the Test Scenarios in a Project checked out of the Workbench's repository, without the Workbench.
+ */
+public class ScenarioRunnerLauncher {
+
+    /**
+     * This method should not be called directly from Java code as it uses System.exit() which may cause problems
+     * (e.g for surefire). Use 'new ScenarioRunnerLauncher().run(String... args)' when using this class directly.
+     * The exit status is 0 if all Scenarios passed, 1 if any failed and -1 if the Scenarios could not be run.
+     * @param args application arguments, never null
+     */
+    public static void main( String... args ) {
+        try {
+            System.exit( new ScenarioRunnerLauncher().run( args ) ? 0 : 1 );
+        } catch ( Exception e ) {
+            e.printStackTrace();
+            System.exit( -1 );
+        }
+    }
+
+    /**
+     * Use this method instead of #main() when you want to use the app directly from code. Method does not use System.exit()
+     * and instead throws {@link RuntimeException} when an error occurs.
+     * @param args application arguments - same as for #main() method
+     * @return true if all Scenarios passed
+     */
+    public boolean run( String... args ) {
+        final ScenarioRunnerConfig config = new ScenarioRunnerConfig();
+        if ( !config.parseArgs( args ) ) {
+            throw new IllegalArgumentException( "Invalid arguments." );
+        }
+        return new ScenarioBatchRunner( config ).runAll();
+    }
+}
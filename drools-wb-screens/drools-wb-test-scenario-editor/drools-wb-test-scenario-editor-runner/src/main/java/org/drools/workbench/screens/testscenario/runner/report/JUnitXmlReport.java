@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.testscenario.runner.report;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Locale;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.drools.workbench.screens.testscenario.runner.ScenarioRunResult;
+import org.junit.runner.notification.Failure;
+
+/**
+ * Writes the results of a package's Test Scenarios in the JUnit XML format used by Surefire, which build servers
+ * understand. Each Scenario is a test case.
+ */
+public class JUnitXmlReport {
+
+    private final String suiteName;
+    private final List<ScenarioRunResult> results;
+
+    public JUnitXmlReport( final String suiteName,
+                           final List<ScenarioRunResult> results ) {
+        this.suiteName = suiteName;
+        this.results = results;
+    }
+
+    /**
+     * Write the report to TEST-[suite name].xml
+     * @param reportsDir
+     * @return The report file
+     * @throws IOException
+     */
+    public File write( final File reportsDir ) throws IOException {
+        final File file = new File( reportsDir,
+                                    "TEST-" + suiteName + ".xml" );
+        final OutputStream os = new FileOutputStream( file );
+        try {
+            write( os );
+        } finally {
+            os.close();
+        }
+        return file;
+    }
+
+    public void write( final OutputStream os ) throws IOException {
+        int failures = 0;
+        int errors = 0;
+        long time = 0;
+        for ( ScenarioRunResult result : results ) {
+            if ( result.getError() != null ) {
+                errors++;
+            } else if ( !result.getFailures().isEmpty() ) {
+                failures++;
+            }
+            time = time + result.getRunTime();
+        }
+
+        try {
+            final XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter( os,
+                                                                                                "UTF-8" );
+            writer.writeStartDocument( "UTF-8",
+                                       "1.0" );
+            writer.writeStartElement( "testsuite" );
+            writer.writeAttribute( "name",
+                                   suiteName );
+            writer.writeAttribute( "tests",
+                                   String.valueOf( results.size() ) );
+            writer.writeAttribute( "failures",
+                                   String.valueOf( failures ) );
+            writer.writeAttribute( "errors",
+                                   String.valueOf( errors ) );
+            writer.writeAttribute( "skipped",
+                                   "0" );
+            writer.writeAttribute( "time",
+                                   seconds( time ) );
+
+            for ( ScenarioRunResult result : results ) {
+                writer.writeStartElement( "testcase" );
+                writer.writeAttribute( "classname",
+                                       suiteName );
+                writer.writeAttribute( "name",
+                                       result.getName() );
+                writer.writeAttribute( "time",
+                                       seconds( result.getRunTime() ) );
+                if ( result.getError() != null ) {
+                    writeProblem( writer,
+                                  "error",
+                                  result.getError() );
+                } else {
+                    for ( Failure failure : result.getFailures() ) {
+                        writeProblem( writer,
+                                      "failure",
+                                      failure.getException() );
+                    }
+                }
+                writer.writeEndElement();
+            }
+
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+
+        } catch ( XMLStreamException e ) {
+            throw new IOException( "Unable to write report for " + suiteName + ": " + e.getMessage() );
+        }
+    }
+
+    private void writeProblem( final XMLStreamWriter writer,
+                               final String elementName,
+                               final Throwable throwable ) throws XMLStreamException {
+        writer.writeStartElement( elementName );
+        if ( throwable != null ) {
+            if ( throwable.getMessage() != null ) {
+                writer.writeAttribute( "message",
+                                       throwable.getMessage() );
+            }
+            writer.writeAttribute( "type",
+                                   throwable.getClass().getName() );
+            final StringWriter trace = new StringWriter();
+            throwable.printStackTrace( new PrintWriter( trace ) );
+            writer.writeCharacters( trace.toString() );
+        }
+        writer.writeEndElement();
+    }
+
+    private String seconds( final long millis ) {
+        return String.format( Locale.ENGLISH,
+                              "%.3f",
+                              millis / 1000.0 );
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.testscenario.runner.report;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Histogram of Test Scenario run times, with percentiles, to show where the time in a suite goes.
+ */
+public class TimingHistogram {
+
+    //Upper bounds of the buckets, in milliseconds; the last bucket holds everything slower
+    static final long[] BUCKETS = new long[]{ 10, 50, 100, 250, 500, 1000, 2500, 5000, 10000 };
+
+    private static final int BAR_WIDTH = 40;
+
+    private final int[] counts = new int[ BUCKETS.length + 1 ];
+    private long[] times = new long[ 16 ];
+    private int size = 0;
+
+    public synchronized void add( final long millis ) {
+        int bucket = 0;
+        while ( bucket < BUCKETS.length && millis > BUCKETS[ bucket ] ) {
+            bucket++;
+        }
+        counts[ bucket ]++;
+
+        if ( size == times.length ) {
+            times = Arrays.copyOf( times,
+                                   size * 2 );
+        }
+        times[ size++ ] = millis;
+    }
+
+    public synchronized int getCount() {
+        return size;
+    }
+
+    public synchronized int getBucketCount( final int bucket ) {
+        return counts[ bucket ];
+    }
+
+    /**
+     * @param percentile Between 0 and 100
+     * @return The run time at the given percentile, in milliseconds; 0 if there are no run times
+     */
+    public synchronized long getPercentile( final double percentile ) {
+        if ( size == 0 ) {
+            return 0;
+        }
+        final long[] sorted = Arrays.copyOf( times,
+                                             size );
+        Arrays.sort( sorted );
+        final int index = (int) Math.ceil( percentile / 100.0 * size ) - 1;
+        return sorted[ Math.max( 0,
+                                 Math.min( size - 1,
+                                           index ) ) ];
+    }
+
+    public synchronized void print( final PrintStream out ) {
+        int max = 1;
+        for ( int count : counts ) {
+            max = Math.max( max,
+                            count );
+        }
+        for ( int bucket = 0; bucket < counts.length; bucket++ ) {
+            final String label = ( bucket < BUCKETS.length ? "<= " + BUCKETS[ bucket ] : "> " + BUCKETS[ BUCKETS.length - 1 ] ) + " ms";
+            final StringBuilder bar = new StringBuilder();
+            for ( int i = 0; i < counts[ bucket ] * BAR_WIDTH / max; i++ ) {
+                bar.append( '#' );
+            }
+            out.println( String.format( "%12s | %6d | %s",
+                                        label,
+                                        counts[ bucket ],
+                                        bar ) );
+        }
+        out.println( "min " + getPercentile( 0 ) + " ms, median " + getPercentile( 50 ) + " ms, 90th " + getPercentile( 90 )
+                             + " ms, 99th " + getPercentile( 99 ) + " ms, max " + getPercentile( 100 ) + " ms" );
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.testscenario.runner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import org.drools.workbench.models.testscenarios.backend.util.ScenarioXMLPersistence;
+import org.drools.workbench.models.testscenarios.shared.ExecutionTrace;
+import org.drools.workbench.models.testscenarios.shared.Scenario;
+import org.drools.workbench.models.testscenarios.shared.VerifyRuleFired;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ScenarioBatchRunnerTest {
+
+    private File projectDir;
+    private File reportsDir;
+
+    @Before
+    public void setUp() throws Exception {
+        projectDir = File.createTempFile( "scenario-project",
+                                          "" );
+        projectDir.delete();
+        projectDir.mkdirs();
+        reportsDir = new File( projectDir,
+                               "target/reports" );
+
+        write( "pom.xml",
+               "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n" +
+                       "  <modelVersion>4.0.0</modelVersion>\n" +
+                       "  <groupId>org.test</groupId>\n" +
+                       "  <artifactId>scenarios</artifactId>\n" +
+                       "  <version>1.0</version>\n" +
+                       "</project>\n" );
+        write( "src/main/resources/META-INF/kmodule.xml",
+               "<kmodule xmlns=\"http://jboss.org/kie/6.0.0/kmodule\"/>\n" );
+        write( "src/main/resources/org/test/rules.drl",
+               "package org.test\n" +
+                       "rule \"always\"\n" +
+                       "when\n" +
+                       "then\n" +
+                       "end\n" );
+        write( "src/test/resources/org/test/pass.scenario",
+               scenario( "always" ) );
+        write( "src/test/resources/org/test/fail.scenario",
+               scenario( "never" ) );
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        delete( projectDir );
+    }
+
+    @Test
+    public void testRunAll() throws Exception {
+        final ScenarioRunnerConfig config = new ScenarioRunnerConfig();
+        assertTrue( config.parseArgs( new String[]{ "-p", projectDir.getAbsolutePath(), "-o", reportsDir.getAbsolutePath(), "-t", "2" } ) );
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final boolean passed = new ScenarioBatchRunner( config,
+                                                        new PrintStream( out,
+                                                                         true,
+                                                                         "UTF-8" ) ).runAll();
+        final String output = out.toString( "UTF-8" );
+
+        assertFalse( passed );
+        assertTrue( output.contains( "2 scenario(s) ran in" ) );
+        assertTrue( output.contains( "1 failed." ) );
+        assertTrue( output.contains( "FAILED: org.test.fail.scenario" ) );
+        assertFalse( output.contains( "FAILED: org.test.pass.scenario" ) );
+        assertTrue( new File( reportsDir,
+                              "TEST-org.test.xml" ).isFile() );
+    }
+
+    private String scenario( final String ruleName ) {
+        final Scenario scenario = new Scenario();
+        scenario.setPackageName( "org.test" );
+        scenario.getFixtures().add( new ExecutionTrace() );
+        scenario.getFixtures().add( new VerifyRuleFired( ruleName,
+                                                         1,
+                                                         true ) );
+        return ScenarioXMLPersistence.getInstance().marshal( scenario );
+    }
+
+    private void write( final String path,
+                        final String content ) throws IOException {
+        final File file = new File( projectDir,
+                                    path );
+        file.getParentFile().mkdirs();
+        final OutputStream os = new FileOutputStream( file );
+        try {
+            os.write( content.getBytes( "UTF-8" ) );
+        } finally {
+            os.close();
+        }
+    }
+
+    private void delete( final File file ) {
+        final File[] files = file.listFiles();
+        if ( files != null ) {
+            for ( File child : files ) {
+                delete( child );
+            }
+        }
+        file.delete();
+    }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.testscenario.runner.report;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.drools.workbench.screens.testscenario.runner.ScenarioRunResult;
+import org.junit.Test;
+import org.junit.runner.Description;
+import org.junit.runner.notification.Failure;
+
+import static org.junit.Assert.*;
+
+public class JUnitXmlReportTest {
+
+    @Test
+    public void testReport() throws Exception {
+        List<ScenarioRunResult> results = new ArrayList<ScenarioRunResult>();
+        results.add( new ScenarioRunResult( "org.test",
+                                            "pass.scenario",
+                                            1500,
+                                            null,
+                                            null ) );
+        results.add( new ScenarioRunResult( "org.test",
+                                            "fail.scenario",
+                                            20,
+                                            Collections.singletonList( new Failure( Description.createTestDescription( JUnitXmlReportTest.class,
+                                                                                                                       "fail.scenario" ),
+                                                                                    new AssertionError( "Expected <1>" ) ) ),
+                                            null ) );
+        results.add( new ScenarioRunResult( "org.test",
+                                            "broken.scenario",
+                                            1,
+                                            null,
+                                            new IllegalStateException( "Unknown fact" ) ) );
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new JUnitXmlReport( "org.test",
+                            results ).write( os );
+        String xml = os.toString( "UTF-8" );
+
+        assertTrue( xml.contains( "<testsuite name=\"org.test\" tests=\"3\" failures=\"1\" errors=\"1\" skipped=\"0\" time=\"1.521\">" ) );
+        assertTrue( xml.contains( "<testcase classname=\"org.test\" name=\"pass.scenario\" time=\"1.500\"></testcase>" ) );
+        assertTrue( xml.contains( "<failure message=\"Expected &lt;1&gt;\" type=\"java.lang.AssertionError\">" ) );
+        assertTrue( xml.contains( "<error message=\"Unknown fact\" type=\"java.lang.IllegalStateException\">" ) );
+    }
+
+}
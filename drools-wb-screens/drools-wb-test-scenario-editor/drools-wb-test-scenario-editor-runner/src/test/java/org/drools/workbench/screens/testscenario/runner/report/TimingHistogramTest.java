@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.workbench.screens.testscenario.runner.report;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TimingHistogramTest {
+
+    @Test
+    public void testBuckets() throws Exception {
+        TimingHistogram histogram = new TimingHistogram();
+        histogram.add( 5 );
+        histogram.add( 10 );
+        histogram.add( 11 );
+        histogram.add( 20000 );
+
+        assertEquals( 4, histogram.getCount() );
+        assertEquals( 2, histogram.getBucketCount( 0 ) );
+        assertEquals( 1, histogram.getBucketCount( 1 ) );
+        assertEquals( 1, histogram.getBucketCount( TimingHistogram.BUCKETS.length ) );
+    }
+
+    @Test
+    public void testPercentiles() throws Exception {
+        TimingHistogram histogram = new TimingHistogram();
+        assertEquals( 0, histogram.getPercentile( 50 ) );
+
+        for ( int i = 100; i > 0; i-- ) {
+            histogram.add( i );
+        }
+
+        assertEquals( 1, histogram.getPercentile( 0 ) );
+        assertEquals( 50, histogram.getPercentile( 50 ) );
+        assertEquals( 90, histogram.getPercentile( 90 ) );
+        assertEquals( 100, histogram.getPercentile( 100 ) );
+    }
+
+}
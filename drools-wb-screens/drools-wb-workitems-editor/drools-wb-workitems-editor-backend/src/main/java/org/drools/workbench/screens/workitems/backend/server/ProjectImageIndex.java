@@ -0,0 +1,247 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.drools.workbench.screens.workitems.backend.server;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.guvnor.common.services.backend.file.FileDiscoveryService;
+import org.guvnor.common.services.backend.file.FileExtensionsFilter;
+import org.uberfire.backend.server.util.Paths;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.workbench.events.ResourceAddedEvent;
+import org.uberfire.workbench.events.ResourceBatchChangesEvent;
+import org.uberfire.workbench.events.ResourceChange;
+import org.uberfire.workbench.events.ResourceChangeType;
+import org.uberfire.workbench.events.ResourceDeletedEvent;
+import org.uberfire.workbench.events.ResourceRenamed;
+import org.uberfire.workbench.events.ResourceRenamedEvent;
+
+/**
+ * Project-level index of the images available to Work Item Definitions. A Project's images are discovered when
+ * the Project is first queried; thereafter the index is kept up to date from resource change events, rather than
+ * by scanning the Project again. Changes seen whilst a Project is being scanned are applied over the scan's result.
+ * Entries are evicted when the Project's folder, or a folder containing it, is deleted or renamed.
+ */
+@ApplicationScoped
+public class ProjectImageIndex {
+
+    private static final FileExtensionsFilter FILTER_IMAGES = new FileExtensionsFilter( new String[]{ "png", "gif", "jpg" } );
+
+    private final ConcurrentMap<Path, ProjectImages> index = new ConcurrentHashMap<Path, ProjectImages>();
+
+    @Inject
+    private FileDiscoveryService fileDiscoveryService;
+
+    /**
+     * Returns the images within the Project
+     * @param projectRoot
+     * @return
+     */
+    public Collection<Path> getImages( final org.uberfire.backend.vfs.Path projectRoot ) {
+        final Path nioProjectRoot = Paths.convert( projectRoot );
+
+        while ( true ) {
+            final ProjectImages images = index.get( nioProjectRoot );
+            if ( images == null ) {
+                final ProjectImages newImages = new ProjectImages();
+                if ( index.putIfAbsent( nioProjectRoot,
+                                        newImages ) == null ) {
+                    return discover( nioProjectRoot,
+                                     newImages );
+                }
+                continue;
+            }
+            //Another thread may be scanning the Project; retry if its scan failed
+            final List<Path> result = images.awaitImages();
+            if ( result != null ) {
+                return result;
+            }
+        }
+    }
+
+    //The entry is in the index whilst scanning, so that resource changes made during the scan are not lost
+    private List<Path> discover( final Path nioProjectRoot,
+                                 final ProjectImages images ) {
+        try {
+            images.discovered( fileDiscoveryService.discoverFiles( nioProjectRoot,
+                                                                   FILTER_IMAGES,
+                                                                   true ) );
+        } catch ( RuntimeException e ) {
+            index.remove( nioProjectRoot,
+                          images );
+            images.failed();
+            throw e;
+        }
+        return images.awaitImages();
+    }
+
+    public void onResourceAdded( @Observes final ResourceAddedEvent event ) {
+        add( event.getPath() );
+    }
+
+    public void onResourceDeleted( @Observes final ResourceDeletedEvent event ) {
+        remove( event.getPath() );
+    }
+
+    public void onResourceRenamed( @Observes final ResourceRenamedEvent event ) {
+        remove( event.getPath() );
+        add( event.getDestinationPath() );
+    }
+
+    public void onBatchResourceChanges( @Observes final ResourceBatchChangesEvent event ) {
+        for ( Map.Entry<org.uberfire.backend.vfs.Path, Collection<ResourceChange>> e : event.getBatch().entrySet() ) {
+            for ( ResourceChange change : e.getValue() ) {
+                if ( change.getType() == ResourceChangeType.ADD ) {
+                    add( e.getKey() );
+                } else if ( change.getType() == ResourceChangeType.DELETE ) {
+                    remove( e.getKey() );
+                } else if ( change.getType() == ResourceChangeType.RENAME ) {
+                    remove( e.getKey() );
+                    if ( change instanceof ResourceRenamed ) {
+                        add( ( (ResourceRenamed) change ).getDestinationPath() );
+                    }
+                }
+            }
+        }
+    }
+
+    void add( final org.uberfire.backend.vfs.Path path ) {
+        if ( path == null ) {
+            return;
+        }
+        final Path nioPath = Paths.convert( path );
+        final ProjectImages images = getProjectImages( nioPath );
+        if ( images != null ) {
+            images.add( nioPath );
+        }
+    }
+
+    void remove( final org.uberfire.backend.vfs.Path path ) {
+        if ( path == null ) {
+            return;
+        }
+        final Path nioPath = Paths.convert( path );
+        if ( !FILTER_IMAGES.accept( nioPath ) ) {
+            evict( nioPath );
+            return;
+        }
+        final ProjectImages images = getProjectImages( nioPath );
+        if ( images != null ) {
+            images.remove( nioPath );
+        }
+    }
+
+    //A folder was removed; drop the Projects it contained, which are scanned again if they are re-created
+    private void evict( final Path nioPath ) {
+        final Iterator<Path> itr = index.keySet().iterator();
+        while ( itr.hasNext() ) {
+            if ( itr.next().startsWith( nioPath ) ) {
+                itr.remove();
+            }
+        }
+    }
+
+    //Images of the indexed Project containing the image at the Path; null if the Path is not an image or not indexed
+    private ProjectImages getProjectImages( final Path nioPath ) {
+        if ( !FILTER_IMAGES.accept( nioPath ) ) {
+            return null;
+        }
+        for ( Map.Entry<Path, ProjectImages> e : index.entrySet() ) {
+            if ( nioPath.startsWith( e.getKey() ) ) {
+                return e.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static class ProjectImages {
+
+        private final Set<Path> images = new HashSet<Path>();
+
+        //Changes seen whilst the Project is being scanned, in order; null once the scan has completed
+        private Map<Path, Boolean> pendingChanges = new LinkedHashMap<Path, Boolean>();
+
+        private boolean failed = false;
+
+        synchronized void add( final Path path ) {
+            if ( pendingChanges != null ) {
+                pendingChanges.remove( path );
+                pendingChanges.put( path,
+                                    Boolean.TRUE );
+            } else {
+                images.add( path );
+            }
+        }
+
+        synchronized void remove( final Path path ) {
+            if ( pendingChanges != null ) {
+                pendingChanges.remove( path );
+                pendingChanges.put( path,
+                                    Boolean.FALSE );
+            } else {
+                images.remove( path );
+            }
+        }
+
+        synchronized void discovered( final Collection<Path> discoveredImages ) {
+            images.addAll( discoveredImages );
+            for ( Map.Entry<Path, Boolean> e : pendingChanges.entrySet() ) {
+                if ( e.getValue() ) {
+                    images.add( e.getKey() );
+                } else {
+                    images.remove( e.getKey() );
+                }
+            }
+            pendingChanges = null;
+            notifyAll();
+        }
+
+        synchronized void failed() {
+            failed = true;
+            notifyAll();
+        }
+
+        //Returns a copy of the images once the scan has completed, or null if the scan failed
+        synchronized List<Path> awaitImages() {
+            boolean interrupted = false;
+            while ( pendingChanges != null && !failed ) {
+                try {
+                    wait();
+                } catch ( InterruptedException e ) {
+                    interrupted = true;
+                }
+            }
+            if ( interrupted ) {
+                Thread.currentThread().interrupt();
+            }
+            return ( failed ? null : new ArrayList<Path>( images ) );
+        }
+
+    }
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.drools.workbench.screens.workitems.backend.server;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.drools.core.process.core.ParameterDefinition;
+import org.drools.core.process.core.WorkDefinition;
+import org.drools.core.process.core.datatype.DataType;
+import org.drools.core.process.core.datatype.impl.type.BooleanDataType;
+import org.drools.core.process.core.datatype.impl.type.FloatDataType;
+import org.drools.core.process.core.datatype.impl.type.IntegerDataType;
+import org.drools.core.process.core.datatype.impl.type.ObjectDataType;
+import org.drools.core.process.core.datatype.impl.type.StringDataType;
+import org.drools.workbench.models.datamodel.workitems.PortableBooleanParameterDefinition;
+import org.drools.workbench.models.datamodel.workitems.PortableFloatParameterDefinition;
+import org.drools.workbench.models.datamodel.workitems.PortableIntegerParameterDefinition;
+import org.drools.workbench.models.datamodel.workitems.PortableObjectParameterDefinition;
+import org.drools.workbench.models.datamodel.workitems.PortableParameterDefinition;
+import org.drools.workbench.models.datamodel.workitems.PortableStringParameterDefinition;
+import org.drools.workbench.models.datamodel.workitems.PortableWorkDefinition;
+import org.guvnor.common.services.backend.file.FileExtensionFilter;
+import org.guvnor.structure.config.SystemRepositoryChangedEvent;
+import org.jbpm.process.workitem.WorkDefinitionImpl;
+import org.kie.workbench.common.services.shared.project.KieProjectService;
+import org.uberfire.backend.server.util.Paths;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.workbench.events.ResourceAddedEvent;
+import org.uberfire.workbench.events.ResourceBatchChangesEvent;
+import org.uberfire.workbench.events.ResourceDeletedEvent;
+import org.uberfire.workbench.events.ResourceRenamedEvent;
+import org.uberfire.workbench.events.ResourceUpdatedEvent;
+
+/**
+ * Project-level cache of Work Item Definitions, from the Project's WID files and the configuration. Entries are
+ * keyed on the Project's root and are invalidated when a WID file within the Project changes. All entries are
+ * invalidated when the configuration changes.
+ */
+@ApplicationScoped
+public class WorkDefinitionsCache {
+
+    private static final FileExtensionFilter FILTER_WIDS = new FileExtensionFilter( ".wid" );
+
+    private final ConcurrentMap<Path, Set<PortableWorkDefinition>> cache = new ConcurrentHashMap<Path, Set<PortableWorkDefinition>>();
+
+    //Incremented by every invalidation, so that definitions loaded whilst their files were changing are not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    @Inject
+    private ResourceWorkDefinitionsLoader resourceWorkDefinitionsLoader;
+
+    @Inject
+    private ConfigWorkDefinitionsLoader configWorkDefinitionsLoader;
+
+    @Inject
+    private KieProjectService projectService;
+
+    /**
+     * Returns the Work Item Definitions available to the Project containing the Path
+     * @param path
+     * @return
+     */
+    public Set<PortableWorkDefinition> getWorkDefinitions( final org.uberfire.backend.vfs.Path path ) {
+        final org.uberfire.backend.vfs.Path projectRoot = projectService.resolveProject( path ).getRootPath();
+        final Path nioProjectRoot = Paths.convert( projectRoot );
+
+        //Callers receive their own Set, as the content is sent to the client
+        return new HashSet<PortableWorkDefinition>( getCachedWorkDefinitions( projectRoot,
+                                                                              nioProjectRoot ) );
+    }
+
+    private Set<PortableWorkDefinition> getCachedWorkDefinitions( final org.uberfire.backend.vfs.Path projectRoot,
+                                                                  final Path nioProjectRoot ) {
+        final Set<PortableWorkDefinition> cachedWorkItems = cache.get( nioProjectRoot );
+        if ( cachedWorkItems != null ) {
+            return cachedWorkItems;
+        }
+
+        //An invalidation may happen whilst loading; if so the loaded definitions are returned but not kept
+        final long loadGeneration = generation.get();
+        final Set<PortableWorkDefinition> workItems = loadWorkDefinitions( projectRoot );
+        final Set<PortableWorkDefinition> existingWorkItems = cache.putIfAbsent( nioProjectRoot,
+                                                                                 workItems );
+        if ( existingWorkItems != null ) {
+            return existingWorkItems;
+        }
+        if ( generation.get() != loadGeneration ) {
+            cache.remove( nioProjectRoot,
+                          workItems );
+        }
+        return workItems;
+    }
+
+    public void onResourceAdded( @Observes final ResourceAddedEvent event ) {
+        invalidate( event.getPath() );
+    }
+
+    public void onResourceUpdated( @Observes final ResourceUpdatedEvent event ) {
+        invalidate( event.getPath() );
+    }
+
+    public void onResourceDeleted( @Observes final ResourceDeletedEvent event ) {
+        invalidate( event.getPath() );
+    }
+
+    public void onResourceRenamed( @Observes final ResourceRenamedEvent event ) {
+        invalidate( event.getPath() );
+        invalidate( event.getDestinationPath() );
+    }
+
+    public void onBatchResourceChanges( @Observes final ResourceBatchChangesEvent event ) {
+        for ( org.uberfire.backend.vfs.Path path : event.getBatch().keySet() ) {
+            invalidate( path );
+        }
+    }
+
+    public void onConfigurationChanged( @Observes final SystemRepositoryChangedEvent event ) {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    void invalidate( final org.uberfire.backend.vfs.Path path ) {
+        if ( path == null ) {
+            return;
+        }
+        final Path nioPath = Paths.convert( path );
+        if ( !FILTER_WIDS.accept( nioPath ) ) {
+            return;
+        }
+        generation.incrementAndGet();
+        final Iterator<Path> itr = cache.keySet().iterator();
+        while ( itr.hasNext() ) {
+            final Path projectRoot = itr.next();
+            if ( nioPath.startsWith( projectRoot ) ) {
+                itr.remove();
+            }
+        }
+    }
+
+    private Set<PortableWorkDefinition> loadWorkDefinitions( final org.uberfire.backend.vfs.Path projectRoot ) {
+        final Map<String, WorkDefinition> workDefinitions = new HashMap<String, WorkDefinition>();
+
+        //Load WorkItemDefinitions from VFS
+        workDefinitions.putAll( resourceWorkDefinitionsLoader.loadWorkDefinitions( projectRoot ) );
+
+        //Load WorkItemDefinitions from ConfigurationService
+        workDefinitions.putAll( configWorkDefinitionsLoader.loadWorkDefinitions() );
+
+        //Copy the Work Items into Structures suitable for GWT
+        final Set<PortableWorkDefinition> workItems = new HashSet<PortableWorkDefinition>();
+        for ( Map.Entry<String, WorkDefinition> entry : workDefinitions.entrySet() ) {
+            final PortableWorkDefinition wid = new PortableWorkDefinition();
+            final WorkDefinitionImpl wd = (WorkDefinitionImpl) entry.getValue();
+            wid.setName( wd.getName() );
+            wid.setDisplayName( wd.getDisplayName() );
+            wid.setParameters( convertWorkItemParameters( entry.getValue().getParameters() ) );
+            wid.setResults( convertWorkItemParameters( entry.getValue().getResults() ) );
+            workItems.add( wid );
+        }
+        return Collections.unmodifiableSet( workItems );
+    }
+
+    private Set<PortableParameterDefinition> convertWorkItemParameters( final Set<ParameterDefinition> parameters ) {
+        final Set<PortableParameterDefinition> pps = new HashSet<PortableParameterDefinition>();
+        for ( ParameterDefinition pd : parameters ) {
+            final DataType pdt = pd.getType();
+            PortableParameterDefinition ppd = null;
+            if ( pdt instanceof BooleanDataType ) {
+                ppd = new PortableBooleanParameterDefinition();
+            } else if ( pdt instanceof FloatDataType ) {
+                ppd = new PortableFloatParameterDefinition();
+            } else if ( pdt instanceof IntegerDataType ) {
+                ppd = new PortableIntegerParameterDefinition();
+            } else if ( pdt instanceof ObjectDataType ) {
+                ppd = new PortableObjectParameterDefinition();
+                final PortableObjectParameterDefinition oppd = (PortableObjectParameterDefinition) ppd;
+                final ObjectDataType odt = (ObjectDataType) pdt;
+                oppd.setClassName( odt.getClassName() );
+            } else if ( pd.getType() instanceof StringDataType ) {
+                ppd = new PortableStringParameterDefinition();
+            }
+            if ( ppd != null ) {
+                ppd.setName( pd.getName() );
+                pps.add( ppd );
+            }
+        }
+        return pps;
+    }
+
+}
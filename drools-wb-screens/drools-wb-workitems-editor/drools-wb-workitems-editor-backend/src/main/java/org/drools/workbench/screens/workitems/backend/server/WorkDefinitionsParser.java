@@ -17,8 +17,10 @@
 package org.drools.workbench.screens.workitems.backend.server;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -41,20 +43,50 @@ import org.mvel2.MVEL;
 import org.mvel2.ParserContext;
 
 /**
- * Class to load Work Definitions
+ * Class to load Work Definitions. The WorkDefinitions parsed from each definition are cached, keyed on the
+ * definition's content, so unchanged definitions are not compiled again. The least recently used are evicted.
  */
 public class WorkDefinitionsParser {
 
+    //Maximum number of definitions whose WorkDefinitions are cached
+    static final int MAX_CACHED_DEFINITIONS = 256;
+
+    private static final Map<String, Map<String, WorkDefinition>> CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<String, Map<String, WorkDefinition>>( 16,
+                                                                    0.75f,
+                                                                    true ) {
+                @Override
+                protected boolean removeEldestEntry( final Map.Entry<String, Map<String, WorkDefinition>> eldest ) {
+                    return size() > MAX_CACHED_DEFINITIONS;
+                }
+            } );
+
     /**
      * Parse a MVEL String into WorkDefinitions
      * @param workItemDefinitions
      * @return
      */
-    @SuppressWarnings({ "unchecked", "rawtypes" })
     public static Map<String, WorkDefinition> parse( final List<String> workItemDefinitions ) {
 
         final Map<String, WorkDefinition> workDefinitions = new HashMap<String, WorkDefinition>();
 
+        for ( String workItemDefinition : workItemDefinitions ) {
+            Map<String, WorkDefinition> parsed = CACHE.get( workItemDefinition );
+            if ( parsed == null ) {
+                parsed = Collections.unmodifiableMap( parse( workItemDefinition ) );
+                CACHE.put( workItemDefinition,
+                           parsed );
+            }
+            workDefinitions.putAll( parsed );
+        }
+        return workDefinitions;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Map<String, WorkDefinition> parse( final String workItemDefinition ) {
+
+        final Map<String, WorkDefinition> workDefinitions = new HashMap<String, WorkDefinition>();
+
         //Add Data-type imports, in-case they are missing from definition
         final ParserContext context = new ParserContext();
         context.addImport( "ObjectDataType",
@@ -75,56 +107,53 @@ public class WorkDefinitionsParser {
                            UndefinedDataType.class );
 
         //Compile expression and convert String
-        for ( String workItemDefinition : workItemDefinitions ) {
+        final Serializable compiled = MVEL.compileExpression( workItemDefinition,
+                                                              context );
+        final Object result = MVELSafeHelper.getEvaluator().executeExpression( compiled,
+                                                                               new HashMap() );
+        final List<Map<String, Object>> workDefinitionsMap = (List<Map<String, Object>>) result;
+
+        //Populate model
+        if ( workDefinitionsMap != null ) {
+            for ( Map<String, Object> workDefinitionMap : workDefinitionsMap ) {
 
-            final Serializable compiled = MVEL.compileExpression( workItemDefinition,
-                                                                  context );
-            final Object result = MVELSafeHelper.getEvaluator().executeExpression( compiled,
-                                                                                   new HashMap() );
-            final List<Map<String, Object>> workDefinitionsMap = (List<Map<String, Object>>) result;
-
-            //Populate model
-            if ( workDefinitionsMap != null ) {
-                for ( Map<String, Object> workDefinitionMap : workDefinitionsMap ) {
-
-                    if ( workDefinitionMap != null ) {
-                        final WorkDefinitionImpl workDefinition = new WorkDefinitionImpl();
-                        workDefinition.setName( (String) workDefinitionMap.get( "name" ) );
-                        workDefinition.setDisplayName( (String) workDefinitionMap.get( "displayName" ) );
-                        workDefinition.setIcon( (String) workDefinitionMap.get( "icon" ) );
-                        workDefinition.setCustomEditor( (String) workDefinitionMap.get( "customEditor" ) );
-                        final Set<ParameterDefinition> parameters = new HashSet<ParameterDefinition>();
-                        if ( workDefinitionMap.get( "parameters" ) != null ) {
-                            final Map<String, DataType> parameterMap = (Map<String, DataType>) workDefinitionMap.get( "parameters" );
-                            if ( parameterMap != null ) {
-                                for ( Map.Entry<String, DataType> entry : parameterMap.entrySet() ) {
-                                    parameters.add( new ParameterDefinitionImpl( entry.getKey(),
-                                                                                 entry.getValue() ) );
-                                }
+                if ( workDefinitionMap != null ) {
+                    final WorkDefinitionImpl workDefinition = new WorkDefinitionImpl();
+                    workDefinition.setName( (String) workDefinitionMap.get( "name" ) );
+                    workDefinition.setDisplayName( (String) workDefinitionMap.get( "displayName" ) );
+                    workDefinition.setIcon( (String) workDefinitionMap.get( "icon" ) );
+                    workDefinition.setCustomEditor( (String) workDefinitionMap.get( "customEditor" ) );
+                    final Set<ParameterDefinition> parameters = new HashSet<ParameterDefinition>();
+                    if ( workDefinitionMap.get( "parameters" ) != null ) {
+                        final Map<String, DataType> parameterMap = (Map<String, DataType>) workDefinitionMap.get( "parameters" );
+                        if ( parameterMap != null ) {
+                            for ( Map.Entry<String, DataType> entry : parameterMap.entrySet() ) {
+                                parameters.add( new ParameterDefinitionImpl( entry.getKey(),
+                                                                             entry.getValue() ) );
                             }
-                            workDefinition.setParameters( parameters );
                         }
+                        workDefinition.setParameters( parameters );
+                    }
 
-                        if ( workDefinitionMap.get( "results" ) != null ) {
-                            final Set<ParameterDefinition> results = new HashSet<ParameterDefinition>();
-                            final Map<String, DataType> resultMap = (Map<String, DataType>) workDefinitionMap.get( "results" );
-                            if ( resultMap != null ) {
-                                for ( Map.Entry<String, DataType> entry : resultMap.entrySet() ) {
-                                    results.add( new ParameterDefinitionImpl( entry.getKey(),
-                                                                              entry.getValue() ) );
-                                }
+                    if ( workDefinitionMap.get( "results" ) != null ) {
+                        final Set<ParameterDefinition> results = new HashSet<ParameterDefinition>();
+                        final Map<String, DataType> resultMap = (Map<String, DataType>) workDefinitionMap.get( "results" );
+                        if ( resultMap != null ) {
+                            for ( Map.Entry<String, DataType> entry : resultMap.entrySet() ) {
+                                results.add( new ParameterDefinitionImpl( entry.getKey(),
+                                                                          entry.getValue() ) );
                             }
-                            workDefinition.setResults( results );
-                        }
-                        if ( workDefinitionMap.get( "defaultHandler" ) != null ) {
-                            workDefinition.setDefaultHandler( (String) workDefinitionMap.get( "defaultHandler" ) );
-                        }
-                        if ( workDefinitionMap.get( "dependencies" ) != null ) {
-                            workDefinition.setDependencies( ( (List<String>) workDefinitionMap.get( "dependencies" ) ).toArray( new String[ 0 ] ) );
                         }
-                        workDefinitions.put( workDefinition.getName(),
-                                             workDefinition );
+                        workDefinition.setResults( results );
+                    }
+                    if ( workDefinitionMap.get( "defaultHandler" ) != null ) {
+                        workDefinition.setDefaultHandler( (String) workDefinitionMap.get( "defaultHandler" ) );
+                    }
+                    if ( workDefinitionMap.get( "dependencies" ) != null ) {
+                        workDefinition.setDependencies( ( (List<String>) workDefinitionMap.get( "dependencies" ) ).toArray( new String[ 0 ] ) );
                     }
+                    workDefinitions.put( workDefinition.getName(),
+                                         workDefinition );
                 }
             }
         }
@@ -0,0 +1,410 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.drools.workbench.backend.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.drools.workbench.screens.indexing.backend.server.IndexingContext;
+import org.guvnor.structure.repositories.Repository;
+import org.guvnor.structure.repositories.RepositoryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.backend.server.util.Paths;
+import org.uberfire.ext.metadata.backend.lucene.LuceneConfig;
+import org.uberfire.ext.metadata.engine.Indexer;
+import org.uberfire.ext.metadata.engine.MetaIndexEngine;
+import org.uberfire.ext.metadata.io.IndexersFactory;
+import org.uberfire.ext.metadata.io.KObjectUtil;
+import org.uberfire.ext.metadata.model.KCluster;
+import org.uberfire.ext.metadata.model.KObject;
+import org.uberfire.java.nio.file.FileVisitResult;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.SimpleFileVisitor;
+import org.uberfire.java.nio.file.attribute.BasicFileAttributes;
+
+import static org.uberfire.java.nio.file.Files.*;
+
+/**
+ * Re-indexes whole repositories in bulk. Files are read, unmarshalled and visited by the registered Indexers on a
+ * bounded pool of worker threads; the resulting KObjects are written to the index in batches by a single writer
+ * thread, so the workers never contend for the index. Progress and throughput are logged as files are indexed.
+ */
+@ApplicationScoped
+public class BulkReindexService {
+
+    private static final Logger logger = LoggerFactory.getLogger( BulkReindexService.class );
+
+    //Number of worker threads; defaults to the number of available processors
+    public static final String WORKER_THREADS_PROPERTY = "org.drools.workbench.indexing.threads";
+
+    //Number of KObjects written to the index by each call to the index engine
+    private static final int WRITE_BATCH_SIZE = 500;
+
+    //Number of files that can be waiting for, or held by, each worker before the file walker blocks
+    private static final int QUEUED_FILES_PER_WORKER = 64;
+
+    //Number of indexed files that can be waiting for the writer before workers block
+    static final int QUEUED_WRITES = 2000;
+
+    //Frequency with which blocked workers check that the writer is still running
+    private static final long WRITE_TIMEOUT_MS = 500;
+
+    //Frequency with which progress is logged
+    private static final int PROGRESS_INTERVAL = 1000;
+
+    //Marks the end of the KObjects to be written
+    private static final List<KObject> END_OF_WRITES = Collections.emptyList();
+
+    private LuceneConfig config;
+    private RepositoryService repositoryService;
+    private IndexingContext indexingContext;
+
+    public BulkReindexService() {
+        //CDI proxy
+    }
+
+    @Inject
+    public BulkReindexService( final @Named("luceneConfig") LuceneConfig config,
+                               final RepositoryService repositoryService,
+                               final IndexingContext indexingContext ) {
+        this.config = config;
+        this.repositoryService = repositoryService;
+        this.indexingContext = indexingContext;
+    }
+
+    /**
+     * Re-index all Repositories
+     */
+    public void reindexAll() {
+        for ( Repository repository : repositoryService.getRepositories() ) {
+            reindex( Paths.convert( repository.getRoot() ) );
+        }
+    }
+
+    /**
+     * Re-index all files beneath the root of a FileSystem
+     * @param root Root Path of the FileSystem
+     * @return Number of files indexed
+     * @throws IllegalStateException if the index could not be written
+     */
+    public long reindex( final Path root ) {
+        return reindex( root,
+                        KObjectUtil.toKCluster( root.getFileSystem() ) );
+    }
+
+    long reindex( final Path root,
+                  final KCluster cluster ) {
+        final MetaIndexEngine indexEngine = config.getIndexEngine();
+        final List<Indexer> indexers = new ArrayList<Indexer>( IndexersFactory.getIndexers() );
+        final BlockingQueue<List<KObject>> writes = new ArrayBlockingQueue<List<KObject>>( QUEUED_WRITES );
+        final Progress progress = new Progress( cluster.getClusterId() );
+
+        logger.info( "Starting bulk re-index of '" + cluster.getClusterId() + "'." );
+
+        indexEngine.startBatch( cluster );
+        final IndexingContext.Batch batch = indexingContext.startBatch();
+        final Writer writer = new Writer( indexEngine,
+                                          cluster,
+                                          writes,
+                                          progress );
+        final Thread writerThread = new Thread( writer,
+                                                "drools-wb-reindex-writer" );
+        writerThread.start();
+
+        final ThreadPoolExecutor workers = makeWorkers();
+        try {
+            walkFileTree( root,
+                          new SimpleFileVisitor<Path>() {
+                              @Override
+                              public FileVisitResult visitFile( final Path file,
+                                                                final BasicFileAttributes attrs ) {
+                                  //Nothing more can be written if the writer has stopped
+                                  if ( writer.isStopped() ) {
+                                      return FileVisitResult.TERMINATE;
+                                  }
+                                  //Dot files hold the attributes of other files
+                                  if ( !file.getFileName().toString().startsWith( "." ) ) {
+                                      workers.execute( new Worker( file,
+                                                                   indexers,
+                                                                   indexingContext,
+                                                                   batch,
+                                                                   writes,
+                                                                   writer,
+                                                                   progress ) );
+                                  }
+                                  return FileVisitResult.CONTINUE;
+                              }
+                          } );
+        } finally {
+            if ( writer.isStopped() ) {
+                workers.shutdownNow();
+            } else {
+                workers.shutdown();
+            }
+            try {
+                workers.awaitTermination( Long.MAX_VALUE,
+                                          TimeUnit.MILLISECONDS );
+                enqueue( writes,
+                         END_OF_WRITES,
+                         writer );
+                writerThread.join();
+            } catch ( InterruptedException ie ) {
+                Thread.currentThread().interrupt();
+                workers.shutdownNow();
+                writerThread.interrupt();
+            }
+            indexingContext.endBatch( batch );
+        }
+
+        if ( writer.getFailure() != null ) {
+            throw new IllegalStateException( "Bulk re-index of '" + cluster.getClusterId() + "' failed after " + progress.indexed.get() + " files.",
+                                             writer.getFailure() );
+        }
+
+        progress.logSummary();
+        return progress.indexed.get();
+    }
+
+    //Queue KObjects for the writer, giving up if the writer stops before there is space
+    private static boolean enqueue( final BlockingQueue<List<KObject>> writes,
+                                    final List<KObject> kObjects,
+                                    final Writer writer ) throws InterruptedException {
+        while ( !writes.offer( kObjects,
+                               WRITE_TIMEOUT_MS,
+                               TimeUnit.MILLISECONDS ) ) {
+            if ( writer.isStopped() ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ThreadPoolExecutor makeWorkers() {
+        final int threads = Integer.getInteger( WORKER_THREADS_PROPERTY,
+                                                Runtime.getRuntime().availableProcessors() );
+        final AtomicInteger threadNumber = new AtomicInteger();
+        //The file walker runs queued files itself when the workers are saturated, bounding memory use
+        return new ThreadPoolExecutor( threads,
+                                       threads,
+                                       0L,
+                                       TimeUnit.MILLISECONDS,
+                                       new ArrayBlockingQueue<Runnable>( threads * QUEUED_FILES_PER_WORKER ),
+                                       new ThreadFactory() {
+                                           @Override
+                                           public Thread newThread( final Runnable r ) {
+                                               return new Thread( r,
+                                                                  "drools-wb-reindex-worker-" + threadNumber.incrementAndGet() );
+                                           }
+                                       },
+                                       new ThreadPoolExecutor.CallerRunsPolicy() );
+    }
+
+    private static class Worker implements Runnable {
+
+        private final Path file;
+        private final List<Indexer> indexers;
+        private final IndexingContext indexingContext;
+        private final IndexingContext.Batch batch;
+        private final BlockingQueue<List<KObject>> writes;
+        private final Writer writer;
+        private final Progress progress;
+
+        private Worker( final Path file,
+                        final List<Indexer> indexers,
+                        final IndexingContext indexingContext,
+                        final IndexingContext.Batch batch,
+                        final BlockingQueue<List<KObject>> writes,
+                        final Writer writer,
+                        final Progress progress ) {
+            this.file = file;
+            this.indexers = indexers;
+            this.indexingContext = indexingContext;
+            this.batch = batch;
+            this.writes = writes;
+            this.writer = writer;
+            this.progress = progress;
+        }
+
+        @Override
+        public void run() {
+            if ( writer.isStopped() ) {
+                return;
+            }
+            final List<KObject> kObjects = new ArrayList<KObject>();
+            final IndexingContext.Batch previousBatch = indexingContext.joinBatch( batch );
+            try {
+                for ( Indexer indexer : indexers ) {
+                    if ( indexer.supportsPath( file ) ) {
+                        final KObject kObject = indexer.toKObject( file );
+                        if ( kObject != null ) {
+                            kObjects.add( kObject );
+                        }
+                    }
+                }
+            } catch ( Exception e ) {
+                progress.fileFailed();
+                logger.error( "Unable to index '" + file.toUri().toString() + "'.",
+                              e );
+                return;
+            } finally {
+                indexingContext.leaveBatch( previousBatch );
+            }
+            if ( kObjects.isEmpty() ) {
+                progress.fileSkipped();
+                return;
+            }
+            try {
+                enqueue( writes,
+                         kObjects,
+                         writer );
+            } catch ( InterruptedException ie ) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+    }
+
+    private static class Writer implements Runnable {
+
+        private final MetaIndexEngine indexEngine;
+        private final KCluster cluster;
+        private final BlockingQueue<List<KObject>> writes;
+        private final Progress progress;
+
+        //Set once the writer will take no more KObjects, whether it completed or failed
+        private volatile boolean stopped = false;
+        private volatile Throwable failure;
+
+        private Writer( final MetaIndexEngine indexEngine,
+                        final KCluster cluster,
+                        final BlockingQueue<List<KObject>> writes,
+                        final Progress progress ) {
+            this.indexEngine = indexEngine;
+            this.cluster = cluster;
+            this.writes = writes;
+            this.progress = progress;
+        }
+
+        @Override
+        public void run() {
+            final List<KObject> batch = new ArrayList<KObject>( WRITE_BATCH_SIZE );
+            int batchFiles = 0;
+            try {
+                while ( true ) {
+                    final List<KObject> kObjects = writes.take();
+                    if ( kObjects == END_OF_WRITES ) {
+                        break;
+                    }
+                    batch.addAll( kObjects );
+                    batchFiles++;
+                    if ( batch.size() >= WRITE_BATCH_SIZE ) {
+                        write( batch,
+                               batchFiles );
+                        batchFiles = 0;
+                    }
+                }
+                write( batch,
+                       batchFiles );
+            } catch ( InterruptedException ie ) {
+                Thread.currentThread().interrupt();
+            } catch ( Throwable t ) {
+                failure = t;
+                logger.error( "Unable to write to index '" + cluster.getClusterId() + "'.",
+                              t );
+            } finally {
+                stopped = true;
+                writes.clear();
+                indexEngine.commit( cluster );
+            }
+        }
+
+        private boolean isStopped() {
+            return stopped;
+        }
+
+        private Throwable getFailure() {
+            return failure;
+        }
+
+        private void write( final List<KObject> batch,
+                            final int batchFiles ) {
+            if ( batch.isEmpty() ) {
+                return;
+            }
+            indexEngine.index( batch.toArray( new KObject[ batch.size() ] ) );
+            batch.clear();
+            progress.filesIndexed( batchFiles );
+        }
+
+    }
+
+    private static class Progress {
+
+        private final String clusterId;
+        private final long startTime = System.currentTimeMillis();
+        private final AtomicLong indexed = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+
+        private Progress( final String clusterId ) {
+            this.clusterId = clusterId;
+        }
+
+        private void fileSkipped() {
+            skipped.incrementAndGet();
+        }
+
+        private void fileFailed() {
+            failed.incrementAndGet();
+        }
+
+        private void filesIndexed( final int count ) {
+            final long before = indexed.getAndAdd( count );
+            final long after = before + count;
+            if ( after / PROGRESS_INTERVAL > before / PROGRESS_INTERVAL ) {
+                logger.info( "Re-indexed " + after + " files of '" + clusterId + "' (" + getThroughput( after ) + " files/s)." );
+            }
+        }
+
+        private void logSummary() {
+            final long total = indexed.get();
+            logger.info( "Completed bulk re-index of '" + clusterId + "' in " + ( System.currentTimeMillis() - startTime ) + "ms: "
+                                 + total + " files indexed (" + getThroughput( total ) + " files/s), "
+                                 + skipped.get() + " files not supported, "
+                                 + failed.get() + " files failed." );
+        }
+
+        private long getThroughput( final long count ) {
+            final long elapsed = Math.max( 1,
+                                           System.currentTimeMillis() - startTime );
+            return ( count * 1000 ) / elapsed;
+        }
+
+    }
+
+}
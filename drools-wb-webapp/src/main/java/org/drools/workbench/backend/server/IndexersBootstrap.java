@@ -24,6 +24,8 @@ import javax.enterprise.inject.Any;
 import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.uberfire.commons.services.cdi.Startup;
 import org.uberfire.commons.services.cdi.StartupType;
 import org.uberfire.ext.metadata.engine.Indexer;
@@ -33,15 +35,44 @@ import org.uberfire.ext.metadata.io.IndexersFactory;
 @ApplicationScoped
 public class IndexersBootstrap {
 
+    private static final Logger logger = LoggerFactory.getLogger( IndexersBootstrap.class );
+
+    //Set to "true" to re-index all Repositories in bulk on start-up (for example following an upgrade)
+    public static final String BULK_REINDEX_PROPERTY = "org.drools.workbench.indexing.bulkReindex";
+
     @Inject
     @Any
     private Instance<Indexer> indexers;
 
+    @Inject
+    private BulkReindexService bulkReindexService;
+
     @PostConstruct
     public void setup() {
         for ( Indexer indexer : getIndexers() ) {
             IndexersFactory.addIndexer( indexer );
         }
+        if ( Boolean.getBoolean( BULK_REINDEX_PROPERTY ) ) {
+            startBulkReindex();
+        }
+    }
+
+    //Re-indexing large Repositories can take some time so do not block start-up
+    private void startBulkReindex() {
+        final Thread thread = new Thread( new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    bulkReindexService.reindexAll();
+                } catch ( Exception e ) {
+                    logger.error( "Bulk re-index failed.",
+                                  e );
+                }
+            }
+        },
+                                          "drools-wb-bulk-reindex" );
+        thread.setDaemon( true );
+        thread.start();
     }
 
     private Set<Indexer> getIndexers() {
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2015 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.drools.workbench.backend.server;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.URI;
+
+import org.drools.workbench.screens.indexing.backend.server.IndexingContext;
+import org.guvnor.structure.repositories.RepositoryService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.uberfire.ext.metadata.backend.lucene.LuceneConfig;
+import org.uberfire.ext.metadata.engine.Indexer;
+import org.uberfire.ext.metadata.engine.MetaIndexEngine;
+import org.uberfire.ext.metadata.io.IndexersFactory;
+import org.uberfire.ext.metadata.model.KCluster;
+import org.uberfire.ext.metadata.model.KObject;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.Paths;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class BulkReindexServiceTest {
+
+    //Enough files to fill the queue of writes should the writer stop taking them
+    private static final int FILE_COUNT = BulkReindexService.QUEUED_WRITES * 2;
+
+    private File folder;
+    private MetaIndexEngine indexEngine;
+    private IndexingContext indexingContext;
+    private KCluster cluster;
+    private BulkReindexService service;
+
+    @Before
+    public void setup() throws IOException {
+        folder = File.createTempFile( "reindex",
+                                      "" );
+        folder.delete();
+        folder.mkdirs();
+        for ( int i = 0; i < FILE_COUNT; i++ ) {
+            final FileWriter writer = new FileWriter( new File( folder,
+                                                                "file" + i + ".drl" ) );
+            writer.write( "rule \"r" + i + "\" when then end" );
+            writer.close();
+        }
+
+        final Indexer indexer = mock( Indexer.class );
+        when( indexer.supportsPath( any( Path.class ) ) ).thenReturn( true );
+        when( indexer.toKObject( any( Path.class ) ) ).thenReturn( mock( KObject.class ) );
+        IndexersFactory.clear();
+        IndexersFactory.addIndexer( indexer );
+
+        indexEngine = mock( MetaIndexEngine.class );
+        final LuceneConfig config = mock( LuceneConfig.class );
+        when( config.getIndexEngine() ).thenReturn( indexEngine );
+
+        cluster = mock( KCluster.class );
+        when( cluster.getClusterId() ).thenReturn( "test" );
+
+        indexingContext = mock( IndexingContext.class );
+        service = new BulkReindexService( config,
+                                          mock( RepositoryService.class ),
+                                          indexingContext );
+    }
+
+    @After
+    public void tearDown() {
+        IndexersFactory.clear();
+        final File[] files = folder.listFiles();
+        if ( files != null ) {
+            for ( File file : files ) {
+                file.delete();
+            }
+        }
+        folder.delete();
+    }
+
+    @Test
+    public void testReindex() {
+        final long indexed = service.reindex( getRoot(),
+                                              cluster );
+
+        assertEquals( FILE_COUNT,
+                      indexed );
+        verify( indexEngine ).commit( cluster );
+        verify( indexingContext ).endBatch( any( IndexingContext.Batch.class ) );
+    }
+
+    @Test(timeout = 60000)
+    public void testIndexEngineFailure() {
+        final RuntimeException failure = new RuntimeException( "Index is read-only" );
+        doThrow( failure ).when( indexEngine ).index( Matchers.<KObject>anyVararg() );
+
+        try {
+            service.reindex( getRoot(),
+                             cluster );
+            fail( "Failure to write the index should be reported" );
+        } catch ( IllegalStateException ise ) {
+            assertSame( failure,
+                        ise.getCause() );
+        }
+
+        //The batch is still closed
+        verify( indexEngine ).commit( cluster );
+        verify( indexingContext ).endBatch( any( IndexingContext.Batch.class ) );
+    }
+
+    private Path getRoot() {
+        return Paths.get( URI.create( "file://" + folder.getAbsolutePath() ) );
+    }
+
+}